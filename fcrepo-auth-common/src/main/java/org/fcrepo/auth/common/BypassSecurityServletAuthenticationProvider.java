@@ -19,6 +19,7 @@ import java.util.Map;
 
 import javax.jcr.Credentials;
 
+import org.fcrepo.kernel.DetachedCredentials;
 import org.modeshape.jcr.ExecutionContext;
 import org.modeshape.jcr.api.ServletCredentials;
 import org.modeshape.jcr.security.AuthenticationProvider;
@@ -45,7 +46,7 @@ public class BypassSecurityServletAuthenticationProvider implements
             final String repositoryName, final String workspaceName,
             final ExecutionContext repositoryContext,
             final Map<String, Object> sessionAttributes) {
-        if (credentials instanceof ServletCredentials) {
+        if (credentials instanceof ServletCredentials || credentials instanceof DetachedCredentials) {
             return repositoryContext
                     .with(new AnonymousAdminSecurityContext("bypassAdmin"));
         }
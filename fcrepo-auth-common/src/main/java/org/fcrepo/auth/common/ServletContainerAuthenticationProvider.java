@@ -24,6 +24,7 @@ import java.util.Set;
 import javax.jcr.Credentials;
 import javax.servlet.http.HttpServletRequest;
 
+import org.fcrepo.kernel.DetachedCredentials;
 import org.modeshape.jcr.ExecutionContext;
 import org.modeshape.jcr.api.ServletCredentials;
 import org.modeshape.jcr.security.AuthenticationProvider;
@@ -134,6 +135,12 @@ public class ServletContainerAuthenticationProvider implements
      * authenticated user's principal; FEDORA_ALL_PRINCIPALS will be assigned
      * the singleton set containing the EVERYONE principal otherwise.</li>
      * </ul>
+     * <p>
+     * {@link DetachedCredentials}, captured from a session this provider
+     * authenticated, re-establish that session's user and principals without
+     * a request, for work that outlives the request, such as a background
+     * job. FEDORA_SERVLET_REQUEST is not assigned for them.
+     * </p>
      */
     @Override
     public ExecutionContext authenticate(final Credentials credentials,
@@ -142,6 +149,10 @@ public class ServletContainerAuthenticationProvider implements
             final Map<String, Object> sessionAttributes) {
         LOGGER.debug("Trying to authenticate: {}; FAD: {}", credentials, fad);
 
+        if (credentials instanceof DetachedCredentials) {
+            return authenticate((DetachedCredentials) credentials, repositoryContext, sessionAttributes);
+        }
+
         if (!(credentials instanceof ServletCredentials)) {
             return null;
         }
@@ -190,6 +201,24 @@ public class ServletContainerAuthenticationProvider implements
                 userPrincipal, fad));
     }
 
+    private ExecutionContext authenticate(final DetachedCredentials credentials,
+            final ExecutionContext repositoryContext, final Map<String, Object> sessionAttributes) {
+        final Principal userPrincipal =
+                (Principal) credentials.getAttribute(FedoraAuthorizationDelegate.FEDORA_USER_PRINCIPAL);
+
+        // only the session of a fedoraAdmin is given no user principal
+        if (userPrincipal == null) {
+            return repositoryContext.with(new FedoraAdminSecurityContext(credentials.getUserID()));
+        }
+
+        sessionAttributes.put(FedoraAuthorizationDelegate.FEDORA_USER_PRINCIPAL, userPrincipal);
+        sessionAttributes.put(FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS,
+                credentials.getAttribute(FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS));
+
+        return repositoryContext.with(new FedoraUserSecurityContext(
+                EVERYONE.equals(userPrincipal) ? null : userPrincipal, fad));
+    }
+
     /**
      * @return the authorization delegate
      */
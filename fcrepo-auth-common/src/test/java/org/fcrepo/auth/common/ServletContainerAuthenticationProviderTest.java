@@ -16,6 +16,8 @@
 package org.fcrepo.auth.common;
 
 import static org.fcrepo.auth.common.FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS;
+import static org.fcrepo.auth.common.FedoraAuthorizationDelegate.FEDORA_SERVLET_REQUEST;
+import static org.fcrepo.auth.common.FedoraAuthorizationDelegate.FEDORA_USER_PRINCIPAL;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -37,6 +39,7 @@ import javax.jcr.Credentials;
 import javax.jcr.Session;
 import javax.servlet.http.HttpServletRequest;
 
+import org.fcrepo.kernel.DetachedCredentials;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -133,6 +136,46 @@ public class ServletContainerAuthenticationProviderTest {
                 "adminName", result.getSecurityContext().getUserName());
     }
 
+    @Test
+    public void testAuthenticateDetachedUser() {
+        final ServletContainerAuthenticationProvider provider =
+                (ServletContainerAuthenticationProvider) ServletContainerAuthenticationProvider.getInstance();
+        provider.setFad(fad);
+        when(principal.getName()).thenReturn("userName");
+        provider.authenticate(creds, "repo", "workspace", context, sessionAttributes);
+
+        final Session session = mock(Session.class);
+        when(session.getUserID()).thenReturn("userName");
+        when(session.getAttributeNames()).thenReturn(sessionAttributes.keySet().toArray(new String[0]));
+        for (final Map.Entry<String, Object> attribute : sessionAttributes.entrySet()) {
+            when(session.getAttribute(attribute.getKey())).thenReturn(attribute.getValue());
+        }
+
+        final Map<String, Object> detachedAttributes = new HashMap<>();
+        final ExecutionContext result = provider.authenticate(new DetachedCredentials(session), "repo",
+                "workspace", context, detachedAttributes);
+
+        assertEquals("userName", result.getSecurityContext().getUserName());
+        assertEquals(principal, detachedAttributes.get(FEDORA_USER_PRINCIPAL));
+        assertEquals(sessionAttributes.get(FEDORA_ALL_PRINCIPALS), detachedAttributes.get(FEDORA_ALL_PRINCIPALS));
+        assertNull(detachedAttributes.get(FEDORA_SERVLET_REQUEST));
+    }
+
+    @Test
+    public void testAuthenticateDetachedFedoraAdmin() {
+        final AuthenticationProvider provider = ServletContainerAuthenticationProvider.getInstance();
+
+        final Session session = mock(Session.class);
+        when(session.getUserID()).thenReturn("adminName");
+        when(session.getAttributeNames()).thenReturn(new String[0]);
+
+        final ExecutionContext result = provider.authenticate(new DetachedCredentials(session), "repo",
+                "workspace", context, sessionAttributes);
+
+        assertTrue(result.getSecurityContext() instanceof FedoraAdminSecurityContext);
+        assertEquals("adminName", result.getSecurityContext().getUserName());
+    }
+
     @Test
     public void testAuthenticateUserRole() {
         final ServletContainerAuthenticationProvider provider =
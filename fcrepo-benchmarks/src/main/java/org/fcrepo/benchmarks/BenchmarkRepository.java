@@ -0,0 +1,94 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.benchmarks;
+
+import static java.util.Collections.singletonMap;
+import static org.modeshape.jcr.api.RepositoryFactory.URL;
+
+import java.util.concurrent.ExecutionException;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.FedoraObject;
+import org.fcrepo.kernel.impl.services.ObjectServiceImpl;
+import org.modeshape.jcr.JcrRepository;
+import org.modeshape.jcr.JcrRepositoryFactory;
+
+/**
+ * An in-memory ModeShape repository holding the fixtures the benchmarks
+ * read
+ *
+ * @author agent
+ */
+public class BenchmarkRepository {
+
+    /**
+     * The path of an object with a few dozen properties
+     */
+    public static final String OBJECT_PATH = "/benchmark/object";
+
+    private static final String CONFIGURATION = "/config/benchmark/repository.json";
+
+    private final JcrRepository repository;
+
+    /**
+     * Start a repository and create the fixtures
+     * @throws RepositoryException
+     */
+    public BenchmarkRepository() throws RepositoryException {
+        repository = (JcrRepository) new JcrRepositoryFactory().getRepository(
+                singletonMap(URL, BenchmarkRepository.class.getResource(CONFIGURATION).toString()));
+
+        final ObjectServiceImpl objectService = new ObjectServiceImpl();
+        objectService.setRepository(repository);
+
+        final Session session = repository.login();
+        try {
+            final FedoraObject object = objectService.createObject(session, OBJECT_PATH);
+            final Node node = object.getNode();
+            node.setProperty("dc:title", "A benchmark object");
+            node.setProperty("dc:subject", new String[] {"benchmarks", "performance", "regressions"});
+            for (int i = 0; i < 32; i++) {
+                node.setProperty("dc:description" + i, "Property " + i + " of a benchmark object");
+            }
+            for (int i = 0; i < 100; i++) {
+                objectService.createObject(session, OBJECT_PATH + "/child" + i);
+            }
+            session.save();
+        } finally {
+            session.logout();
+        }
+    }
+
+    /**
+     * @return a new session
+     * @throws RepositoryException
+     */
+    public Session login() throws RepositoryException {
+        return repository.login();
+    }
+
+    /**
+     * Stop the repository
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public void shutdown() throws InterruptedException, ExecutionException {
+        repository.shutdown().get();
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.benchmarks;
+
+import static java.security.MessageDigest.getInstance;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+import org.fcrepo.kernel.impl.utils.FixityInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of {@link FixityInputStream}, computing one or more digests of
+ * the content read through it
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+public class FixityInputStreamBenchmark {
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    @Param({"SHA-1", "SHA-1,MD5,SHA-256"})
+    public String algorithms;
+
+    private byte[] content;
+
+    private final byte[] buffer = new byte[8192];
+
+    /**
+     * Generate the content
+     */
+    @Setup
+    public void setUp() {
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+    }
+
+    /**
+     * @return the first digest
+     * @throws IOException
+     * @throws NoSuchAlgorithmException
+     */
+    @Benchmark
+    public byte[] read() throws IOException, NoSuchAlgorithmException {
+        final String[] names = algorithms.split(",");
+        final MessageDigest[] digests = new MessageDigest[names.length];
+        for (int i = 0; i < names.length; i++) {
+            digests[i] = getInstance(names[i]);
+        }
+
+        try (final FixityInputStream in = new FixityInputStream(new ByteArrayInputStream(content), digests)) {
+            while (in.read(buffer) != -1) {
+                // the digests are computed as the content is read
+            }
+            return in.getMessageDigest().digest();
+        }
+    }
+}
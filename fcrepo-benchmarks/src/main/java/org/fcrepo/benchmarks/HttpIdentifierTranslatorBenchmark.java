@@ -0,0 +1,159 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.benchmarks;
+
+import static org.fcrepo.benchmarks.BenchmarkRepository.OBJECT_PATH;
+import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.ws.rs.Path;
+
+import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * Translation between repository paths and HTTP subjects
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+public class HttpIdentifierTranslatorBenchmark {
+
+    /**
+     * A resource class to mint subjects relative to
+     */
+    @Path("/{path: .*}")
+    public static class Nodes {
+    }
+
+    /**
+     * The number of distinct paths cycled through, twice as many as a
+     * translator memoizes, so that each translation misses the memo
+     */
+    private static final int DISTINCT = 20000;
+
+    /**
+     * A thread's place in the cycle of paths
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        int next() {
+            position = (position + 1) % DISTINCT;
+            return position;
+        }
+    }
+
+    private BenchmarkRepository repository;
+
+    private Session session;
+
+    private HttpIdentifierTranslator subjects;
+
+    private String[] paths;
+
+    private Resource[] distinctSubjects;
+
+    private Resource subject;
+
+    /**
+     * Start the repository
+     * @throws RepositoryException
+     */
+    @Setup
+    public void setUp() throws RepositoryException {
+        repository = new BenchmarkRepository();
+        session = repository.login();
+        subjects = new HttpIdentifierTranslator(session, Nodes.class, getUriInfoImpl());
+        subject = subjects.getSubject(OBJECT_PATH + "/child42");
+
+        // minted by a translator of their own, so as not to fill the memo
+        // of the one measured
+        final HttpIdentifierTranslator minter = new HttpIdentifierTranslator(session, Nodes.class, getUriInfoImpl());
+        paths = new String[DISTINCT];
+        distinctSubjects = new Resource[DISTINCT];
+
+        for (int i = 0; i < DISTINCT; i++) {
+            paths[i] = OBJECT_PATH + "/child" + i + "/part" + i;
+            distinctSubjects[i] = minter.getSubject(paths[i]);
+        }
+    }
+
+    /**
+     * Stop the repository
+     * @throws Exception
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+        session.logout();
+        repository.shutdown();
+    }
+
+    /**
+     * @param cursor
+     * @return the subject of a path the translator has not memoized
+     * @throws RepositoryException
+     */
+    @Benchmark
+    public Resource getSubject(final Cursor cursor) throws RepositoryException {
+        return subjects.getSubject(paths[cursor.next()]);
+    }
+
+    /**
+     * @param cursor
+     * @return the path of a subject the translator has not memoized
+     * @throws RepositoryException
+     */
+    @Benchmark
+    public String getPathFromSubject(final Cursor cursor) throws RepositoryException {
+        return subjects.getPathFromSubject(distinctSubjects[cursor.next()]);
+    }
+
+    /**
+     * @return the subject of a path the translator has memoized
+     * @throws RepositoryException
+     */
+    @Benchmark
+    public Resource getMemoizedSubject() throws RepositoryException {
+        return subjects.getSubject(OBJECT_PATH + "/child42");
+    }
+
+    /**
+     * @return the path of a subject the translator has memoized
+     * @throws RepositoryException
+     */
+    @Benchmark
+    public String getMemoizedPathFromSubject() throws RepositoryException {
+        return subjects.getPathFromSubject(subject);
+    }
+
+    /**
+     * @return a new translator, as every request builds one
+     */
+    @Benchmark
+    public HttpIdentifierTranslator create() {
+        return new HttpIdentifierTranslator(session, Nodes.class, getUriInfoImpl());
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.benchmarks;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.impl.rdf.impl.DefaultIdentifierTranslator;
+import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.transform.sparql.JQLConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Translation of SPARQL queries into JCR-SQL2 by the
+ * {@link org.fcrepo.transform.sparql.JQLQueryVisitor}
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+public class JQLConverterBenchmark {
+
+    private static final String QUERY = "PREFIX dc: <http://purl.org/dc/elements/1.1/> "
+            + "SELECT ?subject ?title WHERE { ?subject dc:title ?title . "
+            + "?subject <http://fedora.info/definitions/v4/repository#hasParent> <info:fedora/benchmark/object> "
+            + "FILTER regex(?title, \"benchmark\", \"i\") } ORDER BY ?title LIMIT 10 OFFSET 20";
+
+    private BenchmarkRepository repository;
+
+    private Session session;
+
+    private final IdentifierTranslator subjects = new DefaultIdentifierTranslator();
+
+    /**
+     * Start the repository
+     * @throws RepositoryException
+     */
+    @Setup
+    public void setUp() throws RepositoryException {
+        repository = new BenchmarkRepository();
+        session = repository.login();
+    }
+
+    /**
+     * Stop the repository
+     * @throws Exception
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+        session.logout();
+        repository.shutdown();
+    }
+
+    /**
+     * @return the JCR-SQL2 translation of the query
+     * @throws RepositoryException
+     */
+    @Benchmark
+    public String translate() throws RepositoryException {
+        return new JQLConverter(session, subjects, QUERY).getStatement();
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.benchmarks;
+
+import static org.fcrepo.benchmarks.BenchmarkRepository.OBJECT_PATH;
+import static org.fcrepo.benchmarks.RdfStreamBenchmark.drain;
+import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.property2values;
+
+import java.util.Iterator;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+
+import org.fcrepo.kernel.impl.rdf.JcrRdfTools;
+import org.fcrepo.kernel.impl.rdf.impl.DefaultIdentifierTranslator;
+import org.fcrepo.kernel.impl.rdf.impl.mappings.PropertyToTriple;
+import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.utils.iterators.PropertyIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.base.Function;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Translation of JCR properties into triples, for a whole node with
+ * {@link JcrRdfTools#getJcrTriples} and property by property with
+ * {@link PropertyToTriple}
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+public class JcrRdfToolsBenchmark {
+
+    private BenchmarkRepository repository;
+
+    private Session session;
+
+    private Node node;
+
+    private final IdentifierTranslator subjects = new DefaultIdentifierTranslator();
+
+    private final PropertyToTriple propertyToTriple = new PropertyToTriple(subjects);
+
+    /**
+     * Start the repository
+     * @throws RepositoryException
+     */
+    @Setup
+    public void setUp() throws RepositoryException {
+        repository = new BenchmarkRepository();
+        session = repository.login();
+        node = session.getNode(OBJECT_PATH);
+    }
+
+    /**
+     * Stop the repository
+     * @throws Exception
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+        session.logout();
+        repository.shutdown();
+    }
+
+    /**
+     * @param bh
+     * @throws RepositoryException
+     */
+    @Benchmark
+    public void getJcrTriples(final Blackhole bh) throws RepositoryException {
+        drain(JcrRdfTools.withContext(subjects, session).getJcrTriples(node), bh);
+    }
+
+    /**
+     * @param bh
+     * @throws RepositoryException
+     */
+    @Benchmark
+    public void propertyToTriple(final Blackhole bh) throws RepositoryException {
+        final Iterator<Property> properties = new PropertyIterator(node.getProperties());
+
+        while (properties.hasNext()) {
+            final Property property = properties.next();
+            final Function<Iterator<Value>, Iterator<Triple>> toTriples = propertyToTriple.apply(property);
+            drain(toTriples.apply(property2values.apply(property)), bh);
+        }
+    }
+}
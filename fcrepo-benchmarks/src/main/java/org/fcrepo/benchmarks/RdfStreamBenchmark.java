@@ -0,0 +1,100 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.benchmarks;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.base.Predicate;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Composition of {@link RdfStream}s, as the RDF contexts do it
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+public class RdfStreamBenchmark {
+
+    private static final int SIZE = 1000;
+
+    private final List<Triple> triples = new ArrayList<>(SIZE);
+
+    private final Node title = createURI("http://purl.org/dc/elements/1.1/title");
+
+    private final Predicate<Triple> isTitle = new Predicate<Triple>() {
+
+        @Override
+        public boolean apply(final Triple t) {
+            return t.getPredicate().equals(title);
+        }
+    };
+
+    /**
+     * Build the triples the streams are made of
+     */
+    @Setup
+    public void setUp() {
+        final Node description = createURI("http://purl.org/dc/elements/1.1/description");
+        for (int i = 0; i < SIZE; i++) {
+            final Node subject = createURI("http://localhost/fcrepo/benchmark/" + i / 10);
+            triples.add(create(subject, i % 2 == 0 ? title : description, createLiteral("value " + i)));
+        }
+    }
+
+    /**
+     * @param bh
+     */
+    @Benchmark
+    public void concat(final Blackhole bh) {
+        drain(new RdfStream(triples).concat(triples.iterator()).concat(triples), bh);
+    }
+
+    /**
+     * @param bh
+     */
+    @Benchmark
+    public void filter(final Blackhole bh) {
+        drain(new RdfStream(triples).filter(isTitle), bh);
+    }
+
+    /**
+     * @param bh
+     */
+    @Benchmark
+    public void limit(final Blackhole bh) {
+        drain(new RdfStream(triples).skip(100).limit(500), bh);
+    }
+
+    static void drain(final Iterator<Triple> triples, final Blackhole bh) {
+        while (triples.hasNext()) {
+            bh.consume(triples.next());
+        }
+    }
+}
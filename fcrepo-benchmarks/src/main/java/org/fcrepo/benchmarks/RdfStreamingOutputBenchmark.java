@@ -0,0 +1,110 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.benchmarks;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static javax.ws.rs.core.MediaType.valueOf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+
+import org.fcrepo.http.commons.responses.RdfStreamStreamingOutput;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Serialization of an {@link RdfStream} by {@link RdfStreamStreamingOutput},
+ * for the formats that are streamed and for those written through Sesame
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+public class RdfStreamingOutputBenchmark {
+
+    private static final int SIZE = 1000;
+
+    @Param({"application/n-triples", "text/turtle", "application/ld+json", "application/rdf+xml"})
+    public String mediaType;
+
+    private MediaType type;
+
+    private final List<Triple> triples = new ArrayList<>(SIZE);
+
+    /**
+     * Build the triples to write
+     */
+    @Setup
+    public void setUp() {
+        type = valueOf(mediaType);
+
+        final Node title = createURI("http://purl.org/dc/elements/1.1/title");
+        final Node hasChild = createURI("http://fedora.info/definitions/v4/repository#hasChild");
+        for (int i = 0; i < SIZE; i++) {
+            final Node subject = createURI("http://localhost/fcrepo/benchmark/" + i / 10);
+            triples.add(create(subject, title, createLiteral("title " + i)));
+            triples.add(create(subject, hasChild, createURI("http://localhost/fcrepo/benchmark/child" + i)));
+        }
+    }
+
+    /**
+     * @param bh
+     * @throws IOException
+     */
+    @Benchmark
+    public void write(final Blackhole bh) throws IOException {
+        final RdfStream stream = new RdfStream(triples)
+                .namespace("dc", "http://purl.org/dc/elements/1.1/")
+                .namespace("fedora", "http://fedora.info/definitions/v4/repository#");
+        new RdfStreamStreamingOutput(stream, type).write(new BlackholeOutputStream(bh));
+    }
+
+    /**
+     * An output stream that hands what is written to it to a blackhole
+     */
+    private static class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole bh;
+
+        BlackholeOutputStream(final Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void write(final int b) {
+            bh.consume(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            bh.consume(b);
+            bh.consume(len);
+        }
+    }
+}
@@ -20,7 +20,12 @@ import com.sun.jersey.core.header.ContentDisposition;
 import org.fcrepo.http.commons.AbstractResource;
 import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
 import org.fcrepo.http.commons.domain.Range;
+import org.fcrepo.http.commons.responses.ByteRangeOutput;
+import org.fcrepo.http.commons.responses.ByteRangeSource;
+import org.fcrepo.http.commons.responses.FileByteRangeSource;
+import org.fcrepo.http.commons.responses.MultipartByteRangesOutput;
 import org.fcrepo.http.commons.responses.RangeRequestInputStream;
+import org.fcrepo.http.commons.responses.StreamByteRangeSource;
 import org.fcrepo.kernel.Datastream;
 import org.fcrepo.kernel.impl.services.TransactionServiceImpl;
 
@@ -34,9 +39,11 @@ import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
+import java.util.List;
 
 import static javax.ws.rs.core.Response.ok;
 import static javax.ws.rs.core.Response.status;
@@ -78,26 +85,54 @@ public abstract class ContentExposingResource extends AbstractResource {
         cc.setMaxAge(0);
         cc.setMustRevalidate(true);
         Response.ResponseBuilder builder;
+        String contentType = ds.getMimeType();
 
-        if (rangeValue != null && rangeValue.startsWith("bytes")) {
+        final List<Range> ranges = rangeValue == null ? null : Range.convertAll(rangeValue);
 
-            final Range range = Range.convert(rangeValue);
+        if (ranges != null && ranges.size() > 1) {
 
             final long contentSize = ds.getContentSize();
+            final List<Range> satisfiable = Range.satisfiable(ranges, contentSize);
+
+            if (satisfiable.isEmpty()) {
+                builder = status(REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", "bytes */" + contentSize);
+            } else {
+                final File file = ds.getContentFile();
+                final ByteRangeSource source =
+                    file != null ? new FileByteRangeSource(file) : new StreamByteRangeSource(ds.getContent());
+                final MultipartByteRangesOutput output =
+                    new MultipartByteRangesOutput(source, satisfiable, contentSize, contentType);
+
+                builder = status(PARTIAL_CONTENT).entity(output);
+                contentType = output.getMediaType().toString();
+            }
+
+        } else if (rangeValue != null && rangeValue.startsWith("bytes")) {
+
+            final Range requested = Range.convert(rangeValue);
+
+            final long contentSize = ds.getContentSize();
+
+            // the last bytes are only known once the size is
+            final Range range = requested.isSuffix() ? requested.resolve(contentSize) : requested;
 
             final String endAsString;
 
-            if (range.end() == -1) {
+            if (range == null || range.end() == -1) {
                 endAsString = Long.toString(contentSize - 1);
             } else {
                 endAsString = Long.toString(range.end());
             }
 
-            final String contentRangeValue =
+            final String contentRangeValue = range == null ? "bytes */" + contentSize :
                 String.format("bytes %s-%s/%s", range.start(),
                                  endAsString, contentSize);
 
-            if (range.end() > contentSize ||
+            if (range == null) {
+                builder = status(REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", contentRangeValue);
+            } else if (range.end() > contentSize ||
                     (range.end() == -1 && range.start() > contentSize)) {
                 builder = status(REQUESTED_RANGE_NOT_SATISFIABLE)
                         .header("Content-Range", contentRangeValue);
@@ -108,7 +143,14 @@ public abstract class ContentExposingResource extends AbstractResource {
                 final long remainingBytes = contentSize - rangeStart;
                 final long bufSize = rangeSize < remainingBytes ? rangeSize : remainingBytes;
 
-                if (bufSize < maxBufferSize) {
+                final File file = ds.getContentFile();
+
+                if (file != null) {
+                    // Serve straight from the file, without buffering the range
+                    builder = status(PARTIAL_CONTENT)
+                            .entity(new ByteRangeOutput(new FileByteRangeSource(file), rangeStart, bufSize))
+                            .header("Content-Range", contentRangeValue);
+                } else if (bufSize < maxBufferSize) {
                     // Small size range content retrieval use javax.jcr.Binary to improve performance
                     final byte[] buf = new byte[(int) bufSize];
 
@@ -142,7 +184,7 @@ public abstract class ContentExposingResource extends AbstractResource {
                 .size(ds.getContentSize())
                 .build();
 
-        return builder.type(ds.getMimeType()).header(
+        return builder.type(contentType).header(
                 "Link",
                 "<" + subjects.getSubject(ds.getNode().getPath()) +
                         ">;rel=\"describedby\"").header("Accept-Ranges",
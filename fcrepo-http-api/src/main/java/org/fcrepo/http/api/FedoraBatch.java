@@ -15,9 +15,12 @@
  */
 package org.fcrepo.http.api;
 
-import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
 import static com.sun.jersey.api.Responses.notAcceptable;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
 import static javax.ws.rs.core.MediaType.MULTIPART_FORM_DATA;
 import static javax.ws.rs.core.Response.created;
 import static javax.ws.rs.core.Response.noContent;
@@ -26,6 +29,7 @@ import static javax.ws.rs.core.Response.status;
 import static javax.ws.rs.core.Response.Status;
 import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
 import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
+import static org.fcrepo.kernel.impl.services.TransactionServiceImpl.getCurrentTransactionId;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.IOException;
@@ -37,14 +41,23 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.jcr.Node;
 import javax.jcr.NodeIterator;
+import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -61,8 +74,6 @@ import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 
-import com.hp.hpl.jena.rdf.model.Model;
-
 import org.apache.commons.io.IOUtils;
 import org.apache.jena.riot.Lang;
 import org.fcrepo.http.commons.AbstractResource;
@@ -72,6 +83,7 @@ import org.fcrepo.kernel.Datastream;
 import org.fcrepo.kernel.FedoraResource;
 import org.fcrepo.kernel.exception.InvalidChecksumException;
 import org.fcrepo.kernel.utils.ContentDigest;
+import org.fcrepo.kernel.utils.StoredContent;
 import org.modeshape.jcr.ExecutionContext;
 import org.modeshape.jcr.value.PathFactory;
 import org.slf4j.Logger;
@@ -79,6 +91,7 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import com.codahale.metrics.annotation.Timed;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sun.jersey.core.header.ContentDisposition;
 import com.sun.jersey.multipart.BodyPart;
 import com.sun.jersey.multipart.BodyPartEntity;
@@ -104,6 +117,10 @@ public class FedoraBatch extends AbstractResource {
 
     private static final Logger LOGGER = getLogger(FedoraBatch.class);
 
+    private static final ExecutorService binaryWorkers = newFixedThreadPool(
+            parseInt(getProperty("fcrepo.batch.workers", "4")),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-batch-%d").build());
+
     /**
      * Apply batch modifications relative to the node.
      *
@@ -136,8 +153,14 @@ public class FedoraBatch extends AbstractResource {
      *  to delete.
      *  - otherwise, treat the entity as binary content.
      *
+     *  With parallel=true, binary content is written to the binary store by
+     *  a pool of workers while the other parts are applied in order; a
+     *  failure discards the whole batch and is answered with a report of the
+     *  status of each part. Because discarding the batch discards all unsaved
+     *  changes in the session, parallel=true is refused within a transaction.
      *
      * @param pathList
+     * @param parallel store binary content concurrently
      * @param multipart
      * @return response
      * @throws RepositoryException
@@ -147,6 +170,7 @@ public class FedoraBatch extends AbstractResource {
     @POST
     @Timed
     public Response batchModify(@PathParam("path") final List<PathSegment> pathList,
+                                @QueryParam("parallel") @DefaultValue("false") final boolean parallel,
                                 final MultiPart multipart)
         throws RepositoryException, InvalidChecksumException, IOException, URISyntaxException {
 
@@ -158,149 +182,197 @@ public class FedoraBatch extends AbstractResource {
 
         try {
 
+            if (parallel) {
+                if (getCurrentTransactionId(session) != null) {
+                    return status(Status.BAD_REQUEST)
+                               .entity("parallel=true cannot be used within a transaction").build();
+                }
+                return parallelBatchModify(path, jcrPath, pathFactory, multipart);
+            }
+
             final Set<FedoraResource> resourcesChanged = new HashSet<>();
 
             // iterate through the multipart entities
-            for (final BodyPart part : multipart.getBodyParts()) {
-                final ContentDisposition contentDisposition = part.getContentDisposition();
-
-
-                // a relative path (probably.)
-
-                final String contentDispositionType = contentDisposition.getType();
+            for (final BodyPart bodyPart : multipart.getBodyParts()) {
+                final BatchPart part = new BatchPart(bodyPart, jcrPath, pathFactory);
 
-                final String partName = contentDisposition.getParameters().get("name");
-
-                final String contentTypeString = getSimpleContentType(part.getMediaType()).toString();
-
-                LOGGER.trace("Processing {} part {} with media type {}",
-                                contentDispositionType, partName, contentTypeString);
-
-                final String realContentDisposition;
+                switch (part.disposition) {
+                    case INLINE:
+                        resourcesChanged.add(applyTriples(part));
+                        break;
 
-                // we need to apply some heuristics for "dumb" clients that
-                // can only send form-data content
-                if (contentDispositionType.equals("form-data")) {
+                    case ATTACHMENT:
+                        resourcesChanged.add(datastreamService.createDatastream(session, part.objPath,
+                                                                  part.mediaType.toString(),
+                                                                  part.fileName,
+                                                                  part.src, part.checksum()));
+                        break;
 
-                    if (contentDisposition.getFileName() != null) {
-                        realContentDisposition = ATTACHMENT;
-                    } else if (contentTypeString.equals(contentTypeSPARQLUpdate)
-                        || isRdfContentType(contentTypeString)) {
-                        realContentDisposition = INLINE;
-                    } else if (partName.equals(FORM_DATA_DELETE_PART_NAME)) {
-                        realContentDisposition = DELETE;
-                    } else {
-                        realContentDisposition = ATTACHMENT;
-                    }
+                    case DELETE:
+                        nodeService.deleteObject(session, part.objPath);
+                        break;
 
-                    LOGGER.trace("Converted form-data to content disposition {}", realContentDisposition);
-                } else {
-                    realContentDisposition = contentDispositionType;
+                    default:
+                        return status(Status.BAD_REQUEST)
+                                   .entity("Unknown Content-Disposition: " + part.disposition).build();
                 }
+            }
 
-                // convert the entity to an InputStream
-                final Object entityBody = part.getEntity();
+            return saveBatch(path, resourcesChanged);
 
-                final InputStream src;
-                if (entityBody instanceof BodyPartEntity) {
-                    final BodyPartEntity entity =
-                        (BodyPartEntity) part.getEntity();
-                    src = entity.getInputStream();
-                } else if (entityBody instanceof InputStream) {
-                    src = (InputStream) entityBody;
-                } else {
-                    LOGGER.debug("Got unknown multipart entity for {}; ignoring it", partName);
-                    src = IOUtils.toInputStream("");
-                }
+        } finally {
+            session.logout();
+        }
+    }
 
-                // convert the entity name to a node path
-                final String pathName;
+    private Response parallelBatchModify(final String path, final org.modeshape.jcr.value.Path jcrPath,
+                                         final PathFactory pathFactory, final MultiPart multipart)
+        throws RepositoryException, URISyntaxException {
 
-                if (partName.equals(FORM_DATA_DELETE_PART_NAME)) {
-                    pathName = IOUtils.toString(src);
-                } else {
-                    pathName = partName;
-                }
+        final Set<FedoraResource> resourcesChanged = new HashSet<>();
+        final Map<String, PendingContent> pending = new LinkedHashMap<>();
+        final List<BatchPart> parts = new ArrayList<>();
 
-                final String objPath = pathFactory.create(jcrPath, pathName).getCanonicalPath().getString();
+        try {
+            for (final BodyPart bodyPart : multipart.getBodyParts()) {
+                final BatchPart part = new BatchPart(bodyPart, jcrPath, pathFactory);
+                parts.add(part);
 
-                switch (realContentDisposition) {
+                switch (part.disposition) {
                     case INLINE:
+                        if (pending.containsKey(part.objPath)) {
+                            attachContent(pending);
+                        }
+                        resourcesChanged.add(applyTriples(part));
+                        break;
 
-                        final HttpIdentifierTranslator subjects =
-                            new HttpIdentifierTranslator(session, FedoraNodes.class, uriInfo);
-
-                        final FedoraResource resource;
-
-                        if (nodeService.exists(session, objPath)) {
-                            resource = nodeService.findOrCreateObject(session, objPath);
-                        } else {
-                            resource = objectService.createObject(session, objPath);
+                    case ATTACHMENT:
+                        // a later part replacing the same content waits for this one
+                        if (pending.containsKey(part.objPath)) {
+                            attachContent(pending);
                         }
+                        final Datastream datastream = datastreamService.createDatastream(session, part.objPath);
+                        final Callable<StoredContent> store = datastreamService.prepareContent(datastream,
+                                part.mediaType.toString(), part.fileName, part.src);
+                        pending.put(part.objPath, new PendingContent(part, datastream, binaryWorkers.submit(store)));
+                        resourcesChanged.add(datastream);
+                        continue;
 
-                        if (contentTypeString.equals(contentTypeSPARQLUpdate)) {
-                            resource.updatePropertiesDataset(subjects, IOUtils.toString(src));
-                        } else if (contentTypeToLang(contentTypeString) != null) {
-                            final Lang lang = contentTypeToLang(contentTypeString);
+                    case DELETE:
+                        attachContent(pending);
+                        nodeService.deleteObject(session, part.objPath);
+                        break;
 
-                            final String format = lang.getName().toUpperCase();
+                    default:
+                        throw new WebApplicationException(status(Status.BAD_REQUEST)
+                                   .entity("Unknown Content-Disposition: " + part.disposition).build());
+                }
+                part.status = Status.OK;
+            }
 
-                            final Model inputModel =
-                                createDefaultModel().read(src,
-                                        subjects.getSubject(resource.getNode().getPath()).toString(), format);
+            attachContent(pending);
 
-                            resource.replaceProperties(subjects, inputModel);
-                        } else {
-                            throw new WebApplicationException(notAcceptable()
-                                .entity("Invalid Content Type " + contentTypeString).build());
-                        }
+            return saveBatch(path, resourcesChanged);
 
-                        resourcesChanged.add(resource);
+        } catch (final Exception e) {
+            LOGGER.debug("Discarding batch for {}", path, e);
 
-                        break;
+            for (final PendingContent content : pending.values()) {
+                content.stored.cancel(true);
+            }
+            session.refresh(false);
 
-                    case ATTACHMENT:
+            final Status failure = failureStatus(e);
 
-                        final URI checksumURI;
+            boolean attributed = false;
+            for (final BatchPart part : parts) {
+                attributed |= part.status != null && part.status != Status.OK;
+            }
+            if (!attributed && !parts.isEmpty() && parts.get(parts.size() - 1).status == null) {
+                parts.get(parts.size() - 1).fail(failure, e);
+            }
 
-                        final String checksum = contentDisposition.getParameters().get("checksum");
+            // one line for each part: its name, its status and any message
+            final StringBuilder report = new StringBuilder();
+            for (final BatchPart part : parts) {
+                report.append(part.name).append('\t')
+                      .append(part.status == null ? "-" : part.status.getStatusCode()).append('\t')
+                      .append(part.message == null ? "" : part.message).append('\n');
+            }
+            return status(failure).type(TEXT_PLAIN_TYPE).entity(report.toString()).build();
+        }
+    }
 
-                        if (checksum != null && !checksum.equals("")) {
-                            checksumURI = new URI(checksum);
-                        } else {
-                            checksumURI = null;
-                        }
+    /**
+     * Wait for the pending binary content and attach it to its datastreams
+     */
+    private static void attachContent(final Map<String, PendingContent> pending) throws Exception {
+        for (final Iterator<PendingContent> contents = pending.values().iterator(); contents.hasNext();) {
+            final PendingContent content = contents.next();
+            try {
+                content.datastream.setContent(content.stored.get(), content.part.checksum());
+                content.part.status = Status.OK;
+            } catch (final ExecutionException e) {
+                content.part.fail(failureStatus(e.getCause()), e.getCause());
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            } catch (final Exception e) {
+                content.part.fail(failureStatus(e), e);
+                throw e;
+            }
+            contents.remove();
+        }
+    }
 
-                        resourcesChanged.add(datastreamService.createDatastream(session, objPath,
-                                                                  part.getMediaType().toString(),
-                                                                  contentDisposition.getFileName(),
-                                                                  src, checksumURI));
-                        break;
+    private static Status failureStatus(final Throwable e) {
+        if (e instanceof WebApplicationException) {
+            final Status status = Status.fromStatusCode(((WebApplicationException) e).getResponse().getStatus());
+            return status == null ? Status.BAD_REQUEST : status;
+        } else if (e instanceof InvalidChecksumException) {
+            return Status.CONFLICT;
+        } else if (e instanceof PathNotFoundException) {
+            return Status.NOT_FOUND;
+        }
+        return Status.INTERNAL_SERVER_ERROR;
+    }
 
-                    case DELETE:
-                        nodeService.deleteObject(session, objPath);
-                        break;
+    private FedoraResource applyTriples(final BatchPart part) throws RepositoryException, IOException {
+        final HttpIdentifierTranslator subjects =
+            new HttpIdentifierTranslator(session, FedoraNodes.class, uriInfo);
 
-                    default:
-                        return status(Status.BAD_REQUEST)
-                                   .entity("Unknown Content-Disposition: " + realContentDisposition).build();
-                }
-            }
+        final FedoraResource resource;
 
-            session.save();
-            versionService.nodeUpdated(session, path);
-            for (final FedoraResource resource : resourcesChanged) {
-                versionService.nodeUpdated(resource.getNode());
-            }
+        if (nodeService.exists(session, part.objPath)) {
+            resource = nodeService.findOrCreateObject(session, part.objPath);
+        } else {
+            resource = objectService.createObject(session, part.objPath);
+        }
 
-            final HttpIdentifierTranslator subjects =
-                    new HttpIdentifierTranslator(session, FedoraNodes.class, uriInfo);
+        if (part.contentType.equals(contentTypeSPARQLUpdate)) {
+            resource.updatePropertiesDataset(subjects, IOUtils.toString(part.src));
+        } else if (contentTypeToLang(part.contentType) != null) {
+            final Lang lang = contentTypeToLang(part.contentType);
 
-            return created(new URI(subjects.getSubject(path).getURI())).build();
+            resource.replaceProperties(subjects, part.src, lang);
+        } else {
+            throw new WebApplicationException(notAcceptable()
+                .entity("Invalid Content Type " + part.contentType).build());
+        }
+        return resource;
+    }
 
-        } finally {
-            session.logout();
+    private Response saveBatch(final String path, final Set<FedoraResource> resourcesChanged)
+        throws RepositoryException, URISyntaxException {
+        session.save();
+        invalidateValidators(session, path);
+        versionService.nodeUpdated(session, path);
+        for (final FedoraResource resource : resourcesChanged) {
+            versionService.nodeUpdated(resource.getNode());
         }
+
+        final HttpIdentifierTranslator subjects =
+                new HttpIdentifierTranslator(session, FedoraNodes.class, uriInfo);
+
+        return created(new URI(subjects.getSubject(path).getURI())).build();
     }
 
     /**
@@ -323,6 +395,7 @@ public class FedoraBatch extends AbstractResource {
                 nodeService.deleteObject(session, dsPath);
             }
             session.save();
+            invalidateValidators(session, path);
             versionService.nodeUpdated(session, path);
             return noContent().build();
         } finally {
@@ -436,4 +509,130 @@ public class FedoraBatch extends AbstractResource {
             session.logout();
         }
     }
+
+    /**
+     * A part of a batch request, with the operation and path it stands for
+     */
+    private static class BatchPart {
+
+        private final String name;
+
+        private final String disposition;
+
+        private final MediaType mediaType;
+
+        private final String contentType;
+
+        private final String fileName;
+
+        private final String checksum;
+
+        private final InputStream src;
+
+        private final String objPath;
+
+        private Status status;
+
+        private String message;
+
+        BatchPart(final BodyPart part, final org.modeshape.jcr.value.Path jcrPath, final PathFactory pathFactory)
+            throws IOException {
+            final ContentDisposition contentDisposition = part.getContentDisposition();
+
+
+            // a relative path (probably.)
+
+            final String contentDispositionType = contentDisposition.getType();
+
+            final String partName = contentDisposition.getParameters().get("name");
+
+            final String contentTypeString = getSimpleContentType(part.getMediaType()).toString();
+
+            LOGGER.trace("Processing {} part {} with media type {}",
+                            contentDispositionType, partName, contentTypeString);
+
+            final String realContentDisposition;
+
+            // we need to apply some heuristics for "dumb" clients that
+            // can only send form-data content
+            if (contentDispositionType.equals("form-data")) {
+
+                if (contentDisposition.getFileName() != null) {
+                    realContentDisposition = ATTACHMENT;
+                } else if (contentTypeString.equals(contentTypeSPARQLUpdate)
+                    || isRdfContentType(contentTypeString)) {
+                    realContentDisposition = INLINE;
+                } else if (partName.equals(FORM_DATA_DELETE_PART_NAME)) {
+                    realContentDisposition = DELETE;
+                } else {
+                    realContentDisposition = ATTACHMENT;
+                }
+
+                LOGGER.trace("Converted form-data to content disposition {}", realContentDisposition);
+            } else {
+                realContentDisposition = contentDispositionType;
+            }
+
+            // convert the entity to an InputStream
+            final Object entityBody = part.getEntity();
+
+            if (entityBody instanceof BodyPartEntity) {
+                final BodyPartEntity entity =
+                    (BodyPartEntity) part.getEntity();
+                src = entity.getInputStream();
+            } else if (entityBody instanceof InputStream) {
+                src = (InputStream) entityBody;
+            } else {
+                LOGGER.debug("Got unknown multipart entity for {}; ignoring it", partName);
+                src = IOUtils.toInputStream("");
+            }
+
+            // convert the entity name to a node path
+            final String pathName;
+
+            if (partName.equals(FORM_DATA_DELETE_PART_NAME)) {
+                pathName = IOUtils.toString(src);
+            } else {
+                pathName = partName;
+            }
+
+            this.name = partName;
+            this.disposition = realContentDisposition;
+            this.mediaType = part.getMediaType();
+            this.contentType = contentTypeString;
+            this.fileName = contentDisposition.getFileName();
+            this.checksum = contentDisposition.getParameters().get("checksum");
+            this.objPath = pathFactory.create(jcrPath, pathName).getCanonicalPath().getString();
+        }
+
+        URI checksum() throws URISyntaxException {
+            if (checksum != null && !checksum.equals("")) {
+                return new URI(checksum);
+            }
+            return null;
+        }
+
+        void fail(final Status failure, final Throwable e) {
+            status = failure;
+            message = e.getMessage();
+        }
+    }
+
+    /**
+     * Binary content being stored for a datastream of the batch
+     */
+    private static class PendingContent {
+
+        private final BatchPart part;
+
+        private final Datastream datastream;
+
+        private final Future<StoredContent> stored;
+
+        PendingContent(final BatchPart part, final Datastream datastream, final Future<StoredContent> stored) {
+            this.part = part;
+            this.datastream = datastream;
+            this.stored = stored;
+        }
+    }
 }
@@ -137,6 +137,7 @@ public class FedoraContent extends ContentExposingResource {
                             uriInfo);
 
             session.save();
+            invalidateValidators(session, datastream.getPath());
             versionService.nodeUpdated(datastream.getNode());
 
             final ResponseBuilder builder = created(new URI(subjects.getSubject(
@@ -194,6 +195,7 @@ public class FedoraContent extends ContentExposingResource {
 
             final boolean isNew = datastream.isNew();
             session.save();
+            invalidateValidators(session, datastream.getPath());
             versionService.nodeUpdated(datastream.getNode());
 
             ResponseBuilder builder;
@@ -15,6 +15,9 @@
  */
 package org.fcrepo.http.api;
 
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createTypedLiteral;
 import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 import static javax.ws.rs.core.MediaType.TEXT_HTML;
@@ -26,7 +29,11 @@ import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
 import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
+import static org.fcrepo.kernel.RdfLexicon.HAS_LAST_FIXITY_CHECK;
+import static org.fcrepo.kernel.RdfLexicon.HAS_LAST_FIXITY_STATE;
 
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.List;
 
 import javax.jcr.RepositoryException;
@@ -44,11 +51,17 @@ import org.fcrepo.http.commons.AbstractResource;
 import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
 import org.fcrepo.http.commons.session.InjectedSession;
 import org.fcrepo.kernel.Datastream;
+import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.services.FixityAuditService;
+import org.fcrepo.kernel.utils.FixityAuditRecord;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import com.codahale.metrics.annotation.Timed;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
 
 /**
  * Run a fixity check on a path
@@ -64,6 +77,9 @@ public class FedoraFixity extends AbstractResource {
     @InjectedSession
     protected Session session;
 
+    @Autowired(required = false)
+    protected FixityAuditService fixityAuditService;
+
     /**
      * Get the results of a fixity check for a path
      *
@@ -72,7 +88,8 @@ public class FedoraFixity extends AbstractResource {
      * @param pathList
      * @param request
      * @param uriInfo
-     * @return datastream fixity in the given format
+     * @return datastream fixity in the given format, with the outcome of the
+     *         background audit's last check of the datastream
      * @throws RepositoryException
      */
     @GET
@@ -89,10 +106,39 @@ public class FedoraFixity extends AbstractResource {
         final String path = toPath(pathList);
 
         final Datastream ds = datastreamService.getDatastream(session, path);
+        final IdentifierTranslator subjects = new HttpIdentifierTranslator(session, FedoraNodes.class, uriInfo);
+
+        final RdfStream fixity = datastreamService.getFixityResultsModel(subjects, ds);
+
+        if (fixityAuditService != null) {
+            final FixityAuditRecord lastCheck = fixityAuditService.getLastCheck(ds.getContentNode());
+
+            if (lastCheck != null) {
+                fixity.concat(lastCheckTriples(
+                        subjects.getSubject(ds.getContentNode().getPath()).asNode(), lastCheck));
+            }
+        }
+
+        return fixity.session(session);
+
+    }
+
+    /**
+     * @param subject the subject of a binary's content node
+     * @param lastCheck the outcome of the background audit's last check of
+     *        the binary
+     * @return RDF describing the last check
+     */
+    public static List<Triple> lastCheckTriples(final Node subject, final FixityAuditRecord lastCheck) {
+        final Calendar checked = Calendar.getInstance();
+        checked.setTime(lastCheck.getChecked());
 
-        return datastreamService.getFixityResultsModel(
-                new HttpIdentifierTranslator(session, FedoraNodes.class, uriInfo), ds)
-                .session(session);
+        final List<Triple> triples = new ArrayList<>();
+        triples.add(create(subject, HAS_LAST_FIXITY_CHECK.asNode(), createTypedLiteral(checked).asNode()));
 
+        for (final String state : lastCheck.getStates()) {
+            triples.add(create(subject, HAS_LAST_FIXITY_STATE.asNode(), createLiteral(state)));
+        }
+        return triples;
     }
 }
@@ -97,6 +97,7 @@ public class FedoraImport extends AbstractResource {
             serializers.getSerializer(format)
                     .deserialize(session, path, requestBodyStream);
             session.save();
+            invalidateValidators(session, path);
             return created(new URI(subjects.getSubject(path).getURI())).build();
         } catch ( ItemExistsException ex ) {
             return status(CONFLICT).entity("Item already exists").build();
@@ -17,20 +17,28 @@ package org.fcrepo.http.api;
 
 import static com.hp.hpl.jena.graph.NodeFactory.createURI;
 import static com.hp.hpl.jena.graph.Triple.create;
-import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
 import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
 import static com.sun.jersey.api.Responses.clientError;
 import static com.sun.jersey.api.Responses.conflict;
 import static com.sun.jersey.api.Responses.notFound;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
 import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML;
+import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML_TYPE;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML_TYPE;
 import static javax.ws.rs.core.MediaType.TEXT_HTML;
+import static javax.ws.rs.core.MediaType.TEXT_HTML_TYPE;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
 import static javax.ws.rs.core.Response.created;
 import static javax.ws.rs.core.Response.noContent;
 import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.ACCEPTED;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Variant.mediaTypes;
 import static org.apache.commons.lang.ArrayUtils.contains;
 import static org.apache.commons.lang.StringUtils.isBlank;
 import static org.apache.http.HttpStatus.SC_BAD_GATEWAY;
@@ -40,19 +48,32 @@ import static org.apache.http.HttpStatus.SC_PRECONDITION_FAILED;
 import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
 import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
 import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
+import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD_TYPE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3_TYPE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT1;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2_TYPE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
+import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES_TYPE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
+import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML_TYPE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_TYPE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
+import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X_TYPE;
+import static org.fcrepo.http.commons.timing.RequestTimings.LOOKUP;
+import static org.fcrepo.http.commons.timing.RequestTimings.TRIPLES;
+import static org.fcrepo.http.commons.timing.RequestTimings.startStage;
 import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_DATASTREAM;
 import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_OBJECT;
 import static org.fcrepo.kernel.RdfLexicon.FIRST_PAGE;
 import static org.fcrepo.kernel.RdfLexicon.INBOUND_REFERENCES;
 import static org.fcrepo.kernel.RdfLexicon.LDP_NAMESPACE;
 import static org.fcrepo.kernel.RdfLexicon.NEXT_PAGE;
+import static org.fcrepo.kernel.impl.services.TransactionServiceImpl.getCurrentTransactionId;
+import static org.fcrepo.kernel.impl.utils.ChildCursor.decodeToken;
+import static org.fcrepo.kernel.impl.utils.ChildCursor.page;
 import static org.fcrepo.kernel.rdf.GraphProperties.PROBLEMS_MODEL_NAME;
 import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -91,6 +112,7 @@ import javax.ws.rs.core.PathSegment;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.core.Variant;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.hp.hpl.jena.rdf.model.Literal;
@@ -102,6 +124,7 @@ import com.sun.jersey.multipart.FormDataParam;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.jena.riot.Lang;
+import org.fcrepo.http.api.repository.FedoraRepositoryJobs;
 import org.fcrepo.http.commons.AbstractResource;
 import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
 import org.fcrepo.http.commons.domain.ContentLocation;
@@ -111,14 +134,19 @@ import org.fcrepo.http.commons.domain.COPY;
 import org.fcrepo.http.commons.domain.Prefer;
 import org.fcrepo.http.commons.domain.PreferTag;
 import org.fcrepo.http.commons.session.InjectedSession;
+import org.fcrepo.http.commons.timing.RequestTimings.Stage;
 import org.fcrepo.kernel.Datastream;
 import org.fcrepo.kernel.FedoraResource;
+import org.fcrepo.kernel.Job;
 import org.fcrepo.kernel.exception.InvalidChecksumException;
+import org.fcrepo.kernel.impl.utils.ChildCursor;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
 import org.fcrepo.kernel.rdf.HierarchyRdfContextOptions;
+import org.fcrepo.kernel.services.JobService;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.openrdf.util.iterators.Iterators;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
@@ -140,7 +168,27 @@ public class FedoraNodes extends AbstractResource {
     @InjectedSession
     protected Session session;
 
+    @Autowired
+    protected JobService jobService;
+
     private static final Logger LOGGER = getLogger(FedoraNodes.class);
+
+    /**
+     * The number of children an HTML representation shows when the request
+     * does not ask for a page size
+     */
+    static final int HTML_PAGE_SIZE = parseInt(getProperty("fcrepo.html.pageSize", "100"));
+
+    /**
+     * Whether a copy or move of a subtree above the job threshold is left to
+     * a job without the request asking for one
+     */
+    boolean implicitJobs = parseBoolean(getProperty("fcrepo.jobs.implicit", "false"));
+
+    private static final List<Variant> DESCRIBE_VARIANTS = mediaTypes(TURTLE_TYPE, N3_TYPE, N3_ALT2_TYPE,
+            RDF_XML_TYPE, NTRIPLES_TYPE, APPLICATION_XML_TYPE, TEXT_PLAIN_TYPE, TURTLE_X_TYPE, TEXT_HTML_TYPE,
+            APPLICATION_XHTML_XML_TYPE, JSON_LD_TYPE).add().build();
+
     private boolean baseURLSet = false;
 
     /**
@@ -153,11 +201,9 @@ public class FedoraNodes extends AbstractResource {
             // we should fail fast rather than retrying over and over.
             baseURLSet = true;
             try {
-                final URI baseURL = uriInfo.getBaseUri();
-                LOGGER.debug("FedoraNodes.init(): baseURL = " + baseURL.toString());
+                LOGGER.debug("FedoraNodes.init(): baseURL = " + uriInfo.getBaseUri().toString());
                 final ObservationManager obs = session.getWorkspace().getObservationManager();
-                final String json = "{\"baseURL\":\"" + baseURL.toString() + "\"}";
-                obs.setUserData(json);
+                obs.setUserData(eventUserData(uriInfo));
                 LOGGER.trace("FedoraNodes.init(): done");
             } catch ( Exception ex ) {
                 LOGGER.warn("Error setting baseURL", ex);
@@ -165,6 +211,13 @@ public class FedoraNodes extends AbstractResource {
         }
     }
 
+    /**
+     * The observation user data that carries the baseURL to JMS events
+     */
+    private static String eventUserData(final UriInfo uriInfo) {
+        return "{\"baseURL\":\"" + uriInfo.getBaseUri().toString() + "\"}";
+    }
+
     /**
      * Retrieve the node headers
      * @param pathList
@@ -185,11 +238,14 @@ public class FedoraNodes extends AbstractResource {
         final String path = toPath(pathList);
         LOGGER.trace("Getting head for: {}", path);
 
+        final long generation = checkCachedValidators(request, path, session);
+
         final FedoraResource resource = nodeService.getObject(session, path);
 
         final HttpIdentifierTranslator subjects =
             new HttpIdentifierTranslator(session, this.getClass(), uriInfo);
 
+        cacheValidators(path, generation, resource, session);
         checkCacheControlHeaders(request, servletResponse, resource, session);
 
         addResourceHttpHeaders(servletResponse, resource, subjects);
@@ -205,6 +261,8 @@ public class FedoraNodes extends AbstractResource {
      *        child nodes
      * @param limit with offset, control the pagination window of details for
      *        child nodes
+     * @param after continuation token for paging through child nodes; when
+     *        present, it takes the place of offset
      * @param request
      * @param uriInfo
      * @return triples for the specified node
@@ -216,6 +274,7 @@ public class FedoraNodes extends AbstractResource {
     public RdfStream describe(@PathParam("path") final List<PathSegment> pathList,
             @QueryParam("offset") @DefaultValue("0") final int offset,
             @QueryParam("limit")  @DefaultValue("-1") final int limit,
+            @QueryParam("after") final String after,
             @HeaderParam("Prefer") final Prefer prefer,
             @Context final Request request,
             @Context final HttpServletResponse servletResponse,
@@ -225,17 +284,33 @@ public class FedoraNodes extends AbstractResource {
         final String path = toPath(pathList);
         LOGGER.trace("Getting profile for: {}", path);
 
-        final FedoraResource resource = nodeService.getObject(session, path);
+        final long generation = checkCachedValidators(request, path, session);
 
+        final FedoraResource resource;
+        try (final Stage lookup = startStage(LOOKUP)) {
+            resource = nodeService.getObject(session, path);
+        }
+
+        cacheValidators(path, generation, resource, session);
         checkCacheControlHeaders(request, servletResponse, resource, session);
 
         final HttpIdentifierTranslator subjects =
             new HttpIdentifierTranslator(session, this.getClass(), uriInfo);
 
-        final RdfStream rdfStream =
-            resource.getTriples(subjects).session(session)
+        final RdfStream rdfStream;
+        try (final Stage triples = startStage(TRIPLES)) {
+            rdfStream = resource.getTriples(subjects).session(session)
                     .topic(subjects.getSubject(resource.getNode().getPath())
                             .asNode());
+        }
+
+        if (after != null) {
+            try {
+                decodeToken(after);
+            } catch (final IllegalArgumentException e) {
+                throw new WebApplicationException(e, status(SC_BAD_REQUEST).entity(e.getMessage()).build());
+            }
+        }
 
         final PreferTag returnPreference;
 
@@ -245,6 +320,11 @@ public class FedoraNodes extends AbstractResource {
             returnPreference = new PreferTag("");
         }
 
+        // unless a page size was requested, an HTML view shows one page of
+        // children, as a browser opening a large container would otherwise
+        // render every child
+        final int pageSize = limit < 0 && isHtml(request) ? HTML_PAGE_SIZE : limit;
+
         if (!returnPreference.getValue().equals("minimal")) {
             String include = returnPreference.getParams().get("include");
             if (include == null) {
@@ -259,18 +339,41 @@ public class FedoraNodes extends AbstractResource {
             final String[] includes = include.split(" ");
             final String[] omits = omit.split(" ");
 
-            if (limit >= 0) {
+            ChildCursor.Page childPage = null;
+
+            if (pageSize >= 0 && after != null) {
+                final Node firstPage =
+                    createURI(uriInfo.getRequestUriBuilder().replaceQueryParam("offset")
+                                  .replaceQueryParam("after", "")
+                                  .replaceQueryParam("limit", pageSize).build()
+                                  .toString().replace("&", "&amp;"));
+                rdfStream.concat(create(subjects.getContext().asNode(), FIRST_PAGE.asNode(), firstPage));
+                servletResponse.addHeader("Link", "<" + firstPage + ">;rel=\"first\"");
+
+                childPage = page(resource.getNode(), after, pageSize);
+                final String nextToken = childPage.getNextToken();
+
+                if (nextToken != null) {
+                    final Node nextPage =
+                        createURI(uriInfo.getRequestUriBuilder().replaceQueryParam("offset")
+                                  .replaceQueryParam("after", nextToken)
+                                  .replaceQueryParam("limit", pageSize).build()
+                                  .toString().replace("&", "&amp;"));
+                    rdfStream.concat(create(subjects.getContext().asNode(), NEXT_PAGE.asNode(), nextPage));
+                    servletResponse.addHeader("Link", "<" + nextPage + ">;rel=\"next\"");
+                }
+            } else if (pageSize >= 0) {
                 final Node firstPage =
                     createURI(uriInfo.getRequestUriBuilder().replaceQueryParam("offset", 0)
-                                  .replaceQueryParam("limit", limit).build()
+                                  .replaceQueryParam("limit", pageSize).build()
                                   .toString().replace("&", "&amp;"));
                 rdfStream.concat(create(subjects.getContext().asNode(), FIRST_PAGE.asNode(), firstPage));
                 servletResponse.addHeader("Link", "<" + firstPage + ">;rel=\"first\"");
 
-                if ( resource.getNode().getNodes().getSize() > (offset + limit) ) {
+                if ( resource.getNode().getNodes().getSize() > (offset + pageSize) ) {
                     final Node nextPage =
-                        createURI(uriInfo.getRequestUriBuilder().replaceQueryParam("offset", offset + limit)
-                                  .replaceQueryParam("limit", limit).build()
+                        createURI(uriInfo.getRequestUriBuilder().replaceQueryParam("offset", offset + pageSize)
+                                  .replaceQueryParam("limit", pageSize).build()
                                   .toString().replace("&", "&amp;"));
                     rdfStream.concat(create(subjects.getContext().asNode(), NEXT_PAGE.asNode(), nextPage));
                     servletResponse.addHeader("Link", "<" + nextPage + ">;rel=\"next\"");
@@ -292,8 +395,16 @@ public class FedoraNodes extends AbstractResource {
 
             final boolean references = !contains(omits, INBOUND_REFERENCES.toString());
 
-            final HierarchyRdfContextOptions hierarchyRdfContextOptions
-                = new HierarchyRdfContextOptions(limit, offset, membership, containment);
+            final HierarchyRdfContextOptions hierarchyRdfContextOptions;
+
+            if (childPage != null) {
+                hierarchyRdfContextOptions = new HierarchyRdfContextOptions(pageSize, after, childPage.getChildren(),
+                        membership, containment);
+            } else if (after != null) {
+                hierarchyRdfContextOptions = new HierarchyRdfContextOptions(pageSize, after, membership, containment);
+            } else {
+                hierarchyRdfContextOptions = new HierarchyRdfContextOptions(pageSize, offset, membership, containment);
+            }
 
             if (hierarchyRdfContextOptions.membershipEnabled()) {
                 appliedIncludes.add(LDP_NAMESPACE + "PreferMembership");
@@ -350,6 +461,12 @@ public class FedoraNodes extends AbstractResource {
         servletResponse.addHeader("Link", "<" + LDP_NAMESPACE + "DirectContainer>;rel=\"type\"");
     }
 
+    private static boolean isHtml(final Request request) {
+        final Variant variant = request.selectVariant(DESCRIBE_VARIANTS);
+        return variant != null && (variant.getMediaType().equals(TEXT_HTML_TYPE)
+                || variant.getMediaType().equals(APPLICATION_XHTML_XML_TYPE));
+    }
+
     private void addOptionsHttpHeaders(final HttpServletResponse servletResponse) {
         servletResponse.addHeader("Accept-Patch", contentTypeSPARQLUpdate);
 
@@ -421,6 +538,7 @@ public class FedoraNodes extends AbstractResource {
             }
 
             session.save();
+            invalidateValidators(session, path);
             versionService.nodeUpdated(resource.getNode());
 
             addCacheControlHeaders(servletResponse, resource, session);
@@ -497,20 +615,14 @@ public class FedoraNodes extends AbstractResource {
                 new HttpIdentifierTranslator(session, FedoraNodes.class, uriInfo);
 
             if (requestContentType != null && requestBodyStream != null)  {
-                final String format = contentTypeToLang(contentType.toString()).getName().toUpperCase();
-
-                final Model inputModel = createDefaultModel()
-                                             .read(requestBodyStream,
-                                                      graphSubjects.getSubject(resource.getNode().getPath()).toString(),
-                                                      format);
-
-                resource.replaceProperties(graphSubjects, inputModel);
+                resource.replaceProperties(graphSubjects, requestBodyStream, contentTypeToLang(contentType.toString()));
 
             } else if (preexisting) {
                 return status(SC_CONFLICT).entity("No RDF provided and the resource already exists!").build();
             }
 
             session.save();
+            invalidateValidators(session, path);
             addCacheControlHeaders(servletResponse, resource, session);
             versionService.nodeUpdated(resource.getNode());
 
@@ -617,13 +729,7 @@ public class FedoraNodes extends AbstractResource {
 
                     final Lang lang = contentTypeToLang(contentTypeString);
 
-                    final String format = lang.getName().toUpperCase();
-
-                    final Model inputModel =
-                        createDefaultModel().read(requestBodyStream,
-                                idTranslator.getSubject(result.getNode().getPath()).toString(), format);
-
-                    result.replaceProperties(idTranslator, inputModel);
+                    result.replaceProperties(idTranslator, requestBodyStream, lang);
                     response = created(location).entity(location.toString());
                 } else if (result instanceof Datastream) {
                     LOGGER.trace("Created a datastream and have a binary payload.");
@@ -643,6 +749,7 @@ public class FedoraNodes extends AbstractResource {
             }
 
             session.save();
+            invalidateValidators(session, newObjectPath);
             versionService.nodeUpdated(result.getNode());
 
             LOGGER.debug("Finished creating {} with path: {}", mixin, newObjectPath);
@@ -735,7 +842,10 @@ public class FedoraNodes extends AbstractResource {
     }
 
     /**
-     * Deletes an object.
+     * Deletes an object. With Prefer: respond-async, and outside of a
+     * transaction, the object and its descendants are deleted by a
+     * background job in batches, and the response is a 202 pointing to the
+     * job's status.
      *
      * @param pathList
      * @return response
@@ -744,6 +854,7 @@ public class FedoraNodes extends AbstractResource {
     @DELETE
     @Timed
     public Response deleteObject(@PathParam("path") final List<PathSegment> pathList,
+                                 @HeaderParam("Prefer") final Prefer prefer,
                                  @Context final Request request,
                                  @Context final HttpServletResponse servletResponse) throws RepositoryException {
         throwIfPathIncludesJcr(pathList, "DELETE");
@@ -757,8 +868,14 @@ public class FedoraNodes extends AbstractResource {
                 nodeService.getObject(session, path);
             evaluateRequestPreconditions(request, servletResponse, resource, session);
 
+            if (prefer != null && prefer.hasRespondAsync() && getCurrentTransactionId(session) == null) {
+                final Job job = jobService.deleteObject(session, path, eventUserData(uriInfo));
+                return jobAccepted(job, prefer, servletResponse);
+            }
+
             nodeService.deleteObject(session, path);
             session.save();
+            invalidateValidators(session, path);
             return noContent().build();
         } catch (final WebApplicationException ex) {
             return (Response)ex.getResponse();
@@ -768,12 +885,17 @@ public class FedoraNodes extends AbstractResource {
     }
 
     /**
-     * Copies an object from one path to another
+     * Copies an object from one path to another. When asked to with Prefer:
+     * respond-async, or, if fcrepo.jobs.implicit is set, when the object has
+     * more descendants than the job threshold, the copy is made by a
+     * background job and the response is a 202 pointing to the job's status.
      */
     @COPY
     @Timed
     public Response copyObject(@PathParam("path") final List<PathSegment> path,
-                               @HeaderParam("Destination") final String destinationUri)
+                               @HeaderParam("Destination") final String destinationUri,
+                               @HeaderParam("Prefer") final Prefer prefer,
+                               @Context final HttpServletResponse servletResponse)
         throws RepositoryException, URISyntaxException {
         throwIfPathIncludesJcr(path, "COPY");
         init(uriInfo);
@@ -796,9 +918,14 @@ public class FedoraNodes extends AbstractResource {
                 return status(SC_PRECONDITION_FAILED).entity("Destination resource already exists").build();
             }
 
+            if (runAsJob(prefer, toPath(path))) {
+                final Job job = jobService.copyObject(session, toPath(path), destination, eventUserData(uriInfo));
+                return jobAccepted(job, prefer, servletResponse);
+            }
 
             nodeService.copyObject(session, toPath(path), destination);
             session.save();
+            invalidateValidators(session, destination);
             versionService.nodeUpdated(session, destination);
             return created(new URI(destinationUri)).build();
         } catch (final ItemExistsException e) {
@@ -815,12 +942,15 @@ public class FedoraNodes extends AbstractResource {
     }
 
     /**
-     * Copies an object from one path to another
+     * Moves an object from one path to another. As with COPY, a request
+     * with Prefer: respond-async, or a large object if fcrepo.jobs.implicit
+     * is set, is moved by a background job.
      */
     @MOVE
     @Timed
     public Response moveObject(@PathParam("path") final List<PathSegment> pathList,
                                @HeaderParam("Destination") final String destinationUri,
+                               @HeaderParam("Prefer") final Prefer prefer,
                                @Context final Request request,
                                @Context final HttpServletResponse servletResponse)
         throws RepositoryException, URISyntaxException {
@@ -854,8 +984,14 @@ public class FedoraNodes extends AbstractResource {
                 return status(SC_PRECONDITION_FAILED).entity("Destination resource already exists").build();
             }
 
+            if (runAsJob(prefer, path)) {
+                final Job job = jobService.moveObject(session, path, destination, eventUserData(uriInfo));
+                return jobAccepted(job, prefer, servletResponse);
+            }
+
             nodeService.moveObject(session, path, destination);
             session.save();
+            invalidateValidators(session, path, destination);
             versionService.nodeUpdated(session, destination);
             return created(new URI(destinationUri)).build();
         } catch (final ItemExistsException e) {
@@ -871,6 +1007,27 @@ public class FedoraNodes extends AbstractResource {
 
     }
 
+    /**
+     * Whether to leave a copy or move to a background job: when asked to, or
+     * when configured to for a large subtree, but never within a transaction
+     */
+    private boolean runAsJob(final Prefer prefer, final String path) throws RepositoryException {
+        return getCurrentTransactionId(session) == null && (prefer != null && prefer.hasRespondAsync()
+                || implicitJobs && jobService.exceedsThreshold(session, path));
+    }
+
+    /**
+     * A 202 pointing to the status of a job
+     */
+    private Response jobAccepted(final Job job, final Prefer prefer, final HttpServletResponse servletResponse) {
+        if (prefer != null && prefer.hasRespondAsync()) {
+            servletResponse.addHeader("Preference-Applied", "respond-async");
+        }
+        servletResponse.addHeader("Vary", "Prefer");
+        return status(ACCEPTED).location(
+                uriInfo.getBaseUriBuilder().path(FedoraRepositoryJobs.class).build(job.getId())).build();
+    }
+
     /**
      * Outputs information about the supported HTTP methods, etc.
      */
@@ -157,6 +157,10 @@ public class FedoraTransactions extends AbstractResource {
             LOGGER.debug("commiting transaction {} at path {}", txId, path);
             txService.commit(txId);
 
+            if (validatorCache != null) {
+                validatorCache.invalidateAll();
+            }
+
         } else {
             LOGGER.debug("rolling back transaction {} at path {}", txId,
                     path);
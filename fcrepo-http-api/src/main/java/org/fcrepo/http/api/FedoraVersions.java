@@ -17,6 +17,7 @@ package org.fcrepo.http.api;
 
 import com.codahale.metrics.annotation.Timed;
 import org.fcrepo.http.commons.domain.PATCH;
+import org.fcrepo.http.commons.domain.Prefer;
 import org.fcrepo.http.api.versioning.VersionAwareHttpIdentifierTranslator;
 import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
 import org.fcrepo.http.commons.responses.HtmlTemplate;
@@ -25,6 +26,7 @@ import org.fcrepo.http.commons.session.SessionFactory;
 import org.fcrepo.kernel.Datastream;
 import org.fcrepo.kernel.FedoraResource;
 import org.fcrepo.kernel.impl.FedoraResourceImpl;
+import org.fcrepo.kernel.rdf.VersionsRdfContextOptions;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,12 +40,14 @@ import javax.jcr.UnsupportedRepositoryOperationException;
 import javax.jcr.version.VersionException;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.PathSegment;
@@ -54,6 +58,8 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
 import static java.util.Collections.singleton;
 import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
@@ -71,6 +77,8 @@ import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
 import static org.fcrepo.jcr.FedoraJcrTypes.FCR_CONTENT;
+import static org.fcrepo.kernel.RdfLexicon.FIRST_PAGE;
+import static org.fcrepo.kernel.RdfLexicon.NEXT_PAGE;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -92,10 +100,18 @@ public class FedoraVersions extends ContentExposingResource {
     private static final Logger LOGGER = getLogger(FedoraVersions.class);
 
     /**
-     * Get the list of versions for the object
+     * Get the list of versions for the object. With a "Prefer: return=minimal"
+     * header, each version is summarized by its labels, creation date and
+     * predecessors instead of being described by its frozen properties; the
+     * list may be paged, oldest version first, with offset and limit.
      *
      * @param pathList
+     * @param offset the number of versions to skip, not negative
+     * @param limit the number of versions in a page, if positive; without
+     *        it, the list is not paged
+     * @param prefer
      * @param request
+     * @param servletResponse
      * @param uriInfo
      * @return List of versions for the object as RDF
      * @throws RepositoryException
@@ -105,22 +121,68 @@ public class FedoraVersions extends ContentExposingResource {
     @Produces({TURTLE, N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN, TURTLE_X,
                       TEXT_HTML, APPLICATION_XHTML_XML, JSON_LD})
     public RdfStream getVersionList(@PathParam("path") final List<PathSegment> pathList,
+            @QueryParam("offset") @DefaultValue("0") final int offset,
+            @QueryParam("limit") final Integer limit,
+            @HeaderParam("Prefer") final Prefer prefer,
             @Context final Request request,
+            @Context final HttpServletResponse servletResponse,
             @Context final UriInfo uriInfo) throws RepositoryException {
         final String path = toPath(pathList);
 
         LOGGER.trace("Getting versions list for: {}", path);
 
+        if (offset < 0) {
+            throw new WebApplicationException(status(BAD_REQUEST).entity("offset must not be negative").build());
+        }
+
+        if (limit != null && limit <= 0) {
+            throw new WebApplicationException(status(BAD_REQUEST).entity("limit must be positive").build());
+        }
+
         final FedoraResource resource = nodeService.getObject(session, path);
 
+        final boolean summary = prefer != null && prefer.hasReturn()
+                && prefer.getReturn().getValue().equals("minimal");
+
         try {
-            return resource.getVersionTriples(nodeTranslator()).session(session).topic(
-                    nodeTranslator().getSubject(resource.getNode().getPath()).asNode());
+            final VersionAwareHttpIdentifierTranslator subjects = nodeTranslator();
+            final RdfStream rdfStream = resource.getVersionTriples(subjects,
+                    new VersionsRdfContextOptions(limit == null ? -1 : limit, offset, summary)).session(session).topic(
+                    subjects.getSubject(resource.getNode().getPath()).asNode());
+
+            if (limit != null) {
+                final com.hp.hpl.jena.graph.Node firstPage = createURI(uriInfo.getRequestUriBuilder()
+                        .replaceQueryParam("offset", 0)
+                        .replaceQueryParam("limit", limit).build().toString());
+                rdfStream.concat(create(subjects.getContext().asNode(), FIRST_PAGE.asNode(), firstPage));
+                servletResponse.addHeader("Link", "<" + firstPage.getURI() + ">;rel=\"first\"");
+
+                final long size = versionCount(resource);
+                if (size < 0 || size > offset + limit) {
+                    final com.hp.hpl.jena.graph.Node nextPage = createURI(uriInfo.getRequestUriBuilder()
+                            .replaceQueryParam("offset", offset + limit)
+                            .replaceQueryParam("limit", limit).build().toString());
+                    rdfStream.concat(create(subjects.getContext().asNode(), NEXT_PAGE.asNode(), nextPage));
+                    servletResponse.addHeader("Link", "<" + nextPage.getURI() + ">;rel=\"next\"");
+                }
+            }
+
+            if (summary) {
+                servletResponse.addHeader("Preference-Applied", "return=minimal");
+            }
+            servletResponse.addHeader("Vary", "Prefer");
+
+            return rdfStream;
         } catch ( UnsupportedRepositoryOperationException ex ) {
             throw new WebApplicationException( status(NOT_FOUND).entity("This resource is not versioned").build() );
         }
     }
 
+    private long versionCount(final FedoraResource resource) throws RepositoryException {
+        return session.getWorkspace().getVersionManager().getVersionHistory(resource.getPath())
+                .getAllVersions().getSize();
+    }
+
     /**
      * Create a new version checkpoint and tag it with the given label.  If
      * that label already describes another version it will silently be
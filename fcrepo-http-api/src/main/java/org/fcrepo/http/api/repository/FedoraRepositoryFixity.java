@@ -0,0 +1,179 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.repository;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createTypedLiteral;
+import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.MediaType.TEXT_HTML;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static javax.ws.rs.core.Response.noContent;
+import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2;
+import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
+import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
+import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
+import static org.fcrepo.http.api.FedoraFixity.lastCheckTriples;
+import static org.fcrepo.kernel.RdfLexicon.FIXITY_AUDIT_RUNNING;
+import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_AUDIT_FAILURE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_AUDIT_BYTES;
+import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_AUDIT_POSITION;
+import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_AUDIT_RATE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_CHECK_COUNT;
+import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_ERROR_COUNT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import org.fcrepo.http.api.FedoraNodes;
+import org.fcrepo.http.commons.AbstractResource;
+import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
+import org.fcrepo.http.commons.session.InjectedSession;
+import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.services.FixityAuditService;
+import org.fcrepo.kernel.utils.FixityAuditRecord;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.annotation.Timed;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Repository-wide fixity audit endpoint
+ *
+ * @author agent
+ */
+@Component
+@Scope("prototype")
+@Path("/fcr:fixity")
+public class FedoraRepositoryFixity extends AbstractResource {
+
+    private static final String AUDIT_ACTIONS = "add_node,set_property,remove";
+
+    @InjectedSession
+    protected Session session;
+
+    @Autowired
+    protected FixityAuditService fixityAuditService;
+
+    /**
+     * Get the progress of the background fixity audit
+     *
+     * GET /fcr:fixity
+     *
+     * @return the audit's progress, as RDF about the repository root, and the
+     *         binaries whose last check found no good copy
+     * @throws RepositoryException
+     */
+    @GET
+    @Timed
+    @Produces({TURTLE, N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN, TURTLE_X,
+                      TEXT_HTML, APPLICATION_XHTML_XML, JSON_LD})
+    public RdfStream getAuditProgress() throws RepositoryException {
+        final IdentifierTranslator subjects = new HttpIdentifierTranslator(session, FedoraNodes.class, uriInfo);
+        final Node subject = subjects.getSubject("/").asNode();
+
+        final List<Triple> triples = new ArrayList<>();
+        triples.add(create(subject, FIXITY_AUDIT_RUNNING.asNode(),
+                createTypedLiteral(fixityAuditService.isRunning()).asNode()));
+        triples.add(create(subject, HAS_FIXITY_CHECK_COUNT.asNode(),
+                createTypedLiteral(fixityAuditService.getCheckCount()).asNode()));
+        triples.add(create(subject, HAS_FIXITY_ERROR_COUNT.asNode(),
+                createTypedLiteral(fixityAuditService.getErrorCount()).asNode()));
+        triples.add(create(subject, HAS_FIXITY_AUDIT_BYTES.asNode(),
+                createTypedLiteral(fixityAuditService.getBytesChecked()).asNode()));
+        triples.add(create(subject, HAS_FIXITY_AUDIT_RATE.asNode(),
+                createTypedLiteral(fixityAuditService.getBytesPerSecond()).asNode()));
+
+        final String position = fixityAuditService.getPosition();
+
+        if (position != null) {
+            triples.add(create(subject, HAS_FIXITY_AUDIT_POSITION.asNode(), createLiteral(position)));
+        }
+
+        for (final FixityAuditRecord failure : fixityAuditService.getFailures()) {
+            final Node binary = subjects.getSubject(failure.getPath()).asNode();
+            triples.add(create(subject, HAS_FIXITY_AUDIT_FAILURE.asNode(), binary));
+            triples.addAll(lastCheckTriples(binary, failure));
+        }
+
+        return new RdfStream(triples).topic(subject).session(session);
+    }
+
+    /**
+     * Start the background fixity audit
+     *
+     * POST /fcr:fixity
+     *
+     * @return 204
+     * @throws RepositoryException
+     */
+    @POST
+    @Timed
+    public Response startAudit() throws RepositoryException {
+        try {
+            checkAuditPermission();
+            fixityAuditService.start();
+            return noContent().build();
+        } finally {
+            session.logout();
+        }
+    }
+
+    /**
+     * Stop the background fixity audit
+     *
+     * DELETE /fcr:fixity
+     *
+     * @return 204
+     * @throws RepositoryException
+     */
+    @DELETE
+    @Timed
+    public Response stopAudit() throws RepositoryException {
+        try {
+            checkAuditPermission();
+            fixityAuditService.stop();
+            return noContent().build();
+        } finally {
+            session.logout();
+        }
+    }
+
+    /**
+     * The audit reads every binary in a session of its own, so only a user
+     * who may change the whole repository may start or stop it
+     */
+    private void checkAuditPermission() throws RepositoryException {
+        session.checkPermission("/", AUDIT_ACTIONS);
+    }
+}
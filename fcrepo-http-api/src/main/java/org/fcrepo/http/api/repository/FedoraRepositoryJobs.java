@@ -0,0 +1,143 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.repository;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createTypedLiteral;
+import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.MediaType.TEXT_HTML;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2;
+import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
+import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
+import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_DESTINATION;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_FINISHED;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_MESSAGE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_PROCESSED_COUNT;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_STARTED;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_STATE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_TARGET;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_TYPE;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+
+import org.fcrepo.http.api.FedoraNodes;
+import org.fcrepo.http.commons.AbstractResource;
+import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
+import org.fcrepo.http.commons.session.InjectedSession;
+import org.fcrepo.kernel.Job;
+import org.fcrepo.kernel.services.JobService;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.annotation.Timed;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.NodeFactory;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Status of the background jobs started with Prefer: respond-async
+ *
+ * @author agent
+ */
+@Component
+@Scope("prototype")
+@Path("/fcr:jobs/{id}")
+public class FedoraRepositoryJobs extends AbstractResource {
+
+    @InjectedSession
+    protected Session session;
+
+    @Autowired
+    protected JobService jobService;
+
+    /**
+     * Get the progress of a job
+     *
+     * GET /fcr:jobs/{id}
+     *
+     * @param id
+     * @return the job's progress, as RDF about the job
+     * @throws RepositoryException
+     */
+    @GET
+    @Timed
+    @Produces({TURTLE, N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN, TURTLE_X,
+                      TEXT_HTML, APPLICATION_XHTML_XML, JSON_LD})
+    public RdfStream getJob(@PathParam("id") final String id) throws RepositoryException {
+        final Job job = jobService.getJob(session, id);
+
+        if (job == null) {
+            session.logout();
+            throw new WebApplicationException(status(NOT_FOUND).entity("No such job: " + id).build());
+        }
+
+        final Node subject = NodeFactory.createURI(uriInfo.getBaseUriBuilder()
+                .path(FedoraRepositoryJobs.class).build(id).toString());
+        final HttpIdentifierTranslator subjects = new HttpIdentifierTranslator(session, FedoraNodes.class, uriInfo);
+
+        final List<Triple> triples = new ArrayList<>();
+        triples.add(create(subject, HAS_JOB_TYPE.asNode(), createLiteral(job.getType())));
+        triples.add(create(subject, HAS_JOB_TARGET.asNode(), subjects.getSubject(job.getPath()).asNode()));
+
+        if (job.getDestination() != null) {
+            triples.add(create(subject, HAS_JOB_DESTINATION.asNode(),
+                    subjects.getSubject(job.getDestination()).asNode()));
+        }
+
+        triples.add(create(subject, HAS_JOB_STATE.asNode(), createLiteral(job.getState().toString())));
+        triples.add(create(subject, HAS_JOB_PROCESSED_COUNT.asNode(),
+                createTypedLiteral(job.getProcessed()).asNode()));
+        triples.add(create(subject, HAS_JOB_STARTED.asNode(), dateLiteral(job.getStarted())));
+
+        if (job.getFinished() != null) {
+            triples.add(create(subject, HAS_JOB_FINISHED.asNode(), dateLiteral(job.getFinished())));
+        }
+
+        if (job.getMessage() != null) {
+            triples.add(create(subject, HAS_JOB_MESSAGE.asNode(), createLiteral(job.getMessage())));
+        }
+
+        return new RdfStream(triples).topic(subject).session(session);
+    }
+
+    private static Node dateLiteral(final Date date) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        return createTypedLiteral(calendar).asNode();
+    }
+}
@@ -214,7 +214,8 @@ public class BaseHtmlProvider implements MessageBodyWriter<Dataset> {
         context.put("esc", escapeTool);
         context.put("rdf", rdf.asDatasetGraph());
 
-        final Model model = unifyDatasetModel(rdf);
+        // a dataset without named graphs is already a single model
+        final Model model = rdf.listNames().hasNext() ? unifyDatasetModel(rdf) : rdf.getDefaultModel();
 
         context.put("model", model);
         context.put("subjects", model.listSubjects());
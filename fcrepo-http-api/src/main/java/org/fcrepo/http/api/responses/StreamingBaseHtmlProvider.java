@@ -15,8 +15,14 @@
  */
 package org.fcrepo.http.api.responses;
 
+import static com.hp.hpl.jena.vocabulary.RDF.type;
 import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML;
 import static javax.ws.rs.core.MediaType.TEXT_HTML;
+import static org.fcrepo.kernel.RdfLexicon.CONTAINS;
+import static org.fcrepo.kernel.RdfLexicon.DC_TITLE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_CHILD;
+import static org.fcrepo.kernel.RdfLexicon.HAS_PARENT;
+import static org.fcrepo.kernel.RdfLexicon.RDFS_LABEL;
 import static org.fcrepo.kernel.impl.rdf.SerializationUtils.subjectKey;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -24,6 +30,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
 import javax.jcr.RepositoryException;
@@ -40,11 +48,17 @@ import org.slf4j.Logger;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.query.Dataset;
 import com.hp.hpl.jena.query.DatasetFactory;
 
 /**
- * Simple HTML provider that delegates to {@link BaseHtmlProvider}
+ * Simple HTML provider that delegates to {@link BaseHtmlProvider}. Only the
+ * names, types and titles of the topic's children are kept for the HTML
+ * view, which lists them rather than showing all their properties.
  *
  * @author ajs6f
  * @since Nov 19, 2013
@@ -61,6 +75,9 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream>,
     private static final Logger LOGGER =
         getLogger(StreamingBaseHtmlProvider.class);
 
+    private static final Set<Node> CHILD_SUMMARY_PREDICATES = ImmutableSet.of(type.asNode(),
+            DC_TITLE.asNode(), RDFS_LABEL.asNode(), HAS_PARENT.asNode());
+
     @PostConstruct
     void init() {
         delegate = applicationContext.getBean(BaseHtmlProvider.class);
@@ -95,7 +112,8 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream>,
             final OutputStream entityStream) throws IOException {
         try {
             final RdfStream nsRdfStream = new NamespaceRdfContext(rdfStream.session());
-            final Dataset dataset = DatasetFactory.create(rdfStream.namespaces(nsRdfStream.namespaces()).asModel());
+            final Dataset dataset = DatasetFactory.create(rdfStream.namespaces(nsRdfStream.namespaces())
+                    .filter(summarizeChildren(rdfStream.topic())).asModel());
             dataset.getContext().set(subjectKey, rdfStream.topic());
             delegate.writeTo(dataset, type, genericType, annotations, mediaType,
                     httpHeaders, entityStream);
@@ -105,6 +123,32 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream>,
         }
     }
 
+    /**
+     * Drop the triples about the topic's children other than their types and
+     * titles. A child is recognized by the membership or containment triple
+     * that precedes its own triples in the stream.
+     *
+     * @param topic
+     * @return predicate
+     */
+    static Predicate<Triple> summarizeChildren(final Node topic) {
+        return new Predicate<Triple>() {
+
+            private final Set<Node> children = new HashSet<>();
+
+            @Override
+            public boolean apply(final Triple t) {
+                if (t.getSubject().equals(topic)) {
+                    if (t.getPredicate().equals(HAS_CHILD.asNode()) || t.getPredicate().equals(CONTAINS.asNode())) {
+                        children.add(t.getObject());
+                    }
+                    return true;
+                }
+                return !children.contains(t.getSubject()) || CHILD_SUMMARY_PREDICATES.contains(t.getPredicate());
+            }
+        };
+    }
+
     @Override
     public void setApplicationContext(final ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
@@ -17,6 +17,8 @@ package org.fcrepo.http.api;
 
 import static java.util.Arrays.asList;
 import static javax.ws.rs.core.Response.notModified;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.CONFLICT;
 import static javax.ws.rs.core.Response.Status.CREATED;
 import static javax.ws.rs.core.Response.Status.NOT_MODIFIED;
 import static javax.ws.rs.core.Response.Status.NO_CONTENT;
@@ -28,11 +30,12 @@ import static org.fcrepo.http.commons.test.util.TestHelpers.mockDatastream;
 import static org.fcrepo.http.commons.test.util.TestHelpers.mockSession;
 import static org.fcrepo.http.commons.test.util.TestHelpers.setField;
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.mock;
@@ -43,10 +46,13 @@ import java.io.InputStream;
 import java.net.URI;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
+import javax.jcr.Binary;
 import javax.jcr.Node;
 import javax.jcr.NodeIterator;
 import javax.jcr.RepositoryException;
@@ -59,14 +65,16 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
-import com.hp.hpl.jena.rdf.model.Model;
 import org.apache.commons.io.IOUtils;
+import org.apache.jena.riot.Lang;
 import org.fcrepo.kernel.Datastream;
+import org.fcrepo.kernel.exception.InvalidChecksumException;
 import org.fcrepo.kernel.impl.FedoraResourceImpl;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
 import org.fcrepo.kernel.services.DatastreamService;
 import org.fcrepo.kernel.services.NodeService;
 import org.fcrepo.kernel.services.VersionService;
+import org.fcrepo.kernel.utils.StoredContent;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -166,7 +174,7 @@ public class FedoraBatchTest {
 
         multipart.bodyPart(part);
 
-        testObj.batchModify(createPathList(pid), multipart);
+        testObj.batchModify(createPathList(pid), false, multipart);
         verify(mockObject).updatePropertiesDataset(any(IdentifierTranslator.class), eq("xyz"));
         verify(mockSession).save();
     }
@@ -199,13 +207,10 @@ public class FedoraBatchTest {
 
         multipart.bodyPart(part);
 
-        testObj.batchModify(createPathList(pid), multipart);
-        final ArgumentCaptor<Model> captor = ArgumentCaptor.forClass(Model.class);
-        verify(mockObject).replaceProperties(any(IdentifierTranslator.class), captor.capture());
-        final Model capturedModel = captor.getValue();
-        assertTrue(capturedModel.contains(capturedModel.createResource("http://localhost/fcrepo/" + pid),
-                                             capturedModel.createProperty("info:a"),
-                                             capturedModel.createLiteral("xyz")));
+        testObj.batchModify(createPathList(pid), false, multipart);
+        final ArgumentCaptor<InputStream> captor = ArgumentCaptor.forClass(InputStream.class);
+        verify(mockObject).replaceProperties(any(IdentifierTranslator.class), captor.capture(), eq(Lang.TURTLE));
+        assertEquals("<> <info:a> 'xyz'", IOUtils.toString(captor.getValue()));
         verify(mockSession).save();
     }
 
@@ -229,7 +234,7 @@ public class FedoraBatchTest {
                                                  eq("/{}" + pid + "/{}" + dsId2), anyString(), eq("testDs2.txt"),
                                                  any(InputStream.class), eq((URI) null))).thenReturn(mockDatastream);
         final Response actual =
-            testObj.batchModify(createPathList(pid), multipart);
+            testObj.batchModify(createPathList(pid), false, multipart);
         assertEquals(CREATED.getStatusCode(), actual.getStatus());
         verify(mockDatastreams).createDatastream(any(Session.class),
                                                     eq("/{}" + pid + "/{}" + dsId1), anyString(), eq("testDs1.txt"),
@@ -240,6 +245,78 @@ public class FedoraBatchTest {
         verify(mockSession).save();
     }
 
+    @Test
+    public void testModifyBinaryContentInParallel() throws Exception {
+        final String pid = "FedoraDatastreamsTest1";
+        final String dsId1 = "testDs1";
+        final String dsId2 = "testDs2";
+        final Map<String, String> atts =
+            ImmutableMap.of(dsId1, "asdf", dsId2, "sdfg");
+        final MultiPart multipart = getStringsAsMultipart(atts);
+        when(mockNode.getPath()).thenReturn("/FedoraDatastreamsTest1");
+        when(mockSession.getNode("/FedoraDatastreamsTest1")).thenReturn(
+                mockNode);
+
+        final StoredContent stored = new StoredContent(mock(Binary.class), Collections.<String, URI>emptyMap());
+        when(mockDatastreams.createDatastream(any(Session.class), anyString())).thenReturn(mockDatastream);
+        when(mockDatastreams.prepareContent(eq(mockDatastream), anyString(), anyString(), any(InputStream.class)))
+            .thenReturn(new Callable<StoredContent>() {
+
+                @Override
+                public StoredContent call() {
+                    return stored;
+                }
+            });
+
+        final Response actual =
+            testObj.batchModify(createPathList(pid), true, multipart);
+        assertEquals(CREATED.getStatusCode(), actual.getStatus());
+        verify(mockDatastreams).createDatastream(any(Session.class), eq("/{}" + pid + "/{}" + dsId1));
+        verify(mockDatastreams).createDatastream(any(Session.class), eq("/{}" + pid + "/{}" + dsId2));
+        verify(mockDatastream, times(2)).setContent(stored, null);
+        verify(mockSession).save();
+    }
+
+    @Test
+    public void testModifyBinaryContentInParallelWithinTransaction() throws Exception {
+        final MultiPart multipart = getStringsAsMultipart(ImmutableMap.of("testDs1", "asdf"));
+        when(mockSession.getNamespaceURI("fcrepo4.tx.id")).thenReturn("some-tx");
+
+        final Response actual =
+            testObj.batchModify(createPathList("FedoraDatastreamsTest1"), true, multipart);
+        assertEquals(BAD_REQUEST.getStatusCode(), actual.getStatus());
+        verify(mockSession, never()).refresh(false);
+        verify(mockSession, never()).save();
+    }
+
+    @Test
+    public void testModifyBinaryContentInParallelWithBadChecksum() throws Exception {
+        final String pid = "FedoraDatastreamsTest1";
+        final Map<String, String> atts =
+            ImmutableMap.of("testDs1", "asdf", "testDs2", "sdfg");
+        final MultiPart multipart = getStringsAsMultipart(atts);
+
+        final StoredContent stored = new StoredContent(mock(Binary.class), Collections.<String, URI>emptyMap());
+        when(mockDatastreams.createDatastream(any(Session.class), anyString())).thenReturn(mockDatastream);
+        when(mockDatastreams.prepareContent(eq(mockDatastream), anyString(), anyString(), any(InputStream.class)))
+            .thenReturn(new Callable<StoredContent>() {
+
+                @Override
+                public StoredContent call() {
+                    return stored;
+                }
+            });
+        doThrow(new InvalidChecksumException("Checksum mismatch")).when(mockDatastream)
+            .setContent(stored, null);
+
+        final Response actual =
+            testObj.batchModify(createPathList(pid), true, multipart);
+        assertEquals(CONFLICT.getStatusCode(), actual.getStatus());
+        assertEquals("testDs1\t409\tChecksum mismatch\ntestDs2\t-\t\n", actual.getEntity());
+        verify(mockSession).refresh(false);
+        verify(mockSession, never()).save();
+    }
+
     @Test
     public void testModifyBinaryRdfContent() throws Exception {
         final String pid = "FedoraDatastreamsTest1";
@@ -268,7 +345,7 @@ public class FedoraBatchTest {
         when(mockNode.getPath()).thenReturn("/FedoraDatastreamsTest1");
         when(mockSession.getNode("/FedoraDatastreamsTest1")).thenReturn(mockNode);
         final Response actual =
-            testObj.batchModify(createPathList(pid), multipart);
+            testObj.batchModify(createPathList(pid), false, multipart);
         assertEquals(CREATED.getStatusCode(), actual.getStatus());
         verify(mockDatastreams).createDatastream(any(Session.class),
                                                     eq("/{}" + pid + "/{}xyz"), anyString(), eq("filename.txt"),
@@ -298,7 +375,7 @@ public class FedoraBatchTest {
 
         multipart.bodyPart(part);
 
-        testObj.batchModify(createPathList(pid), multipart);
+        testObj.batchModify(createPathList(pid), false, multipart);
         verify(mockNodes).deleteObject(mockSession, "/{}FedoraDatastreamsTest1/{}xyz");
         verify(mockSession).save();
     }
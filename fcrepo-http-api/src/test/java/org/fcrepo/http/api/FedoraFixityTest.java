@@ -15,17 +15,24 @@
  */
 package org.fcrepo.http.api;
 
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static java.util.Collections.singleton;
 import static org.fcrepo.http.commons.test.util.PathSegmentImpl.createPathList;
 import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
 import static org.fcrepo.http.commons.test.util.TestHelpers.mockDatastream;
 import static org.fcrepo.http.commons.test.util.TestHelpers.mockSession;
 import static org.fcrepo.http.commons.test.util.TestHelpers.setField;
+import static org.fcrepo.kernel.RdfLexicon.HAS_LAST_FIXITY_STATE;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.util.Date;
+
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
@@ -34,12 +41,17 @@ import javax.ws.rs.core.UriInfo;
 
 import org.fcrepo.kernel.Datastream;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
 import org.fcrepo.kernel.services.DatastreamService;
+import org.fcrepo.kernel.services.FixityAuditService;
+import org.fcrepo.kernel.utils.FixityAuditRecord;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import com.hp.hpl.jena.rdf.model.Model;
+
 /**
  * <p>FedoraFixityTest class.</p>
  *
@@ -62,6 +74,12 @@ public class FedoraFixityTest {
     @Mock
     private Node mockNode;
 
+    @Mock
+    private Node mockContentNode;
+
+    @Mock
+    private FixityAuditService mockAuditService;
+
     @Before
     public void setUp() throws Exception {
         initMocks(this);
@@ -90,4 +108,27 @@ public class FedoraFixityTest {
         verify(mockDatastreams).getFixityResultsModel(any(IdentifierTranslator.class),
                 eq(mockDs));
     }
+
+    @Test
+    public void testGetDatastreamFixityWithLastAuditCheck() throws RepositoryException {
+        final String pid = "FedoraDatastreamsTest1";
+        final String path = "/objects/" + pid + "/testDS";
+        final Datastream mockDs = mockDatastream(pid, "testDS", null);
+        setField(testObj, "fixityAuditService", mockAuditService);
+        when(mockDs.getContentNode()).thenReturn(mockContentNode);
+        when(mockContentNode.getPath()).thenReturn(path + "/jcr:content");
+        when(mockDatastreams.getDatastream(mockSession, path)).thenReturn(mockDs);
+        when(mockDatastreams.getFixityResultsModel(any(IdentifierTranslator.class),
+                eq(mockDs))).thenReturn(new RdfStream());
+        when(mockAuditService.getLastCheck(mockContentNode)).thenReturn(
+                new FixityAuditRecord(path + "/jcr:content", new Date(), singleton("SUCCESS"), true));
+
+        final Model model = testObj.getDatastreamFixity(createPathList("objects", pid, "testDS"),
+                mockRequest, uriInfo).asModel();
+
+        final com.hp.hpl.jena.graph.Node subject = new HttpIdentifierTranslator(mockSession, FedoraNodes.class,
+                uriInfo).getSubject(path + "/jcr:content").asNode();
+        assertTrue(model.getGraph().contains(
+                create(subject, HAS_LAST_FIXITY_STATE.asNode(), createLiteral("SUCCESS"))));
+    }
 }
@@ -16,13 +16,21 @@
 package org.fcrepo.http.api;
 
 import static com.hp.hpl.jena.graph.NodeFactory.createAnon;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
+import static javax.jcr.PropertyType.NAME;
 import static javax.jcr.PropertyType.PATH;
+import static javax.jcr.query.Query.JCR_SQL2;
+import static javax.ws.rs.core.MediaType.TEXT_HTML_TYPE;
+import static javax.ws.rs.core.Response.Status.ACCEPTED;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.CONFLICT;
 import static javax.ws.rs.core.Response.Status.CREATED;
 import static javax.ws.rs.core.Response.Status.NO_CONTENT;
 import static javax.ws.rs.core.Response.Status.PRECONDITION_FAILED;
+import static javax.ws.rs.core.Response.notModified;
 import static org.apache.http.HttpStatus.SC_BAD_GATEWAY;
+import static org.apache.http.HttpStatus.SC_NOT_MODIFIED;
 import static org.apache.http.HttpStatus.SC_OK;
 import static org.fcrepo.http.commons.test.util.PathSegmentImpl.createPathList;
 import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
@@ -33,13 +41,18 @@ import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_OBJECT;
 import static org.fcrepo.kernel.RdfLexicon.LDP_NAMESPACE;
 import static org.fcrepo.kernel.rdf.GraphProperties.PROBLEMS_MODEL_NAME;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -55,6 +68,7 @@ import java.util.List;
 
 import javax.jcr.ItemExistsException;
 import javax.jcr.Node;
+import javax.jcr.NodeIterator;
 import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
@@ -62,29 +76,41 @@ import javax.jcr.Value;
 import javax.jcr.ValueFactory;
 import javax.jcr.Workspace;
 import javax.jcr.nodetype.NodeType;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.QueryResult;
 import javax.jcr.version.VersionManager;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.PathSegment;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.core.Variant;
 
+import org.apache.jena.riot.Lang;
 import org.fcrepo.http.commons.domain.Prefer;
 import org.fcrepo.kernel.Datastream;
 import org.fcrepo.kernel.FedoraObject;
+import org.fcrepo.kernel.Job;
 import org.fcrepo.kernel.impl.FedoraResourceImpl;
+import org.fcrepo.kernel.impl.utils.ChildCursor;
+import org.fcrepo.kernel.impl.utils.ValidatorCache;
 import org.fcrepo.kernel.identifiers.PidMinter;
 import org.fcrepo.kernel.rdf.HierarchyRdfContextOptions;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
 import org.fcrepo.kernel.services.DatastreamService;
+import org.fcrepo.kernel.services.JobService;
 import org.fcrepo.kernel.services.NodeService;
 import org.fcrepo.kernel.services.ObjectService;
 import org.fcrepo.kernel.services.VersionService;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import com.hp.hpl.jena.query.Dataset;
@@ -119,6 +145,12 @@ public class FedoraNodesTest {
     @Mock
     private DatastreamService mockDatastreams;
 
+    @Mock
+    private JobService mockJobService;
+
+    @Mock
+    private Job mockJob;
+
     @Mock
     private Request mockRequest;
 
@@ -171,6 +203,7 @@ public class FedoraNodesTest {
         this.mockUriInfo = getUriInfoImpl();
         setField(testObj, "pidMinter", mockPidMinter);
         setField(testObj, "objectService", mockObjects);
+        setField(testObj, "jobService", mockJobService);
         mockSession = mockSession(testObj);
         setField(testObj, "session", mockSession);
         final Workspace mockWorkspace = mock(Workspace.class);
@@ -338,7 +371,7 @@ public class FedoraNodesTest {
             .thenReturn(mockObject);
         when(mockObject.getEtagValue()).thenReturn("");
 
-        final Response actual = testObj.deleteObject(createPathList(pid), mockRequest, mockResponse);
+        final Response actual = testObj.deleteObject(createPathList(pid), null, mockRequest, mockResponse);
 
         assertNotNull(actual);
         assertEquals(NO_CONTENT.getStatusCode(), actual.getStatus());
@@ -346,6 +379,28 @@ public class FedoraNodesTest {
         verify(mockSession).save();
     }
 
+    @Test
+    public void testDeleteObjectAsync() throws Exception {
+        final String pid = "testObject";
+        final String path = "/" + pid;
+        when(mockNodes.getObject(isA(Session.class), isA(String.class)))
+            .thenReturn(mockObject);
+        when(mockObject.getEtagValue()).thenReturn("");
+        when(mockJob.getId()).thenReturn("some-job");
+        when(mockJobService.deleteObject(eq(mockSession), eq(path), anyString())).thenReturn(mockJob);
+
+        final Response actual =
+            testObj.deleteObject(createPathList(pid), new Prefer("respond-async"), mockRequest, mockResponse);
+
+        assertEquals(ACCEPTED.getStatusCode(), actual.getStatus());
+        assertTrue(actual.getMetadata().getFirst("Location").toString().endsWith("/fcr:jobs/some-job"));
+        verify(mockResponse).addHeader("Preference-Applied", "respond-async");
+        verify(mockNodes, never()).deleteObject(mockSession, path);
+        verify(mockSession, never()).save();
+        // the job logs in on its own, so the request's session ends with it
+        verify(mockSession).logout();
+    }
+
     @Test
     public void testDescribeObject() throws RepositoryException {
         final String pid = "FedoraObjectsRdfTest1";
@@ -365,7 +420,7 @@ public class FedoraNodesTest {
                 .thenReturn(mockObject);
         final Request mockRequest = mock(Request.class);
         final RdfStream rdfStream =
-            testObj.describe(createPathList(path), 0, -2, null, mockRequest,
+            testObj.describe(createPathList(path), 0, -2, null, null, mockRequest,
                     mockResponse, mockUriInfo);
         assertEquals("Got wrong triples!", mockRdfStream.concat(mockRdfStream2).concat(mockRdfStream3),
                 rdfStream);
@@ -374,6 +429,99 @@ public class FedoraNodesTest {
 
     }
 
+    @Test
+    public void testDescribeHtmlShowsOnePageOfChildren() throws RepositoryException {
+        final String pid = "FedoraObjectsRdfTest1";
+        final String path = "/" + pid;
+
+        when(mockObject.getEtagValue()).thenReturn("");
+        when(mockObject.getLastModifiedDate()).thenReturn(mockDate);
+        when(mockObject.getTriples(any(IdentifierTranslator.class))).thenReturn(mockRdfStream);
+        when(mockObject.getHierarchyTriples(any(IdentifierTranslator.class),
+                                               any(HierarchyRdfContextOptions.class))).thenReturn(mockRdfStream2);
+        when(mockObject.getReferencesTriples(any(IdentifierTranslator.class))).thenReturn(mockRdfStream3);
+        when(mockNodes.getObject(isA(Session.class), isA(String.class))).thenReturn(mockObject);
+        when(mockNode.getNodes()).thenReturn(mock(NodeIterator.class));
+        when(mockUriInfo.getRequestUriBuilder()).thenReturn(UriBuilder.fromUri("http://localhost/fcrepo" + path));
+        final Request mockRequest = mock(Request.class);
+        when(mockRequest.selectVariant(anyListOf(Variant.class))).thenReturn(new Variant(TEXT_HTML_TYPE, null, null));
+
+        testObj.describe(createPathList(path), 0, -1, null, null, mockRequest, mockResponse, mockUriInfo);
+
+        final ArgumentCaptor<HierarchyRdfContextOptions> options =
+            ArgumentCaptor.forClass(HierarchyRdfContextOptions.class);
+        verify(mockObject).getHierarchyTriples(any(IdentifierTranslator.class), options.capture());
+        assertEquals(FedoraNodes.HTML_PAGE_SIZE, options.getValue().getLimit());
+        verify(mockResponse).addHeader("Link",
+                "<http://localhost/fcrepo" + path + "?offset=0&amp;limit=" + FedoraNodes.HTML_PAGE_SIZE
+                        + ">;rel=\"first\"");
+    }
+
+    @Test
+    public void testDescribeWithContinuationToken() throws RepositoryException {
+        final String pid = "FedoraObjectsRdfTest1";
+        final String path = "/" + pid;
+        final String after = ChildCursor.encodeToken("a");
+
+        when(mockObject.getEtagValue()).thenReturn("");
+        when(mockObject.getLastModifiedDate()).thenReturn(mockDate);
+        when(mockObject.getTriples(any(IdentifierTranslator.class))).thenReturn(mockRdfStream);
+        when(mockObject.getHierarchyTriples(any(IdentifierTranslator.class),
+                                               any(HierarchyRdfContextOptions.class))).thenReturn(mockRdfStream2);
+        when(mockObject.getReferencesTriples(any(IdentifierTranslator.class))).thenReturn(mockRdfStream3);
+        when(mockNodes.getObject(isA(Session.class), isA(String.class))).thenReturn(mockObject);
+        when(mockUriInfo.getRequestUriBuilder()).thenReturn(UriBuilder.fromUri("http://localhost/fcrepo" + path));
+
+        final Node mockChild1 = mock(Node.class);
+        final Node mockChild2 = mock(Node.class);
+        final Node mockChild3 = mock(Node.class);
+        when(mockChild1.getName()).thenReturn("b");
+        when(mockChild2.getName()).thenReturn("c");
+        when(mockChild3.getName()).thenReturn("d");
+        final NodeIterator mockChildren = mock(NodeIterator.class);
+        when(mockChildren.hasNext()).thenReturn(true, true, true, false);
+        when(mockChildren.nextNode()).thenReturn(mockChild1, mockChild2, mockChild3);
+
+        final QueryManager mockQueryManager = mock(QueryManager.class);
+        final Query mockQuery = mock(Query.class);
+        final QueryResult mockResult = mock(QueryResult.class);
+        when(mockNode.getSession()).thenReturn(mockSession);
+        when(mockSession.getValueFactory()).thenReturn(mockValueFactory);
+        when(mockValueFactory.createValue("a", NAME)).thenReturn(mockValue);
+        when(mockSession.getWorkspace().getQueryManager()).thenReturn(mockQueryManager);
+        when(mockQueryManager.createQuery(anyString(), eq(JCR_SQL2))).thenReturn(mockQuery);
+        when(mockQuery.execute()).thenReturn(mockResult);
+        when(mockResult.getNodes()).thenReturn(mockChildren);
+
+        testObj.describe(createPathList(path), 0, 2, after, null, mockRequest, mockResponse, mockUriInfo);
+
+        verify(mockQueryManager).createQuery(anyString(), eq(JCR_SQL2));
+        verify(mockQuery).bindValue("after", mockValue);
+        verify(mockQuery).setLimit(3);
+        verify(mockResponse).addHeader("Link",
+                "<http://localhost/fcrepo" + path + "?after=&amp;limit=2>;rel=\"first\"");
+        verify(mockResponse).addHeader("Link",
+                "<http://localhost/fcrepo" + path + "?after=" + ChildCursor.encodeToken("c")
+                        + "&amp;limit=2>;rel=\"next\"");
+
+        final ArgumentCaptor<HierarchyRdfContextOptions> options =
+            ArgumentCaptor.forClass(HierarchyRdfContextOptions.class);
+        verify(mockObject).getHierarchyTriples(any(IdentifierTranslator.class), options.capture());
+        assertEquals(after, options.getValue().getContinuationToken());
+        assertEquals(asList(mockChild1, mockChild2), newArrayList(options.getValue().getChildPage()));
+    }
+
+    @Test(expected = WebApplicationException.class)
+    public void testDescribeWithBadContinuationToken() throws RepositoryException {
+        when(mockObject.getEtagValue()).thenReturn("");
+        when(mockObject.getLastModifiedDate()).thenReturn(mockDate);
+        when(mockObject.getTriples(any(IdentifierTranslator.class))).thenReturn(mockRdfStream);
+        when(mockNodes.getObject(isA(Session.class), isA(String.class))).thenReturn(mockObject);
+
+        testObj.describe(createPathList("/FedoraObjectsRdfTest1"), 0, 2, "not a token!", null, mockRequest,
+                mockResponse, mockUriInfo);
+    }
+
     @Test
     public void testDescribeObjectNoInlining() throws RepositoryException, ParseException {
         final String pid = "FedoraObjectsRdfTest1";
@@ -395,7 +543,7 @@ public class FedoraNodesTest {
         final Prefer prefer = new Prefer("return=representation;"
                                             + "include=\"http://www.w3.org/ns/ldp#PreferEmptyContainer\"");
         final RdfStream rdfStream =
-            testObj.describe(createPathList(path), 0, -1, prefer, mockRequest, mockResponse, mockUriInfo);
+            testObj.describe(createPathList(path), 0, -1, null, prefer, mockRequest, mockResponse, mockUriInfo);
         assertEquals("Got wrong RDF!", mockRdfStream.concat(mockRdfStream2).concat(mockRdfStream3),
                 rdfStream);
 
@@ -489,7 +637,7 @@ public class FedoraNodesTest {
                                          mockStream,
                                          mockRequest,
                                          mockResponse);
-        verify(mockObject).replaceProperties(any(IdentifierTranslator.class), any(Model.class));
+        verify(mockObject).replaceProperties(any(IdentifierTranslator.class), eq(mockStream), any(Lang.class));
     }
 
     @Test
@@ -501,8 +649,41 @@ public class FedoraNodesTest {
 
         final String pid = "foo";
 
-        testObj.copyObject(createPathList(pid), "http://localhost/fcrepo/bar");
+        testObj.copyObject(createPathList(pid), "http://localhost/fcrepo/bar", null, mockResponse);
+        verify(mockNodes).copyObject(mockSession, "/foo", "/bar");
+    }
+
+    @Test
+    public void testCopyLargeObjectSynchronously() throws Exception {
+        when(mockSession.getValueFactory()).thenReturn(mock(ValueFactory.class));
+        when(mockNodes.exists(mockSession, "/foo")).thenReturn(true);
+        when(mockJobService.exceedsThreshold(mockSession, "/foo")).thenReturn(true);
+
+        final Response response =
+            testObj.copyObject(createPathList("foo"), "http://localhost/fcrepo/bar", null, mockResponse);
+
+        assertEquals(CREATED.getStatusCode(), response.getStatus());
         verify(mockNodes).copyObject(mockSession, "/foo", "/bar");
+        verify(mockJobService, never()).copyObject(eq(mockSession), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testCopyLargeObject() throws Exception {
+        setField(testObj, "implicitJobs", true);
+        when(mockSession.getValueFactory()).thenReturn(mock(ValueFactory.class));
+        when(mockNodes.exists(mockSession, "/foo")).thenReturn(true);
+        when(mockJobService.exceedsThreshold(mockSession, "/foo")).thenReturn(true);
+        when(mockJob.getId()).thenReturn("some-job");
+        when(mockJobService.copyObject(eq(mockSession), eq("/foo"), eq("/bar"), anyString())).thenReturn(mockJob);
+
+        final Response response =
+            testObj.copyObject(createPathList("foo"), "http://localhost/fcrepo/bar", null, mockResponse);
+
+        assertEquals(ACCEPTED.getStatusCode(), response.getStatus());
+        assertTrue(response.getMetadata().getFirst("Location").toString().endsWith("/fcr:jobs/some-job"));
+        verify(mockResponse, never()).addHeader("Preference-Applied", "respond-async");
+        verify(mockNodes, never()).copyObject(mockSession, "/foo", "/bar");
+        verify(mockSession).logout();
     }
 
     @Test
@@ -514,7 +695,8 @@ public class FedoraNodesTest {
 
         final String pid = "foo";
 
-        final Response response = testObj.copyObject(createPathList(pid), "http://localhost/fcrepo/bar");
+        final Response response =
+            testObj.copyObject(createPathList(pid), "http://localhost/fcrepo/bar", null, mockResponse);
 
         assertEquals(CONFLICT.getStatusCode(), response.getStatus());
     }
@@ -527,7 +709,8 @@ public class FedoraNodesTest {
 
         final String pid = "foo";
 
-        final Response response = testObj.copyObject(createPathList(pid), "http://somewhere/else/baz");
+        final Response response =
+            testObj.copyObject(createPathList(pid), "http://somewhere/else/baz", null, mockResponse);
 
         // BAD GATEWAY
         assertEquals(SC_BAD_GATEWAY, response.getStatus());
@@ -542,7 +725,8 @@ public class FedoraNodesTest {
 
         final String pid = "foo";
 
-        final Response response = testObj.copyObject(createPathList(pid), "http://localhost/fcrepo/baz");
+        final Response response =
+            testObj.copyObject(createPathList(pid), "http://localhost/fcrepo/baz", null, mockResponse);
 
         assertEquals(PRECONDITION_FAILED.getStatusCode(), response.getStatus());
     }
@@ -559,10 +743,28 @@ public class FedoraNodesTest {
 
         final String pid = "foo";
 
-        testObj.moveObject(createPathList(pid), "http://localhost/fcrepo/bar", mockRequest, mockResponse);
+        testObj.moveObject(createPathList(pid), "http://localhost/fcrepo/bar", null, mockRequest, mockResponse);
         verify(mockNodes).moveObject(mockSession, "/foo", "/bar");
     }
 
+    @Test
+    public void testMoveObjectAsync() throws Exception {
+        when(mockNodes.getObject(isA(Session.class), isA(String.class))).thenReturn(mockObject);
+        when(mockObject.getEtagValue()).thenReturn("");
+        when(mockSession.getValueFactory()).thenReturn(mock(ValueFactory.class));
+        when(mockNodes.exists(mockSession, "/foo")).thenReturn(true);
+        when(mockJob.getId()).thenReturn("some-job");
+        when(mockJobService.moveObject(eq(mockSession), eq("/foo"), eq("/bar"), anyString())).thenReturn(mockJob);
+
+        final Response response = testObj.moveObject(createPathList("foo"), "http://localhost/fcrepo/bar",
+                new Prefer("respond-async"), mockRequest, mockResponse);
+
+        assertEquals(ACCEPTED.getStatusCode(), response.getStatus());
+        verify(mockResponse).addHeader("Preference-Applied", "respond-async");
+        verify(mockNodes, never()).moveObject(mockSession, "/foo", "/bar");
+        verify(mockSession).logout();
+    }
+
     @Test
     public void testMoveMissingObject() throws RepositoryException, URISyntaxException {
         final ValueFactory mockVF = mock(ValueFactory.class);
@@ -576,6 +778,7 @@ public class FedoraNodesTest {
 
         final Response response = testObj.moveObject(createPathList(pid),
                                                      "http://localhost/fcrepo/bar",
+                                                     null,
                                                      mockRequest,
                                                      mockResponse);
         assertEquals(CONFLICT.getStatusCode(), response.getStatus());
@@ -595,6 +798,7 @@ public class FedoraNodesTest {
 
         final Response response = testObj.moveObject(createPathList(pid),
                                                      "http://localhost/fcrepo/baz",
+                                                     null,
                                                      mockRequest,
                                                      mockResponse);
 
@@ -614,6 +818,7 @@ public class FedoraNodesTest {
 
         final Response response = testObj.moveObject(createPathList(pid),
                                                      "http://somewhere/else/baz",
+                                                     null,
                                                      mockRequest,
                                                      mockResponse);
 
@@ -647,6 +852,53 @@ public class FedoraNodesTest {
         assertEquals(SC_OK, response.getStatus());
     }
 
+    @Test
+    public void testHeadFromCachedValidators() throws RepositoryException {
+        final ValidatorCache validatorCache = new ValidatorCache(10);
+        validatorCache.put("/foo", validatorCache.generation(), "some-etag", mockDate);
+        setField(testObj, "validatorCache", validatorCache);
+        when(mockSession.nodeExists("/foo")).thenReturn(true);
+        when(mockRequest.evaluatePreconditions(new EntityTag("some-etag"))).thenReturn(notModified());
+
+        try {
+            testObj.head(createPathList("foo"), mockRequest, mockResponse, mockUriInfo);
+            fail("Expected a 304 response");
+        } catch (final WebApplicationException e) {
+            assertEquals(SC_NOT_MODIFIED, e.getResponse().getStatus());
+        }
+        verify(mockNodes, never()).getObject(any(Session.class), anyString());
+    }
+
+    @Test
+    public void testHeadCachesValidatorsBeforePreconditions() throws RepositoryException {
+        final ValidatorCache validatorCache = new ValidatorCache(10);
+        setField(testObj, "validatorCache", validatorCache);
+        when(mockObject.getLastModifiedDate()).thenReturn(mockDate);
+        when(mockNodes.getObject(mockSession, "/foo")).thenReturn(mockObject);
+        when(mockRequest.evaluatePreconditions(new EntityTag("XYZ"))).thenReturn(notModified());
+
+        try {
+            testObj.head(createPathList("foo"), mockRequest, mockResponse, mockUriInfo);
+            fail("Expected a 304 response");
+        } catch (final WebApplicationException e) {
+            assertEquals(SC_NOT_MODIFIED, e.getResponse().getStatus());
+        }
+        assertTrue(validatorCache.contains("/foo"));
+    }
+
+    @Test
+    public void testDeleteObjectInvalidatesValidators() throws RepositoryException {
+        final ValidatorCache validatorCache = new ValidatorCache(10);
+        validatorCache.put("/testObject", validatorCache.generation(), "some-etag", mockDate);
+        setField(testObj, "validatorCache", validatorCache);
+        when(mockNodes.getObject(isA(Session.class), isA(String.class))).thenReturn(mockObject);
+        when(mockObject.getEtagValue()).thenReturn("");
+
+        testObj.deleteObject(createPathList("testObject"), null, mockRequest, mockResponse);
+
+        assertFalse(validatorCache.contains("/testObject"));
+    }
+
     @Test(expected = WebApplicationException.class)
     public void testCheckJcrNamespace() {
         final List<PathSegment> pathList = createPathList("anypath");
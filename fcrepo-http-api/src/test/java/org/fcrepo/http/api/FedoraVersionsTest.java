@@ -24,11 +24,17 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.text.ParseException;
 import java.util.Collection;
 import java.util.UUID;
 
@@ -38,19 +44,27 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Workspace;
 import javax.jcr.nodetype.NodeType;
+import javax.jcr.version.VersionHistory;
+import javax.jcr.version.VersionIterator;
+import javax.jcr.version.VersionManager;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Variant;
 
 import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
+import org.fcrepo.http.commons.domain.Prefer;
 import org.fcrepo.http.commons.session.SessionFactory;
 import org.fcrepo.kernel.impl.FedoraResourceImpl;
+import org.fcrepo.kernel.rdf.VersionsRdfContextOptions;
 import org.fcrepo.kernel.services.NodeService;
 import org.fcrepo.kernel.services.VersionService;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 
@@ -96,6 +110,9 @@ public class FedoraVersionsTest {
     @Mock
     private Dataset mockDataset;
 
+    @Mock
+    private HttpServletResponse mockResponse;
+
     @Before
     public void setUp() throws Exception {
         initMocks(this);
@@ -120,14 +137,85 @@ public class FedoraVersionsTest {
                 mockVariant);
         when(mockNodes.getObject(any(Session.class), anyString())).thenReturn(
                 mockResource);
-        when(mockResource.getVersionTriples(any(HttpIdentifierTranslator.class)))
-                .thenReturn(mockRdfStream);
+        when(mockResource.getVersionTriples(any(HttpIdentifierTranslator.class),
+                any(VersionsRdfContextOptions.class))).thenReturn(mockRdfStream);
         when(mockVariant.getMediaType()).thenReturn(
                 new MediaType("text", "turtle"));
         final RdfStream response =
-            testObj.getVersionList(createPathList(pid), mockRequest,
-                    getUriInfoImpl());
+            testObj.getVersionList(createPathList(pid), 0, null, null, mockRequest,
+                    mockResponse, getUriInfoImpl());
         assertEquals("Got wrong RdfStream!", mockRdfStream, response);
+        verify(mockResource).getVersionTriples(any(HttpIdentifierTranslator.class),
+                argThat(new ArgumentMatcher<VersionsRdfContextOptions>() {
+
+                    @Override
+                    public boolean matches(final Object options) {
+                        return !((VersionsRdfContextOptions) options).summaryEnabled()
+                                && !((VersionsRdfContextOptions) options).hasLimit();
+                    }
+                }));
+        verify(mockResponse, never()).addHeader(eq("Link"), anyString());
+    }
+
+    @Test
+    public void testGetVersionListSummaryPage() throws RepositoryException, ParseException {
+        final String pid = "FedoraVersioningTest";
+        when(mockNodes.getObject(any(Session.class), anyString())).thenReturn(
+                mockResource);
+        when(mockResource.getPath()).thenReturn("/" + pid);
+        when(mockResource.getVersionTriples(any(HttpIdentifierTranslator.class),
+                any(VersionsRdfContextOptions.class))).thenReturn(mockRdfStream);
+        final VersionManager mockVersionManager = mock(VersionManager.class);
+        final VersionHistory mockHistory = mock(VersionHistory.class);
+        final VersionIterator mockVersionIterator = mock(VersionIterator.class);
+        final Workspace mockWorkspace = mock(Workspace.class);
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockWorkspace.getVersionManager()).thenReturn(mockVersionManager);
+        when(mockVersionManager.getVersionHistory("/" + pid)).thenReturn(mockHistory);
+        when(mockHistory.getAllVersions()).thenReturn(mockVersionIterator);
+        when(mockVersionIterator.getSize()).thenReturn(25L);
+
+        testObj.getVersionList(createPathList(pid), 10, 10, new Prefer("return=minimal"), mockRequest,
+                mockResponse, getUriInfoImpl());
+
+        verify(mockResource).getVersionTriples(any(HttpIdentifierTranslator.class),
+                argThat(new ArgumentMatcher<VersionsRdfContextOptions>() {
+
+                    @Override
+                    public boolean matches(final Object options) {
+                        final VersionsRdfContextOptions o = (VersionsRdfContextOptions) options;
+                        return o.summaryEnabled() && o.getOffset() == 10 && o.getLimit() == 10;
+                    }
+                }));
+        verify(mockResponse).addHeader("Preference-Applied", "return=minimal");
+        verify(mockResponse).addHeader(eq("Link"), contains("rel=\"first\""));
+        verify(mockResponse).addHeader(eq("Link"), contains("rel=\"next\""));
+    }
+
+    @Test
+    public void testGetVersionListWithEmptyPage() throws RepositoryException {
+        try {
+            testObj.getVersionList(createPathList("FedoraVersioningTest"), 0, 0, null, mockRequest,
+                    mockResponse, getUriInfoImpl());
+        } catch (final WebApplicationException e) {
+            assertEquals(400, e.getResponse().getStatus());
+            verify(mockResource, never()).getVersionTriples(any(HttpIdentifierTranslator.class),
+                    any(VersionsRdfContextOptions.class));
+            return;
+        }
+        throw new AssertionError("Expected a 400");
+    }
+
+    @Test
+    public void testGetVersionListWithNegativeOffset() throws RepositoryException {
+        try {
+            testObj.getVersionList(createPathList("FedoraVersioningTest"), -10, 10, null, mockRequest,
+                    mockResponse, getUriInfoImpl());
+        } catch (final WebApplicationException e) {
+            assertEquals(400, e.getResponse().getStatus());
+            return;
+        }
+        throw new AssertionError("Expected a 400");
     }
 
     @Test
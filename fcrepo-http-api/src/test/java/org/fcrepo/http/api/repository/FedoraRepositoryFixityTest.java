@@ -0,0 +1,149 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.repository;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createTypedLiteral;
+import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
+import static org.fcrepo.http.commons.test.util.TestHelpers.setField;
+import static org.fcrepo.kernel.RdfLexicon.FIXITY_AUDIT_RUNNING;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_AUDIT_FAILURE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_AUDIT_POSITION;
+import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_CHECK_COUNT;
+import static org.fcrepo.kernel.RdfLexicon.HAS_LAST_FIXITY_STATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Date;
+
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.security.AccessControlException;
+
+import org.fcrepo.http.api.FedoraNodes;
+import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
+import org.fcrepo.kernel.services.FixityAuditService;
+import org.fcrepo.kernel.utils.FixityAuditRecord;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * <p>FedoraRepositoryFixityTest class.</p>
+ *
+ * @author agent
+ */
+public class FedoraRepositoryFixityTest {
+
+    private FedoraRepositoryFixity testObj;
+
+    @Mock
+    private FixityAuditService mockAuditService;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Repository mockRepository;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = new FedoraRepositoryFixity();
+        when(mockSession.getRepository()).thenReturn(mockRepository);
+        setField(testObj, "session", mockSession);
+        setField(testObj, "fixityAuditService", mockAuditService);
+        setField(testObj, "uriInfo", getUriInfoImpl());
+    }
+
+    @Test
+    public void testGetAuditProgress() throws RepositoryException {
+        when(mockAuditService.isRunning()).thenReturn(true);
+        when(mockAuditService.getCheckCount()).thenReturn(42L);
+        when(mockAuditService.getPosition()).thenReturn("/a/b/jcr:content");
+
+        final Model model = testObj.getAuditProgress().asModel();
+        final Node subject = new HttpIdentifierTranslator(mockSession, FedoraNodes.class, getUriInfoImpl())
+                .getSubject("/").asNode();
+
+        assertTrue(model.getGraph().contains(
+                create(subject, FIXITY_AUDIT_RUNNING.asNode(), createTypedLiteral(true).asNode())));
+        assertTrue(model.getGraph().contains(
+                create(subject, HAS_FIXITY_CHECK_COUNT.asNode(), createTypedLiteral(42L).asNode())));
+        assertTrue(model.getGraph().contains(
+                create(subject, HAS_FIXITY_AUDIT_POSITION.asNode(), createLiteral("/a/b/jcr:content"))));
+    }
+
+    @Test
+    public void testGetAuditProgressListsFailures() throws RepositoryException {
+        when(mockAuditService.getFailures()).thenReturn(singletonList(
+                new FixityAuditRecord("/a/b/jcr:content", new Date(), singleton("BAD_CHECKSUM"), false)));
+
+        final Model model = testObj.getAuditProgress().asModel();
+        final HttpIdentifierTranslator subjects =
+                new HttpIdentifierTranslator(mockSession, FedoraNodes.class, getUriInfoImpl());
+        final Node subject = subjects.getSubject("/").asNode();
+        final Node binary = subjects.getSubject("/a/b/jcr:content").asNode();
+
+        assertTrue(model.getGraph().contains(create(subject, HAS_FIXITY_AUDIT_FAILURE.asNode(), binary)));
+        assertTrue(model.getGraph().contains(
+                create(binary, HAS_LAST_FIXITY_STATE.asNode(), createLiteral("BAD_CHECKSUM"))));
+    }
+
+    @Test
+    public void testStartAudit() throws RepositoryException {
+        assertEquals(204, testObj.startAudit().getStatus());
+        verify(mockSession).checkPermission("/", "add_node,set_property,remove");
+        verify(mockAuditService).start();
+        verify(mockSession).logout();
+    }
+
+    @Test
+    public void testStartAuditWithoutPermission() throws RepositoryException {
+        doThrow(new AccessControlException("denied")).when(mockSession)
+                .checkPermission("/", "add_node,set_property,remove");
+
+        try {
+            testObj.startAudit();
+            fail("Expected the request to be refused");
+        } catch (final AccessControlException e) {
+            // expected
+        }
+        verify(mockAuditService, never()).start();
+        verify(mockSession).logout();
+    }
+
+    @Test
+    public void testStopAudit() throws RepositoryException {
+        assertEquals(204, testObj.stopAudit().getStatus());
+        verify(mockSession).checkPermission("/", "add_node,set_property,remove");
+        verify(mockAuditService).stop();
+        verify(mockSession).logout();
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.repository;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createTypedLiteral;
+import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
+import static org.fcrepo.http.commons.test.util.TestHelpers.setField;
+import static org.fcrepo.kernel.Job.State.FAILED;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_DESTINATION;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_MESSAGE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_PROCESSED_COUNT;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_STATE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_JOB_TARGET;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Date;
+
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.ws.rs.WebApplicationException;
+
+import org.fcrepo.http.api.FedoraNodes;
+import org.fcrepo.http.commons.api.rdf.HttpIdentifierTranslator;
+import org.fcrepo.kernel.Job;
+import org.fcrepo.kernel.services.JobService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * <p>FedoraRepositoryJobsTest class.</p>
+ *
+ * @author agent
+ */
+public class FedoraRepositoryJobsTest {
+
+    private FedoraRepositoryJobs testObj;
+
+    @Mock
+    private JobService mockJobService;
+
+    @Mock
+    private Job mockJob;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Repository mockRepository;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = new FedoraRepositoryJobs();
+        when(mockSession.getRepository()).thenReturn(mockRepository);
+        setField(testObj, "session", mockSession);
+        setField(testObj, "jobService", mockJobService);
+        setField(testObj, "uriInfo", getUriInfoImpl());
+    }
+
+    @Test
+    public void testGetJob() throws RepositoryException {
+        when(mockJobService.getJob(mockSession, "some-job")).thenReturn(mockJob);
+        when(mockJob.getType()).thenReturn("move");
+        when(mockJob.getPath()).thenReturn("/a");
+        when(mockJob.getDestination()).thenReturn("/b");
+        when(mockJob.getState()).thenReturn(FAILED);
+        when(mockJob.getProcessed()).thenReturn(42L);
+        when(mockJob.getStarted()).thenReturn(new Date());
+        when(mockJob.getFinished()).thenReturn(new Date());
+        when(mockJob.getMessage()).thenReturn("Interrupted");
+
+        final Model model = testObj.getJob("some-job").asModel();
+        final Node subject = createURI("http://localhost/fcrepo/fcr:jobs/some-job");
+        final HttpIdentifierTranslator subjects =
+                new HttpIdentifierTranslator(mockSession, FedoraNodes.class, getUriInfoImpl());
+
+        assertTrue(model.getGraph().contains(
+                create(subject, HAS_JOB_TARGET.asNode(), subjects.getSubject("/a").asNode())));
+        assertTrue(model.getGraph().contains(
+                create(subject, HAS_JOB_DESTINATION.asNode(), subjects.getSubject("/b").asNode())));
+        assertTrue(model.getGraph().contains(create(subject, HAS_JOB_STATE.asNode(), createLiteral("FAILED"))));
+        assertTrue(model.getGraph().contains(
+                create(subject, HAS_JOB_PROCESSED_COUNT.asNode(), createTypedLiteral(42L).asNode())));
+        assertTrue(model.getGraph().contains(
+                create(subject, HAS_JOB_MESSAGE.asNode(), createLiteral("Interrupted"))));
+    }
+
+    @Test
+    public void testGetMissingJob() throws RepositoryException {
+        try {
+            testObj.getJob("no-such-job");
+        } catch (final WebApplicationException e) {
+            assertEquals(404, e.getResponse().getStatus());
+            verify(mockSession).logout();
+            return;
+        }
+        throw new AssertionError("Expected a 404");
+    }
+}
@@ -15,11 +15,17 @@
  */
 package org.fcrepo.http.api.responses;
 
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
 import static com.hp.hpl.jena.graph.NodeFactory.createURI;
 import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.vocabulary.RDF.type;
 import static javax.ws.rs.core.MediaType.valueOf;
+import static org.fcrepo.http.api.responses.StreamingBaseHtmlProvider.summarizeChildren;
 import static org.fcrepo.http.commons.test.util.TestHelpers.setField;
+import static org.fcrepo.kernel.RdfLexicon.DC_TITLE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_CHILD;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -40,7 +46,9 @@ import javax.jcr.Workspace;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MultivaluedMap;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableMap;
+import com.hp.hpl.jena.graph.Node;
 import com.hp.hpl.jena.query.Dataset;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.junit.Before;
@@ -94,6 +102,21 @@ public class StreamingBaseHtmlProviderTest {
         assertTrue(testProvider.isWriteable(RdfStream.class, null, null, valueOf("text/something-like-html")));
     }
 
+    @Test
+    public void testSummarizeChildren() {
+        final Node topic = createURI("info:test");
+        final Node child = createURI("info:test/child");
+        final Predicate<Triple> summary = summarizeChildren(topic);
+
+        assertTrue(summary.apply(create(topic, DC_TITLE.asNode(), createLiteral("topic"))));
+        assertTrue(summary.apply(create(topic, createURI("property:test"), createLiteral("x"))));
+        assertTrue(summary.apply(create(topic, HAS_CHILD.asNode(), child)));
+        assertTrue(summary.apply(create(child, DC_TITLE.asNode(), createLiteral("child"))));
+        assertTrue(summary.apply(create(child, type.asNode(), createURI("info:type"))));
+        assertFalse(summary.apply(create(child, createURI("property:test"), createLiteral("x"))));
+        assertTrue(summary.apply(create(createURI("info:other"), createURI("property:test"), createLiteral("x"))));
+    }
+
     @Test
     public void testWriteTo() throws WebApplicationException,
                                          IllegalArgumentException, IOException {
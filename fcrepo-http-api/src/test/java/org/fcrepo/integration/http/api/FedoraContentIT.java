@@ -395,9 +395,47 @@ public class FedoraContentIT extends AbstractResourceIT {
         final HttpResponse response = client.execute(method_test_get);
         assertEquals(206, response.getStatusLine().getStatusCode());
         logger.debug("Returned from HTTP GET, now checking content...");
-        assertEquals("Got the wrong content back!", "mar",
+        assertEquals("Got the wrong content back!", "ne",
                 EntityUtils.toString(response.getEntity()));
-        assertEquals("bytes 0-2/20", response.getFirstHeader("Content-Range").getValue());
+        assertEquals("bytes 18-19/20", response.getFirstHeader("Content-Range").getValue());
+    }
+
+    @Test
+    public void testMultipleRangeRequest() throws Exception {
+        final String pid = getRandomUniquePid();
+        createObject(pid);
+
+        final HttpPost createDSMethod = postDSMethod(pid, "ds1", "marbles for everyone");
+        assertEquals(201, getStatus(createDSMethod));
+
+        final HttpGet method_test_get = new HttpGet(serverAddress + pid + "/ds1/fcr:content");
+        method_test_get.setHeader("Range", "bytes=12-14,1-3");
+
+        final HttpResponse response = client.execute(method_test_get);
+        assertEquals(206, response.getStatusLine().getStatusCode());
+        assertTrue(response.getFirstHeader("Content-Type").getValue().startsWith("multipart/byteranges"));
+
+        final String content = EntityUtils.toString(response.getEntity());
+        assertTrue(content.contains("Content-Range: bytes 1-3/20\r\n\r\narb"));
+        assertTrue(content.contains("Content-Range: bytes 12-14/20\r\n\r\neve"));
+        assertTrue("Ranges should be served in ascending order",
+                content.indexOf("bytes 1-3/20") < content.indexOf("bytes 12-14/20"));
+    }
+
+    @Test
+    public void testMultipleRangeRequestBadRanges() throws Exception {
+        final String pid = getRandomUniquePid();
+        createObject(pid);
+
+        final HttpPost createDSMethod = postDSMethod(pid, "ds1", "marbles for everyone");
+        assertEquals(201, getStatus(createDSMethod));
+
+        final HttpGet method_test_get = new HttpGet(serverAddress + pid + "/ds1/fcr:content");
+        method_test_get.setHeader("Range", "bytes=50-60,70-80");
+
+        final HttpResponse response = client.execute(method_test_get);
+        assertEquals(416, response.getStatusLine().getStatusCode());
+        assertEquals("bytes */20", response.getFirstHeader("Content-Range").getValue());
     }
 
     @Test
@@ -19,6 +19,7 @@ import static com.hp.hpl.jena.graph.Node.ANY;
 import static com.hp.hpl.jena.rdf.model.ResourceFactory.createPlainLiteral;
 import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
 import static com.hp.hpl.jena.rdf.model.ResourceFactory.createTypedLiteral;
+import static org.fcrepo.kernel.RdfLexicon.FIXITY_AUDIT_RUNNING;
 import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_RESULT;
 import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_STATE;
 import static org.fcrepo.kernel.RdfLexicon.HAS_MESSAGE_DIGEST;
@@ -80,4 +81,12 @@ public class FedoraFixityIT extends AbstractResourceIT {
             assertEquals(type, getContentType(method));
         }
     }
+
+    @Test
+    public void testAuditProgress() throws Exception {
+        final GraphStore graphStore = getGraphStore(new HttpGet(serverAddress + "fcr:fixity"));
+        logger.debug("Got triples {}", graphStore);
+
+        assertTrue(graphStore.contains(ANY, ANY, FIXITY_AUDIT_RUNNING.asNode(), ANY));
+    }
 }
@@ -1036,67 +1036,56 @@ public class FedoraNodesIT extends AbstractResourceIT {
 
         final String sizeNode = getRandomUniquePid();
 
-        GraphStore graphStore = getGraphStore(new HttpGet(serverAddress + ""));
-        logger.trace("For testDescribeSize() first size retrieved repository graph:\n"
-                + graphStore.toString());
-
-        Iterator<Triple> iterator =
-            graphStore.getDefaultGraph().find(ANY, HAS_OBJECT_SIZE.asNode(),
-                    ANY);
-
-        final String oldSize = (String) iterator.next().getObject().getLiteralValue();
+        final long oldSize = getDescribed(HAS_OBJECT_SIZE);
 
         createObject(sizeNode);
         createDatastream(sizeNode, "asdf", "1234");
 
-        graphStore = getGraphStore(new HttpGet(serverAddress + ""));
-        logger.trace("For testDescribeSize() new size retrieved repository graph:\n"
-                + graphStore.toString());
-
-        iterator =
-            graphStore.getDefaultGraph().find(ANY, HAS_OBJECT_SIZE.asNode(),
-                    ANY);
-
-        final String newSize = (String) iterator.next().getObject().getLiteralValue();
+        final long newSize = awaitIncrease(HAS_OBJECT_SIZE, oldSize);
 
         logger.trace("Old size was: " + oldSize + " and new size was: "
                 + newSize);
         assertTrue("No increment in size occurred when we expected one!",
-                Integer.parseInt(oldSize) < Integer.parseInt(newSize));
+                oldSize < newSize);
     }
 
     @Test
     public void testDescribeCount() throws Exception {
         logger.trace("Entering testDescribeCount()...");
-        GraphStore graphStore = getGraphStore(new HttpGet(serverAddress + ""));
-        logger.trace("For testDescribeCount() first count retrieved repository graph:\n"
-                + graphStore.toString());
-
-        Iterator<Triple> iterator =
-            graphStore.getDefaultGraph().find(ANY, HAS_OBJECT_COUNT.asNode(),
-                    ANY);
-
-        final String oldSize = (String) iterator.next().getObject().getLiteralValue();
+        final long oldSize = getDescribed(HAS_OBJECT_COUNT);
 
         createObject("");
         final String countNode = getRandomUniquePid();
         createDatastream(countNode, "asdf", "1234");
 
-        graphStore = getGraphStore(new HttpGet(serverAddress + ""));
-        logger.trace("For testDescribeCount() first count repository graph:\n"
-                + graphStore.toString());
-
-        iterator =
-            graphStore.getDefaultGraph().find(ANY, HAS_OBJECT_COUNT.asNode(),
-                    ANY);
-
-        final String newSize =
-                 (String) iterator.next().getObject().getLiteralValue();
+        final long newSize = awaitIncrease(HAS_OBJECT_COUNT, oldSize);
 
         logger.debug("Old size was: " + oldSize + " and new size was: " +
                              newSize);
         assertTrue("No increment in count occurred when we expected one!",
-                   Integer.parseInt(oldSize) < Integer.parseInt(newSize));
+                   oldSize < newSize);
+    }
+
+    private long getDescribed(final Property property) throws IOException {
+        final GraphStore graphStore = getGraphStore(new HttpGet(serverAddress + ""));
+        logger.trace("Retrieved repository graph:\n" + graphStore.toString());
+
+        final Iterator<Triple> iterator = graphStore.getDefaultGraph().find(ANY, property.asNode(), ANY);
+        return Long.parseLong((String) iterator.next().getObject().getLiteralValue());
+    }
+
+    /**
+     * The repository statistics follow asynchronous JCR events, so give them a
+     * few seconds to catch up
+     */
+    private long awaitIncrease(final Property property, final long from) throws IOException,
+            InterruptedException {
+        long value = getDescribed(property);
+        for (int tries = 0; value <= from && tries < 50; tries++) {
+            Thread.sleep(100);
+            value = getDescribed(property);
+        }
+        return value;
     }
 
     /**
@@ -47,6 +47,8 @@ import org.fcrepo.http.commons.session.SessionFactory;
 import org.fcrepo.kernel.FedoraResource;
 import org.fcrepo.kernel.identifiers.PidMinter;
 import org.fcrepo.kernel.impl.services.TransactionServiceImpl;
+import org.fcrepo.kernel.impl.utils.ValidatorCache;
+import org.fcrepo.kernel.impl.utils.ValidatorCache.Validators;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
 import org.fcrepo.kernel.services.DatastreamService;
 import org.fcrepo.kernel.services.LockService;
@@ -127,6 +129,12 @@ public abstract class AbstractResource {
     @Autowired(required = false)
     protected EventBus eventBus;
 
+    /**
+     * Cached ETag and last-modified validators, by node path
+     */
+    @Autowired(required = false)
+    protected ValidatorCache validatorCache;
+
     /**
      * A resource that can mint new Fedora PIDs.
      */
@@ -198,6 +206,81 @@ public abstract class AbstractResource {
         addCacheControlHeaders(servletResponse, resource, session);
     }
 
+    /**
+     * Evaluate the cache control headers for the request against the validators
+     * cached for a path, so that a request that can be served from the cache
+     * is answered before the resource is loaded.
+     *
+     * @param request
+     * @param path
+     * @param session
+     * @return the cache generation to pass to {@link #cacheValidators}
+     * @throws RepositoryException
+     */
+    protected long checkCachedValidators(final Request request,
+                                         final String path,
+                                         final Session session) throws RepositoryException {
+        if (validatorCache == null || TransactionServiceImpl.getCurrentTransactionId(session) != null) {
+            return -1;
+        }
+
+        final long generation = validatorCache.generation();
+        final Validators validators = validatorCache.get(path);
+
+        if (validators != null) {
+            final Response.ResponseBuilder builder = evaluatePreconditions(request,
+                    new EntityTag(validators.getEtag()), validators.getLastModified(), true);
+
+            // nodeExists() also enforces read access to the node
+            if (builder != null && session.nodeExists(path)) {
+                LOGGER.trace("Answering conditional request for {} from cached validators", path);
+                throw new WebApplicationException(builder.build());
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * Cache the validators of a resource, if they are not already cached
+     *
+     * @param path
+     * @param generation the value returned by {@link #checkCachedValidators}
+     * @param resource
+     * @param session
+     * @throws RepositoryException
+     */
+    protected void cacheValidators(final String path,
+                                   final long generation,
+                                   final FedoraResource resource,
+                                   final Session session) throws RepositoryException {
+        if (validatorCache == null || generation < 0 || validatorCache.contains(path)
+                || TransactionServiceImpl.getCurrentTransactionId(session) != null) {
+            return;
+        }
+
+        validatorCache.put(path, generation, resource.getEtagValue(), resource.getLastModifiedDate());
+    }
+
+    /**
+     * Invalidate the cached validators of paths that have just been saved,
+     * so that a conditional request arriving before the JCR events are
+     * delivered is not answered from the old validators. Inside a
+     * transaction nothing is visible to other sessions until the commit,
+     * which invalidates the whole cache.
+     *
+     * @param session
+     * @param paths
+     */
+    protected void invalidateValidators(final Session session, final String... paths) {
+        if (validatorCache == null || TransactionServiceImpl.getCurrentTransactionId(session) != null) {
+            return;
+        }
+
+        for (final String path : paths) {
+            validatorCache.invalidate(path);
+        }
+    }
+
     /**
      * Add ETag and Last-Modified cache control headers to the response
      * @param servletResponse
@@ -271,8 +354,18 @@ public abstract class AbstractResource {
             return;
         }
 
-        final EntityTag etag = new EntityTag(resource.getEtagValue());
-        final Date date = resource.getLastModifiedDate();
+        final Response.ResponseBuilder builder = evaluatePreconditions(request,
+                new EntityTag(resource.getEtagValue()), resource.getLastModifiedDate(), cacheControl);
+
+        if (builder != null) {
+            throw new WebApplicationException(builder.build());
+        }
+    }
+
+    private static Response.ResponseBuilder evaluatePreconditions(final Request request,
+                                                                  final EntityTag etag,
+                                                                  final Date date,
+                                                                  final boolean cacheControl) {
         final Date roundedDate = new Date();
 
         if (date != null) {
@@ -298,9 +391,7 @@ public abstract class AbstractResource {
             // an exceptional condition
             builder = builder.cacheControl(cc).lastModified(date).tag(etag);
         }
-        if (builder != null) {
-            throw new WebApplicationException(builder.build());
-        }
+        return builder;
     }
 
     /**
@@ -15,7 +15,10 @@
  */
 package org.fcrepo.http.commons.api.rdf;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.hp.hpl.jena.rdf.model.Resource;
 
 import org.fcrepo.kernel.exception.RepositoryRuntimeException;
@@ -88,6 +91,36 @@ public class HttpIdentifierTranslator extends SpringContextAwareIdentifierTransl
     private final UriInfo uris;
     private final boolean canonical;
 
+    /**
+     * Subjects already made, by path, for the life of this translator
+     * (normally, one request)
+     */
+    private final Cache<String, Resource> subjects = CacheBuilder.newBuilder().maximumSize(MEMO_SIZE).build();
+
+    /**
+     * Paths already parsed, by subject URI
+     */
+    private final Cache<String, String> paths = CacheBuilder.newBuilder().maximumSize(MEMO_SIZE).build();
+
+    private static final int MEMO_SIZE = 10000;
+
+    private static final String SENTINEL = "fcrepo-path-sentinel";
+
+    /**
+     * Characters that a URI path never needs to escape
+     */
+    private static final CharMatcher UNESCAPED_PATH_CHARS = CharMatcher.inRange('a', 'z')
+            .or(CharMatcher.inRange('A', 'Z')).or(CharMatcher.inRange('0', '9')).or(CharMatcher.anyOf("-._~:@/"))
+            .precomputed();
+
+    /**
+     * The text either side of the path in a subject URI, worked out on first
+     * use
+     */
+    private String subjectPrefix;
+
+    private String subjectSuffix;
+
     /**
      * Build HTTP graph subjects relative to the given JAX-RS resource, using the UriInfo provided.
      *
@@ -153,6 +186,17 @@ public class HttpIdentifierTranslator extends SpringContextAwareIdentifierTransl
 
     @Override
     public Resource getSubject(final String absPath) throws RepositoryException {
+        final Resource memo = subjects.getIfPresent(absPath);
+        if (memo != null) {
+            return memo;
+        }
+
+        final Resource subject = translateSubject(absPath);
+        subjects.put(absPath, subject);
+        return subject;
+    }
+
+    private Resource translateSubject(final String absPath) {
         resetTranslationChain();
         try {
             LOGGER.debug("Creating RDF subject from identifier: {}", decode(absPath, "UTF-8"));
@@ -178,8 +222,22 @@ public class HttpIdentifierTranslator extends SpringContextAwareIdentifierTransl
 
     @Override
     public String getPathFromSubject(final Resource subject) throws RepositoryException {
+        final String subjectUri = subject.isURIResource() ? subject.getURI() : null;
+
+        if (subjectUri != null) {
+            final String memo = paths.getIfPresent(subjectUri);
+            if (memo != null) {
+                return memo;
+            }
+        }
+
         resetTranslationChain();
-        return doBackward(subject);
+        final String path = doBackward(subject);
+
+        if (subjectUri != null && path != null) {
+            paths.put(subjectUri, path);
+        }
+        return path;
     }
 
     /**
@@ -291,6 +349,20 @@ public class HttpIdentifierTranslator extends SpringContextAwareIdentifierTransl
      */
     @Override
     protected Resource doRdfForward(final String inputId) {
+        final String path = inputId.substring(1);
+
+        // a path that needs no escaping can be put straight into the URI,
+        // without going through the URI template each time
+        if (UNESCAPED_PATH_CHARS.matchesAllOf(path)) {
+            if (subjectPrefix == null) {
+                final String template = uriBuilder.buildFromMap(getPathMap("/" + SENTINEL)).toString();
+                final int i = template.indexOf(SENTINEL);
+                subjectSuffix = template.substring(i + SENTINEL.length());
+                subjectPrefix = template.substring(0, i);
+            }
+            return createResource(subjectPrefix + path + subjectSuffix);
+        }
+
         final URI result = uriBuilder.buildFromMap(getPathMap(inputId));
         return createResource(result.toString());
     }
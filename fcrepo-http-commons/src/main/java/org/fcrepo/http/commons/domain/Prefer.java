@@ -63,6 +63,13 @@ public class Prefer {
         }
     }
 
+    /**
+     * Does the Prefer: header ask for an asynchronous response
+     * @return true if the header has a respond-async tag
+     */
+    public Boolean hasRespondAsync() {
+        return Iterators.any(preferTags.iterator(), getPreferTag("respond-async"));
+    }
 
     private static final HttpHeaderReader.ListElementCreator<PreferTag> PREFER_CREATOR =
         new HttpHeaderReader.ListElementCreator<PreferTag>() {
@@ -19,6 +19,10 @@ package org.fcrepo.http.commons.domain;
 import static java.lang.Long.parseLong;
 import static java.util.regex.Pattern.compile;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,9 +37,17 @@ public class Range {
 
     private final long end;
 
+    private final long suffixLength;
+
     private static Pattern rangePattern =
         compile("^bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)");
 
+    private static Pattern rangeSetPattern =
+        compile("^bytes\\s*=\\s*(.*)$");
+
+    private static Pattern rangeSpecPattern =
+        compile("^\\s*(\\d*)\\s*-\\s*(\\d*)\\s*$");
+
     /**
      * Unbounded Range
      */
@@ -57,8 +69,58 @@ public class Range {
      * @param end
      */
     public Range(final long start, final long end) {
+        this(start, end, -1L);
+    }
+
+    private Range(final long start, final long end, final long suffixLength) {
         this.start = start;
         this.end = end;
+        this.suffixLength = suffixLength;
+    }
+
+    /**
+     * Range of the last bytes of a binary, as in <code>bytes=-500</code>,
+     * whose start and end are only known once the binary's size is
+     * @param length the number of bytes at the end
+     * @return the suffix range
+     */
+    public static Range suffix(final long length) {
+        return new Range(-1L, -1L, length);
+    }
+
+    /**
+     * Whether this range is of the last bytes of a binary
+     * @return true if the range is a suffix range
+     */
+    public boolean isSuffix() {
+        return suffixLength >= 0;
+    }
+
+    /**
+     * The number of bytes at the end of a binary a suffix range asks for
+     * @return the suffix length, or -1 if the range is not a suffix range
+     */
+    public long suffixLength() {
+        return suffixLength;
+    }
+
+    /**
+     * Resolve this range against the size of a binary
+     * @param size
+     * @return the range with a definite start and end, or null if no byte
+     *         of the binary falls in it
+     */
+    public Range resolve(final long size) {
+        if (isSuffix()) {
+            return suffixLength > 0 && size > 0 ? new Range(Math.max(0, size - suffixLength), size - 1) : null;
+        }
+
+        if (start >= size) {
+            return null;
+        }
+
+        final long definiteEnd = end == -1 || end >= size ? size - 1 : end;
+        return definiteEnd >= start ? new Range(start, definiteEnd) : null;
     }
 
     /**
@@ -74,6 +136,9 @@ public class Range {
      * @return length of the range
      */
     public long size() {
+        if (isSuffix()) {
+            return suffixLength;
+        }
         if (end == -1) {
             return -1;
         }
@@ -82,7 +147,7 @@ public class Range {
 
     /**
      * Start of the range
-     * @return start of the range
+     * @return start of the range, or -1 for a suffix range
      */
     public long start() {
         return start;
@@ -90,14 +155,15 @@ public class Range {
 
     /**
      * End of the range
-     * @return end of the range
+     * @return end of the range, or -1 if it is open or a suffix range
      */
     public long end() {
         return end;
     }
 
     /**
-     * Convert an HTTP Range header to a Range object
+     * Convert an HTTP Range header to a Range object; a range with no first
+     * byte, such as <code>bytes=-500</code>, is a suffix range
      * @param source
      * @return range object
      */
@@ -113,6 +179,10 @@ public class Range {
         final String from = matcher.group(1);
         final String to = matcher.group(2);
 
+        if (from.equals("") && !to.equals("")) {
+            return suffix(parseLong(to));
+        }
+
         final long start;
 
         if (from.equals("")) {
@@ -130,4 +200,77 @@ public class Range {
 
         return new Range(start, end);
     }
+
+    /**
+     * Convert an HTTP Range header that may name several byte ranges, such as
+     * <code>bytes=0-99,200-299</code>, to a list of Range objects
+     * @param source
+     * @return the ranges in the order given, or an empty list if the header
+     *         cannot be parsed
+     */
+    public static List<Range> convertAll(final String source) {
+        final List<Range> ranges = new ArrayList<>();
+
+        final Matcher setMatcher = rangeSetPattern.matcher(source);
+
+        if (!setMatcher.matches()) {
+            return ranges;
+        }
+
+        for (final String spec : setMatcher.group(1).split(",")) {
+            final Matcher matcher = rangeSpecPattern.matcher(spec);
+
+            if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                ranges.clear();
+                return ranges;
+            }
+
+            ranges.add(convert("bytes=" + matcher.group(1) + "-" + matcher.group(2)));
+        }
+        return ranges;
+    }
+
+    /**
+     * Resolve ranges against the size of a binary: ranges starting beyond
+     * the end are dropped, open or overlong ranges are cut at the end,
+     * suffix ranges become the last bytes, and the remainder are sorted and
+     * merged where they overlap or touch, so they can be served in one
+     * forward pass.
+     * @param ranges
+     * @param size
+     * @return ranges with definite ends, in ascending order
+     */
+    public static List<Range> satisfiable(final List<Range> ranges, final long size) {
+        final List<Range> resolved = new ArrayList<>();
+
+        for (final Range range : ranges) {
+            final Range definite = range.resolve(size);
+
+            if (definite != null) {
+                resolved.add(definite);
+            }
+        }
+
+        Collections.sort(resolved, new Comparator<Range>() {
+
+            @Override
+            public int compare(final Range a, final Range b) {
+                return Long.compare(a.start(), b.start());
+            }
+        });
+
+        final List<Range> merged = new ArrayList<>();
+
+        for (final Range range : resolved) {
+            final int last = merged.size() - 1;
+
+            if (last >= 0 && range.start() <= merged.get(last).end() + 1) {
+                final Range previous = merged.get(last);
+                merged.set(last, new Range(previous.start(), Math.max(previous.end(), range.end())));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
 }
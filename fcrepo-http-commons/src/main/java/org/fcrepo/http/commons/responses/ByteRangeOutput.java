@@ -0,0 +1,55 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Streams a single byte range of a binary as a response entity
+ *
+ * @author agent
+ */
+public class ByteRangeOutput implements StreamingOutput {
+
+    private final ByteRangeSource source;
+
+    private final long start;
+
+    private final long length;
+
+    /**
+     * @param source
+     * @param start
+     * @param length
+     */
+    public ByteRangeOutput(final ByteRangeSource source, final long start, final long length) {
+        this.source = source;
+        this.start = start;
+        this.length = length;
+    }
+
+    @Override
+    public void write(final OutputStream out) throws IOException {
+        try {
+            source.write(start, length, out);
+        } finally {
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Something that can write byte ranges of a binary to an output stream,
+ * and be closed once the ranges have been written
+ *
+ * @author agent
+ */
+public interface ByteRangeSource extends Closeable {
+
+    /**
+     * Write a range of bytes
+     * @param start offset of the first byte to write
+     * @param length number of bytes to write
+     * @param out
+     * @throws IOException
+     */
+    void write(final long start, final long length, final OutputStream out) throws IOException;
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.UUID.randomUUID;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.fcrepo.http.commons.domain.Range;
+
+/**
+ * Streams several byte ranges of a binary as a multipart/byteranges
+ * response entity (RFC 7233, appendix A)
+ *
+ * @author agent
+ */
+public class MultipartByteRangesOutput implements StreamingOutput {
+
+    private static final String CRLF = "\r\n";
+
+    private final ByteRangeSource source;
+
+    private final List<Range> ranges;
+
+    private final long totalSize;
+
+    private final String contentType;
+
+    private final String boundary = randomUUID().toString();
+
+    /**
+     * @param source
+     * @param ranges satisfiable ranges, each with a definite end
+     * @param totalSize the size of the whole binary
+     * @param contentType the media type of the binary
+     */
+    public MultipartByteRangesOutput(final ByteRangeSource source,
+                                     final List<Range> ranges,
+                                     final long totalSize,
+                                     final String contentType) {
+        this.source = source;
+        this.ranges = ranges;
+        this.totalSize = totalSize;
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return the media type of the whole response, carrying the boundary
+     */
+    public MediaType getMediaType() {
+        return MediaType.valueOf("multipart/byteranges; boundary=" + boundary);
+    }
+
+    @Override
+    public void write(final OutputStream out) throws IOException {
+        try {
+            for (final Range range : ranges) {
+                final StringBuilder headers = new StringBuilder(CRLF)
+                    .append("--").append(boundary).append(CRLF);
+
+                if (contentType != null) {
+                    headers.append("Content-Type: ").append(contentType).append(CRLF);
+                }
+
+                headers.append("Content-Range: bytes ").append(range.start()).append("-").append(range.end())
+                    .append("/").append(totalSize).append(CRLF).append(CRLF);
+
+                out.write(headers.toString().getBytes(US_ASCII));
+                source.write(range.start(), range.size(), out);
+            }
+
+            out.write((CRLF + "--" + boundary + "--" + CRLF).getBytes(US_ASCII));
+            out.flush();
+        } finally {
+            source.close();
+        }
+    }
+}
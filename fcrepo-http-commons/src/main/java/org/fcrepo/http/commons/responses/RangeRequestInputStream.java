@@ -19,7 +19,6 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.io.input.ProxyInputStream;
 
@@ -58,7 +57,9 @@ public class RangeRequestInputStream extends FilterInputStream {
     private static class SkipInputStream extends ProxyInputStream {
 
         /**
-         * An InputStream wrapper that always skips the first N bytes
+         * An InputStream wrapper that always skips the first N bytes. The
+         * underlying stream's own skip() is used, so streams that can seek
+         * (files, chunked binary stores) do not read the skipped bytes.
          * @param in
          * @param skip
          * @throws IOException
@@ -66,7 +67,20 @@ public class RangeRequestInputStream extends FilterInputStream {
         public SkipInputStream(final InputStream in,
                                final long skip) throws IOException {
             super(in);
-            IOUtils.skip(in, skip);
+
+            long remaining = skip;
+
+            while (remaining > 0) {
+                final long skipped = in.skip(remaining);
+
+                if (skipped > 0) {
+                    remaining -= skipped;
+                } else if (in.read() == -1) {
+                    break;
+                } else {
+                    remaining--;
+                }
+            }
         }
     }
 }
@@ -27,6 +27,8 @@ import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
 import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
+import static org.fcrepo.http.commons.timing.RequestTimings.LOGOUT;
+import static org.fcrepo.http.commons.timing.RequestTimings.timed;
 import static org.openrdf.rio.RDFFormat.NO_CONTEXTS;
 import static org.openrdf.rio.RDFFormat.NO_NAMESPACES;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -110,7 +112,7 @@ public class RdfStreamProvider implements MessageBodyWriter<RdfStream> {
                 new RdfStreamStreamingOutput(rdfStream
                         .namespaces(namespaceRdfContext.namespaces()),
                         mediaType);
-            addCallback(streamOutput, new LogoutCallback(rdfStream.session()));
+            addCallback(streamOutput, timed(LOGOUT, new LogoutCallback(rdfStream.session())));
             streamOutput.write(entityStream);
         } catch (final RepositoryException e) {
             throw new WebApplicationException(e);
@@ -16,6 +16,9 @@
 package org.fcrepo.http.commons.responses;
 
 import static javax.ws.rs.core.Response.Status.NOT_ACCEPTABLE;
+import static org.fcrepo.http.commons.timing.RequestTimings.SERIALIZE;
+import static org.fcrepo.http.commons.timing.RequestTimings.startStage;
+import static org.fcrepo.http.commons.responses.StreamingRdfWriter.formatFor;
 import static org.openrdf.model.impl.ValueFactoryImpl.getInstance;
 import static org.openrdf.model.util.Literals.createLiteral;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -28,6 +31,8 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.StreamingOutput;
 
+import org.fcrepo.http.commons.responses.StreamingRdfWriter.Format;
+import org.fcrepo.http.commons.timing.RequestTimings.Stage;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.openrdf.model.Statement;
 import org.openrdf.model.Value;
@@ -45,7 +50,9 @@ import com.hp.hpl.jena.graph.Node;
 import com.hp.hpl.jena.graph.Triple;
 
 /**
- * Serializes an {@link RdfStream}.
+ * Serializes an {@link RdfStream}. N-Triples, Turtle and JSON-LD are written
+ * directly from the stream's triples by a {@link StreamingRdfWriter}; other
+ * formats are written by Sesame.
  *
  * @author ajs6f
  * @since Oct 30, 2013
@@ -60,6 +67,8 @@ public class RdfStreamStreamingOutput extends AbstractFuture<Void> implements
 
     private final RDFFormat format;
 
+    private final Format streamingFormat;
+
     private final RdfStream rdfStream;
 
     private static final Void finishedMarker = null;
@@ -81,8 +90,12 @@ public class RdfStreamStreamingOutput extends AbstractFuture<Void> implements
                                 .join(writeableFormats.getMIMETypes()));
             }
         }
+        this.streamingFormat = formatFor(mediaType);
         final RDFFormat format = Rio.getWriterFormatForMIMEType(mediaType.toString());
-        if (format != null) {
+        if (streamingFormat != null) {
+            this.format = format;
+            LOGGER.debug("Setting up to stream: {}", streamingFormat);
+        } else if (format != null) {
             this.format = format;
             LOGGER.debug("Setting up to serialize to: {}", format);
         } else {
@@ -94,9 +107,31 @@ public class RdfStreamStreamingOutput extends AbstractFuture<Void> implements
 
     @Override
     public void write(final OutputStream output) throws IOException {
+        // stopped before the future is set, so that callbacks such as a
+        // logout are not counted as serialization
+        final Stage serialize = startStage(SERIALIZE);
+
+        if (streamingFormat != null) {
+            LOGGER.debug("Streaming RDF stream as: {}", streamingFormat);
+            try {
+                new StreamingRdfWriter(output, streamingFormat, rdfStream.namespaces()).write(rdfStream);
+                serialize.stop();
+                set(finishedMarker);
+            } catch (final IOException e) {
+                setException(e);
+                LOGGER.debug("Error serializing RDF", e);
+                throw new WebApplicationException(e);
+            } catch (final RuntimeException e) {
+                setException(e);
+                throw e;
+            }
+            return;
+        }
+
         LOGGER.debug("Serializing RDF stream in: {}", format);
         try {
             Rio.write(asStatements(), output, format);
+            serialize.stop();
             set(finishedMarker);
         } catch (final RDFHandlerException e) {
             setException(e);
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static org.apache.commons.io.IOUtils.copyLarge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Writes byte ranges from a single input stream, which can only move
+ * forward: the ranges must be requested in ascending order without
+ * overlapping. The stream's own skip() is used to move between ranges.
+ *
+ * @author agent
+ */
+public class StreamByteRangeSource implements ByteRangeSource {
+
+    private final InputStream in;
+
+    private long position = 0;
+
+    /**
+     * @param in
+     */
+    public StreamByteRangeSource(final InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public void write(final long start, final long length, final OutputStream out) throws IOException {
+        if (start < position) {
+            throw new IllegalStateException("Range starting at " + start + " requested after position " + position);
+        }
+
+        position = start + copyLarge(new RangeRequestInputStream(in, start - position, length), out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,506 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.hp.hpl.jena.vocabulary.RDF.type;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD_TYPE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT1_TYPE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2_TYPE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.N3_TYPE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES_TYPE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_TYPE;
+import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X_TYPE;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Serializes Jena triples straight to N-Triples, Turtle or JSON-LD as they
+ * are read, so that the first bytes of a response do not wait for the whole
+ * graph.
+ *
+ * Turtle and JSON-LD abbreviate repeated subjects and predicates within a
+ * bounded window of triples; a subject that reappears after its window was
+ * written is simply written again, which both formats allow. Turtle names
+ * are abbreviated with the namespaces declared on the stream.
+ *
+ * @author agent
+ */
+public class StreamingRdfWriter {
+
+    /**
+     * The formats this writer produces
+     */
+    public enum Format {
+        NTRIPLES, TURTLE, JSONLD
+    }
+
+    /**
+     * The number of triples grouped together by subject and predicate
+     */
+    public static final int DEFAULT_WINDOW = 1000;
+
+    private static final String INDENT = "    ";
+
+    private final Writer writer;
+
+    private final Format format;
+
+    private final int window;
+
+    private final Map<String, String> prefixes = new LinkedHashMap<>();
+
+    private final List<Triple> pending = new ArrayList<>();
+
+    private boolean first = true;
+
+    /**
+     * Write to an output stream with the default window
+     * @param output
+     * @param format
+     * @param namespaces prefix to namespace URI
+     */
+    public StreamingRdfWriter(final OutputStream output, final Format format,
+                              final Map<String, String> namespaces) {
+        this(output, format, namespaces, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Write to an output stream
+     * @param output
+     * @param format
+     * @param namespaces prefix to namespace URI
+     * @param window the number of triples to group by subject and predicate
+     */
+    public StreamingRdfWriter(final OutputStream output, final Format format,
+                              final Map<String, String> namespaces, final int window) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        this.format = format;
+        this.window = window;
+
+        if (format == Format.TURTLE) {
+            for (final Map.Entry<String, String> ns : namespaces.entrySet()) {
+                if (isPrefixName(ns.getKey()) && !prefixes.containsKey(ns.getValue())) {
+                    prefixes.put(ns.getValue(), ns.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the format to use for a media type
+     * @param mediaType
+     * @return the format, or null if this writer does not produce the type
+     */
+    public static Format formatFor(final MediaType mediaType) {
+        final MediaType base = new MediaType(mediaType.getType(), mediaType.getSubtype());
+
+        if (base.equals(NTRIPLES_TYPE) || base.equals(TEXT_PLAIN_TYPE)) {
+            return Format.NTRIPLES;
+        }
+        // Turtle is also valid N3
+        if (base.equals(TURTLE_TYPE) || base.equals(TURTLE_X_TYPE) || base.equals(N3_TYPE)
+                || base.equals(N3_ALT1_TYPE) || base.equals(N3_ALT2_TYPE)) {
+            return Format.TURTLE;
+        }
+        if (base.equals(JSON_LD_TYPE)) {
+            return Format.JSONLD;
+        }
+        return null;
+    }
+
+    /**
+     * Write all the triples, then finish the document
+     * @param triples
+     * @throws IOException
+     */
+    public void write(final Iterator<Triple> triples) throws IOException {
+        start();
+        while (triples.hasNext()) {
+            write(triples.next());
+        }
+        finish();
+    }
+
+    /**
+     * Begin the document
+     * @throws IOException
+     */
+    public void start() throws IOException {
+        switch (format) {
+            case TURTLE:
+                for (final Map.Entry<String, String> ns : prefixes.entrySet()) {
+                    writer.write("@prefix " + ns.getValue() + ": ");
+                    writeFullIri(ns.getKey(), false);
+                    writer.write(" .\n");
+                }
+                writer.write("\n");
+                writer.flush();
+                break;
+            case JSONLD:
+                writer.write("[");
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Write a triple
+     * @param t
+     * @throws IOException
+     */
+    public void write(final Triple t) throws IOException {
+        if (format == Format.NTRIPLES) {
+            writeTerm(t.getSubject());
+            writer.write(' ');
+            writeTerm(t.getPredicate());
+            writer.write(' ');
+            writeTerm(t.getObject());
+            writer.write(" .\n");
+            return;
+        }
+
+        pending.add(t);
+
+        if (pending.size() >= window) {
+            writePending();
+            writer.flush();
+        }
+    }
+
+    /**
+     * Finish the document and flush it to the output stream
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        writePending();
+        if (format == Format.JSONLD) {
+            writer.write(first ? "]\n" : "\n}]\n");
+        }
+        writer.flush();
+    }
+
+    private void writePending() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final Map<Node, Map<Node, List<Node>>> groups = new LinkedHashMap<>();
+
+        for (final Triple t : pending) {
+            Map<Node, List<Node>> predicates = groups.get(t.getSubject());
+            if (predicates == null) {
+                predicates = new LinkedHashMap<>();
+                groups.put(t.getSubject(), predicates);
+            }
+            List<Node> objects = predicates.get(t.getPredicate());
+            if (objects == null) {
+                objects = new ArrayList<>(1);
+                predicates.put(t.getPredicate(), objects);
+            }
+            objects.add(t.getObject());
+        }
+        pending.clear();
+
+        for (final Map.Entry<Node, Map<Node, List<Node>>> group : groups.entrySet()) {
+            if (format == Format.TURTLE) {
+                writeTurtle(group.getKey(), group.getValue());
+            } else {
+                writeJson(group.getKey(), group.getValue());
+            }
+        }
+    }
+
+    private void writeTurtle(final Node subject, final Map<Node, List<Node>> predicates) throws IOException {
+        writeTerm(subject);
+
+        String separator = " ";
+        for (final Map.Entry<Node, List<Node>> predicate : predicates.entrySet()) {
+            writer.write(separator);
+            if (predicate.getKey().equals(type.asNode())) {
+                writer.write('a');
+            } else {
+                writeTerm(predicate.getKey());
+            }
+
+            String objectSeparator = " ";
+            for (final Node object : predicate.getValue()) {
+                writer.write(objectSeparator);
+                writeTerm(object);
+                objectSeparator = " , ";
+            }
+            separator = " ;\n" + INDENT;
+        }
+        writer.write(" .\n\n");
+    }
+
+    private void writeJson(final Node subject, final Map<Node, List<Node>> predicates) throws IOException {
+        writer.write(first ? "{\n  \"@id\" : " : "\n}, {\n  \"@id\" : ");
+        first = false;
+        writeJsonString(idOf(subject));
+
+        for (final Map.Entry<Node, List<Node>> predicate : predicates.entrySet()) {
+            writer.write(",\n  ");
+            writeJsonString(predicate.getKey().getURI());
+            writer.write(" : [ ");
+
+            String separator = "";
+            for (final Node object : predicate.getValue()) {
+                writer.write(separator);
+                writeJsonValue(object);
+                separator = ", ";
+            }
+            writer.write(" ]");
+        }
+    }
+
+    private void writeJsonValue(final Node object) throws IOException {
+        if (!object.isLiteral()) {
+            writer.write("{ \"@id\" : ");
+            writeJsonString(idOf(object));
+            writer.write(" }");
+            return;
+        }
+
+        writer.write("{ \"@value\" : ");
+        writeJsonString(object.getLiteralLexicalForm());
+
+        final String language = object.getLiteralLanguage();
+        final String datatype = object.getLiteralDatatypeURI();
+
+        if (language != null && !language.isEmpty()) {
+            writer.write(", \"@language\" : ");
+            writeJsonString(language);
+        } else if (datatype != null) {
+            writer.write(", \"@type\" : ");
+            writeJsonString(datatype);
+        }
+        writer.write(" }");
+    }
+
+    private void writeJsonString(final String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writeUnicodeEscape(c);
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static String idOf(final Node node) {
+        return node.isBlank() ? "_:" + blankLabel(node) : node.getURI();
+    }
+
+    /**
+     * Write a term in N-Triples or Turtle syntax
+     */
+    private void writeTerm(final Node node) throws IOException {
+        if (node.isURI()) {
+            writeIri(node.getURI());
+        } else if (node.isBlank()) {
+            writer.write("_:" + blankLabel(node));
+        } else if (node.isLiteral()) {
+            writeLiteral(node);
+        } else {
+            throw new UnsupportedOperationException("Unable to serialize " + node);
+        }
+    }
+
+    private void writeLiteral(final Node node) throws IOException {
+        final boolean ascii = format == Format.NTRIPLES;
+        final String lexical = node.getLiteralLexicalForm();
+
+        writer.write('"');
+        for (int i = 0; i < lexical.length(); i++) {
+            final char c = lexical.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || (ascii && c > 0x7e)) {
+                        i = writeCodePointEscape(lexical, i);
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+
+        final String language = node.getLiteralLanguage();
+        final String datatype = node.getLiteralDatatypeURI();
+
+        if (language != null && !language.isEmpty()) {
+            writer.write("@" + language);
+        } else if (datatype != null) {
+            writer.write("^^");
+            writeIri(datatype);
+        }
+    }
+
+    private void writeIri(final String iri) throws IOException {
+        final String name = format == Format.TURTLE ? prefixedName(iri) : null;
+        if (name != null) {
+            writer.write(name);
+        } else {
+            writeFullIri(iri, format == Format.NTRIPLES);
+        }
+    }
+
+    private void writeFullIri(final String iri, final boolean ascii) throws IOException {
+        writer.write('<');
+        for (int i = 0; i < iri.length(); i++) {
+            final char c = iri.charAt(i);
+            if (c <= 0x20 || "<>\"{}|^`\\".indexOf(c) >= 0 || (ascii && c > 0x7e)) {
+                i = writeCodePointEscape(iri, i);
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('>');
+    }
+
+    /**
+     * Write the code point at an index as a \\u or \\U escape
+     * @return the index of the last char consumed
+     */
+    private int writeCodePointEscape(final String s, final int i) throws IOException {
+        final int codePoint = s.codePointAt(i);
+        if (codePoint > 0xffff) {
+            writer.write(String.format("\\U%08X", codePoint));
+            return i + 1;
+        }
+        writeUnicodeEscape((char) codePoint);
+        return i;
+    }
+
+    private void writeUnicodeEscape(final char c) throws IOException {
+        writer.write(String.format("\\u%04X", (int) c));
+    }
+
+    /**
+     * Abbreviate an IRI with a declared namespace, if its local part is a
+     * name any Turtle parser will accept
+     */
+    private String prefixedName(final String iri) {
+        int i = iri.length();
+        while (i > 0 && isNameChar(iri.charAt(i - 1))) {
+            i--;
+        }
+
+        final String prefix = prefixes.get(iri.substring(0, i));
+
+        if (prefix == null) {
+            return null;
+        }
+        if (i < iri.length() && !isNameStartChar(iri.charAt(i))) {
+            return null;
+        }
+        return prefix + ":" + iri.substring(i);
+    }
+
+    private static boolean isPrefixName(final String prefix) {
+        if (prefix.isEmpty()) {
+            return true;
+        }
+        if (!isNameStartChar(prefix.charAt(0)) || prefix.charAt(0) == '_') {
+            return false;
+        }
+        for (int i = 1; i < prefix.length(); i++) {
+            if (!isNameChar(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNameStartChar(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isNameChar(final char c) {
+        return isNameStartChar(c) || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    /**
+     * Blank node labels are escaped so that any label is a valid name:
+     * letters and digits other than 'x' are kept, anything else is written as
+     * 'x' and four hex digits.
+     */
+    private static String blankLabel(final Node node) {
+        final String label = node.getBlankNodeLabel();
+        final StringBuilder escaped = new StringBuilder("b");
+
+        for (int i = 0; i < label.length(); i++) {
+            final char c = label.charAt(i);
+            if (c != 'x' && ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                escaped.append(c);
+            } else {
+                escaped.append(String.format("x%04x", (int) c));
+            }
+        }
+        return escaped.toString();
+    }
+}
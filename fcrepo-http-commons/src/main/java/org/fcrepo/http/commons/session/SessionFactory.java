@@ -17,6 +17,8 @@ package org.fcrepo.http.commons.session;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Throwables.propagate;
+import static org.fcrepo.http.commons.timing.RequestTimings.LOGIN;
+import static org.fcrepo.http.commons.timing.RequestTimings.startStage;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.security.Principal;
@@ -27,6 +29,7 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.servlet.http.HttpServletRequest;
 
+import org.fcrepo.http.commons.timing.RequestTimings.Stage;
 import org.fcrepo.kernel.impl.LockReleasingSession;
 import org.fcrepo.kernel.Transaction;
 import org.fcrepo.kernel.services.TransactionService;
@@ -124,7 +127,7 @@ public class SessionFactory {
      * @throws RuntimeException if the transaction could not be found
      */
     public Session getSession(final HttpServletRequest servletRequest) {
-        try {
+        try (final Stage login = startStage(LOGIN)) {
             final Session session;
             final String txId = getEmbeddedId(servletRequest, Prefix.TX);
 
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.timing;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.Long.parseLong;
+import static java.lang.System.getProperty;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.fcrepo.http.commons.timing.RequestTimings.Stage;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Times each request passing through it, recording the time taken by each
+ * of its stages in a histogram (in microseconds) named for the resource
+ * class and the stage, e.g. "org.fcrepo.http.api.FedoraNodes.stage.lookup".
+ * Requests slower than fcrepo.timing.slowRequestMillis (default 2000, 0 to
+ * disable) are logged with their stages.
+ *
+ * @author agent
+ */
+public class RequestTimingFilter implements Filter {
+
+    private static final Logger LOGGER = getLogger(RequestTimingFilter.class);
+
+    public static final String SLOW_REQUEST_MILLIS = "fcrepo.timing.slowRequestMillis";
+
+    static final String TOTAL = "total";
+
+    private final MetricRegistry registry;
+
+    private long slowRequestMillis;
+
+    /**
+     * Record into the repository's metrics registry
+     */
+    public RequestTimingFilter() {
+        this(getMetrics());
+    }
+
+    /**
+     * Record into the given registry
+     * @param registry
+     */
+    public RequestTimingFilter(final MetricRegistry registry) {
+        this.registry = registry;
+        this.slowRequestMillis = parseLong(getProperty(SLOW_REQUEST_MILLIS, "2000"));
+    }
+
+    @Override
+    public void init(final FilterConfig filterConfig) {
+        final String slow = filterConfig.getInitParameter(SLOW_REQUEST_MILLIS);
+        if (slow != null) {
+            slowRequestMillis = parseLong(slow);
+        }
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+        throws IOException, ServletException {
+        final RequestTimings timings = RequestTimings.begin();
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            timings.end();
+            record(timings);
+
+            final long millis = NANOSECONDS.toMillis(timings.getElapsed());
+            if (slowRequestMillis > 0 && millis >= slowRequestMillis) {
+                LOGGER.warn("Slow request: {} took {} ms [{}]", describe(request), millis, timings);
+            }
+        }
+    }
+
+    private void record(final RequestTimings timings) {
+        final Class<?> resourceClass =
+            timings.getResourceClass() == null ? RequestTimingFilter.class : timings.getResourceClass();
+
+        for (final Stage stage : timings.getStages()) {
+            registry.histogram(name(resourceClass, "stage", stage.getName()))
+                    .update(NANOSECONDS.toMicros(stage.getElapsed()));
+        }
+        registry.histogram(name(resourceClass, "stage", TOTAL)).update(NANOSECONDS.toMicros(timings.getElapsed()));
+    }
+
+    private static String describe(final ServletRequest request) {
+        if (request instanceof HttpServletRequest) {
+            final HttpServletRequest httpRequest = (HttpServletRequest) request;
+            return httpRequest.getMethod() + " " + httpRequest.getRequestURI();
+        }
+        return request.toString();
+    }
+
+    @Override
+    public void destroy() {
+        // nothing to release
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.timing;
+
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.System.getProperty;
+
+import javax.ws.rs.ext.Provider;
+
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.spi.container.ResourceMethodDispatchAdapter;
+import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+
+/**
+ * Attributes the timings of a request to the resource class serving it and,
+ * when fcrepo.timing.header is true, reports the stages completed before the
+ * response is written in a Server-Timing header.
+ *
+ * @author agent
+ */
+@Provider
+public class RequestTimingProvider implements ResourceMethodDispatchAdapter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    public static final String TIMING_HEADER = "fcrepo.timing.header";
+
+    private final boolean addHeader;
+
+    /**
+     * Add the Server-Timing header if fcrepo.timing.header is true
+     */
+    public RequestTimingProvider() {
+        this(parseBoolean(getProperty(TIMING_HEADER, "false")));
+    }
+
+    /**
+     * @param addHeader whether to add the Server-Timing header
+     */
+    public RequestTimingProvider(final boolean addHeader) {
+        this.addHeader = addHeader;
+    }
+
+    @Override
+    public ResourceMethodDispatchProvider adapt(final ResourceMethodDispatchProvider provider) {
+        return new ResourceMethodDispatchProvider() {
+
+            @Override
+            public RequestDispatcher create(final AbstractResourceMethod method) {
+                final RequestDispatcher dispatcher = provider.create(method);
+
+                if (dispatcher == null) {
+                    return null;
+                }
+
+                final Class<?> resourceClass = method.getDeclaringResource().getResourceClass();
+
+                return new RequestDispatcher() {
+
+                    @Override
+                    public void dispatch(final Object resource, final HttpContext context) {
+                        final RequestTimings timings = RequestTimings.current();
+
+                        if (timings == null) {
+                            dispatcher.dispatch(resource, context);
+                            return;
+                        }
+
+                        timings.setResourceClass(resourceClass);
+                        dispatcher.dispatch(resource, context);
+
+                        if (addHeader && context.getResponse() != null) {
+                            final String value = timings.toServerTiming();
+                            if (!value.isEmpty()) {
+                                context.getResponse().getHttpHeaders().add(SERVER_TIMING, value);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,261 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.timing;
+
+import static java.lang.System.nanoTime;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Locale.ROOT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.util.concurrent.FutureCallback;
+
+/**
+ * The stages of a single request, and how long each of them took. The
+ * timings of the request being served are kept with its thread between
+ * {@link #begin()} and {@link #end()}; a stage started on any other thread
+ * is not recorded.
+ *
+ * @author agent
+ */
+public final class RequestTimings {
+
+    public static final String LOGIN = "login";
+
+    public static final String LOOKUP = "lookup";
+
+    public static final String TRIPLES = "triples";
+
+    public static final String SERIALIZE = "serialize";
+
+    public static final String LOGOUT = "logout";
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private static final Stage NOT_TIMED = new Stage(null, 0);
+
+    private final long start;
+
+    private long elapsed = -1;
+
+    private final List<Stage> stages = new ArrayList<>(8);
+
+    private Class<?> resourceClass;
+
+    private RequestTimings(final long start) {
+        this.start = start;
+    }
+
+    /**
+     * Start timing a request on the current thread
+     * @return the timings of the request
+     */
+    public static RequestTimings begin() {
+        final RequestTimings timings = new RequestTimings(nanoTime());
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Get the timings of the request being served by the current thread
+     * @return the timings, or null if the request is not being timed
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Start a stage of the request being served by the current thread
+     * @param name
+     * @return the stage, to be stopped when it is complete
+     */
+    public static Stage startStage(final String name) {
+        final RequestTimings timings = CURRENT.get();
+
+        if (timings == null) {
+            return NOT_TIMED;
+        }
+
+        final Stage stage = new Stage(name, nanoTime());
+        timings.stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Time a callback as a stage of the request being served by the thread
+     * that completes the future it is added to
+     * @param name
+     * @param callback
+     * @return the timed callback
+     */
+    public static <T> FutureCallback<T> timed(final String name, final FutureCallback<T> callback) {
+        return new FutureCallback<T>() {
+
+            @Override
+            public void onSuccess(final T result) {
+                try (final Stage stage = startStage(name)) {
+                    callback.onSuccess(result);
+                }
+            }
+
+            @Override
+            public void onFailure(final Throwable t) {
+                try (final Stage stage = startStage(name)) {
+                    callback.onFailure(t);
+                }
+            }
+        };
+    }
+
+    /**
+     * Finish timing the request, stopping any stage still running
+     */
+    public void end() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+
+        for (final Stage stage : stages) {
+            stage.stop();
+        }
+
+        if (elapsed < 0) {
+            elapsed = nanoTime() - start;
+        }
+    }
+
+    /**
+     * Get the time the request took, or has taken so far
+     * @return nanoseconds
+     */
+    public long getElapsed() {
+        return elapsed < 0 ? nanoTime() - start : elapsed;
+    }
+
+    /**
+     * Get the stages of the request, in the order they started
+     * @return the stages
+     */
+    public List<Stage> getStages() {
+        return unmodifiableList(stages);
+    }
+
+    /**
+     * Get the class of the resource that served the request
+     * @return the resource class, or null if no resource was matched
+     */
+    public Class<?> getResourceClass() {
+        return resourceClass;
+    }
+
+    /**
+     * Set the class of the resource that served the request
+     * @param resourceClass
+     */
+    public void setResourceClass(final Class<?> resourceClass) {
+        this.resourceClass = resourceClass;
+    }
+
+    /**
+     * Describe the stages completed so far as the value of a Server-Timing
+     * header, e.g. "login;dur=0.412, lookup;dur=3.170"
+     * @return the header value
+     */
+    public String toServerTiming() {
+        final StringBuilder value = new StringBuilder();
+
+        for (final Stage stage : stages) {
+            if (stage.isStopped()) {
+                if (value.length() > 0) {
+                    value.append(", ");
+                }
+                value.append(stage.getName()).append(";dur=").append(millis(stage.getElapsed()));
+            }
+        }
+        return value.toString();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder value = new StringBuilder();
+
+        for (final Stage stage : stages) {
+            if (value.length() > 0) {
+                value.append(", ");
+            }
+            value.append(stage.getName()).append('=');
+            value.append(stage.isStopped() ? millis(stage.getElapsed()) + "ms" : "?");
+        }
+        return value.toString();
+    }
+
+    private static String millis(final long nanos) {
+        return String.format(ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * A stage of a request
+     */
+    public static final class Stage implements AutoCloseable {
+
+        private final String name;
+
+        private final long start;
+
+        private long elapsed = -1;
+
+        private Stage(final String name, final long start) {
+            this.name = name;
+            this.start = start;
+        }
+
+        /**
+         * Stop timing this stage; stopping it again has no effect
+         */
+        public void stop() {
+            if (name != null && elapsed < 0) {
+                elapsed = nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+
+        /**
+         * @return the name of the stage
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return whether the stage has been stopped
+         */
+        public boolean isStopped() {
+            return elapsed >= 0;
+        }
+
+        /**
+         * @return the time the stage took, in nanoseconds
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+    }
+}
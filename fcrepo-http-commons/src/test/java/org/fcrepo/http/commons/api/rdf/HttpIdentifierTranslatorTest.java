@@ -21,8 +21,10 @@ import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -221,6 +223,40 @@ public class HttpIdentifierTranslatorTest extends GraphSubjectsTest {
 
     }
 
+    @Test
+    public void testGetSubjectWithinATxIsRepeatable() throws RepositoryException {
+        final HttpIdentifierTranslator testObjTx = getTestObjTx("/");
+        when(mockSessionTx.getTxId()).thenReturn("txid");
+        assertEquals("http://localhost:8080/fcrepo/rest/tx:txid/abc", testObjTx.getSubject("/abc").toString());
+        assertEquals("http://localhost:8080/fcrepo/rest/tx:txid/def/ghi",
+                testObjTx.getSubject("/def/ghi").toString());
+    }
+
+    @Test
+    public void testGetSubjectEscapesPaths() throws RepositoryException {
+        when(mockWorkspace.getName()).thenReturn("default");
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        assertEquals("http://localhost:8080/fcrepo/rest/abc:def/g.h-i_j~k",
+                testObj.getSubject("/abc:def/g.h-i_j~k").getURI());
+        assertEquals("http://localhost:8080/fcrepo/rest/a%20b/c%5Bd%5D",
+                testObj.getSubject("/a b/c[d]").getURI());
+    }
+
+    @Test
+    public void testSubjectsAreMemoized() throws RepositoryException {
+        when(mockWorkspace.getName()).thenReturn("default");
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        assertSame(testObj.getSubject("/abc"), testObj.getSubject("/abc"));
+    }
+
+    @Test
+    public void testPathsAreMemoized() throws RepositoryException {
+        final Resource subject = createResource("http://localhost:8080/fcrepo/rest/abc");
+        assertEquals("/abc", testObj.getPathFromSubject(subject));
+        assertEquals("/abc", testObj.getPathFromSubject(subject));
+        verify(mockValueFactory, times(2)).createValue("/abc", PropertyType.PATH);
+    }
+
     protected static UriInfo getUriInfoImpl(final String path) {
         // UriInfo ui = mock(UriInfo.class,withSettings().verboseLogging());
         final UriInfo ui = mock(UriInfo.class);
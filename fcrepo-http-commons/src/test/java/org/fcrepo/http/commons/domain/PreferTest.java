@@ -20,6 +20,7 @@ import org.junit.Test;
 import java.text.ParseException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -52,4 +53,10 @@ public class PreferTest  {
         final String returnParams = prefer.getReturn().getParams().get("include");
         assertTrue(returnParams.contains("http://www.w3.org/ns/ldp#PreferEmptyContainer"));
     }
+
+    @Test
+    public void testHasRespondAsync() throws ParseException {
+        assertTrue(new Prefer("respond-async, wait=10").hasRespondAsync());
+        assertFalse(new Prefer("return=minimal").hasRespondAsync());
+    }
 }
@@ -19,6 +19,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+
 import org.junit.Test;
 
 /**
@@ -61,11 +63,15 @@ public class RangeTest {
     public void testUnboundedLowerRangeParsing() {
         final Range range = Range.convert("bytes=-50");
 
-        assertEquals(0L, range.start());
-        assertEquals(50L, range.end());
-        assertEquals(51L, range.size());
+        assertTrue(range.isSuffix());
+        assertEquals(50L, range.suffixLength());
+        assertEquals(50L, range.size());
         assertTrue(range.hasRange());
 
+        final Range resolved = range.resolve(200);
+        assertEquals(150L, resolved.start());
+        assertEquals(199L, resolved.end());
+
     }
 
     @Test
@@ -78,4 +84,69 @@ public class RangeTest {
         assertEquals(-1L, range.size());
 
     }
+
+    @Test
+    public void testMultipleRangeParsing() {
+        final List<Range> ranges = Range.convertAll("bytes=0-1, 5-6,10-");
+
+        assertEquals(3, ranges.size());
+        assertEquals(0L, ranges.get(0).start());
+        assertEquals(1L, ranges.get(0).end());
+        assertEquals(5L, ranges.get(1).start());
+        assertEquals(6L, ranges.get(1).end());
+        assertEquals(10L, ranges.get(2).start());
+        assertEquals(-1L, ranges.get(2).end());
+    }
+
+    @Test
+    public void testGarbageMultipleRangeParsing() {
+        assertTrue(Range.convertAll("bytes=0-1,garbage").isEmpty());
+        assertTrue(Range.convertAll("something-thats-not-a-range").isEmpty());
+    }
+
+    @Test
+    public void testSatisfiableRanges() {
+        final List<Range> ranges = Range.satisfiable(Range.convertAll("bytes=15-30,50-60,2-4,3-6,7-8"), 20);
+
+        assertEquals(2, ranges.size());
+        assertEquals(2L, ranges.get(0).start());
+        assertEquals(8L, ranges.get(0).end());
+        assertEquals(15L, ranges.get(1).start());
+        assertEquals(19L, ranges.get(1).end());
+    }
+
+    @Test
+    public void testSatisfiableSuffixRange() {
+        final List<Range> ranges = Range.satisfiable(Range.convertAll("bytes=-500"), 2000);
+
+        assertEquals(1, ranges.size());
+        assertEquals(1500L, ranges.get(0).start());
+        assertEquals(1999L, ranges.get(0).end());
+
+        final List<Range> whole = Range.satisfiable(Range.convertAll("bytes=-500"), 20);
+        assertEquals(0L, whole.get(0).start());
+        assertEquals(19L, whole.get(0).end());
+    }
+
+    @Test
+    public void testSatisfiableMixedRanges() {
+        final List<Range> ranges = Range.satisfiable(Range.convertAll("bytes=0-9,-10"), 30);
+
+        assertEquals(2, ranges.size());
+        assertEquals(0L, ranges.get(0).start());
+        assertEquals(9L, ranges.get(0).end());
+        assertEquals(20L, ranges.get(1).start());
+        assertEquals(29L, ranges.get(1).end());
+    }
+
+    @Test
+    public void testUnsatisfiableSuffixRanges() {
+        assertTrue(Range.satisfiable(Range.convertAll("bytes=-0"), 20).isEmpty());
+        assertTrue(Range.satisfiable(Range.convertAll("bytes=-10"), 0).isEmpty());
+    }
+
+    @Test
+    public void testUnsatisfiableRanges() {
+        assertTrue(Range.satisfiable(Range.convertAll("bytes=20-30,50-"), 20).isEmpty());
+    }
 }
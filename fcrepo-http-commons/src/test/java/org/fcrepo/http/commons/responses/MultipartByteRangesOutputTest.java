@@ -0,0 +1,83 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.fcrepo.http.commons.domain.Range;
+import org.junit.Test;
+
+/**
+ * <p>MultipartByteRangesOutputTest class.</p>
+ *
+ * @author agent
+ */
+public class MultipartByteRangesOutputTest {
+
+    private static final String CONTENT = "0123456789";
+
+    private static String write(final ByteRangeSource source) throws IOException {
+        final MultipartByteRangesOutput output = new MultipartByteRangesOutput(source,
+                asList(new Range(1, 2), new Range(6, 8)), CONTENT.length(), "text/plain");
+        final String boundary = output.getMediaType().getParameters().get("boundary");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+
+        final String expected = "\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 1-2/10\r\n\r\n"
+                + "12"
+                + "\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 6-8/10\r\n\r\n"
+                + "678"
+                + "\r\n--" + boundary + "--\r\n";
+        assertEquals(expected, out.toString("US-ASCII"));
+        return boundary;
+    }
+
+    @Test
+    public void testWriteFromStream() throws IOException {
+        final String boundary = write(new StreamByteRangeSource(new ByteArrayInputStream(CONTENT.getBytes())));
+        assertTrue(boundary.length() > 0);
+    }
+
+    @Test
+    public void testWriteFromFile() throws IOException {
+        final File file = File.createTempFile("fcrepo-range", ".txt");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, CONTENT);
+
+        write(new FileByteRangeSource(file));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStreamSourceCannotGoBackwards() throws IOException {
+        final StreamByteRangeSource source =
+            new StreamByteRangeSource(new ByteArrayInputStream(CONTENT.getBytes()));
+        source.write(5, 2, new ByteArrayOutputStream());
+        source.write(1, 2, new ByteArrayOutputStream());
+    }
+}
@@ -124,6 +124,21 @@ public class RdfStreamStreamingOutputTest {
         }
     }
 
+    @Test
+    public void testWriteStreamingFormat() throws IOException {
+        try (final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            new RdfStreamStreamingOutput(new RdfStream(triple), valueOf("text/turtle")).write(output);
+            try (
+                final InputStream resultStream =
+                    new ByteArrayInputStream(output.toByteArray())) {
+                final Model result =
+                    createDefaultModel().read(resultStream, null, "TTL");
+                assertTrue("Didn't find our test triple!", result
+                        .contains(result.asStatement(triple)));
+            }
+        }
+    }
+
     @Test(expected = WebApplicationException.class)
     public void testWriteWithException() throws IOException {
 
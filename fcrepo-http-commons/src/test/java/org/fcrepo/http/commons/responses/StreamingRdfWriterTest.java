@@ -0,0 +1,161 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.google.common.collect.ImmutableMap.of;
+import static com.hp.hpl.jena.graph.NodeFactory.createAnon;
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static com.hp.hpl.jena.vocabulary.RDF.type;
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.MediaType.valueOf;
+import static org.fcrepo.http.commons.responses.StreamingRdfWriter.formatFor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.openrdf.model.impl.ValueFactoryImpl.getInstance;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.fcrepo.http.commons.responses.StreamingRdfWriter.Format;
+import org.junit.Test;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.Rio;
+
+import com.google.common.base.Charsets;
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * <p>StreamingRdfWriterTest class.</p>
+ *
+ * @author agent
+ */
+public class StreamingRdfWriterTest {
+
+    private static final String DC = "http://purl.org/dc/elements/1.1/";
+
+    private static final Map<String, String> namespaces = of("dc", DC, "xsd", XSDDatatype.XSD + "#");
+
+    private static final Node subject = createURI("info:fedora/a");
+
+    private static final Node other = createURI("info:fedora/b");
+
+    private static final Node title = createURI(DC + "title");
+
+    private static final List<Triple> triples = asList(
+            create(subject, title, createLiteral("a \"quoted\"\ntitle")),
+            create(subject, title, createLiteral("un titre", "fr", false)),
+            create(subject, type.asNode(), createURI("http://fedora.info/definitions/v4/rest-api#object")),
+            create(other, createURI(DC + "extent"), createLiteral("12", XSDDatatype.XSDlong)),
+            create(subject, createURI(DC + "relation"), other),
+            create(other, createURI(DC + "subject"), createLiteral("caf\u00e9 \ud83d\ude00")),
+            create(other, createURI(DC + "source"), createAnon()),
+            create(subject, createURI(DC + "9numeric"), createURI("info:fedora/c")));
+
+    private static String write(final Format format, final int window) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new StreamingRdfWriter(output, format, namespaces, window).write(triples.iterator());
+        return new String(output.toByteArray(), Charsets.UTF_8);
+    }
+
+    private static Model read(final String rdf, final String lang) {
+        return createDefaultModel().read(new ByteArrayInputStream(rdf.getBytes(Charsets.UTF_8)), null, lang);
+    }
+
+    private static void assertAllTriples(final Model model) {
+        assertEquals(triples.size(), model.size());
+        for (final Triple t : triples) {
+            if (!t.getObject().isBlank()) {
+                assertTrue("Missing " + t, model.getGraph().contains(t));
+            }
+        }
+    }
+
+    @Test
+    public void testFormatFor() {
+        assertEquals(Format.TURTLE, formatFor(valueOf("text/turtle")));
+        assertEquals(Format.TURTLE, formatFor(valueOf("text/turtle;charset=utf-8")));
+        assertEquals(Format.TURTLE, formatFor(valueOf("text/rdf+n3")));
+        assertEquals(Format.NTRIPLES, formatFor(valueOf("application/n-triples")));
+        assertEquals(Format.NTRIPLES, formatFor(valueOf("text/plain")));
+        assertEquals(Format.JSONLD, formatFor(valueOf("application/ld+json")));
+        assertNull(formatFor(valueOf("application/rdf+xml")));
+    }
+
+    @Test
+    public void testNTriples() throws IOException {
+        final String result = write(Format.NTRIPLES, 1);
+        assertFalse("N-Triples should be ASCII", result.contains("\u00e9"));
+        assertEquals(triples.size(), result.split("\n").length);
+        assertAllTriples(read(result, "N-TRIPLES"));
+    }
+
+    @Test
+    public void testTurtle() throws IOException {
+        final String result = write(Format.TURTLE, 100);
+        assertTrue(result.startsWith("@prefix dc: <" + DC + "> ."));
+        assertTrue(result.contains("dc:title"));
+        assertTrue(result.contains(" a "));
+        assertEquals("Subjects should be grouped", result.indexOf("<info:fedora/a> "),
+                result.lastIndexOf("<info:fedora/a> "));
+        assertAllTriples(read(result, "TTL"));
+    }
+
+    @Test
+    public void testTurtleWithSmallWindow() throws IOException {
+        assertAllTriples(read(write(Format.TURTLE, 2), "TTL"));
+    }
+
+    @Test
+    public void testJsonLd() throws IOException, RDFParseException {
+        final String result = write(Format.JSONLD, 3);
+        final org.openrdf.model.Model model =
+                Rio.parse(new ByteArrayInputStream(result.getBytes(Charsets.UTF_8)), "", RDFFormat.JSONLD);
+        final ValueFactory vf = getInstance();
+
+        assertEquals(triples.size(), model.size());
+        assertTrue(model.contains(vf.createURI("info:fedora/a"), vf.createURI(DC + "title"),
+                vf.createLiteral("un titre", "fr")));
+        assertTrue(model.contains(vf.createURI("info:fedora/b"), vf.createURI(DC + "extent"),
+                vf.createLiteral("12", vf.createURI(XSDDatatype.XSDlong.getURI()))));
+    }
+
+    @Test
+    public void testEmptyStreams() throws IOException {
+        for (final Format format : Format.values()) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            new StreamingRdfWriter(output, format, namespaces).write(Collections.<Triple>emptyIterator());
+            if (format == Format.JSONLD) {
+                assertEquals("[]\n", output.toString());
+            } else {
+                assertEquals(0, read(output.toString(), "TTL").size());
+            }
+        }
+    }
+}
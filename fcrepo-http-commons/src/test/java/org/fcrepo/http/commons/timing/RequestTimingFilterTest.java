@@ -0,0 +1,107 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.timing;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.fcrepo.http.commons.timing.RequestTimings.LOOKUP;
+import static org.fcrepo.http.commons.timing.RequestTimings.current;
+import static org.fcrepo.http.commons.timing.RequestTimings.startStage;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * @author agent
+ */
+public class RequestTimingFilterTest {
+
+    private RequestTimingFilter testObj;
+
+    private MetricRegistry registry;
+
+    @Mock
+    private HttpServletRequest mockRequest;
+
+    @Mock
+    private HttpServletResponse mockResponse;
+
+    @Mock
+    private FilterChain mockChain;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        registry = new MetricRegistry();
+        testObj = new RequestTimingFilter(registry);
+
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                current().setResourceClass(String.class);
+                startStage(LOOKUP).stop();
+                return null;
+            }
+        }).when(mockChain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+    }
+
+    @Test
+    public void testStagesAreRecordedPerResourceClass() throws Exception {
+        testObj.doFilter(mockRequest, mockResponse, mockChain);
+        testObj.doFilter(mockRequest, mockResponse, mockChain);
+
+        assertEquals(2, registry.histogram(name(String.class, "stage", LOOKUP)).getCount());
+        assertEquals(2, registry.histogram(name(String.class, "stage", RequestTimingFilter.TOTAL)).getCount());
+        assertNull("Timings should not outlive the request", current());
+    }
+
+    @Test
+    public void testTimingsEndWhenTheRequestFails() throws Exception {
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                startStage(LOOKUP);
+                throw new IllegalStateException("Expected.");
+            }
+        }).when(mockChain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+
+        try {
+            testObj.doFilter(mockRequest, mockResponse, mockChain);
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+
+        assertNull(current());
+        assertEquals(1, registry.histogram(name(RequestTimingFilter.class, "stage", LOOKUP)).getCount());
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.timing;
+
+import static org.fcrepo.http.commons.timing.RequestTimingProvider.SERVER_TIMING;
+import static org.fcrepo.http.commons.timing.RequestTimings.LOGIN;
+import static org.fcrepo.http.commons.timing.RequestTimings.begin;
+import static org.fcrepo.http.commons.timing.RequestTimings.startStage;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.api.core.HttpResponseContext;
+import com.sun.jersey.api.model.AbstractResource;
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+
+/**
+ * @author agent
+ */
+public class RequestTimingProviderTest {
+
+    @Mock
+    private ResourceMethodDispatchProvider mockProvider;
+
+    @Mock
+    private AbstractResourceMethod mockMethod;
+
+    @Mock
+    private AbstractResource mockResource;
+
+    @Mock
+    private RequestDispatcher mockDispatcher;
+
+    @Mock
+    private HttpContext mockContext;
+
+    @Mock
+    private HttpResponseContext mockResponse;
+
+    @Mock
+    private MultivaluedMap<String, Object> mockHeaders;
+
+    private RequestTimings timings;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(mockProvider.create(mockMethod)).thenReturn(mockDispatcher);
+        when(mockMethod.getDeclaringResource()).thenReturn(mockResource);
+        when(mockResource.getResourceClass()).thenReturn(String.class);
+        when(mockContext.getResponse()).thenReturn(mockResponse);
+        when(mockResponse.getHttpHeaders()).thenReturn(mockHeaders);
+
+        timings = begin();
+        startStage(LOGIN).stop();
+    }
+
+    @After
+    public void tearDown() {
+        timings.end();
+    }
+
+    @Test
+    public void testDispatchWithServerTiming() {
+        final Object resource = new Object();
+        new RequestTimingProvider(true).adapt(mockProvider).create(mockMethod).dispatch(resource, mockContext);
+
+        verify(mockDispatcher).dispatch(resource, mockContext);
+        assertEquals(String.class, timings.getResourceClass());
+        verify(mockHeaders).add(eq(SERVER_TIMING), eq(timings.toServerTiming()));
+        assertTrue(timings.toServerTiming().startsWith("login;dur="));
+    }
+
+    @Test
+    public void testDispatchWithoutServerTiming() {
+        final Object resource = new Object();
+        new RequestTimingProvider(false).adapt(mockProvider).create(mockMethod).dispatch(resource, mockContext);
+
+        verify(mockDispatcher).dispatch(resource, mockContext);
+        assertEquals(String.class, timings.getResourceClass());
+        verify(mockHeaders, never()).add(eq(SERVER_TIMING), anyString());
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.timing;
+
+import static org.fcrepo.http.commons.timing.RequestTimings.LOGIN;
+import static org.fcrepo.http.commons.timing.RequestTimings.LOGOUT;
+import static org.fcrepo.http.commons.timing.RequestTimings.LOOKUP;
+import static org.fcrepo.http.commons.timing.RequestTimings.begin;
+import static org.fcrepo.http.commons.timing.RequestTimings.current;
+import static org.fcrepo.http.commons.timing.RequestTimings.startStage;
+import static org.fcrepo.http.commons.timing.RequestTimings.timed;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.fcrepo.http.commons.timing.RequestTimings.Stage;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.FutureCallback;
+
+/**
+ * @author agent
+ */
+public class RequestTimingsTest {
+
+    @After
+    public void tearDown() {
+        if (current() != null) {
+            current().end();
+        }
+    }
+
+    @Test
+    public void testStagesAreRecordedInOrder() {
+        final RequestTimings timings = begin();
+        assertSame(timings, current());
+
+        try (final Stage login = startStage(LOGIN)) {
+            assertFalse(login.isStopped());
+        }
+        startStage(LOOKUP);
+        timings.end();
+
+        assertNull(current());
+        assertEquals(2, timings.getStages().size());
+        assertEquals(LOGIN, timings.getStages().get(0).getName());
+        assertEquals(LOOKUP, timings.getStages().get(1).getName());
+        assertTrue("Stage left running should be stopped at the end of the request",
+                timings.getStages().get(1).isStopped());
+        assertTrue(timings.getElapsed() >= timings.getStages().get(0).getElapsed());
+    }
+
+    @Test
+    public void testStagesOutsideOfARequestAreNotRecorded() {
+        final Stage stage = startStage(LOGIN);
+        stage.stop();
+        assertFalse(stage.isStopped());
+        assertNull(current());
+    }
+
+    @Test
+    public void testServerTimingOnlyIncludesCompletedStages() {
+        final RequestTimings timings = begin();
+        startStage(LOGIN).stop();
+        startStage(LOOKUP);
+
+        final String value = timings.toServerTiming();
+        assertTrue(value, value.matches("login;dur=\\d+\\.\\d{3}"));
+        assertTrue(timings.toString(), timings.toString().endsWith("lookup=?"));
+    }
+
+    @Test
+    public void testTimedCallback() {
+        @SuppressWarnings("unchecked")
+        final FutureCallback<Void> callback = mock(FutureCallback.class);
+        final RequestTimings timings = begin();
+
+        timed(LOGOUT, callback).onSuccess(null);
+
+        verify(callback).onSuccess(null);
+        assertEquals(LOGOUT, timings.getStages().get(0).getName());
+        assertTrue(timings.getStages().get(0).isStopped());
+    }
+}
@@ -0,0 +1,454 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.jms.observer;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.jms.Session.SESSION_TRANSACTED;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.jcr.RepositoryException;
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.fcrepo.kernel.observer.FedoraEvent;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Publishes JMS messages for EventBus messages without holding up the
+ * EventBus, and so JCR observation, while the broker is slow.
+ *
+ * Events are put on bounded queues and sent to the "fedora" topic by a pool
+ * of producers, each with its own transacted session, in batches of up to
+ * batchSize messages or batchMillis milliseconds. Each producer has its own
+ * queue, and all the events for a resource go to the same queue, so events
+ * for a resource are published in the order they happened. When a queue is
+ * full the overflow policy decides whether to block the EventBus, spill
+ * events to a journal on local disk to be published later, or drop them.
+ *
+ * The queue depth, the time taken to send a batch, and the number of events
+ * spilled, dropped or failed are reported as metrics.
+ *
+ * @author agent
+ */
+public class AsyncJMSTopicPublisher {
+
+    /**
+     * What to do with an event when the queue is full
+     */
+    public enum OverflowPolicy {
+        BLOCK, SPILL, DROP
+    }
+
+    private static final Logger LOGGER = getLogger(AsyncJMSTopicPublisher.class);
+
+    static final String QUEUE_DEPTH_GAUGE = name(AsyncJMSTopicPublisher.class, "queue-depth");
+
+    static final Timer sendTimer = getMetrics().timer(name(AsyncJMSTopicPublisher.class, "send"));
+
+    static final Counter spilledCounter = getMetrics().counter(name(AsyncJMSTopicPublisher.class, "spilled"));
+
+    static final Counter droppedCounter = getMetrics().counter(name(AsyncJMSTopicPublisher.class, "dropped"));
+
+    static final Counter errorCounter = getMetrics().counter(name(AsyncJMSTopicPublisher.class, "errors"));
+
+    private static final long RETRY_MILLIS = 1000;
+
+    private static final int JOURNAL_SEGMENT_SIZE = 10000;
+
+    @Inject
+    private EventBus eventBus;
+
+    @Inject
+    private ActiveMQConnectionFactory connectionFactory;
+
+    @Inject
+    private JMSEventMessageFactory eventFactory;
+
+    private int queueSize = 10000;
+
+    private int producers = 2;
+
+    private int batchSize = 100;
+
+    private long batchMillis = 50;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    private File journalDirectory = new File(System.getProperty("fcrepo.home",
+            System.getProperty("user.dir") + File.separator + "fcrepo4-data"), "jms-journal");
+
+    private List<BlockingQueue<FedoraEvent>> queues;
+
+    private EventJournal journal;
+
+    private Connection connection;
+
+    private ExecutorService workers;
+
+    private volatile boolean running;
+
+    /**
+     * Queue an EventBus message for publication
+     *
+     * @param fedoraEvent
+     * @throws InterruptedException
+     * @throws RepositoryException
+     * @throws IOException
+     */
+    @Subscribe
+    public void publishJCREvent(final FedoraEvent fedoraEvent) throws InterruptedException,
+        RepositoryException, IOException {
+        LOGGER.debug("Received an event from the internal bus.");
+
+        final BlockingQueue<FedoraEvent> queue = queueFor(fedoraEvent);
+
+        switch (overflowPolicy) {
+            case SPILL:
+                // once events are spilled, later ones follow them through
+                // the journal, so that events for a resource stay in order
+                if (!journal.isEmpty() || !queue.offer(fedoraEvent)) {
+                    journal.append(new FedoraEventRecord(fedoraEvent));
+                    spilledCounter.inc();
+                }
+                break;
+            case DROP:
+                if (!queue.offer(fedoraEvent)) {
+                    LOGGER.warn("Event queue is full, dropping {}", fedoraEvent);
+                    droppedCounter.inc();
+                }
+                break;
+            default:
+                queue.put(fedoraEvent);
+        }
+    }
+
+    /**
+     * @return the queue of the producer that publishes events for the event's
+     *         resource
+     * @throws RepositoryException
+     */
+    private BlockingQueue<FedoraEvent> queueFor(final FedoraEvent fedoraEvent) throws RepositoryException {
+        final String path = fedoraEvent.getPath();
+        final int hash = path == null ? 0 : path.hashCode();
+        return queues.get((hash & Integer.MAX_VALUE) % queues.size());
+    }
+
+    /**
+     * Connect to the JMS broker and start the producers
+     *
+     * @throws JMSException
+     * @throws IOException
+     */
+    @PostConstruct
+    public void acquireConnections() throws JMSException, IOException {
+        LOGGER.debug("Initializing: {}", this.getClass().getCanonicalName());
+
+        queues = new ArrayList<>(producers);
+        for (int i = 0; i < producers; i++) {
+            queues.add(new ArrayBlockingQueue<FedoraEvent>(Math.max(1, queueSize / producers)));
+        }
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            journal = new EventJournal(journalDirectory, JOURNAL_SEGMENT_SIZE);
+        }
+
+        connection = connectionFactory.createConnection();
+        connection.start();
+
+        running = true;
+        final int threads = journal == null ? producers : producers + 1;
+        workers = newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-jms-publisher-%d").build());
+
+        for (final BlockingQueue<FedoraEvent> queue : queues) {
+            workers.execute(new Producer(queue));
+        }
+        if (journal != null) {
+            workers.execute(new JournalReader());
+        }
+
+        getMetrics().remove(QUEUE_DEPTH_GAUGE);
+        getMetrics().register(QUEUE_DEPTH_GAUGE, new Gauge<Integer>() {
+
+            @Override
+            public Integer getValue() {
+                return queued();
+            }
+        });
+
+        eventBus.register(this);
+    }
+
+    /**
+     * Stop taking events, publish those that are queued, and close external
+     * connections
+     *
+     * @throws JMSException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @PreDestroy
+    public void releaseConnections() throws JMSException, InterruptedException, IOException {
+        LOGGER.debug("Tearing down: {}", this.getClass().getCanonicalName());
+
+        eventBus.unregister(this);
+        running = false;
+        workers.shutdown();
+
+        if (!workers.awaitTermination(10, SECONDS)) {
+            workers.shutdownNow();
+        }
+
+        if (queued() > 0) {
+            if (journal != null) {
+                for (final BlockingQueue<FedoraEvent> queue : queues) {
+                    for (final FedoraEvent event : queue) {
+                        journal.append(new FedoraEventRecord(event));
+                    }
+                }
+            } else {
+                LOGGER.warn("Discarding {} unpublished events", queued());
+            }
+        }
+
+        if (journal != null) {
+            journal.close();
+        }
+
+        getMetrics().remove(QUEUE_DEPTH_GAUGE);
+        connection.close();
+    }
+
+    private int queued() {
+        int queued = 0;
+        for (final BlockingQueue<FedoraEvent> queue : queues) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * Takes batches of events from its queue and sends them in one JMS
+     * transaction
+     */
+    private class Producer implements Runnable {
+
+        private final BlockingQueue<FedoraEvent> queue;
+
+        private Session jmsSession;
+
+        private MessageProducer producer;
+
+        Producer(final BlockingQueue<FedoraEvent> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            final List<FedoraEvent> batch = new ArrayList<>(batchSize);
+
+            try {
+                while (running || !queue.isEmpty()) {
+                    if (fill(batch)) {
+                        send(batch);
+                        batch.clear();
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private boolean fill(final List<FedoraEvent> batch) throws InterruptedException {
+            final FedoraEvent first = queue.poll(batchMillis, MILLISECONDS);
+
+            if (first == null) {
+                return false;
+            }
+
+            batch.add(first);
+            final long deadline = currentTimeMillis() + batchMillis;
+
+            while (batch.size() < batchSize) {
+                final FedoraEvent next = queue.poll(deadline - currentTimeMillis(), MILLISECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+            return true;
+        }
+
+        /**
+         * Send a batch, retrying until it is sent or the publisher is stopped
+         */
+        private void send(final List<FedoraEvent> batch) throws InterruptedException {
+            while (true) {
+                final Timer.Context context = sendTimer.time();
+                try {
+                    open();
+
+                    for (final FedoraEvent event : batch) {
+                        try {
+                            producer.send(eventFactory.getMessage(event, jmsSession));
+                        } catch (final RepositoryException | IOException e) {
+                            LOGGER.error("Unable to create a message for {}", event, e);
+                            errorCounter.inc();
+                        }
+                    }
+                    jmsSession.commit();
+                    LOGGER.debug("Put {} events onto JMS.", batch.size());
+                    return;
+                } catch (final JMSException e) {
+                    LOGGER.warn("Unable to send {} events, retrying", batch.size(), e);
+                    close();
+
+                    if (!running) {
+                        errorCounter.inc(batch.size());
+                        return;
+                    }
+                    Thread.sleep(RETRY_MILLIS);
+                } finally {
+                    context.stop();
+                }
+            }
+        }
+
+        private void open() throws JMSException {
+            if (jmsSession == null) {
+                jmsSession = connection.createSession(true, SESSION_TRANSACTED);
+                producer = jmsSession.createProducer(jmsSession.createTopic("fedora"));
+            }
+        }
+
+        private void close() {
+            if (jmsSession != null) {
+                try {
+                    jmsSession.close();
+                } catch (final JMSException e) {
+                    LOGGER.debug("Unable to close JMS session", e);
+                }
+                jmsSession = null;
+                producer = null;
+            }
+        }
+    }
+
+    /**
+     * Moves events from the journal back onto the queue as it drains
+     */
+    private class JournalReader implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    if (journal.isEmpty()) {
+                        Thread.sleep(batchMillis);
+                        continue;
+                    }
+
+                    try {
+                        for (final FedoraEventRecord record : journal.peek()) {
+                            final FedoraEvent event = record.toFedoraEvent();
+                            queueFor(event).put(event);
+                        }
+                        journal.remove();
+                    } catch (final IOException | RepositoryException e) {
+                        // the journal quarantines segments it cannot read, so
+                        // this is a failure to roll or open one; try again
+                        LOGGER.error("Unable to read the event journal in {}", journalDirectory, e);
+                        errorCounter.inc();
+                        Thread.sleep(RETRY_MILLIS);
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @param queueSize the number of events that may wait for publication,
+     *        shared between the producers
+     */
+    public void setQueueSize(final int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * @param producers the number of concurrent producers; events for a
+     *        resource are always sent by the same producer
+     */
+    public void setProducers(final int producers) {
+        this.producers = producers;
+    }
+
+    /**
+     * @param batchSize the largest number of messages sent in one transaction
+     */
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param batchMillis the longest a producer waits to fill a batch
+     */
+    public void setBatchMillis(final long batchMillis) {
+        this.batchMillis = batchMillis;
+    }
+
+    /**
+     * @param overflowPolicy what to do with events when the queue is full
+     */
+    public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * @param journalDirectory where to spill events when the queue is full
+     */
+    public void setJournalDirectory(final File journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.jms.observer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+
+/**
+ * A journal on local disk of events that could not be queued for
+ * publication. Records are appended to numbered segment files; the oldest
+ * segment is read back whole and deleted once its records are queued again.
+ * Segments left behind by a previous run are read back first. A segment with
+ * a record that cannot be read is kept aside, renamed with a ".damaged"
+ * suffix, once the records before it are queued.
+ *
+ * @author agent
+ */
+public class EventJournal {
+
+    private static final Logger LOGGER = getLogger(EventJournal.class);
+
+    private static final String SUFFIX = ".journal";
+
+    private static final String DAMAGED_SUFFIX = ".damaged";
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final Deque<File> segments = new ArrayDeque<>();
+
+    private final Set<File> damaged = new HashSet<>();
+
+    private File current;
+
+    private ObjectOutputStream out;
+
+    private int written;
+
+    private long sequence;
+
+    /**
+     * Open a journal, picking up any segments already in its directory
+     *
+     * @param directory
+     * @param segmentSize the number of records in a segment
+     * @throws IOException
+     */
+    public EventJournal(final File directory, final int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create event journal directory " + directory);
+        }
+
+        final File[] existing = directory.listFiles(new FilenameFilter() {
+
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.endsWith(SUFFIX);
+            }
+        });
+        Arrays.sort(existing);
+
+        for (final File segment : existing) {
+            segments.add(segment);
+            sequence = Math.max(sequence, parseSequence(segment) + 1);
+        }
+
+        if (!segments.isEmpty()) {
+            LOGGER.info("Found {} event journal segments in {}", segments.size(), directory);
+        }
+    }
+
+    /**
+     * Append a record to the journal
+     *
+     * @param record
+     * @throws IOException
+     */
+    public synchronized void append(final FedoraEventRecord record) throws IOException {
+        if (out == null) {
+            current = new File(directory, String.format("%020d", sequence++) + SUFFIX);
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(current)));
+        }
+
+        out.writeObject(record);
+        out.reset();
+        out.flush();
+
+        if (++written >= segmentSize) {
+            roll();
+        }
+    }
+
+    /**
+     * @return whether the journal holds no records
+     */
+    public synchronized boolean isEmpty() {
+        return segments.isEmpty() && out == null;
+    }
+
+    /**
+     * Read the oldest segment of the journal. The segment stays in the
+     * journal until it is {@link #remove}d. If a record in the segment cannot
+     * be read, the records before it are returned and the segment is
+     * quarantined when it is removed.
+     *
+     * @return the segment's readable records, oldest first, or an empty list
+     *         if the journal is empty
+     * @throws IOException
+     */
+    public List<FedoraEventRecord> peek() throws IOException {
+        final File segment;
+
+        synchronized (this) {
+            if (segments.isEmpty() && out != null) {
+                roll();
+            }
+
+            segment = segments.peekFirst();
+        }
+
+        final List<FedoraEventRecord> records = new ArrayList<>();
+
+        if (segment == null) {
+            return records;
+        }
+
+        try (final ObjectInputStream in =
+                new ObjectInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+            while (true) {
+                records.add((FedoraEventRecord) in.readObject());
+            }
+        } catch (final EOFException e) {
+            // the end of the segment, or of what was written of it
+            return records;
+        } catch (final FileNotFoundException e) {
+            LOGGER.error("Event journal segment {} has gone, skipping it", segment, e);
+            return records;
+        } catch (final ObjectStreamException | ClassNotFoundException | ClassCastException e) {
+            LOGGER.error("Unable to read event journal segment {} past record {}, setting it aside",
+                    segment, records.size(), e);
+            synchronized (this) {
+                damaged.add(segment);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Remove the oldest segment, once its records have been queued
+     */
+    public synchronized void remove() {
+        final File segment = segments.pollFirst();
+
+        if (segment == null) {
+            return;
+        }
+
+        if (damaged.remove(segment)) {
+            final File quarantined = new File(directory, segment.getName() + DAMAGED_SUFFIX);
+            if (!segment.renameTo(quarantined)) {
+                LOGGER.warn("Unable to set aside damaged event journal segment {}", segment);
+            }
+        } else if (!segment.delete()) {
+            LOGGER.warn("Unable to delete event journal segment {}", segment);
+        }
+    }
+
+    /**
+     * Close the segment being written
+     *
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            roll();
+        }
+    }
+
+    private void roll() throws IOException {
+        out.close();
+        segments.addLast(current);
+        out = null;
+        current = null;
+        written = 0;
+    }
+
+    private static long parseSequence(final File segment) {
+        final String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+}
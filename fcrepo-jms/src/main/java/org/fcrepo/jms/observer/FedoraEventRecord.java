@@ -0,0 +1,144 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.jms.observer;
+
+import static javax.jcr.observation.Event.PROPERTY_ADDED;
+import static javax.jcr.observation.Event.PROPERTY_CHANGED;
+import static javax.jcr.observation.Event.PROPERTY_REMOVED;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.observation.Event;
+
+import org.fcrepo.kernel.observer.FedoraEvent;
+
+/**
+ * A serializable copy of a {@link FedoraEvent}, detached from the JCR event
+ * it was made from, so that it can be written to an {@link EventJournal} and
+ * published later.
+ *
+ * @author agent
+ */
+public class FedoraEventRecord implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Integer> types;
+
+    private final List<String> properties;
+
+    private final String path;
+
+    private final String identifier;
+
+    private final String userID;
+
+    private final String userData;
+
+    private final long date;
+
+    private final HashMap<String, String> info = new HashMap<>();
+
+    /**
+     * Copy an event
+     *
+     * @param event
+     * @throws RepositoryException
+     */
+    public FedoraEventRecord(final FedoraEvent event) throws RepositoryException {
+        this.types = new ArrayList<>(event.getTypes());
+        this.properties = new ArrayList<>(event.getProperties());
+        this.path = event.getPath();
+        this.identifier = event.getIdentifier();
+        this.userID = event.getUserID();
+        this.userData = event.getUserData();
+        this.date = event.getDate();
+
+        for (final Map.Entry<Object, Object> entry : event.getInfo().entrySet()) {
+            info.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+        }
+    }
+
+    /**
+     * @return a FedoraEvent equivalent to the one recorded
+     */
+    public FedoraEvent toFedoraEvent() {
+        final FedoraEvent event = new FedoraEvent(new RecordedEvent());
+
+        for (final Integer type : types) {
+            event.addType(type);
+        }
+        for (final String property : properties) {
+            event.addProperty(property);
+        }
+        return event;
+    }
+
+    /**
+     * A JCR event that answers from the record. FedoraEvent reports the
+     * parent of a property event's path, so a property event is given the
+     * path of one of its properties.
+     */
+    private class RecordedEvent implements Event {
+
+        @Override
+        public int getType() {
+            return types.get(0);
+        }
+
+        @Override
+        public String getPath() {
+            switch (getType()) {
+                case PROPERTY_ADDED:
+                case PROPERTY_CHANGED:
+                case PROPERTY_REMOVED:
+                    return path + "/" + (properties.isEmpty() ? "" : properties.get(0));
+                default:
+                    return path;
+            }
+        }
+
+        @Override
+        public String getUserID() {
+            return userID;
+        }
+
+        @Override
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public Map<String, String> getInfo() {
+            return info;
+        }
+
+        @Override
+        public String getUserData() {
+            return userData;
+        }
+
+        @Override
+        public long getDate() {
+            return date;
+        }
+    }
+}
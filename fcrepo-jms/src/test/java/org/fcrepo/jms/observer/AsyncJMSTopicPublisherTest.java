@@ -0,0 +1,260 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.jms.observer;
+
+import static com.google.common.io.Files.createTempDir;
+import static javax.jcr.observation.Event.NODE_ADDED;
+import static javax.jms.Session.SESSION_TRANSACTED;
+import static org.fcrepo.jms.observer.AsyncJMSTopicPublisher.OverflowPolicy.DROP;
+import static org.fcrepo.jms.observer.AsyncJMSTopicPublisher.OverflowPolicy.SPILL;
+import static org.fcrepo.kernel.impl.utils.TestHelpers.setField;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+
+import javax.jcr.observation.Event;
+import javax.jms.Connection;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.Topic;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.fcrepo.kernel.observer.FedoraEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.eventbus.EventBus;
+
+/**
+ * <p>AsyncJMSTopicPublisherTest class.</p>
+ *
+ * @author agent
+ */
+public class AsyncJMSTopicPublisherTest {
+
+    private AsyncJMSTopicPublisher testObj;
+
+    @Mock
+    private JMSEventMessageFactory mockEvents;
+
+    @Mock
+    private ActiveMQConnectionFactory mockConnections;
+
+    @Mock
+    private Connection mockConn;
+
+    @Mock
+    private Session mockJmsSession;
+
+    @Mock
+    private Topic mockTopic;
+
+    @Mock
+    private MessageProducer mockProducer;
+
+    @Mock
+    private Message mockMsg;
+
+    @Mock
+    private EventBus mockBus;
+
+    @Mock
+    private Event mockJcrEvent;
+
+    private FedoraEvent event;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        testObj = new AsyncJMSTopicPublisher();
+        setField(testObj, "eventFactory", mockEvents);
+        setField(testObj, "connectionFactory", mockConnections);
+        setField(testObj, "eventBus", mockBus);
+        testObj.setProducers(1);
+        testObj.setBatchSize(2);
+        testObj.setBatchMillis(10);
+        when(mockConnections.createConnection()).thenReturn(mockConn);
+        when(mockConn.createSession(true, SESSION_TRANSACTED)).thenReturn(mockJmsSession);
+        when(mockJmsSession.createTopic("fedora")).thenReturn(mockTopic);
+        when(mockJmsSession.createProducer(mockTopic)).thenReturn(mockProducer);
+        when(mockEvents.getMessage(any(FedoraEvent.class), any(Session.class))).thenReturn(mockMsg);
+        when(mockJcrEvent.getType()).thenReturn(NODE_ADDED);
+        when(mockJcrEvent.getPath()).thenReturn("/a");
+        event = new FedoraEvent(mockJcrEvent);
+    }
+
+    @Test
+    public void testAcquireConnections() throws Exception {
+        testObj.acquireConnections();
+        verify(mockConn).start();
+        verify(mockBus).register(testObj);
+        testObj.releaseConnections();
+    }
+
+    @Test
+    public void testPublishInBatches() throws Exception {
+        testObj.acquireConnections();
+        testObj.publishJCREvent(event);
+        testObj.publishJCREvent(event);
+        testObj.publishJCREvent(event);
+        verify(mockProducer, timeout(1000).times(3)).send(mockMsg);
+        verify(mockJmsSession, timeout(1000).atLeast(2)).commit();
+        testObj.releaseConnections();
+    }
+
+    @Test
+    public void testReleaseConnections() throws Exception {
+        testObj.acquireConnections();
+        testObj.publishJCREvent(event);
+        testObj.releaseConnections();
+        verify(mockProducer).send(mockMsg);
+        verify(mockBus).unregister(testObj);
+        verify(mockJmsSession).close();
+        verify(mockConn).close();
+    }
+
+    @Test
+    public void testRetryAfterFailure() throws Exception {
+        doAnswer(new Answer<Void>() {
+
+            private boolean failed;
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Exception {
+                if (!failed) {
+                    failed = true;
+                    throw new javax.jms.JMSException("broker unavailable");
+                }
+                return null;
+            }
+        }).when(mockJmsSession).commit();
+
+        testObj.acquireConnections();
+        testObj.publishJCREvent(event);
+        verify(mockJmsSession, timeout(3000).times(2)).commit();
+        verify(mockConn, times(2)).createSession(true, SESSION_TRANSACTED);
+        testObj.releaseConnections();
+    }
+
+    @Test
+    public void testDrop() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        blockSends(blocked, release);
+        testObj.setQueueSize(1);
+        testObj.setOverflowPolicy(DROP);
+        testObj.acquireConnections();
+
+        final long dropped = AsyncJMSTopicPublisher.droppedCounter.getCount();
+        testObj.publishJCREvent(event);
+        blocked.await();
+        testObj.publishJCREvent(event);
+        testObj.publishJCREvent(event);
+        assertEquals(dropped + 1, AsyncJMSTopicPublisher.droppedCounter.getCount());
+
+        release.countDown();
+        verify(mockProducer, timeout(1000).times(2)).send(mockMsg);
+        testObj.releaseConnections();
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        blockSends(blocked, release);
+        final File journal = createTempDir();
+        testObj.setQueueSize(1);
+        testObj.setOverflowPolicy(SPILL);
+        testObj.setJournalDirectory(journal);
+        testObj.acquireConnections();
+
+        final long spilled = AsyncJMSTopicPublisher.spilledCounter.getCount();
+        testObj.publishJCREvent(event);
+        blocked.await();
+        testObj.publishJCREvent(event);
+        testObj.publishJCREvent(event);
+        testObj.publishJCREvent(event);
+        assertEquals(spilled + 2, AsyncJMSTopicPublisher.spilledCounter.getCount());
+
+        release.countDown();
+        verify(mockProducer, timeout(2000).times(4)).send(mockMsg);
+        testObj.releaseConnections();
+    }
+
+    private void blockSends(final CountDownLatch blocked, final CountDownLatch release) throws Exception {
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+                blocked.countDown();
+                release.await();
+                return null;
+            }
+        }).when(mockProducer).send(mockMsg);
+    }
+
+    @Test
+    public void testMessageFailureSkipsEvent() throws Exception {
+        final FedoraEvent badEvent = new FedoraEvent(mockJcrEvent);
+        when(mockEvents.getMessage(badEvent, mockJmsSession)).thenThrow(new javax.jcr.RepositoryException());
+        testObj.setBatchSize(1);
+        testObj.acquireConnections();
+        testObj.publishJCREvent(badEvent);
+        testObj.publishJCREvent(event);
+        verify(mockProducer, timeout(1000)).send(mockMsg);
+        verify(mockJmsSession, timeout(1000).times(2)).commit();
+        testObj.releaseConnections();
+    }
+
+    @Test
+    public void testEventsForAResourceStayInOrder() throws Exception {
+        final FedoraEvent second = new FedoraEvent(mockJcrEvent);
+        final FedoraEvent third = new FedoraEvent(mockJcrEvent);
+        final Message secondMsg = mock(Message.class);
+        final Message thirdMsg = mock(Message.class);
+        when(mockEvents.getMessage(second, mockJmsSession)).thenReturn(secondMsg);
+        when(mockEvents.getMessage(third, mockJmsSession)).thenReturn(thirdMsg);
+        testObj.setProducers(4);
+        testObj.setBatchSize(1);
+        testObj.acquireConnections();
+
+        testObj.publishJCREvent(event);
+        testObj.publishJCREvent(second);
+        testObj.publishJCREvent(third);
+        verify(mockProducer, timeout(1000)).send(thirdMsg);
+        testObj.releaseConnections();
+
+        final InOrder inOrder = inOrder(mockProducer);
+        inOrder.verify(mockProducer).send(mockMsg);
+        inOrder.verify(mockProducer).send(secondMsg);
+        inOrder.verify(mockProducer).send(thirdMsg);
+    }
+}
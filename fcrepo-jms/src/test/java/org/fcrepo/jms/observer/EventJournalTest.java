@@ -0,0 +1,162 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.jms.observer;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.io.Files.createTempDir;
+import static javax.jcr.observation.Event.NODE_ADDED;
+import static javax.jcr.observation.Event.PROPERTY_ADDED;
+import static javax.jcr.observation.Event.PROPERTY_CHANGED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.observation.Event;
+
+import org.fcrepo.kernel.observer.FedoraEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>EventJournalTest class.</p>
+ *
+ * @author agent
+ */
+public class EventJournalTest {
+
+    private File directory;
+
+    private EventJournal testObj;
+
+    @Mock
+    private Event mockEvent;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        directory = createTempDir();
+        testObj = new EventJournal(directory, 2);
+        when(mockEvent.getType()).thenReturn(PROPERTY_ADDED);
+        when(mockEvent.getPath()).thenReturn("/a/b/dc:title");
+        when(mockEvent.getIdentifier()).thenReturn("some-uuid");
+        when(mockEvent.getUserID()).thenReturn("someUser");
+        when(mockEvent.getDate()).thenReturn(1234L);
+    }
+
+    private FedoraEventRecord record(final String property) throws RepositoryException {
+        return new FedoraEventRecord(new FedoraEvent(mockEvent).addProperty(property));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertTrue(testObj.isEmpty());
+        assertTrue(testObj.peek().isEmpty());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final FedoraEvent original = new FedoraEvent(mockEvent).addType(PROPERTY_CHANGED).addProperty("dc:title");
+        testObj.append(new FedoraEventRecord(original));
+        assertFalse(testObj.isEmpty());
+
+        final List<FedoraEventRecord> records = testObj.peek();
+        assertEquals(1, records.size());
+
+        final FedoraEvent copy = records.get(0).toFedoraEvent();
+        assertEquals("/a/b", copy.getPath());
+        assertEquals(newHashSet(PROPERTY_ADDED, PROPERTY_CHANGED), copy.getTypes());
+        assertEquals(newHashSet("dc:title"), copy.getProperties());
+        assertEquals("some-uuid", copy.getIdentifier());
+        assertEquals("someUser", copy.getUserID());
+        assertEquals(1234L, copy.getDate());
+
+        testObj.remove();
+        assertTrue(testObj.isEmpty());
+    }
+
+    @Test
+    public void testNodeEventPath() throws Exception {
+        when(mockEvent.getType()).thenReturn(NODE_ADDED);
+        when(mockEvent.getPath()).thenReturn("/a/b");
+        testObj.append(record("dc:title"));
+        assertEquals("/a/b", testObj.peek().get(0).toFedoraEvent().getPath());
+    }
+
+    @Test
+    public void testSegmentsAreReadInOrder() throws Exception {
+        testObj.append(record("p1"));
+        testObj.append(record("p2"));
+        testObj.append(record("p3"));
+
+        List<FedoraEventRecord> records = testObj.peek();
+        assertEquals(2, records.size());
+        assertEquals(newHashSet("p1"), records.get(0).toFedoraEvent().getProperties());
+        assertEquals(newHashSet("p2"), records.get(1).toFedoraEvent().getProperties());
+        testObj.remove();
+
+        records = testObj.peek();
+        assertEquals(1, records.size());
+        assertEquals(newHashSet("p3"), records.get(0).toFedoraEvent().getProperties());
+        testObj.remove();
+        assertTrue(testObj.isEmpty());
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        testObj.append(record("p1"));
+        testObj.close();
+
+        final EventJournal reopened = new EventJournal(directory, 2);
+        assertFalse(reopened.isEmpty());
+        assertEquals(1, reopened.peek().size());
+        reopened.append(record("p2"));
+        reopened.remove();
+        assertEquals(newHashSet("p2"), reopened.peek().get(0).toFedoraEvent().getProperties());
+    }
+
+    @Test
+    public void testDamagedSegmentIsSetAside() throws Exception {
+        testObj.append(record("p1"));
+        testObj.append(record("p2"));
+        testObj.append(record("p3"));
+
+        final File[] segments = directory.listFiles();
+        Arrays.sort(segments);
+        try (final ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(segments[0]))) {
+            out.flush();
+            out.write(new byte[] {0x7f, 0x7f, 0x7f, 0x7f});
+        }
+
+        assertTrue(testObj.peek().isEmpty());
+        testObj.remove();
+        assertTrue(new File(directory, segments[0].getName() + ".damaged").exists());
+        assertFalse(segments[0].exists());
+
+        final List<FedoraEventRecord> records = testObj.peek();
+        assertEquals(1, records.size());
+        assertEquals(newHashSet("p3"), records.get(0).toFedoraEvent().getProperties());
+    }
+}
@@ -16,8 +16,10 @@
 package org.fcrepo.kernel.impl;
 
 import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Throwables.propagate;
 import static org.fcrepo.kernel.impl.services.ServiceHelpers.getNodePropertySize;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isFedoraDatastream;
+import static org.fcrepo.kernel.impl.utils.impl.CacheEntryFactory.forProperty;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isFrozen;
 import static org.fcrepo.metrics.RegistryService.getMetrics;
 import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
@@ -26,12 +28,19 @@ import static org.modeshape.jcr.api.JcrConstants.JCR_MIME_TYPE;
 import static org.modeshape.jcr.api.JcrConstants.NT_RESOURCE;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.jcr.Node;
 import javax.jcr.Property;
+import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
@@ -39,8 +48,13 @@ import org.fcrepo.kernel.Datastream;
 import org.fcrepo.kernel.FedoraObject;
 import org.fcrepo.kernel.exception.InvalidChecksumException;
 import org.fcrepo.kernel.exception.ResourceTypeException;
+import org.fcrepo.kernel.impl.utils.FixityInputStream;
+import org.fcrepo.kernel.impl.utils.ProjectedCacheEntry;
+import org.fcrepo.kernel.impl.utils.impl.FileSystemBinaryStoreEntry;
 import org.fcrepo.kernel.services.policy.StoragePolicyDecisionPoint;
+import org.fcrepo.kernel.utils.CacheEntry;
 import org.fcrepo.kernel.utils.ContentDigest;
+import org.fcrepo.kernel.utils.StoredContent;
 import org.modeshape.jcr.api.Binary;
 import org.modeshape.jcr.api.JcrConstants;
 import org.modeshape.jcr.api.ValueFactory;
@@ -61,6 +75,12 @@ public class DatastreamImpl extends FedoraResourceImpl implements Datastream {
     static final Histogram contentSizeHistogram =
             getMetrics().histogram(name(DatastreamImpl.class, "content-size"));
 
+    /**
+     * Digests computed on ingest in addition to the SHA-1 that ModeShape
+     * computes, and stored with it as premis:hasMessageDigest values
+     */
+    private static final String[] ADDITIONAL_DIGEST_ALGORITHMS = { "SHA-256", "MD5" };
+
     /**
      * The JCR node for this datastream
      *
@@ -141,6 +161,23 @@ public class DatastreamImpl extends FedoraResourceImpl implements Datastream {
         return getContentNode().getProperty(JCR_DATA).getBinary();
     }
 
+    /*
+     * (non-Javadoc)
+     * @see org.fcrepo.kernel.Datastream#getContentFile()
+     */
+    @Override
+    public File getContentFile() throws RepositoryException {
+        final CacheEntry entry =
+            forProperty(node.getSession().getRepository(), getContentNode().getProperty(JCR_DATA));
+
+        if (entry instanceof FileSystemBinaryStoreEntry) {
+            return ((FileSystemBinaryStoreEntry) entry).getFile();
+        } else if (entry instanceof ProjectedCacheEntry) {
+            return ((ProjectedCacheEntry) entry).getFile();
+        }
+        return null;
+    }
+
     /*
      * (non-Javadoc)
      * @see org.fcrepo.kernel.Datastream#getContent()
@@ -171,6 +208,28 @@ public class DatastreamImpl extends FedoraResourceImpl implements Datastream {
             final URI checksum, final String originalFileName,
             final StoragePolicyDecisionPoint storagePolicyDecisionPoint)
         throws RepositoryException, InvalidChecksumException {
+        setContent(contentStore(content, contentType, originalFileName, storagePolicyDecisionPoint).call(),
+                checksum);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.fcrepo.kernel.Datastream#prepareContent(java.io.InputStream,
+     * java.lang.String, java.lang.String,
+     * org.fcrepo.kernel.services.policy.StoragePolicyDecisionPoint)
+     */
+    @Override
+    public Callable<StoredContent> prepareContent(final InputStream content, final String contentType,
+            final String originalFileName,
+            final StoragePolicyDecisionPoint storagePolicyDecisionPoint)
+        throws RepositoryException {
+        return contentStore(content, contentType, originalFileName, storagePolicyDecisionPoint);
+    }
+
+    private ContentStore contentStore(final InputStream content, final String contentType,
+            final String originalFileName,
+            final StoragePolicyDecisionPoint storagePolicyDecisionPoint)
+        throws RepositoryException {
 
         final Node contentNode =
                 findOrCreateChild(node, JCR_CONTENT, NT_RESOURCE);
@@ -196,39 +255,97 @@ public class DatastreamImpl extends FedoraResourceImpl implements Datastream {
         }
         final ValueFactory modevf =
                 (ValueFactory) node.getSession().getValueFactory();
-        final Binary binary = modevf.createBinary(content, hint);
-
-        /*
-         * This next line of code deserves explanation. If we chose for the
-         * simpler line: Property dataProperty =
-         * contentNode.setProperty(JCR_DATA, requestBodyStream); then the JCR
-         * would not block on the stream's completion, and we would return to
-         * the requester before the mutation to the repo had actually completed.
-         * So instead we use createBinary(requestBodyStream), because its
-         * contract specifies: "The passed InputStream is closed before this
-         * method returns either normally or because of an exception." which
-         * lets us block and not return until the job is done! The simpler code
-         * may still be useful to us for an asynchronous method that we develop
-         * later.
-         */
-        final Property dataProperty = contentNode.setProperty(JCR_DATA, binary);
 
-        final String dsChecksum = binary.getHexHash();
-        final URI uriChecksumString = ContentDigest.asURI("SHA-1", dsChecksum);
-        if (checksum != null &&
-                !checksum.equals(uriChecksumString)) {
+        return new ContentStore(modevf, content, hint);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.fcrepo.kernel.Datastream#setContent(org.fcrepo.kernel.utils.StoredContent,
+     * java.net.URI)
+     */
+    @Override
+    public void setContent(final StoredContent content, final URI checksum)
+        throws RepositoryException, InvalidChecksumException {
+
+        final Node contentNode =
+                findOrCreateChild(node, JCR_CONTENT, NT_RESOURCE);
+
+        final Property dataProperty = contentNode.setProperty(JCR_DATA, content.getBinary());
+
+        final Map<String, URI> digests = content.getDigests();
+        final URI uriChecksumString = digests.get("SHA-1");
+
+        if (checksum != null && !digests.containsValue(checksum)) {
+            final String algorithm = ContentDigest.getAlgorithm(checksum);
+            final URI computed = digests.containsKey(algorithm) ? digests.get(algorithm) : uriChecksumString;
             LOGGER.debug("Failed checksum test");
             throw new InvalidChecksumException("Checksum Mismatch of " +
-                    uriChecksumString + " and " + checksum);
+                    computed + " and " + checksum);
         }
 
         decorateContentNode(contentNode);
 
+        final String[] digestValues = new String[digests.size()];
+        int i = 0;
+        for (final URI digestUri : digests.values()) {
+            digestValues[i++] = digestUri.toString();
+        }
+        contentNode.setProperty(CONTENT_DIGESTS, digestValues, PropertyType.URI);
+
         LOGGER.debug("Created data property at path: {}",
                 dataProperty.getPath());
 
     }
 
+    /**
+     * Writes content to the binary store, computing its digests on the way.
+     * It touches nothing but the binary store, so it may run on another
+     * thread than the session's.
+     */
+    private static class ContentStore implements Callable<StoredContent> {
+
+        private final ValueFactory modevf;
+
+        private final InputStream content;
+
+        private final String hint;
+
+        ContentStore(final ValueFactory modevf, final InputStream content, final String hint) {
+            this.modevf = modevf;
+            this.content = content;
+            this.hint = hint;
+        }
+
+        @Override
+        public StoredContent call() throws RepositoryException {
+            // ModeShape computes the SHA-1 itself; the other digests are taken
+            // from the same pass over the content
+            final FixityInputStream fixityContent = new FixityInputStream(content, additionalDigests());
+
+            /*
+             * This next line of code deserves explanation. If we chose for the
+             * simpler line: Property dataProperty =
+             * contentNode.setProperty(JCR_DATA, requestBodyStream); then the JCR
+             * would not block on the stream's completion, and we would return to
+             * the requester before the mutation to the repo had actually completed.
+             * So instead we use createBinary(requestBodyStream), because its
+             * contract specifies: "The passed InputStream is closed before this
+             * method returns either normally or because of an exception." which
+             * lets us block and not return until the job is done!
+             */
+            final Binary binary = modevf.createBinary(fixityContent, hint);
+
+            final Map<String, URI> digests = new LinkedHashMap<>();
+            digests.put("SHA-1", ContentDigest.asURI("SHA-1", binary.getHexHash()));
+
+            for (final MessageDigest digest : fixityContent.getMessageDigests()) {
+                digests.put(digest.getAlgorithm(), ContentDigest.asURI(digest.getAlgorithm(), digest.digest()));
+            }
+            return new StoredContent(binary, digests);
+        }
+    }
+
     /*
      * (non-Javadoc)
      * @see org.fcrepo.kernel.Datastream#setContent(java.io.InputStream)
@@ -319,6 +436,19 @@ public class DatastreamImpl extends FedoraResourceImpl implements Datastream {
         return getDsId();
     }
 
+    private static MessageDigest[] additionalDigests() {
+        final MessageDigest[] digests = new MessageDigest[ADDITIONAL_DIGEST_ALGORITHMS.length];
+
+        try {
+            for (int i = 0; i < digests.length; i++) {
+                digests[i] = MessageDigest.getInstance(ADDITIONAL_DIGEST_ALGORITHMS[i]);
+            }
+        } catch (final NoSuchAlgorithmException e) {
+            throw propagate(e);
+        }
+        return digests;
+    }
+
     private static void decorateContentNode(final Node contentNode) throws RepositoryException {
         if (contentNode == null) {
             LOGGER.warn("{} node appears to be null!", JCR_CONTENT);
@@ -16,12 +16,18 @@
 package org.fcrepo.kernel.impl;
 
 
+import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.ImmutableSet.copyOf;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
 import static com.hp.hpl.jena.update.UpdateAction.execute;
 import static com.hp.hpl.jena.update.UpdateFactory.create;
+import static java.io.File.createTempFile;
 import static org.apache.commons.codec.digest.DigestUtils.shaHex;
+import static org.apache.jena.riot.Lang.NTRIPLES;
+import static org.apache.jena.riot.RDFDataMgr.parse;
+import static org.fcrepo.kernel.RdfLexicon.HAS_PARENT;
 import static org.fcrepo.kernel.rdf.GraphProperties.PROBLEMS_MODEL_NAME;
 import static org.fcrepo.kernel.rdf.GraphProperties.URI_SYMBOL;
 import static org.fcrepo.kernel.impl.services.ServiceHelpers.getObjectSize;
@@ -35,6 +41,14 @@ import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
 import static org.modeshape.jcr.api.JcrConstants.NT_FOLDER;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
@@ -46,11 +60,15 @@ import javax.jcr.Session;
 import javax.jcr.version.Version;
 import javax.jcr.version.VersionHistory;
 
+import org.apache.jena.riot.Lang;
 import org.fcrepo.jcr.FedoraJcrTypes;
 import org.fcrepo.kernel.FedoraResource;
 import org.fcrepo.kernel.rdf.HierarchyRdfContextOptions;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.rdf.VersionsRdfContextOptions;
 import org.fcrepo.kernel.impl.rdf.JcrRdfTools;
+import org.fcrepo.kernel.impl.rdf.ReplacingRdfSink;
+import org.fcrepo.kernel.impl.rdf.UpdateScope;
 import org.fcrepo.kernel.impl.utils.JcrPropertyStatementListener;
 import org.fcrepo.kernel.utils.iterators.DifferencingIterator;
 import org.fcrepo.kernel.impl.utils.iterators.RdfAdder;
@@ -224,15 +242,66 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
     @Override
     public Dataset updatePropertiesDataset(final IdentifierTranslator subjects,
             final String sparqlUpdateStatement) throws RepositoryException {
-        final Dataset dataset = getPropertiesDataset(subjects);
         final UpdateRequest request =
-            create(sparqlUpdateStatement, dataset.getContext().getAsString(
-                    URI_SYMBOL));
+            create(sparqlUpdateStatement, subjects.getSubject(getNode().getPath()).toString());
+
+        final UpdateScope scope = UpdateScope.of(request);
+
+        final Dataset dataset;
+
+        if (scope.isBounded()) {
+            LOGGER.debug("Evaluating update against the triples of {} only", scope.subjects());
+            dataset = getScopedPropertiesDataset(subjects, scope);
+        } else {
+            dataset = getPropertiesDataset(subjects);
+        }
+
         dataset.getDefaultModel().setNsPrefixes(request.getPrefixMapping());
         execute(request, dataset);
         return dataset;
     }
 
+    /**
+     * Build a properties dataset containing only the triples an update
+     * request can read or remove: the properties of the subjects it names,
+     * where those subjects are this resource or its immediate children.
+     *
+     * @param graphSubjects
+     * @param scope
+     * @return properties
+     * @throws RepositoryException
+     */
+    private Dataset getScopedPropertiesDataset(final IdentifierTranslator graphSubjects,
+                                               final UpdateScope scope) throws RepositoryException {
+        final JcrRdfTools jcrRdfTools =
+            JcrRdfTools.withContext(graphSubjects, getNode().getSession());
+
+        final com.hp.hpl.jena.graph.Node subject = graphSubjects.getSubject(getNode().getPath()).asNode();
+
+        final RdfStream scopedStream = new RdfStream();
+
+        for (final com.hp.hpl.jena.graph.Node scopedSubject : scope.subjects()) {
+            if (scopedSubject.equals(subject)) {
+                scopedStream.concat(jcrRdfTools.getJcrTriples(getNode()));
+                scopedStream.concat(jcrRdfTools.getTreeTriples(getNode(),
+                        new HierarchyRdfContextOptions(-1, -1, false, false)));
+            } else if (graphSubjects.isFedoraGraphSubject(createResource(scopedSubject.getURI()))) {
+                final String path = graphSubjects.getPathFromSubject(createResource(scopedSubject.getURI()));
+
+                if (getNode().getSession().nodeExists(path)) {
+                    final Node child = getNode().getSession().getNode(path);
+
+                    if (child.getDepth() > 0 && child.getParent().isSame(getNode())) {
+                        scopedStream.concat(jcrRdfTools.getJcrTriples(child));
+                        scopedStream.concat(Triple.create(scopedSubject, HAS_PARENT.asNode(), subject));
+                    }
+                }
+            }
+        }
+
+        return createPropertiesDataset(graphSubjects, scopedStream.filter(scope.inScope()).asModel());
+    }
+
     /* (non-Javadoc)
      * @see org.fcrepo.kernel.FedoraResource#getPropertiesDataset(org.fcrepo.kernel.rdf.IdentifierTranslator, int, int)
      */
@@ -251,7 +320,12 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
 
         propertiesStream.concat(jcrRdfTools.getTreeTriples(getNode(), serializationOptions));
 
-        final Dataset dataset = DatasetFactory.create(propertiesStream.asModel());
+        return createPropertiesDataset(graphSubjects, propertiesStream.asModel());
+    }
+
+    private Dataset createPropertiesDataset(final IdentifierTranslator graphSubjects,
+                                            final Model propertiesModel) throws RepositoryException {
+        final Dataset dataset = DatasetFactory.create(propertiesModel);
 
         final Model problemsModel = createDefaultModel();
 
@@ -315,6 +389,14 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
                 .getVersionTriples(node);
     }
 
+    @Override
+    public RdfStream getVersionTriples(final IdentifierTranslator graphSubjects,
+                                       final VersionsRdfContextOptions serializationOptions)
+        throws RepositoryException {
+        return JcrRdfTools.withContext(graphSubjects, node.getSession())
+                .getVersionTriples(node, serializationOptions);
+    }
+
     @Override
     public RdfStream getReferencesTriples(final IdentifierTranslator graphSubjects) throws RepositoryException {
         return JcrRdfTools.withContext(graphSubjects, node.getSession()).getReferencesTriples(node);
@@ -385,6 +467,55 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
                 .common(), differencer.notCommon()));
     }
 
+    /* (non-Javadoc)
+     * @see org.fcrepo.kernel.FedoraResource#replaceProperties
+     *     (org.fcrepo.kernel.rdf.IdentifierTranslator, java.io.InputStream, org.apache.jena.riot.Lang)
+     */
+    @Override
+    public void replaceProperties(final IdentifierTranslator graphSubjects,
+        final InputStream content, final Lang lang) throws RepositoryException {
+        final File spoolFile;
+
+        try {
+            spoolFile = createTempFile("fcrepo-rdf", ".nt");
+        } catch (final IOException e) {
+            throw propagate(e);
+        }
+
+        try {
+            // read the whole document before changing anything, so a syntax
+            // error part way through leaves the session untouched
+            final ReplacingRdfSink.Spool spool;
+
+            try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(spoolFile))) {
+                spool = new ReplacingRdfSink.Spool(out);
+                parse(spool, content, graphSubjects.getSubject(getNode().getPath()).toString(), lang);
+            } catch (final IOException e) {
+                throw propagate(e);
+            }
+
+            final ReplacingRdfSink sink = new ReplacingRdfSink(graphSubjects, getNode().getSession(),
+                    getTriples(graphSubjects), spool.getNamespaces());
+
+            try (final InputStream spooled = new BufferedInputStream(new FileInputStream(spoolFile))) {
+                parse(sink, spooled, NTRIPLES);
+            } catch (final IOException e) {
+                throw propagate(e);
+            } catch (final RuntimeException e) {
+                if (e.getCause() instanceof RepositoryException) {
+                    throw (RepositoryException) e.getCause();
+                }
+                throw e;
+            }
+
+            sink.removeUnretained(getTriples(graphSubjects));
+        } finally {
+            if (!spoolFile.delete()) {
+                LOGGER.warn("Unable to remove RDF spool file {}", spoolFile);
+            }
+        }
+    }
+
     /* (non-Javadoc)
      * @see org.fcrepo.kernel.FedoraResource#getEtagValue()
      */
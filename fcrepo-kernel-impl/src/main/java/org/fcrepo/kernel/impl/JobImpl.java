@@ -0,0 +1,209 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl;
+
+import static java.util.UUID.randomUUID;
+import static org.fcrepo.kernel.Job.State.COMPLETED;
+import static org.fcrepo.kernel.Job.State.FAILED;
+import static org.fcrepo.kernel.Job.State.RUNNING;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.fcrepo.kernel.Job;
+
+/**
+ * The progress of a background job, updated by the thread running it
+ *
+ * @author agent
+ */
+public class JobImpl implements Job {
+
+    private final String id;
+
+    private final String type;
+
+    private final String path;
+
+    private final String destination;
+
+    private final String workspace;
+
+    private final String owner;
+
+    private final String userData;
+
+    private final Date started;
+
+    private final AtomicLong processed;
+
+    private volatile State state = RUNNING;
+
+    private volatile Date finished;
+
+    private volatile String message;
+
+    /**
+     * Create a running job
+     * @param type
+     * @param path
+     * @param destination the destination path, or null
+     * @param workspace the workspace the job runs in
+     * @param owner the user who requested the job
+     * @param userData the observation user data the job saves with, or null
+     */
+    public JobImpl(final String type, final String path, final String destination, final String workspace,
+                   final String owner, final String userData) {
+        this(randomUUID().toString(), type, path, destination, workspace, owner, userData, new Date(), 0);
+    }
+
+    /**
+     * Restore a job from its checkpoint
+     * @param id
+     * @param type
+     * @param path
+     * @param destination the destination path, or null
+     * @param workspace the workspace the job runs in
+     * @param owner the user who requested the job
+     * @param userData the observation user data the job saves with, or null
+     * @param started
+     * @param processed the number of nodes processed before the checkpoint
+     */
+    public JobImpl(final String id, final String type, final String path, final String destination,
+                   final String workspace, final String owner, final String userData, final Date started,
+                   final long processed) {
+        this.id = id;
+        this.type = type;
+        this.path = path;
+        this.destination = destination;
+        this.workspace = workspace;
+        this.owner = owner;
+        this.userData = userData;
+        this.started = new Date(started.getTime());
+        this.processed = new AtomicLong(processed);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the workspace the job runs in
+     */
+    public String getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * @return the user who requested the job
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the observation user data the job saves with, or null
+     */
+    public String getUserData() {
+        return userData;
+    }
+
+    @Override
+    public State getState() {
+        return state;
+    }
+
+    @Override
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    @Override
+    public Date getStarted() {
+        return new Date(started.getTime());
+    }
+
+    @Override
+    public Date getFinished() {
+        final Date date = finished;
+        return date == null ? null : new Date(date.getTime());
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Record a batch of nodes processed
+     * @param count
+     */
+    public void processed(final long count) {
+        processed.addAndGet(count);
+    }
+
+    /**
+     * Mark the job complete
+     */
+    public void complete() {
+        finish(COMPLETED);
+    }
+
+    /**
+     * Mark the job failed
+     * @param reason
+     */
+    public void fail(final String reason) {
+        this.message = reason;
+        finish(FAILED);
+    }
+
+    /**
+     * Mark a failed job running again, to resume it from where it stopped
+     */
+    public void restart() {
+        this.message = null;
+        this.finished = null;
+        this.state = RUNNING;
+    }
+
+    private void finish(final State finalState) {
+        this.finished = new Date();
+        this.state = finalState;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + path + (destination == null ? "" : " to " + destination) + " (" + id + "): "
+                + state + ", " + processed.get() + " nodes";
+    }
+}
@@ -22,7 +22,6 @@ import static org.fcrepo.kernel.Transaction.State.COMMITED;
 import static org.fcrepo.kernel.Transaction.State.DIRTY;
 import static org.fcrepo.kernel.Transaction.State.ROLLED_BACK;
 
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Set;
@@ -55,7 +54,9 @@ public class TransactionImpl implements Transaction {
 
     private final Date created;
 
-    private final Calendar expires;
+    private final long timeout;
+
+    private volatile long expires;
 
     private State state = NEW;
 
@@ -71,7 +72,7 @@ public class TransactionImpl implements Transaction {
         this.session = session;
         this.created = new Date();
         this.id = randomUUID().toString();
-        this.expires = Calendar.getInstance();
+        this.timeout = timeout();
         this.updateExpiryDate();
         this.userName = userName;
     }
@@ -117,7 +118,7 @@ public class TransactionImpl implements Transaction {
      */
     @Override
     public Date getExpires() {
-        return expires.getTime();
+        return new Date(expires);
     }
 
     /* (non-Javadoc)
@@ -156,7 +157,7 @@ public class TransactionImpl implements Transaction {
     @Override
     public void expire() {
         this.session.logout();
-        this.expires.setTimeInMillis(currentTimeMillis());
+        this.expires = currentTimeMillis();
     }
 
     /* (non-Javadoc)
@@ -190,13 +191,15 @@ public class TransactionImpl implements Transaction {
      */
     @Override
     public void updateExpiryDate() {
-        long duration;
-        if (System.getProperty(TIMEOUT_SYSTEM_PROPERTY) != null) {
-            duration =
-                    Long.parseLong(System.getProperty(TIMEOUT_SYSTEM_PROPERTY));
-        } else {
-            duration = DEFAULT_TIMEOUT;
-        }
-        this.expires.setTimeInMillis(currentTimeMillis() + duration);
+        this.expires = currentTimeMillis() + timeout;
+    }
+
+    /**
+     * The timeout is read once, as the session is requested (and the expiry
+     * extended) on every request made within the transaction
+     */
+    private static long timeout() {
+        final String timeout = System.getProperty(TIMEOUT_SYSTEM_PROPERTY);
+        return timeout != null ? Long.parseLong(timeout) : DEFAULT_TIMEOUT;
     }
 }
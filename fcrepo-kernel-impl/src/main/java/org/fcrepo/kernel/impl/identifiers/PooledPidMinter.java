@@ -0,0 +1,238 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.identifiers;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.fcrepo.kernel.identifiers.PidMinter;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * PID minter that hands out identifiers from a pool filled in the
+ * background by another minter, so that minting does not wait on a
+ * (possibly remote) minter service.
+ *
+ * Whenever the pool falls to its low-water mark, a block of identifiers is
+ * minted on a background thread. If the pool runs dry, identifiers are
+ * minted directly. When the pool is closed, the identifiers it still holds
+ * are written to a reservations file and are handed out first by the next
+ * pool to use that file; an identifier is never read back from the file
+ * twice, so a pool that is not closed cleanly loses its reservations
+ * rather than reusing them.
+ *
+ * @author agent
+ */
+public class PooledPidMinter extends BasePidMinter {
+
+    private static final Logger LOGGER = getLogger(PooledPidMinter.class);
+
+    static final String POOL_DEPTH_GAUGE = name(PooledPidMinter.class, "depth");
+
+    private static final int DEFAULT_BLOCK_SIZE = parseInt(getProperty("fcrepo.minter.pool.blockSize", "100"));
+
+    private static final int DEFAULT_LOW_WATER = parseInt(getProperty("fcrepo.minter.pool.lowWater", "25"));
+
+    private final PidMinter minter;
+
+    private final int blockSize;
+
+    private final int lowWater;
+
+    private final File reservations;
+
+    private final BlockingQueue<String> pool = new LinkedBlockingQueue<>();
+
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    private final ExecutorService refiller = newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-minter-pool-%d").build());
+
+    /**
+     * Pool the identifiers of a minter, using the default block size and
+     * low-water mark and without keeping reservations
+     * @param minter
+     */
+    public PooledPidMinter(final PidMinter minter) {
+        this(minter, DEFAULT_BLOCK_SIZE, DEFAULT_LOW_WATER, null);
+    }
+
+    /**
+     * Pool the identifiers of a minter
+     * @param minter the minter to fill the pool from
+     * @param blockSize how many identifiers to mint at a time
+     * @param lowWater the pool depth at which to mint another block
+     * @param reservations the file in which to keep unused identifiers, or null
+     */
+    public PooledPidMinter(final PidMinter minter, final int blockSize, final int lowWater,
+                           final File reservations) {
+        checkArgument(blockSize > 0, "Block size must be positive!");
+        checkArgument(lowWater >= 0, "Low-water mark must not be negative!");
+
+        this.minter = minter;
+        this.blockSize = blockSize;
+        this.lowWater = lowWater;
+        this.reservations = reservations;
+
+        restoreReservations();
+
+        getMetrics().remove(POOL_DEPTH_GAUGE);
+        getMetrics().register(POOL_DEPTH_GAUGE, new Gauge<Integer>() {
+
+            @Override
+            public Integer getValue() {
+                return pool.size();
+            }
+        });
+
+        refill();
+    }
+
+    /**
+     * Take an identifier from the pool
+     * @return a new identifier
+     */
+    @Override
+    public String mintPid() {
+        final String pid = pool.poll();
+
+        if (pool.size() <= lowWater) {
+            refill();
+        }
+
+        if (pid != null) {
+            return pid;
+        }
+
+        LOGGER.debug("Identifier pool is empty, minting directly");
+        return minter.mintPid();
+    }
+
+    /**
+     * @return the number of identifiers in the pool
+     */
+    public int depth() {
+        return pool.size();
+    }
+
+    /**
+     * Stop refilling the pool and keep the identifiers it still holds
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        refiller.shutdownNow();
+
+        if (!refiller.awaitTermination(10, SECONDS)) {
+            LOGGER.warn("Identifier pool refill did not stop; its identifiers will not be kept");
+        }
+
+        getMetrics().remove(POOL_DEPTH_GAUGE);
+
+        final List<String> unused = new ArrayList<>();
+        pool.drainTo(unused);
+
+        if (reservations == null || unused.isEmpty()) {
+            return;
+        }
+
+        final Path target = reservations.toPath();
+        final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, unused, UTF_8);
+        Files.move(temp, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        LOGGER.info("Kept {} unused identifiers in {}", unused.size(), reservations);
+    }
+
+    /**
+     * Load the identifiers kept by a previous pool, removing the file so that
+     * they cannot be handed out again
+     */
+    private void restoreReservations() {
+        if (reservations == null || !reservations.isFile()) {
+            return;
+        }
+
+        try {
+            final List<String> kept = Files.readAllLines(reservations.toPath(), UTF_8);
+            Files.delete(reservations.toPath());
+
+            for (final String pid : kept) {
+                if (!pid.isEmpty()) {
+                    pool.add(pid);
+                }
+            }
+            LOGGER.info("Restored {} unused identifiers from {}", pool.size(), reservations);
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to restore unused identifiers from {}", reservations, e);
+        }
+    }
+
+    private void refill() {
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refiller.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        while (pool.size() <= lowWater && !Thread.currentThread().isInterrupted()) {
+                            for (int i = 0; i < blockSize; i++) {
+                                pool.add(minter.mintPid());
+                            }
+                            LOGGER.trace("Refilled identifier pool to {}", pool.size());
+                        }
+                    } catch (final RuntimeException e) {
+                        LOGGER.warn("Unable to refill identifier pool", e);
+                    } finally {
+                        refilling.set(false);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            refilling.set(false);
+        }
+    }
+}
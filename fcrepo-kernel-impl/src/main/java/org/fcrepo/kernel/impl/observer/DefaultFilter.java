@@ -16,15 +16,23 @@
 package org.fcrepo.kernel.impl.observer;
 
 import static com.google.common.base.Throwables.propagate;
+import static com.google.common.collect.ImmutableSet.of;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_DATASTREAM;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_OBJECT;
 import static org.fcrepo.kernel.utils.EventType.valueOf;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isFedoraObject;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isFedoraDatastream;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 import javax.jcr.Node;
 import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.nodetype.NodeType;
 import javax.jcr.observation.Event;
 
 import com.google.common.base.Predicate;
@@ -50,8 +58,17 @@ public class DefaultFilter implements EventFilter {
 
     private static final Logger LOGGER = getLogger(DefaultFilter.class);
 
+    private static final Set<String> FEDORA_TYPES = of(FEDORA_OBJECT, FEDORA_DATASTREAM);
+
     private Session session;
 
+    /**
+     * Whether each node seen in this batch of events is a Fedora object or
+     * datastream, by identifier. A batch often carries several events for
+     * each node it touches.
+     */
+    private final Map<String, Boolean> resolved = new HashMap<>();
+
     /**
      * Default constructor.
      */
@@ -85,8 +102,12 @@ public class DefaultFilter implements EventFilter {
                     break;
                 default:
                     final String nodeId = event.getIdentifier();
-                    final Node n = session.getNodeByIdentifier(nodeId);
-                    if (isFedoraObject.apply(n) || isFedoraDatastream.apply(n)) {
+                    Boolean fedora = resolved.get(nodeId);
+                    if (fedora == null) {
+                        fedora = isFedoraNode(event);
+                        resolved.put(nodeId, fedora);
+                    }
+                    if (fedora) {
                         return true;
                     }
                     break;
@@ -100,4 +121,26 @@ public class DefaultFilter implements EventFilter {
         return false;
     }
 
+    /**
+     * Test the node an event concerns for the Fedora types, from the types
+     * ModeShape records on its events if it does, or else by looking it up
+     */
+    private boolean isFedoraNode(final Event event) throws RepositoryException {
+        if (event instanceof org.modeshape.jcr.api.observation.Event) {
+            final org.modeshape.jcr.api.observation.Event typedEvent =
+                    (org.modeshape.jcr.api.observation.Event) event;
+
+            if (typedEvent.getPrimaryNodeType() != null) {
+                for (final NodeType mixin : typedEvent.getMixinNodeTypes()) {
+                    if (FEDORA_TYPES.contains(mixin.getName())) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+
+        final Node n = session.getNodeByIdentifier(event.getIdentifier());
+        return isFedoraObject.apply(n) || isFedoraDatastream.apply(n);
+    }
 }
@@ -18,6 +18,7 @@ package org.fcrepo.kernel.impl.observer;
 import static com.codahale.metrics.MetricRegistry.name;
 import static com.google.common.base.Throwables.propagate;
 import static javax.jcr.observation.Event.NODE_REMOVED;
+import static org.fcrepo.kernel.services.JobService.BULK_OPERATION;
 import static org.fcrepo.metrics.RegistryService.getMetrics;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -100,6 +101,9 @@ public class NodeRemovalEventObserver implements EventListener {
         while (events.hasNext()) {
             final Event e = events.nextEvent();
             try {
+                if (BULK_OPERATION.equals(e.getUserData())) {
+                    continue;
+                }
                 final String ePath = e.getPath();
                 final int ls = ePath.lastIndexOf('/');
                 // only propagate non-jcr node removals
@@ -18,16 +18,19 @@ package org.fcrepo.kernel.impl.observer;
 import static com.codahale.metrics.MetricRegistry.name;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterators.filter;
+import static com.google.common.collect.Lists.newArrayList;
 import static javax.jcr.observation.Event.NODE_ADDED;
 import static javax.jcr.observation.Event.NODE_MOVED;
 import static javax.jcr.observation.Event.NODE_REMOVED;
 import static javax.jcr.observation.Event.PROPERTY_ADDED;
 import static javax.jcr.observation.Event.PROPERTY_CHANGED;
 import static javax.jcr.observation.Event.PROPERTY_REMOVED;
+import static org.fcrepo.kernel.services.JobService.BULK_OPERATION;
 import static org.fcrepo.metrics.RegistryService.getMetrics;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.util.Iterator;
+import java.util.List;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -37,11 +40,13 @@ import javax.jcr.Session;
 import javax.jcr.observation.Event;
 import javax.jcr.observation.EventListener;
 
+import org.fcrepo.kernel.impl.utils.ValidatorCache;
 import org.fcrepo.kernel.observer.EventFilter;
 import org.fcrepo.kernel.observer.FedoraEvent;
 import org.fcrepo.kernel.observer.eventmappings.InternalExternalEventMapper;
 import org.modeshape.jcr.api.Repository;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import com.codahale.metrics.Counter;
 import com.google.common.eventbus.EventBus;
@@ -79,10 +84,16 @@ public class SimpleObserver implements EventListener {
     @Inject
     private EventFilter eventFilter;
 
+    @Autowired(required = false)
+    private ValidatorCache validatorCache;
+
     // THIS SESSION SHOULD NOT BE USED TO LOOK UP NODES
     // it is used only to register and deregister this observer to the JCR
     private Session session;
 
+    // used to look up the nodes events concern, across batches of events
+    private Session lookupSession;
+
     /**
      * Register this observer with the JCR event listeners
      *
@@ -107,6 +118,13 @@ public class SimpleObserver implements EventListener {
         LOGGER.debug("Destroying an observer for JCR events...");
         session.getWorkspace().getObservationManager().removeEventListener(this);
         session.logout();
+
+        synchronized (this) {
+            if (lookupSession != null) {
+                lookupSession.logout();
+                lookupSession = null;
+            }
+        }
     }
 
     /**
@@ -115,23 +133,46 @@ public class SimpleObserver implements EventListener {
      * @param events
      */
     @Override
-    public void onEvent(final javax.jcr.observation.EventIterator events) {
-        Session lookupSession = null;
+    public synchronized void onEvent(final javax.jcr.observation.EventIterator events) {
         try {
-            lookupSession = repository.login();
             @SuppressWarnings("unchecked")
-            final Iterator<Event> filteredEvents = filter(events, eventFilter.getFilter(lookupSession));
+            final List<Event> allEvents = newArrayList((Iterator<Event>) events);
+
+            if (validatorCache != null) {
+                validatorCache.invalidate(allEvents.iterator());
+            }
+
+            if (!allEvents.isEmpty() && BULK_OPERATION.equals(allEvents.get(0).getUserData())) {
+                LOGGER.trace("Dropping {} events from a batch of a bulk operation", allEvents.size());
+                return;
+            }
+
+            final Iterator<Event> filteredEvents = filter(allEvents.iterator(), eventFilter.getFilter(lookupSession()));
             final Iterator<FedoraEvent> publishableEvents = eventMapper.apply(filteredEvents);
             while (publishableEvents.hasNext()) {
                 eventBus.post(publishableEvents.next());
                 EVENT_COUNTER.inc();
             }
-        } catch (final RepositoryException ex) {
-            throw propagate(ex);
-        } finally {
+        } catch (final RepositoryException | RuntimeException ex) {
+            // start the next batch with a fresh session
             if (lookupSession != null) {
                 lookupSession.logout();
+                lookupSession = null;
             }
+            throw propagate(ex);
+        }
+    }
+
+    /**
+     * The session for looking up nodes, refreshed to see the changes the
+     * events report
+     */
+    private Session lookupSession() throws RepositoryException {
+        if (lookupSession == null) {
+            lookupSession = repository.login();
+        } else {
+            lookupSession.refresh(false);
         }
+        return lookupSession;
     }
 }
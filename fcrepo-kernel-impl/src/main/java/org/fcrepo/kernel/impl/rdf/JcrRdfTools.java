@@ -54,6 +54,7 @@ import javax.jcr.nodetype.PropertyDefinition;
 import org.fcrepo.kernel.RdfLexicon;
 import org.fcrepo.kernel.rdf.HierarchyRdfContextOptions;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.rdf.VersionsRdfContextOptions;
 import org.fcrepo.kernel.impl.rdf.impl.FixityRdfContext;
 import org.fcrepo.kernel.impl.rdf.impl.HierarchyRdfContext;
 import org.fcrepo.kernel.impl.rdf.impl.NamespaceRdfContext;
@@ -247,6 +248,20 @@ public class JcrRdfTools {
         return new VersionsRdfContext(node, graphSubjects);
     }
 
+    /**
+     * Get an {@link RdfStream} for a page of the JCR version history
+     * information for a node, either in full or summarized
+     *
+     * @param node
+     * @param options
+     * @return RdfStream for the JCR version history information for the given node
+     * @throws RepositoryException
+     */
+    public RdfStream getVersionTriples(final Node node, final VersionsRdfContextOptions options)
+        throws RepositoryException {
+        return new VersionsRdfContext(node, graphSubjects, options);
+    }
+
     /**
      * Serialize the JCR fixity information in an {@link RdfStream}
      *
@@ -0,0 +1,226 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.rdf;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.hash.Hashing.murmur3_128;
+import static com.hp.hpl.jena.sparql.util.FmtUtils.stringForNode;
+import static org.apache.jena.riot.system.StreamRDFLib.writer;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.apache.jena.riot.system.StreamRDF;
+import org.fcrepo.kernel.impl.utils.iterators.RdfAdder;
+import org.fcrepo.kernel.impl.utils.iterators.RdfRemover;
+import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.slf4j.Logger;
+
+import com.google.common.base.Predicate;
+import com.google.common.hash.HashCode;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.core.Quad;
+
+/**
+ * A RIOT {@link StreamRDF} sink that replaces the properties of a resource
+ * with the triples of a parsed RDF document as they arrive, without reading
+ * the document into a Model.
+ *
+ * The sink is fed from a document that has already been read in full by a
+ * {@link Spool}, so a syntax error is found before anything is changed and
+ * every prefix the document declares is known before the first triple.
+ *
+ * The existing triples are remembered only as 128-bit fingerprints. Parsed
+ * triples that are not among them are handed to an {@link RdfAdder}
+ * straight away; once parsing is complete, {@link #removeUnretained} hands
+ * the existing triples that the document did not repeat to an
+ * {@link RdfRemover}.
+ *
+ * @author agent
+ */
+public class ReplacingRdfSink implements StreamRDF {
+
+    private static final Logger LOGGER = getLogger(ReplacingRdfSink.class);
+
+    private final IdentifierTranslator graphSubjects;
+
+    private final Session session;
+
+    private final Set<HashCode> original = new HashSet<>();
+
+    private final Set<HashCode> retained = new HashSet<>();
+
+    private final RdfAdder adder;
+
+    private long added = 0;
+
+    /**
+     * Ordinary constructor.
+     *
+     * @param graphSubjects
+     * @param session
+     * @param originalTriples the properties about to be replaced
+     * @param namespaces the prefixes declared by the document
+     */
+    public ReplacingRdfSink(final IdentifierTranslator graphSubjects,
+                            final Session session,
+                            final RdfStream originalTriples,
+                            final Map<String, String> namespaces) {
+        this.graphSubjects = graphSubjects;
+        this.session = session;
+        this.adder = new RdfAdder(graphSubjects, session, new RdfStream().namespaces(namespaces));
+
+        while (originalTriples.hasNext()) {
+            original.add(fingerprint(originalTriples.next()));
+        }
+    }
+
+    @Override
+    public void start() {
+        LOGGER.trace("Replacing {} existing triples", original.size());
+    }
+
+    @Override
+    public void triple(final Triple triple) {
+        final HashCode hash = fingerprint(triple);
+
+        if (original.contains(hash)) {
+            retained.add(hash);
+            return;
+        }
+
+        try {
+            adder.consume(triple);
+            added++;
+        } catch (final RepositoryException e) {
+            throw propagate(e);
+        }
+    }
+
+    @Override
+    public void quad(final Quad quad) {
+        triple(quad.asTriple());
+    }
+
+    @Override
+    public void base(final String base) {
+        LOGGER.trace("Ignoring base {} declared in RDF content", base);
+    }
+
+    @Override
+    public void prefix(final String prefix, final String iri) {
+        LOGGER.trace("Ignoring prefix {} declared after the document was spooled", prefix);
+    }
+
+    @Override
+    public void finish() {
+        LOGGER.debug("Added {} triples and retained {} of {} existing triples",
+                added, retained.size(), original.size());
+    }
+
+    /**
+     * Remove the existing triples that the parsed document did not contain.
+     *
+     * @param originalTriples the properties being replaced, read afresh
+     * @throws RepositoryException
+     */
+    public void removeUnretained(final RdfStream originalTriples) throws RepositoryException {
+        new RdfRemover(graphSubjects, session, originalTriples.filter(new Predicate<Triple>() {
+
+            @Override
+            public boolean apply(final Triple t) {
+                final HashCode hash = fingerprint(t);
+                return original.contains(hash) && !retained.contains(hash);
+            }
+        })).consume();
+    }
+
+    private static HashCode fingerprint(final Triple t) {
+        return murmur3_128().newHasher()
+                .putString(stringForNode(t.getSubject()), UTF_8).putChar(' ')
+                .putString(stringForNode(t.getPredicate()), UTF_8).putChar(' ')
+                .putString(stringForNode(t.getObject()), UTF_8)
+                .hash();
+    }
+
+    /**
+     * A sink that reads a whole RDF document ahead of any change to the
+     * repository, writing its triples to N-Triples with every IRI resolved
+     * and collecting the prefixes it declares.
+     */
+    public static class Spool implements StreamRDF {
+
+        private final StreamRDF writer;
+
+        private final Map<String, String> namespaces = new HashMap<>();
+
+        /**
+         * Ordinary constructor.
+         *
+         * @param out where the N-Triples are written
+         */
+        public Spool(final OutputStream out) {
+            this.writer = writer(out);
+        }
+
+        @Override
+        public void start() {
+            writer.start();
+        }
+
+        @Override
+        public void triple(final Triple triple) {
+            writer.triple(triple);
+        }
+
+        @Override
+        public void quad(final Quad quad) {
+            writer.triple(quad.asTriple());
+        }
+
+        @Override
+        public void base(final String base) {
+            LOGGER.trace("Ignoring base {} declared in RDF content", base);
+        }
+
+        @Override
+        public void prefix(final String prefix, final String iri) {
+            namespaces.put(prefix, iri);
+        }
+
+        @Override
+        public void finish() {
+            writer.finish();
+        }
+
+        /**
+         * Get the prefixes declared by the document
+         * @return map of prefix to namespace
+         */
+        public Map<String, String> getNamespaces() {
+            return namespaces;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.rdf;
+
+import static org.fcrepo.kernel.RdfLexicon.CONTAINS;
+import static org.fcrepo.kernel.RdfLexicon.HAS_CHILD;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.core.Quad;
+import com.hp.hpl.jena.sparql.core.TriplePath;
+import com.hp.hpl.jena.sparql.expr.Expr;
+import com.hp.hpl.jena.sparql.expr.ExprFunctionOp;
+import com.hp.hpl.jena.sparql.modify.request.UpdateDataDelete;
+import com.hp.hpl.jena.sparql.modify.request.UpdateDataInsert;
+import com.hp.hpl.jena.sparql.modify.request.UpdateDeleteWhere;
+import com.hp.hpl.jena.sparql.modify.request.UpdateModify;
+import com.hp.hpl.jena.sparql.syntax.Element;
+import com.hp.hpl.jena.sparql.syntax.ElementDataset;
+import com.hp.hpl.jena.sparql.syntax.ElementFilter;
+import com.hp.hpl.jena.sparql.syntax.ElementNamedGraph;
+import com.hp.hpl.jena.sparql.syntax.ElementPathBlock;
+import com.hp.hpl.jena.sparql.syntax.ElementService;
+import com.hp.hpl.jena.sparql.syntax.ElementSubQuery;
+import com.hp.hpl.jena.sparql.syntax.ElementTriplesBlock;
+import com.hp.hpl.jena.sparql.syntax.ElementVisitorBase;
+import com.hp.hpl.jena.sparql.syntax.ElementWalker;
+import com.hp.hpl.jena.update.Update;
+import com.hp.hpl.jena.update.UpdateRequest;
+
+/**
+ * The triples a SPARQL Update request can read or remove. When every
+ * WHERE and DELETE pattern has a concrete subject and predicate, only the
+ * triples matching those subjects and predicates need to be loaded before
+ * the update runs; otherwise the scope is unbounded and the whole
+ * properties graph must be materialized.
+ *
+ * @author agent
+ */
+public final class UpdateScope {
+
+    private static final Logger LOGGER = getLogger(UpdateScope.class);
+
+    /**
+     * Predicates whose values range over the whole container, and so cannot
+     * be answered from a handful of subjects
+     */
+    private static final Set<Node> containerPredicates = ImmutableSet.of(HAS_CHILD.asNode(), CONTAINS.asNode());
+
+    private final Set<Node> subjects = new HashSet<>();
+
+    private final Set<Node> predicates = new HashSet<>();
+
+    private boolean bounded = true;
+
+    private UpdateScope() {
+    }
+
+    /**
+     * Analyse an update request
+     * @param request
+     * @return the scope of the request
+     */
+    public static UpdateScope of(final UpdateRequest request) {
+        final UpdateScope scope = new UpdateScope();
+
+        for (final Update update : request.getOperations()) {
+            scope.addUpdate(update);
+        }
+
+        LOGGER.trace("Update request bounded: {}, subjects: {}, predicates: {}",
+                scope.bounded, scope.subjects, scope.predicates);
+        return scope;
+    }
+
+    /**
+     * Can the request be evaluated against the triples of its subjects alone?
+     * @return boolean
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * The subjects the request reads or removes
+     * @return subjects
+     */
+    public Set<Node> subjects() {
+        return subjects;
+    }
+
+    /**
+     * The predicates the request reads or removes
+     * @return predicates
+     */
+    public Set<Node> predicates() {
+        return predicates;
+    }
+
+    /**
+     * Does a triple fall within the scope of the request?
+     * @return predicate
+     */
+    public Predicate<Triple> inScope() {
+        return new Predicate<Triple>() {
+
+            @Override
+            public boolean apply(final Triple t) {
+                return !bounded || (subjects.contains(t.getSubject()) && predicates.contains(t.getPredicate()));
+            }
+        };
+    }
+
+    private void addUpdate(final Update update) {
+        if (update instanceof UpdateDataInsert) {
+            // new data never needs existing triples
+            return;
+        }
+
+        if (update instanceof UpdateDataDelete) {
+            addQuads(((UpdateDataDelete) update).getQuads());
+        } else if (update instanceof UpdateDeleteWhere) {
+            addQuads(((UpdateDeleteWhere) update).getQuads());
+        } else if (update instanceof UpdateModify) {
+            final UpdateModify modify = (UpdateModify) update;
+
+            if (modify.getWithIRI() != null || !modify.getUsing().isEmpty() || !modify.getUsingNamed().isEmpty()) {
+                unbounded();
+                return;
+            }
+
+            addQuads(modify.getDeleteQuads());
+            addElement(modify.getWherePattern());
+
+            for (final Quad q : modify.getInsertQuads()) {
+                if (!q.isDefaultGraph()) {
+                    unbounded();
+                }
+            }
+        } else {
+            // LOAD, CLEAR, DROP, CREATE, ADD, COPY, MOVE
+            unbounded();
+        }
+    }
+
+    private void addQuads(final List<Quad> quads) {
+        for (final Quad q : quads) {
+            if (!q.isDefaultGraph()) {
+                unbounded();
+            }
+            addPattern(q.getSubject(), q.getPredicate());
+        }
+    }
+
+    private void addElement(final Element element) {
+        if (element == null) {
+            return;
+        }
+
+        ElementWalker.walk(element, new ElementVisitorBase() {
+
+            @Override
+            public void visit(final ElementTriplesBlock el) {
+                for (final Iterator<Triple> it = el.patternElts(); it.hasNext();) {
+                    final Triple t = it.next();
+                    addPattern(t.getSubject(), t.getPredicate());
+                }
+            }
+
+            @Override
+            public void visit(final ElementPathBlock el) {
+                for (final Iterator<TriplePath> it = el.patternElts(); it.hasNext();) {
+                    final TriplePath t = it.next();
+                    if (t.isTriple()) {
+                        addPattern(t.getSubject(), t.getPredicate());
+                    } else {
+                        unbounded();
+                    }
+                }
+            }
+
+            @Override
+            public void visit(final ElementFilter el) {
+                if (hasSubPattern(el.getExpr())) {
+                    unbounded();
+                }
+            }
+
+            @Override
+            public void visit(final ElementNamedGraph el) {
+                unbounded();
+            }
+
+            @Override
+            public void visit(final ElementDataset el) {
+                unbounded();
+            }
+
+            @Override
+            public void visit(final ElementService el) {
+                unbounded();
+            }
+
+            @Override
+            public void visit(final ElementSubQuery el) {
+                unbounded();
+            }
+        });
+    }
+
+    private void addPattern(final Node subject, final Node predicate) {
+        if (!subject.isURI() || !predicate.isURI() || containerPredicates.contains(predicate)) {
+            unbounded();
+            return;
+        }
+        subjects.add(subject);
+        predicates.add(predicate);
+    }
+
+    private void unbounded() {
+        bounded = false;
+    }
+
+    /**
+     * EXISTS and NOT EXISTS filters carry graph patterns of their own, which
+     * the element walker does not descend into.
+     */
+    private static boolean hasSubPattern(final Expr expr) {
+        if (expr instanceof ExprFunctionOp) {
+            return true;
+        }
+
+        if (expr.isFunction()) {
+            for (final Expr arg : expr.getFunction().getArgs()) {
+                if (hasSubPattern(arg)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -26,6 +26,7 @@ import static org.fcrepo.kernel.RdfLexicon.HAS_CHILD;
 import static org.fcrepo.kernel.RdfLexicon.HAS_PARENT;
 import static org.fcrepo.kernel.RdfLexicon.HAS_MEMBER_RELATION;
 import static org.fcrepo.kernel.RdfLexicon.MEMBERSHIP_RESOURCE;
+import static org.fcrepo.kernel.impl.utils.ChildCursor.childrenAfter;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isInternalNode;
 import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -118,6 +119,19 @@ public class HierarchyRdfContext extends NodeRdfContext {
 
     private Iterator<Triple> childrenContext() throws RepositoryException {
 
+        if (options.hasContinuationToken()) {
+            final Iterator<javax.jcr.Node> pagedChildren;
+
+            if (options.hasChildPage()) {
+                pagedChildren = options.getChildPage().iterator();
+            } else {
+                pagedChildren = childrenAfter(node(), options.getContinuationToken(), options.getLimit());
+            }
+
+            return Iterators.concat(Iterators.transform(Iterators.filter(pagedChildren, not(nastyChildren)),
+                    child2triples()));
+        }
+
         final Iterator<javax.jcr.Node> niceChildren =
             Iterators.filter(new NodeIterator(node().getNodes()), not(nastyChildren));
 
@@ -27,6 +27,8 @@ import static org.fcrepo.kernel.RdfLexicon.HAS_NODE_TYPE;
 import static org.fcrepo.kernel.RdfLexicon.HAS_OBJECT_COUNT;
 import static org.fcrepo.kernel.RdfLexicon.HAS_OBJECT_SIZE;
 import static org.fcrepo.kernel.RdfLexicon.REPOSITORY_NAMESPACE;
+import static org.fcrepo.kernel.impl.services.RepositoryStatistics.BINARY_SIZE_GAUGE;
+import static org.fcrepo.kernel.impl.services.RepositoryStatistics.OBJECT_COUNT_GAUGE;
 import static org.fcrepo.kernel.impl.services.ServiceHelpers.getRepositoryCount;
 import static org.fcrepo.kernel.impl.services.ServiceHelpers.getRepositorySize;
 import static org.fcrepo.metrics.RegistryService.getMetrics;
@@ -48,6 +50,7 @@ import org.modeshape.jcr.JcrRepository;
 import org.slf4j.Logger;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.google.common.collect.ImmutableSet;
 import com.hp.hpl.jena.graph.Triple;
 
@@ -95,10 +98,14 @@ public class RootRdfContext extends NodeRdfContext {
                     createLiteral(nodeType.getName())));
         }
 
-        b.add(create(subject(), HAS_OBJECT_COUNT.asNode(), createLiteral(String
-                .valueOf(getRepositoryCount(repository)))));
-        b.add(create(subject(), HAS_OBJECT_SIZE.asNode(), createLiteral(String
-                .valueOf(getRepositorySize(repository)))));
+        // prefer the counts kept by RepositoryStatistics to scanning the index
+        final SortedMap<String, Gauge> gauges = getMetrics().getGauges();
+        final Object count = gauges.containsKey(OBJECT_COUNT_GAUGE) ? gauges.get(OBJECT_COUNT_GAUGE).getValue()
+                : getRepositoryCount(repository);
+        final Object size = gauges.containsKey(BINARY_SIZE_GAUGE) ? gauges.get(BINARY_SIZE_GAUGE).getValue()
+                : getRepositorySize(repository);
+        b.add(create(subject(), HAS_OBJECT_COUNT.asNode(), createLiteral(String.valueOf(count))));
+        b.add(create(subject(), HAS_OBJECT_SIZE.asNode(), createLiteral(String.valueOf(size))));
 
         // Get the cluster configuration, if available
         // this ugly test checks to see whether this is an ordinary JCR
@@ -18,10 +18,14 @@ package org.fcrepo.kernel.impl.rdf.impl;
 import static com.google.common.base.Throwables.propagate;
 import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
 import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createTypedLiteral;
+import static org.fcrepo.kernel.RdfLexicon.CREATED_DATE;
+import static org.fcrepo.kernel.RdfLexicon.HAS_PREDECESSOR_VERSION;
 import static org.fcrepo.kernel.RdfLexicon.HAS_VERSION;
 import static org.fcrepo.kernel.RdfLexicon.HAS_VERSION_LABEL;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
@@ -30,6 +34,7 @@ import javax.jcr.version.VersionHistory;
 import javax.jcr.version.VersionManager;
 
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.rdf.VersionsRdfContextOptions;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.fcrepo.kernel.utils.iterators.VersionIterator;
 
@@ -55,6 +60,8 @@ public class VersionsRdfContext extends RdfStream {
 
     private final com.hp.hpl.jena.graph.Node subject;
 
+    private final VersionsRdfContextOptions options;
+
     /**
      * Ordinary constructor.
      *
@@ -64,8 +71,22 @@ public class VersionsRdfContext extends RdfStream {
      */
     public VersionsRdfContext(final Node node, final IdentifierTranslator graphSubjects)
         throws RepositoryException {
+        this(node, graphSubjects, VersionsRdfContextOptions.DEFAULT);
+    }
+
+    /**
+     * Describe a page of versions, either in full or summarized
+     *
+     * @param node
+     * @param graphSubjects
+     * @param options
+     * @throws RepositoryException
+     */
+    public VersionsRdfContext(final Node node, final IdentifierTranslator graphSubjects,
+        final VersionsRdfContextOptions options) throws RepositoryException {
         super();
         this.graphSubjects = graphSubjects;
+        this.options = options;
         this.subject = graphSubjects.getSubject(node.getPath()).asNode();
         versionManager = node.getSession().getWorkspace().getVersionManager();
         versionHistory = versionManager.getVersionHistory(node.getPath());
@@ -74,8 +95,64 @@ public class VersionsRdfContext extends RdfStream {
     }
 
     private Iterator<Triple> versionTriples() throws RepositoryException {
-        return Iterators.concat(Iterators.transform(new VersionIterator(versionHistory
-                .getAllVersions()), version2triples));
+        final javax.jcr.version.VersionIterator allVersions = versionHistory.getAllVersions();
+
+        if (options.hasOffset()) {
+            try {
+                allVersions.skip(options.getOffset());
+            } catch (final NoSuchElementException e) {
+                return Iterators.emptyIterator();
+            }
+        }
+
+        final Iterator<Version> versions = options.hasLimit()
+                ? Iterators.limit(new VersionIterator(allVersions), options.getLimit())
+                : new VersionIterator(allVersions);
+
+        return Iterators.concat(Iterators.transform(versions,
+                options.summaryEnabled() ? version2summary : version2triples));
+    }
+
+    /**
+     * Describes a version only by the triples needed to list it, leaving its
+     * frozen properties to be read when the version itself is requested
+     */
+    private Function<Version, Iterator<Triple>> version2summary =
+        new Function<Version, Iterator<Triple>>() {
+
+            @Override
+            public Iterator<Triple> apply(final Version version) {
+
+                try {
+                    final com.hp.hpl.jena.graph.Node versionSubject = versionSubject(version);
+
+                    final RdfStream results = new RdfStream(create(subject, HAS_VERSION.asNode(),
+                            versionSubject));
+
+                    results.concat(create(versionSubject, CREATED_DATE.asNode(),
+                            createTypedLiteral(version.getCreated()).asNode()));
+
+                    for (final String label : versionHistory.getVersionLabels(version)) {
+                        results.concat(create(versionSubject, HAS_VERSION_LABEL
+                                .asNode(), createLiteral(label)));
+                    }
+
+                    for (final Version predecessor : version.getPredecessors()) {
+                        results.concat(create(versionSubject, HAS_PREDECESSOR_VERSION.asNode(),
+                                versionSubject(predecessor)));
+                    }
+
+                    return results;
+
+                } catch (final RepositoryException e) {
+                    throw propagate(e);
+                }
+            }
+
+        };
+
+    private com.hp.hpl.jena.graph.Node versionSubject(final Version version) throws RepositoryException {
+        return graphSubjects.getSubject(version.getFrozenNode().getPath()).asNode();
     }
 
     private Function<Version, Iterator<Triple>> version2triples =
@@ -27,6 +27,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
@@ -40,6 +41,7 @@ import org.fcrepo.kernel.impl.rdf.JcrRdfTools;
 import org.fcrepo.kernel.services.DatastreamService;
 import org.fcrepo.kernel.services.policy.StoragePolicyDecisionPoint;
 import org.fcrepo.kernel.utils.FixityResult;
+import org.fcrepo.kernel.utils.StoredContent;
 import org.fcrepo.kernel.impl.utils.impl.CacheEntryFactory;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.slf4j.Logger;
@@ -130,6 +132,24 @@ public class DatastreamServiceImpl extends AbstractService implements Datastream
         return ds;
     }
 
+    /**
+     * Prepare to set the content of a Datastream with this service's storage
+     * policies
+     *
+     * @param datastream
+     * @param contentType the mime-type for the content
+     * @param originalFileName the original file name for the content
+     * @param content binary payload for the datastream
+     * @return a task storing the content, which may be run on another thread
+     * @throws RepositoryException
+     */
+    @Override
+    public Callable<StoredContent> prepareContent(final Datastream datastream, final String contentType,
+                                                  final String originalFileName, final InputStream content)
+        throws RepositoryException {
+        return datastream.prepareContent(content, contentType, originalFileName, getStoragePolicyDecisionPoint());
+    }
+
     /**
      * Retrieve the JCR node for a Datastream by pid and dsid
      *
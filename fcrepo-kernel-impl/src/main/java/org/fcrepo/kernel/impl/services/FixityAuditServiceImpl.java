@@ -0,0 +1,610 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.services;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.hash.Hashing.sha1;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.getProperty;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.Datastream;
+import org.fcrepo.kernel.services.DatastreamService;
+import org.fcrepo.kernel.services.FixityAuditService;
+import org.fcrepo.kernel.utils.FixityAuditRecord;
+import org.fcrepo.kernel.utils.FixityResult;
+import org.fcrepo.kernel.utils.FixityResult.FixityState;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Audits the fixity of every binary in the repository in the background.
+ *
+ * A scheduler thread walks the repository tree in document order and hands
+ * each binary it finds to a pool of worker threads, which should be sized to
+ * the disks behind the binary store. Reads are held to a bytes-per-second
+ * budget so the audit does not starve user traffic. A pass starts when the
+ * previous one started longer ago than the maximum age.
+ *
+ * The audit never writes to the resources it checks, so checking a binary
+ * does not change its ETag or publish events. Its own state, the start of
+ * the current pass and the last binary the pass has checked, is kept in a
+ * small file outside the repository, so a restarted audit resumes part way
+ * through a pass. The time and outcome of the last check of each binary are
+ * kept beside it, in a file per binary named for the identifier of its
+ * content node, and the binaries whose last check found no good copy are
+ * listed in a file of their own.
+ *
+ * The audit is configured with the system properties fcrepo.fixity.audit
+ * (whether to start with the repository), fcrepo.fixity.audit.threads,
+ * fcrepo.fixity.audit.bytesPerSecond, fcrepo.fixity.audit.maxAgeDays,
+ * fcrepo.fixity.audit.pauseSeconds (how often to look for a pass that is
+ * due) and fcrepo.fixity.audit.directory (where its state is kept).
+ *
+ * @author agent
+ */
+@Component
+public class FixityAuditServiceImpl extends AbstractService implements FixityAuditService {
+
+    private static final Logger LOGGER = getLogger(FixityAuditServiceImpl.class);
+
+    static final Counter checkCounter = getMetrics().counter(name(FixityAuditService.class, "check-counter"));
+
+    static final Counter errorCounter = getMetrics().counter(name(FixityAuditService.class, "error-counter"));
+
+    static final Meter bytesMeter = getMetrics().meter(name(FixityAuditService.class, "bytes"));
+
+    private static final String STATE_FILE = "audit.properties";
+
+    private static final String PASS_STARTED = "passStarted";
+
+    private static final String POSITION = "position";
+
+    private static final String CHECKS = "checks";
+
+    private static final String FAILURES_FILE = "failures.properties";
+
+    private static final String PATH = "path";
+
+    private static final String LAST_CHECK = "lastFixityCheck";
+
+    private static final String LAST_STATE = "lastFixityState";
+
+    private static final String GOOD = "good";
+
+    private static final String JCR_SYSTEM = "/jcr:system";
+
+    private static final int CHECKPOINT_INTERVAL = 100;
+
+    @Autowired
+    private DatastreamService datastreamService;
+
+    private boolean startWithRepository = parseBoolean(getProperty("fcrepo.fixity.audit", "false"));
+
+    private int threads = parseInt(getProperty("fcrepo.fixity.audit.threads", "2"));
+
+    private long bytesPerSecond = parseLong(getProperty("fcrepo.fixity.audit.bytesPerSecond",
+            String.valueOf(64L * 1024 * 1024)));
+
+    private int maxAgeDays = parseInt(getProperty("fcrepo.fixity.audit.maxAgeDays", "90"));
+
+    private long pauseSeconds = parseLong(getProperty("fcrepo.fixity.audit.pauseSeconds", "3600"));
+
+    private File stateDirectory = new File(getProperty("fcrepo.fixity.audit.directory",
+            getProperty("fcrepo.home", getProperty("user.dir") + File.separator + "fcrepo4-data")
+                    + File.separator + "fixity-audit"));
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService workers;
+
+    private Semaphore queued;
+
+    private RateLimiter rateLimiter;
+
+    private volatile String position;
+
+    private Properties failures;
+
+    /**
+     * Start the audit with the repository, if so configured
+     */
+    @PostConstruct
+    public void init() {
+        if (startWithRepository) {
+            start();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+
+        LOGGER.info("Starting fixity audit with {} threads at up to {} bytes/s", threads, bytesPerSecond);
+
+        rateLimiter = bytesPerSecond > 0 ? RateLimiter.create(bytesPerSecond) : null;
+        queued = new Semaphore(threads * 2);
+        workers = newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-fixity-audit-%d").build());
+        scheduler = newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-fixity-audit-scheduler").build());
+
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                audit();
+            }
+        }, 0, pauseSeconds, SECONDS);
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void stop() {
+        if (!isRunning()) {
+            return;
+        }
+
+        LOGGER.info("Stopping fixity audit at {}", position);
+
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        scheduler = null;
+        workers = null;
+        position = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    @Override
+    public long getCheckCount() {
+        return checkCounter.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errorCounter.getCount();
+    }
+
+    @Override
+    public long getBytesChecked() {
+        return bytesMeter.getCount();
+    }
+
+    @Override
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    @Override
+    public String getPosition() {
+        return position;
+    }
+
+    @Override
+    public FixityAuditRecord getLastCheck(final Node contentNode) throws RepositoryException {
+        return readRecord(contentNode.getIdentifier());
+    }
+
+    @Override
+    public synchronized Collection<FixityAuditRecord> getFailures() {
+        final List<FixityAuditRecord> records = new ArrayList<>();
+
+        for (final String identifier : failures().stringPropertyNames()) {
+            final FixityAuditRecord record = readRecord(identifier);
+
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Make or resume a pass over the binaries, if one is due
+     */
+    void audit() {
+        final Properties state = readState();
+        final long now = currentTimeMillis();
+
+        long passStarted = parseLong(state.getProperty(PASS_STARTED, "0"));
+        final String resumeFrom = state.getProperty(POSITION);
+
+        if (resumeFrom == null) {
+            if (passStarted > 0 && now - passStarted < DAYS.toMillis(maxAgeDays)) {
+                LOGGER.trace("No fixity audit pass is due");
+                return;
+            }
+            passStarted = now;
+        }
+
+        try {
+            final Session session = repo.login();
+
+            try {
+                final Pass pass = new Pass(workers, passStarted, resumeFrom);
+                pass.walk(session.getRootNode());
+
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                pass.drain();
+
+                if (pass.resumeFrom != null) {
+                    LOGGER.info("Fixity audit could not find {} to resume from, starting a new pass",
+                            pass.resumeFrom);
+                    writeState(0, null);
+                } else {
+                    LOGGER.debug("Fixity audit pass complete");
+                    writeState(passStarted, null);
+                }
+            } finally {
+                position = null;
+                session.logout();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final RepositoryException | RuntimeException e) {
+            LOGGER.error("Fixity audit pass failed, will retry after {} seconds", pauseSeconds, e);
+        }
+    }
+
+    /**
+     * Check the fixity of one binary
+     * @param contentPath
+     */
+    void check(final String contentPath) {
+        try {
+            final Session session = repo.login();
+
+            try {
+                final Node contentNode = session.getNode(contentPath);
+                final Datastream datastream = datastreamService.asDatastream(contentNode.getParent());
+
+                throttle(datastream.getContentSize());
+
+                final Collection<FixityResult> results = datastreamService.runFixityAndFixProblems(datastream);
+
+                final Set<String> states = new TreeSet<>();
+                boolean good = false;
+
+                for (final FixityResult result : results) {
+                    good |= result.isSuccess();
+
+                    for (final FixityState state : result.getStatus()) {
+                        states.add(state.toString());
+                    }
+                }
+
+                checkCounter.inc();
+                bytesMeter.mark(Math.max(datastream.getContentSize(), 0));
+
+                if (!good) {
+                    errorCounter.inc();
+                    LOGGER.error("Fixity audit found no good copy of {}: {}", contentPath, states);
+                } else {
+                    LOGGER.trace("Fixity audit of {}: {}", contentPath, states);
+                }
+
+                record(contentNode.getIdentifier(), new FixityAuditRecord(contentPath, new Date(), states, good));
+            } finally {
+                session.logout();
+            }
+        } catch (final RepositoryException | RuntimeException e) {
+            LOGGER.warn("Unable to audit the fixity of {}", contentPath, e);
+        }
+    }
+
+    /**
+     * One pass over the repository tree
+     */
+    private class Pass {
+
+        private final ExecutorService pool;
+
+        private final long started;
+
+        private String resumeFrom;
+
+        private int sinceCheckpoint = 0;
+
+        Pass(final ExecutorService pool, final long started, final String resumeFrom) {
+            this.pool = pool;
+            this.started = started;
+            this.resumeFrom = resumeFrom;
+        }
+
+        /**
+         * Visit the descendants of a node in document order. While resuming,
+         * the subtrees before the one holding the last binary checked are
+         * skipped without being read.
+         */
+        void walk(final Node node) throws RepositoryException, InterruptedException {
+            for (final NodeIterator children = node.getNodes(); children.hasNext();) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                final Node child = children.nextNode();
+                final String path = child.getPath();
+
+                if (path.equals(JCR_SYSTEM)) {
+                    continue;
+                }
+
+                if (resumeFrom != null) {
+                    if (path.equals(resumeFrom)) {
+                        resumeFrom = null;
+                    } else if (resumeFrom.startsWith(path + "/")) {
+                        walk(child);
+                        resumeFrom = null;
+                    }
+                    continue;
+                }
+
+                if (child.isNodeType(FEDORA_BINARY)) {
+                    submit(path);
+                }
+
+                walk(child);
+            }
+        }
+
+        private void submit(final String path) throws InterruptedException {
+            queued.acquire();
+            position = path;
+            pool.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        check(path);
+                    } finally {
+                        queued.release();
+                    }
+                }
+            });
+
+            if (++sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+                drain();
+                writeState(started, path);
+                sinceCheckpoint = 0;
+            }
+        }
+
+        /**
+         * Wait for the checks already handed out, so that a recorded
+         * position never runs ahead of the binaries actually checked
+         */
+        void drain() throws InterruptedException {
+            final int permits = threads * 2;
+            queued.acquire(permits);
+            queued.release(permits);
+        }
+    }
+
+    private Properties readState() {
+        return read(stateDirectory.toPath().resolve(STATE_FILE));
+    }
+
+    private void writeState(final long passStarted, final String lastChecked) {
+        final Properties state = new Properties();
+        state.setProperty(PASS_STARTED, String.valueOf(passStarted));
+
+        if (lastChecked != null) {
+            state.setProperty(POSITION, lastChecked);
+        }
+
+        write(stateDirectory.toPath().resolve(STATE_FILE), state);
+    }
+
+    /**
+     * Keep the outcome of a check, and list or unlist the binary as a failure
+     */
+    private void record(final String identifier, final FixityAuditRecord record) {
+        final Properties properties = new Properties();
+        properties.setProperty(PATH, record.getPath());
+        properties.setProperty(LAST_CHECK, String.valueOf(record.getChecked().getTime()));
+        properties.setProperty(LAST_STATE, Joiner.on(',').join(record.getStates()));
+        properties.setProperty(GOOD, String.valueOf(record.isGood()));
+
+        write(recordFile(identifier), properties);
+
+        synchronized (this) {
+            final Object listed = record.isGood() ? failures().remove(identifier)
+                    : failures().setProperty(identifier, record.getPath());
+
+            if (!record.isGood() || listed != null) {
+                write(stateDirectory.toPath().resolve(FAILURES_FILE), failures());
+            }
+        }
+    }
+
+    private FixityAuditRecord readRecord(final String identifier) {
+        final Path file = recordFile(identifier);
+
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        final Properties properties = read(file);
+        final Set<String> states = new TreeSet<>(
+                Splitter.on(',').omitEmptyStrings().splitToList(properties.getProperty(LAST_STATE, "")));
+
+        return new FixityAuditRecord(properties.getProperty(PATH),
+                new Date(parseLong(properties.getProperty(LAST_CHECK, "0"))), states,
+                parseBoolean(properties.getProperty(GOOD)));
+    }
+
+    /**
+     * The outcome of the last check of a binary is kept in a file named for
+     * the digest of its content node's identifier, which may hold characters
+     * a file name may not, in directories of at most 256 files
+     */
+    private Path recordFile(final String identifier) {
+        final String name = sha1().hashString(identifier, UTF_8).toString();
+        return stateDirectory.toPath().resolve(CHECKS).resolve(name.substring(0, 2)).resolve(name + ".properties");
+    }
+
+    /**
+     * The binaries whose last check found no good copy, by the identifiers of
+     * their content nodes
+     */
+    private synchronized Properties failures() {
+        if (failures == null) {
+            failures = read(stateDirectory.toPath().resolve(FAILURES_FILE));
+        }
+        return failures;
+    }
+
+    private static Properties read(final Path file) {
+        final Properties properties = new Properties();
+
+        if (Files.exists(file)) {
+            try (final Reader reader = Files.newBufferedReader(file, UTF_8)) {
+                properties.load(reader);
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to read the fixity audit state from {}", file, e);
+            }
+        }
+        return properties;
+    }
+
+    private static void write(final Path target, final Properties properties) {
+        try {
+            final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.createDirectories(target.getParent());
+
+            try (final Writer writer = Files.newBufferedWriter(temp, UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(temp, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to record the fixity audit state in {}", target, e);
+        }
+    }
+
+    /**
+     * Take permits for the bytes about to be read. A large binary is paid for
+     * up front, which holds back the checks that follow it.
+     */
+    private void throttle(final long size) {
+        if (rateLimiter == null) {
+            return;
+        }
+
+        long remaining = size;
+
+        while (remaining > 0) {
+            final int permits = (int) Math.min(remaining, Integer.MAX_VALUE);
+            rateLimiter.acquire(permits);
+            remaining -= permits;
+        }
+    }
+
+    /**
+     * @param datastreamService
+     */
+    public void setDatastreamService(final DatastreamService datastreamService) {
+        this.datastreamService = datastreamService;
+    }
+
+    /**
+     * @param threads the number of binaries checked at once
+     */
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param bytesPerSecond the upper bound on the rate of reading, or 0 for
+     *        no bound
+     */
+    public void setBytesPerSecond(final long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @param maxAgeDays the age at which a check is due again
+     */
+    public void setMaxAgeDays(final int maxAgeDays) {
+        this.maxAgeDays = maxAgeDays;
+    }
+
+    /**
+     * @param pauseSeconds how often to look for a pass that is due
+     */
+    public void setPauseSeconds(final long pauseSeconds) {
+        this.pauseSeconds = pauseSeconds;
+    }
+
+    /**
+     * @param stateDirectory where the audit keeps the position of its pass
+     */
+    public synchronized void setStateDirectory(final File stateDirectory) {
+        this.stateDirectory = stateDirectory;
+        this.failures = null;
+    }
+}
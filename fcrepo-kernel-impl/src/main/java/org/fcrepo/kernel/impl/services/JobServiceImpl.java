@@ -0,0 +1,917 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.services;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.getProperty;
+import static java.util.Arrays.asList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static javax.jcr.Session.ACTION_ADD_NODE;
+import static javax.jcr.Session.ACTION_READ;
+import static javax.jcr.PropertyType.WEAKREFERENCE;
+import static javax.jcr.Session.ACTION_REMOVE;
+import static org.fcrepo.kernel.Job.State.FAILED;
+import static org.fcrepo.kernel.Job.State.RUNNING;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jcr.Credentials;
+import javax.jcr.InvalidItemStateException;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.PathNotFoundException;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.Workspace;
+import javax.jcr.nodetype.NodeType;
+import javax.jcr.observation.ObservationManager;
+
+import org.fcrepo.kernel.DetachedCredentials;
+import org.fcrepo.kernel.Job;
+import org.fcrepo.kernel.impl.JobImpl;
+import org.fcrepo.kernel.services.JobService;
+import org.fcrepo.kernel.services.VersionService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Counter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs subtree operations in the background, each as the user who requested
+ * it, so every node it reads, adds, changes or removes is subject to the
+ * user's permissions. The requester's session belongs to the request and is
+ * not used once the request ends: the job captures the user's ID and
+ * principals as {@link DetachedCredentials} when it starts, and logs in with
+ * them on its own thread.
+ *
+ * A delete removes the subtree a batch at a time: it collects the paths of a
+ * batch of nodes, each after its children, then removes them and saves, so
+ * that the session never holds more than one batch of transient changes.
+ * The strong references into each node are looked up from the referrers
+ * ModeShape records on the node itself and removed in the same batch. The
+ * events of those batches carry the {@link JobService#BULK_OPERATION} user
+ * data and are not published; the removal of the subtree's root is saved on
+ * its own, and is the one event the delete publishes.
+ *
+ * A copy walks the source subtree parents first. A subtree of no more than
+ * a batch of nodes is copied whole by the workspace; above those, a node
+ * with the same types and properties is added beneath the copy of its
+ * parent. Binary properties are set from the source's values, which
+ * ModeShape keeps by content key, so no content is read or stored again.
+ * Then, as the workspace does within a subtree it copies whole, references
+ * within the copy that lead to nodes of the source are pointed at the copies
+ * of those nodes. What the two ways of copying cannot share are the
+ * protected jcr:created and jcr:createdBy: a node copied by the workspace
+ * keeps those of its source, while a node added one at a time is created by
+ * the job. A move is made by the workspace, which moves the root of the
+ * subtree and so everything beneath it, keeping every node's identifier,
+ * creation and version history. A completed copy or move is versioned, as
+ * one made in the request would be.
+ *
+ * After each batch a job writes a checkpoint to the checkpoint directory.
+ * The checkpoint is removed when the job completes, and kept when it fails
+ * or is interrupted. The user's credentials do not survive a restart, so a
+ * checkpoint found when the repository starts is restored as a failed job.
+ * When the same user requests a failed job again, it resumes with the
+ * progress it had. Every step can be repeated safely: a resumed delete
+ * removes what is left, a resumed copy skips the nodes it finds already
+ * copied and the references it finds already pointed at the copy, and a
+ * resumed move finds the subtree either moved or still at the source.
+ *
+ * Jobs are configured with the system properties fcrepo.jobs.threads (the
+ * number of jobs run at once), fcrepo.jobs.batchSize (the number of nodes
+ * saved at a time), fcrepo.jobs.threshold (the size of subtree that is
+ * copied or moved by a job), fcrepo.jobs.retainMinutes (how long a finished
+ * job's status, and a failed job's checkpoint, is kept) and
+ * fcrepo.jobs.checkpointDirectory (by default "jobs" in the repository's
+ * home directory).
+ *
+ * @author agent
+ */
+@Component
+public class JobServiceImpl extends AbstractService implements JobService {
+
+    private static final Logger LOGGER = getLogger(JobServiceImpl.class);
+
+    static final Counter processedCounter = getMetrics().counter(name(JobService.class, "processed-counter"));
+
+    static final Counter failedCounter = getMetrics().counter(name(JobService.class, "failed-counter"));
+
+    static final String DELETE = "delete";
+
+    static final String COPY = "copy";
+
+    static final String MOVE = "move";
+
+    private static final String CHECKPOINT_SUFFIX = ".job";
+
+    private int threads = parseInt(getProperty("fcrepo.jobs.threads", "2"));
+
+    private int batchSize = parseInt(getProperty("fcrepo.jobs.batchSize", "1000"));
+
+    private int threshold = parseInt(getProperty("fcrepo.jobs.threshold", "1000"));
+
+    private long retainMinutes = parseLong(getProperty("fcrepo.jobs.retainMinutes", "60"));
+
+    private File checkpointDirectory = new File(getProperty("fcrepo.jobs.checkpointDirectory",
+            getProperty("fcrepo.home", getProperty("user.dir") + File.separator + "fcrepo4-data")
+                    + File.separator + "jobs"));
+
+    @Autowired(required = false)
+    private VersionService versionService;
+
+    private final ConcurrentMap<String, JobImpl> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService workers;
+
+    @Override
+    public Job deleteObject(final Session session, final String path, final String userData)
+        throws RepositoryException {
+        if (!session.nodeExists(path)) {
+            throw new PathNotFoundException(path);
+        }
+        session.checkPermission(path, ACTION_REMOVE);
+
+        return submit(session, DELETE, path, null, userData);
+    }
+
+    @Override
+    public Job copyObject(final Session session, final String source, final String destination,
+                          final String userData) throws RepositoryException {
+        checkPaths(session, source, destination);
+
+        return submit(session, COPY, source, destination, userData);
+    }
+
+    @Override
+    public Job moveObject(final Session session, final String source, final String destination,
+                          final String userData) throws RepositoryException {
+        checkPaths(session, source, destination);
+        session.checkPermission(source, ACTION_REMOVE);
+
+        return submit(session, MOVE, source, destination, userData);
+    }
+
+    @Override
+    public boolean exceedsThreshold(final Session session, final String path) throws RepositoryException {
+        return descendants(session.getNode(path), threshold) > threshold;
+    }
+
+    /**
+     * Count a node's descendants, but stop counting once there are more than
+     * the limit
+     */
+    private static long descendants(final Node node, final long limit) throws RepositoryException {
+        final Deque<NodeIterator> children = new ArrayDeque<>();
+        children.push(node.getNodes());
+
+        long count = 0;
+
+        while (!children.isEmpty()) {
+            final NodeIterator siblings = children.peek();
+
+            if (!siblings.hasNext()) {
+                children.pop();
+                continue;
+            }
+
+            if (++count > limit) {
+                return count;
+            }
+
+            final Node child = siblings.nextNode();
+
+            if (child.hasNodes()) {
+                children.push(child.getNodes());
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Job getJob(final Session session, final String id) {
+        synchronized (jobs) {
+            expire();
+        }
+        final JobImpl job = jobs.get(id);
+        return job != null && Objects.equals(job.getOwner(), session.getUserID()) ? job : null;
+    }
+
+    /**
+     * Restore, as failed jobs that their users may resume, the jobs whose
+     * checkpoints were left by the last run of the repository
+     */
+    @PostConstruct
+    public void restore() {
+        if (checkpointDirectory == null || !checkpointDirectory.isDirectory()) {
+            return;
+        }
+
+        try (final DirectoryStream<Path> checkpoints =
+                Files.newDirectoryStream(checkpointDirectory.toPath(), "*" + CHECKPOINT_SUFFIX)) {
+            for (final Path checkpoint : checkpoints) {
+                try {
+                    final Properties properties = new Properties();
+
+                    try (final Reader reader = Files.newBufferedReader(checkpoint, UTF_8)) {
+                        properties.load(reader);
+                    }
+
+                    final JobImpl job = new JobImpl(properties.getProperty("id"),
+                            properties.getProperty("type"),
+                            properties.getProperty("path"),
+                            properties.getProperty("destination"),
+                            properties.getProperty("workspace"),
+                            properties.getProperty("owner"),
+                            properties.getProperty("userData"),
+                            new Date(parseLong(properties.getProperty("started"))),
+                            parseLong(properties.getProperty("processed")));
+                    job.fail("Interrupted by a restart; request it again to resume");
+
+                    LOGGER.info("Restored {}", job);
+                    jobs.put(job.getId(), job);
+                } catch (final IOException | RuntimeException e) {
+                    LOGGER.warn("Unable to restore the job checkpointed in {}", checkpoint, e);
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to restore jobs from {}", checkpointDirectory, e);
+        }
+    }
+
+    /**
+     * Interrupt the running jobs, whose checkpoints are kept so that their
+     * users may resume them when the repository starts again
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    private static void checkPaths(final Session session, final String source, final String destination)
+        throws RepositoryException {
+        if (!session.nodeExists(source)) {
+            throw new PathNotFoundException(source);
+        }
+        session.checkPermission(source, ACTION_READ);
+
+        if (!session.nodeExists(parentPath(destination))) {
+            throw new PathNotFoundException("No parent for " + destination);
+        }
+        session.checkPermission(destination, ACTION_ADD_NODE);
+    }
+
+    /**
+     * Start a job as the requester, or hand the request to the user's job for
+     * the same operation: a running one is left to finish, and a failed one
+     * is resumed
+     */
+    private Job submit(final Session session, final String type, final String path, final String destination,
+                       final String userData) {
+        final String owner = session.getUserID();
+        final String workspace = session.getWorkspace().getName();
+        final Credentials credentials = new DetachedCredentials(session);
+
+        synchronized (jobs) {
+            expire();
+
+            for (final JobImpl job : jobs.values()) {
+                if (job.getType().equals(type) && job.getPath().equals(path)
+                        && Objects.equals(job.getDestination(), destination)
+                        && Objects.equals(job.getOwner(), owner) && job.getWorkspace().equals(workspace)) {
+                    if (job.getState() == RUNNING) {
+                        return job;
+                    } else if (job.getState() == FAILED) {
+                        LOGGER.info("Resuming {}", job);
+                        job.restart();
+                        start(job, credentials);
+                        return job;
+                    }
+                }
+            }
+
+            final JobImpl job = new JobImpl(type, path, destination, workspace, owner, userData);
+
+            LOGGER.info("Starting {}", job);
+            start(job, credentials);
+            return job;
+        }
+    }
+
+    private void start(final JobImpl job, final Credentials credentials) {
+        jobs.put(job.getId(), job);
+        checkpoint(job);
+
+        workers().execute(new Runnable() {
+
+            @Override
+            public void run() {
+                JobServiceImpl.this.run(job, credentials);
+            }
+        });
+    }
+
+    /**
+     * Log in as the requester and carry out a job
+     * @param job
+     * @param credentials the requester's credentials
+     */
+    void run(final JobImpl job, final Credentials credentials) {
+        final Session session;
+
+        try {
+            session = repo.login(credentials, job.getWorkspace());
+        } catch (final RepositoryException e) {
+            failedCounter.inc();
+            job.fail(e.getMessage());
+            LOGGER.error("Unable to log in to run {}", job, e);
+            return;
+        }
+        run(job, session);
+    }
+
+    /**
+     * Carry out a job in a session of the requester's, and log the session
+     * out
+     * @param job
+     * @param session
+     */
+    void run(final JobImpl job, final Session session) {
+        try {
+            try {
+                session.getWorkspace().getObservationManager().setUserData(job.getUserData());
+
+                switch (job.getType()) {
+                    case DELETE:
+                        delete(session, job);
+                        break;
+                    case COPY:
+                        copy(session, job);
+                        destinationUpdated(session, job);
+                        break;
+                    case MOVE:
+                        move(session, job);
+                        destinationUpdated(session, job);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown type of job: " + job.getType());
+                }
+
+                removeCheckpoint(job);
+                job.complete();
+                LOGGER.info("Completed {}", job);
+            } finally {
+                session.logout();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedCounter.inc();
+            job.fail("Interrupted; request it again to resume");
+            LOGGER.warn("Interrupted {}", job);
+        } catch (final RepositoryException | RuntimeException e) {
+            // the checkpoint is kept, so that a retry resumes the job
+            failedCounter.inc();
+            job.fail(e.getMessage());
+            LOGGER.error("Failed {}", job, e);
+        }
+    }
+
+    /**
+     * Remove the subtree at the job's path, bottom-up
+     */
+    private void delete(final Session session, final JobImpl job)
+        throws RepositoryException, InterruptedException {
+        if (!session.nodeExists(job.getPath())) {
+            // finished before the job was resumed
+            return;
+        }
+
+        final ObservationManager observationManager = session.getWorkspace().getObservationManager();
+        observationManager.setUserData(BULK_OPERATION);
+
+        final Node root = session.getNode(job.getPath());
+
+        for (List<String> batch = nextDeletions(root); !batch.isEmpty(); batch = nextDeletions(root)) {
+            for (final String path : batch) {
+                removeWithReferences(session.getNode(path));
+            }
+            saveBatch(session, job, batch.size());
+        }
+
+        // the root is removed in a batch of its own
+        observationManager.setUserData(job.getUserData());
+        removeWithReferences(root);
+        saveBatch(session, job, 1);
+    }
+
+    /**
+     * Collect the paths of up to a batch of the root's descendants, each one
+     * after its children, without changing anything, so that the walk never
+     * runs over nodes removed beneath it
+     */
+    private List<String> nextDeletions(final Node root) throws RepositoryException {
+        final List<String> batch = new ArrayList<>(batchSize);
+
+        final Deque<Node> parents = new ArrayDeque<>();
+        final Deque<NodeIterator> children = new ArrayDeque<>();
+        parents.push(root);
+        children.push(root.getNodes());
+
+        while (batch.size() < batchSize && !parents.isEmpty()) {
+            final NodeIterator siblings = children.peek();
+
+            if (siblings.hasNext()) {
+                final Node child = siblings.nextNode();
+
+                if (child.getName().startsWith("jcr:")) {
+                    // removed along with its parent
+                    continue;
+                }
+
+                if (child.hasNodes()) {
+                    parents.push(child);
+                    children.push(child.getNodes());
+                } else {
+                    batch.add(child.getPath());
+                }
+            } else {
+                children.pop();
+                final Node node = parents.pop();
+
+                if (!parents.isEmpty()) {
+                    batch.add(node.getPath());
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Copy the subtree at the job's path to its destination, parents first.
+     * Each subtree of no more than a batch of nodes is copied whole by the
+     * workspace, which keeps the nodes' protected properties, such as
+     * jcr:created; only the nodes above those are added one at a time.
+     */
+    private void copy(final Session session, final JobImpl job) throws RepositoryException, InterruptedException {
+        final Node source = session.getNode(job.getPath());
+        final Workspace workspace = session.getWorkspace();
+
+        final Node root;
+        // nodes added to the session, and nodes copied, since the last batch
+        int added = 0;
+        int pending = 0;
+
+        if (session.nodeExists(job.getDestination())) {
+            root = session.getNode(job.getDestination());
+        } else {
+            final long size = descendants(source, batchSize) + 1;
+
+            if (size <= batchSize) {
+                workspace.copy(job.getPath(), job.getDestination());
+                saveBatch(session, job, (int) size);
+                return;
+            }
+            root = copyNode(source, parentOf(session, job.getDestination()), nameOf(job.getDestination()));
+            added++;
+            pending++;
+        }
+
+        final Deque<NodeIterator> children = new ArrayDeque<>();
+        final Deque<Node> copies = new ArrayDeque<>();
+        children.push(source.getNodes());
+        copies.push(root);
+
+        while (!children.isEmpty()) {
+            final NodeIterator siblings = children.peek();
+
+            if (!siblings.hasNext()) {
+                children.pop();
+                copies.pop();
+                continue;
+            }
+
+            final Node child = siblings.nextNode();
+            final Node parent = copies.peek();
+            final String relativePath = relativePath(child);
+
+            if (parent.hasNode(relativePath)) {
+                // copied before the job was resumed
+                if (child.hasNodes()) {
+                    children.push(child.getNodes());
+                    copies.push(parent.getNode(relativePath));
+                }
+                continue;
+            }
+
+            final long size = descendants(child, batchSize) + 1;
+
+            if (size <= batchSize) {
+                if (added > 0) {
+                    // the workspace copies only beneath saved nodes
+                    session.save();
+                    added = 0;
+                }
+                workspace.copy(child.getPath(), childPath(parent.getPath(), child.getName()));
+                pending += size;
+            } else {
+                final Node copy = copyNode(child, parent, child.getName());
+                added++;
+                pending++;
+                children.push(child.getNodes());
+                copies.push(copy);
+            }
+
+            if (pending >= batchSize) {
+                saveBatch(session, job, pending);
+                added = 0;
+                pending = 0;
+            }
+        }
+
+        saveBatch(session, job, pending);
+        remapReferences(session, job);
+    }
+
+    /**
+     * Point the references within the copy that lead to nodes of the source
+     * subtree at the copies of those nodes. The workspace does so within each
+     * subtree it copies whole, but not for the nodes added one at a time, nor
+     * between subtrees it copied separately. The referrers of each source node
+     * are looked up from those ModeShape records on the node itself.
+     */
+    private void remapReferences(final Session session, final JobImpl job)
+        throws RepositoryException, InterruptedException {
+        final Node source = session.getNode(job.getPath());
+        final Deque<NodeIterator> children = new ArrayDeque<>();
+        children.push(source.getNodes());
+
+        int pending = remapReferencesTo(session, job, source);
+
+        while (!children.isEmpty()) {
+            final NodeIterator siblings = children.peek();
+
+            if (!siblings.hasNext()) {
+                children.pop();
+                continue;
+            }
+
+            final Node child = siblings.nextNode();
+            pending += remapReferencesTo(session, job, child);
+
+            if (child.hasNodes()) {
+                children.push(child.getNodes());
+            }
+
+            if (pending >= batchSize) {
+                session.save();
+                pending = 0;
+
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        if (pending > 0) {
+            session.save();
+        }
+    }
+
+    /**
+     * Point the copies of the references to a node of the source subtree
+     * from within that subtree at the node's copy
+     * @return the number of properties changed
+     */
+    private static int remapReferencesTo(final Session session, final JobImpl job, final Node target)
+        throws RepositoryException {
+        final String identifier = target.getIdentifier();
+        Node copy = null;
+        int changed = 0;
+
+        for (final PropertyIterator referrers : asList(target.getReferences(), target.getWeakReferences())) {
+            while (referrers.hasNext()) {
+                final Property referrer = referrers.nextProperty();
+                final String referrerPath = copyPath(job, referrer.getParent().getPath());
+
+                if (referrerPath == null || !session.nodeExists(referrerPath)
+                        || !session.getNode(referrerPath).hasProperty(referrer.getName())) {
+                    continue;
+                }
+
+                if (copy == null) {
+                    copy = session.getNode(copyPath(job, target.getPath()));
+                }
+
+                final Property property = session.getNode(referrerPath).getProperty(referrer.getName());
+                final Value value =
+                        session.getValueFactory().createValue(copy, property.getType() == WEAKREFERENCE);
+
+                if (property.isMultiple()) {
+                    final Value[] values = property.getValues();
+                    boolean remapped = false;
+
+                    for (int i = 0; i < values.length; i++) {
+                        if (values[i].getString().equals(identifier)) {
+                            values[i] = value;
+                            remapped = true;
+                        }
+                    }
+
+                    if (remapped) {
+                        property.setValue(values);
+                        changed++;
+                    }
+                } else if (property.getString().equals(identifier)) {
+                    // already pointed at the copy if the workspace copied both
+                    property.setValue(value);
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * The path of the copy of a node of the source subtree, or null if the
+     * node is outside it
+     */
+    private static String copyPath(final JobImpl job, final String path) {
+        if (path.equals(job.getPath())) {
+            return job.getDestination();
+        } else if (path.startsWith(job.getPath() + "/")) {
+            return job.getDestination() + path.substring(job.getPath().length());
+        }
+        return null;
+    }
+
+    /**
+     * Move the subtree at the job's path to its destination. The workspace
+     * moves only the subtree's root, and the nodes beneath go with it.
+     */
+    private void move(final Session session, final JobImpl job) throws RepositoryException, InterruptedException {
+        if (!session.nodeExists(job.getPath()) && session.nodeExists(job.getDestination())) {
+            // finished before the job was resumed
+            return;
+        }
+
+        session.move(job.getPath(), job.getDestination());
+        saveBatch(session, job, 1);
+    }
+
+    /**
+     * Version the destination of a copy or move, as a copy or move made in
+     * the request would be
+     */
+    private void destinationUpdated(final Session session, final JobImpl job) throws RepositoryException {
+        if (versionService != null) {
+            versionService.nodeUpdated(session, job.getDestination());
+        }
+    }
+
+    /**
+     * Add a node with the types and unprotected properties of another; a
+     * same-name sibling is added after those already copied
+     */
+    private static Node copyNode(final Node source, final Node parent, final String name)
+        throws RepositoryException {
+        final Node copy = parent.addNode(name, source.getPrimaryNodeType().getName());
+
+        for (final NodeType mixin : source.getMixinNodeTypes()) {
+            copy.addMixin(mixin.getName());
+        }
+
+        for (final PropertyIterator properties = source.getProperties(); properties.hasNext();) {
+            final Property property = properties.nextProperty();
+
+            if (property.getDefinition().isProtected()) {
+                continue;
+            }
+
+            // values, binary ones included, are shared rather than re-read
+            if (property.isMultiple()) {
+                copy.setProperty(property.getName(), property.getValues());
+            } else {
+                copy.setProperty(property.getName(), property.getValue());
+            }
+        }
+        return copy;
+    }
+
+    private static Node parentOf(final Session session, final String path) throws RepositoryException {
+        return session.getNode(parentPath(path));
+    }
+
+    private static String parentPath(final String path) {
+        final int slash = path.lastIndexOf('/');
+        return slash == 0 ? "/" : path.substring(0, slash);
+    }
+
+    private static String nameOf(final String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static String childPath(final String parentPath, final String name) {
+        return "/".equals(parentPath) ? "/" + name : parentPath + "/" + name;
+    }
+
+    /**
+     * The name of a node relative to its parent, with the index that tells
+     * same-name siblings apart
+     */
+    private static String relativePath(final Node node) throws RepositoryException {
+        return node.getIndex() > 1 ? node.getName() + "[" + node.getIndex() + "]" : node.getName();
+    }
+
+    private void saveBatch(final Session session, final JobImpl job, final int count)
+        throws RepositoryException, InterruptedException {
+        if (count == 0) {
+            return;
+        }
+        session.save();
+        job.processed(count);
+        processedCounter.inc(count);
+        checkpoint(job);
+
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    private static void removeWithReferences(final Node node) throws RepositoryException {
+        for (final PropertyIterator references = node.getReferences(); references.hasNext();) {
+            try {
+                references.nextProperty().remove();
+            } catch (final InvalidItemStateException e) {
+                LOGGER.trace("Reference to {} was removed earlier in this batch", node.getPath(), e);
+            }
+        }
+        node.remove();
+    }
+
+    /**
+     * Record the job's progress, so that it can be resumed
+     */
+    void checkpoint(final JobImpl job) {
+        if (checkpointDirectory == null) {
+            return;
+        }
+
+        final Properties properties = new Properties();
+        properties.setProperty("id", job.getId());
+        properties.setProperty("type", job.getType());
+        properties.setProperty("path", job.getPath());
+        properties.setProperty("workspace", job.getWorkspace());
+
+        if (job.getOwner() != null) {
+            properties.setProperty("owner", job.getOwner());
+        }
+        properties.setProperty("started", String.valueOf(job.getStarted().getTime()));
+        properties.setProperty("processed", String.valueOf(job.getProcessed()));
+
+        if (job.getDestination() != null) {
+            properties.setProperty("destination", job.getDestination());
+        }
+
+        if (job.getUserData() != null) {
+            properties.setProperty("userData", job.getUserData());
+        }
+
+        try {
+            final Path target = checkpointDirectory.toPath().resolve(job.getId() + CHECKPOINT_SUFFIX);
+            final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.createDirectories(checkpointDirectory.toPath());
+
+            try (final Writer writer = Files.newBufferedWriter(temp, UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(temp, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to checkpoint {}", job, e);
+        }
+    }
+
+    private void removeCheckpoint(final JobImpl job) {
+        if (checkpointDirectory == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(checkpointDirectory.toPath().resolve(job.getId() + CHECKPOINT_SUFFIX));
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to remove the checkpoint of {}", job, e);
+        }
+    }
+
+    /**
+     * Forget the jobs that finished longer ago than we retain them for, and
+     * the checkpoints of those that failed
+     */
+    private void expire() {
+        final long cutoff = currentTimeMillis() - MINUTES.toMillis(retainMinutes);
+
+        for (final Iterator<JobImpl> i = jobs.values().iterator(); i.hasNext();) {
+            final JobImpl job = i.next();
+            final Date finished = job.getFinished();
+
+            if (finished != null && finished.getTime() < cutoff) {
+                i.remove();
+                removeCheckpoint(job);
+            }
+        }
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            workers = newFixedThreadPool(threads,
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-jobs-%d").build());
+        }
+        return workers;
+    }
+
+    /**
+     * @param threads the number of jobs run at once
+     */
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param batchSize the number of nodes saved at a time
+     */
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param threshold the number of nodes in a subtree above which it is
+     *        copied or moved by a job
+     */
+    public void setThreshold(final int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param retainMinutes how long a finished job's status, and a failed
+     *        job's checkpoint, is kept
+     */
+    public void setRetainMinutes(final long retainMinutes) {
+        this.retainMinutes = retainMinutes;
+    }
+
+    /**
+     * @param checkpointDirectory where jobs record their progress, or null
+     *        to not record it
+     */
+    public void setCheckpointDirectory(final File checkpointDirectory) {
+        this.checkpointDirectory = checkpointDirectory;
+    }
+}
@@ -16,6 +16,7 @@
 package org.fcrepo.kernel.impl.services;
 
 import static com.google.common.collect.ImmutableSet.builder;
+import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.getVersion;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.getVersionHistory;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -88,8 +89,8 @@ public class NodeServiceImpl extends AbstractService implements NodeService {
      *
      * @param session a JCR session
      * @param path a JCR path
-     * @param versionId a JCR version label
-     * @return Fedora resource at the given path with the given version label
+     * @param versionId a JCR version label or the identifier of a frozen node
+     * @return Fedora resource at the given path with the given version, or null
      * @throws RepositoryException
      */
     @Override
@@ -101,11 +102,12 @@ public class NodeServiceImpl extends AbstractService implements NodeService {
             return null;
         }
 
-        if (!versionHistory.hasVersionLabel(versionId)) {
+        final Version version = getVersion(versionHistory, versionId);
+
+        if (version == null) {
             return null;
         }
 
-        final Version version = versionHistory.getVersionByLabel(versionId);
         return new FedoraResourceImpl(version.getFrozenNode());
     }
 
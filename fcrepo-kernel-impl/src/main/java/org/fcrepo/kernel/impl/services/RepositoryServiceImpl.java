@@ -53,6 +53,7 @@ import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.modeshape.jcr.api.Problems;
 import org.modeshape.jcr.api.RepositoryManager;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.codahale.metrics.Timer;
@@ -77,6 +78,9 @@ public class RepositoryServiceImpl extends AbstractService implements Repository
     private final Timer objectSizeCalculationTimer = getMetrics().timer(
             name(RepositoryService.class, "objectSizeCalculation"));
 
+    @Autowired(required = false)
+    private RepositoryStatistics statistics;
+
     /**
      * Calculate the total size of all the binary properties in the repository
      *
@@ -84,6 +88,10 @@ public class RepositoryServiceImpl extends AbstractService implements Repository
      */
     @Override
     public Long getRepositorySize() {
+        if (statistics != null) {
+            return statistics.getBinarySize();
+        }
+
         try {
 
             final Timer.Context context = objectSizeCalculationTimer.time();
@@ -109,6 +117,10 @@ public class RepositoryServiceImpl extends AbstractService implements Repository
      */
     @Override
     public Long getRepositoryObjectCount() {
+        if (statistics != null) {
+            return statistics.getObjectCount();
+        }
+
         try {
             return getRepositoryCount(repo);
         } catch (final RepositoryException e) {
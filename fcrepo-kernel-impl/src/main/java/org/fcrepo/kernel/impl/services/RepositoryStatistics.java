@@ -0,0 +1,575 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.services;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Throwables.propagate;
+import static java.lang.Long.parseLong;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.getProperty;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.jcr.observation.Event.NODE_ADDED;
+import static javax.jcr.observation.Event.NODE_MOVED;
+import static javax.jcr.observation.Event.NODE_REMOVED;
+import static javax.jcr.observation.Event.PROPERTY_ADDED;
+import static javax.jcr.observation.Event.PROPERTY_CHANGED;
+import static javax.jcr.observation.Event.PROPERTY_REMOVED;
+import static javax.jcr.query.Query.JCR_SQL2;
+import static org.fcrepo.jcr.FedoraJcrTypes.CONTENT_SIZE;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_BINARY;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_OBJECT;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.modeshape.jcr.api.JcrConstants.JCR_PATH;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.PathNotFoundException;
+import javax.jcr.Property;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Keeps the number of Fedora objects and the total size of the binaries in
+ * the repository, so that they can be reported without scanning the index.
+ *
+ * The paths of the objects and the sizes of the binaries are kept in a
+ * sorted ledger, which the JCR events for them keep up to date: a removed
+ * or moved subtree is found in the ledger by its path, and a changed size
+ * replaces the one it was counted with. A background thread recounts the
+ * ledger from the index once at start-up, and again, at most every
+ * fcrepo.statistics.reconcileSeconds seconds, if an event concerned a node
+ * that was already gone when it was looked at.
+ *
+ * The recount runs without holding back events. Those that arrive while it
+ * runs are applied to the current ledger and also kept, and when it is done
+ * the ones saved after it began are applied again to the recounted ledger;
+ * since each change sets what the ledger holds for a path, one that the
+ * index has already seen does not count twice. Events saved before the last
+ * recount began are skipped as already counted. The counters are also
+ * published as the metrics gauges objectCount and binarySize.
+ *
+ * @author agent
+ */
+@Component
+public class RepositoryStatistics implements EventListener {
+
+    private static final Logger LOGGER = getLogger(RepositoryStatistics.class);
+
+    public static final String OBJECT_COUNT_GAUGE = name(RepositoryStatistics.class, "objectCount");
+
+    public static final String BINARY_SIZE_GAUGE = name(RepositoryStatistics.class, "binarySize");
+
+    static final int EVENT_TYPES =
+            NODE_ADDED + NODE_REMOVED + NODE_MOVED + PROPERTY_ADDED + PROPERTY_CHANGED + PROPERTY_REMOVED;
+
+    private static final String SYSTEM_PATH = "/jcr:system";
+
+    private static final String SIZE_PROPERTY = "/" + CONTENT_SIZE;
+
+    private static final String SOURCE_PATH = "srcAbsPath";
+
+    @Inject
+    private Repository repository;
+
+    private long reconcileSeconds = parseLong(getProperty("fcrepo.statistics.reconcileSeconds", "600"));
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private volatile Future<?> initialCount;
+
+    private ScheduledExecutorService scheduler;
+
+    // it is used only to register and deregister this listener
+    private Session session;
+
+    // used to look up the nodes events concern, across batches of events
+    private Session lookupSession;
+
+    // held while events are looked up, so that batches are counted in order
+    private final Object lookupLock = new Object();
+
+    // held briefly to read or change the ledger, never while querying
+    private final Object countLock = new Object();
+
+    private Ledger ledger = new Ledger();
+
+    // changes saved before the last recount began are already in the ledger
+    private long recountStarted;
+
+    // while a recount runs: when it began, and the changes seen since then
+    private long pendingRecountStarted;
+
+    private List<Change> pendingChanges;
+
+    /**
+     * Start counting: register for events, then count what is already in the
+     * repository in the background
+     *
+     * @throws RepositoryException
+     */
+    @PostConstruct
+    public void init() throws RepositoryException {
+        session = repository.login();
+        session.getWorkspace().getObservationManager()
+                .addEventListener(this, EVENT_TYPES, "/", true, null, null, false);
+
+        scheduler = newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-statistics").build());
+
+        initialCount = scheduler.submit(new Callable<Void>() {
+
+            @Override
+            public Void call() throws RepositoryException {
+                try {
+                    reconcile();
+                } catch (final RepositoryException | RuntimeException e) {
+                    // try again on the next pass
+                    dirty.set(true);
+                    throw e;
+                }
+                return null;
+            }
+        });
+
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                if (dirty.get()) {
+                    try {
+                        reconcile();
+                    } catch (final RepositoryException | RuntimeException e) {
+                        LOGGER.warn("Unable to recount repository statistics", e);
+                    }
+                }
+            }
+        }, reconcileSeconds, reconcileSeconds, SECONDS);
+
+        getMetrics().remove(OBJECT_COUNT_GAUGE);
+        getMetrics().register(OBJECT_COUNT_GAUGE, new Gauge<Long>() {
+
+            @Override
+            public Long getValue() {
+                return getObjectCount();
+            }
+        });
+        getMetrics().remove(BINARY_SIZE_GAUGE);
+        getMetrics().register(BINARY_SIZE_GAUGE, new Gauge<Long>() {
+
+            @Override
+            public Long getValue() {
+                return getBinarySize();
+            }
+        });
+    }
+
+    /**
+     * Stop counting
+     *
+     * @throws RepositoryException
+     */
+    @PreDestroy
+    public void destroy() throws RepositoryException {
+        getMetrics().remove(OBJECT_COUNT_GAUGE);
+        getMetrics().remove(BINARY_SIZE_GAUGE);
+        scheduler.shutdownNow();
+        session.getWorkspace().getObservationManager().removeEventListener(this);
+        session.logout();
+
+        synchronized (lookupLock) {
+            if (lookupSession != null) {
+                lookupSession.logout();
+                lookupSession = null;
+            }
+        }
+    }
+
+    /**
+     * @return the number of fedora:object nodes
+     */
+    public long getObjectCount() {
+        awaitInitialCount();
+        synchronized (countLock) {
+            return ledger.objects.size();
+        }
+    }
+
+    /**
+     * @return the total size in bytes of the fedora:binary nodes
+     */
+    public long getBinarySize() {
+        awaitInitialCount();
+        synchronized (countLock) {
+            return ledger.binarySize;
+        }
+    }
+
+    /**
+     * Recount the statistics from the index
+     *
+     * @throws RepositoryException
+     */
+    public synchronized void reconcile() throws RepositoryException {
+        synchronized (countLock) {
+            dirty.set(false);
+            pendingRecountStarted = currentTimeMillis();
+            pendingChanges = new ArrayList<>();
+        }
+
+        LOGGER.debug("Recounting repository statistics from index");
+        Ledger recounted = null;
+        try {
+            recounted = recount();
+        } finally {
+            synchronized (countLock) {
+                if (recounted != null) {
+                    for (final Change change : pendingChanges) {
+                        if (change.date >= pendingRecountStarted) {
+                            change.applyTo(recounted);
+                        }
+                    }
+                    ledger = recounted;
+                    recountStarted = pendingRecountStarted;
+                } else {
+                    // try again on the next pass
+                    dirty.set(true);
+                }
+                pendingChanges = null;
+            }
+        }
+    }
+
+    private Ledger recount() throws RepositoryException {
+        final Session recountSession = repository.login();
+        try {
+            final QueryManager queryManager = recountSession.getWorkspace().getQueryManager();
+            final Ledger recounted = new Ledger();
+
+            for (final RowIterator rows = queryManager.createQuery(
+                    "SELECT [" + JCR_PATH + "] FROM [" + FEDORA_OBJECT + "]", JCR_SQL2).execute().getRows();
+                    rows.hasNext();) {
+                recounted.addObject(rows.nextRow().getPath());
+            }
+
+            for (final RowIterator rows = queryManager.createQuery(
+                    "SELECT [" + CONTENT_SIZE + "] FROM [" + FEDORA_BINARY + "]", JCR_SQL2).execute().getRows();
+                    rows.hasNext();) {
+                final Row row = rows.nextRow();
+                recounted.putBinary(row.getPath(), row.getValue(CONTENT_SIZE).getLong());
+            }
+
+            return recounted;
+        } finally {
+            recountSession.logout();
+        }
+    }
+
+    /**
+     * @return whether the counters are waiting to be recounted
+     */
+    boolean isDirty() {
+        return dirty.get();
+    }
+
+    @Override
+    public void onEvent(final EventIterator events) {
+        synchronized (lookupLock) {
+            countEvents(events);
+        }
+    }
+
+    private void countEvents(final EventIterator events) {
+        try {
+            if (lookupSession == null) {
+                lookupSession = repository.login();
+            } else {
+                lookupSession.refresh(false);
+            }
+
+            // a move may also be reported as the removal of its source and
+            // the addition of its destination, which the move itself covers
+            final List<Event> batch = new ArrayList<>();
+            final Set<String> moved = new HashSet<>();
+
+            while (events.hasNext()) {
+                final Event event = events.nextEvent();
+
+                if (event.getPath().startsWith(SYSTEM_PATH)) {
+                    continue;
+                }
+
+                batch.add(event);
+                if (event.getType() == NODE_MOVED) {
+                    final Object source = event.getInfo().get(SOURCE_PATH);
+                    moved.add(event.getPath());
+                    if (source != null) {
+                        moved.add(source.toString());
+                    }
+                }
+            }
+
+            for (final Event event : batch) {
+                if ((event.getType() == NODE_ADDED || event.getType() == NODE_REMOVED)
+                        && moved.contains(event.getPath())) {
+                    continue;
+                }
+
+                try {
+                    final Change change = changeOf(lookupSession, event);
+                    if (change != null) {
+                        record(change);
+                    }
+                } catch (final PathNotFoundException | ItemNotFoundException e) {
+                    LOGGER.trace("{} is already gone, recounting later", event.getPath());
+                    dirty.set(true);
+                }
+            }
+        } catch (final RepositoryException e) {
+            dirty.set(true);
+            if (lookupSession != null) {
+                lookupSession.logout();
+                lookupSession = null;
+            }
+            throw propagate(e);
+        }
+    }
+
+    private Change changeOf(final Session lookupSession, final Event event) throws RepositoryException {
+        final String path = event.getPath();
+        final long date = event.getDate();
+
+        switch (event.getType()) {
+            case NODE_ADDED:
+                if (lookupSession.getNode(path).isNodeType(FEDORA_OBJECT)) {
+                    return new Change(date, NODE_ADDED, path, null, 0);
+                }
+                return null;
+            case NODE_REMOVED:
+                return new Change(date, NODE_REMOVED, path, null, 0);
+            case NODE_MOVED:
+                // a reordering of siblings has no source path, and moves nothing
+                final Object source = event.getInfo().get(SOURCE_PATH);
+                return source == null ? null : new Change(date, NODE_MOVED, path, source.toString(), 0);
+            default:
+                if (!path.endsWith(SIZE_PROPERTY)) {
+                    return null;
+                }
+                final String binary = path.substring(0, path.length() - SIZE_PROPERTY.length());
+                if (event.getType() == PROPERTY_REMOVED) {
+                    return new Change(date, PROPERTY_REMOVED, binary, null, 0);
+                }
+                final Property size = lookupSession.getProperty(path);
+                if (size.getParent().isNodeType(FEDORA_BINARY)) {
+                    return new Change(date, PROPERTY_CHANGED, binary, null, size.getLong());
+                }
+                return null;
+        }
+    }
+
+    private void record(final Change change) {
+        synchronized (countLock) {
+            if (change.date < recountStarted) {
+                LOGGER.trace("{} was saved before the last recount", change.path);
+            } else {
+                change.applyTo(ledger);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        }
+    }
+
+    private void awaitInitialCount() {
+        final Future<?> count = initialCount;
+
+        if (count == null || count.isDone()) {
+            return;
+        }
+
+        try {
+            count.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw propagate(e);
+        } catch (final ExecutionException e) {
+            LOGGER.warn("Unable to count repository statistics", e.getCause());
+        }
+    }
+
+    /**
+     * @param repository
+     */
+    public void setRepository(final Repository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @param reconcileSeconds
+     */
+    public void setReconcileSeconds(final long reconcileSeconds) {
+        this.reconcileSeconds = reconcileSeconds;
+    }
+
+    /**
+     * A change to the ledger, which sets what it holds for a path rather
+     * than adjusting a count, so that applying it twice changes nothing
+     */
+    private static final class Change {
+
+        private final long date;
+
+        private final int type;
+
+        private final String path;
+
+        private final String source;
+
+        private final long size;
+
+        private Change(final long date, final int type, final String path, final String source,
+                final long size) {
+            this.date = date;
+            this.type = type;
+            this.path = path;
+            this.source = source;
+            this.size = size;
+        }
+
+        private void applyTo(final Ledger ledger) {
+            switch (type) {
+                case NODE_ADDED:
+                    ledger.addObject(path);
+                    break;
+                case NODE_REMOVED:
+                    ledger.removeTree(path);
+                    break;
+                case NODE_MOVED:
+                    ledger.moveTree(source, path);
+                    break;
+                case PROPERTY_REMOVED:
+                    ledger.removeBinary(path);
+                    break;
+                default:
+                    ledger.putBinary(path, size);
+            }
+        }
+    }
+
+    /**
+     * The paths of the objects and the sizes of the binaries by path, sorted
+     * so that the entries of a subtree are found together
+     */
+    private static final class Ledger {
+
+        private final NavigableSet<String> objects = new TreeSet<>();
+
+        private final NavigableMap<String, Long> binaries = new TreeMap<>();
+
+        private long binarySize;
+
+        private void addObject(final String path) {
+            objects.add(path);
+        }
+
+        private void putBinary(final String path, final long size) {
+            final Long old = binaries.put(path, size);
+            binarySize += size - (old == null ? 0 : old);
+        }
+
+        private void removeBinary(final String path) {
+            final Long old = binaries.remove(path);
+            if (old != null) {
+                binarySize -= old;
+            }
+        }
+
+        private void removeTree(final String path) {
+            objects.remove(path);
+            descendants(objects, path).clear();
+
+            removeBinary(path);
+            final NavigableMap<String, Long> removed = descendants(binaries, path);
+            for (final Long size : removed.values()) {
+                binarySize -= size;
+            }
+            removed.clear();
+        }
+
+        private void moveTree(final String source, final String destination) {
+            final List<String> movedObjects = new ArrayList<>();
+            if (objects.contains(source)) {
+                movedObjects.add(source);
+            }
+            movedObjects.addAll(descendants(objects, source));
+
+            final NavigableMap<String, Long> movedBinaries = new TreeMap<>(descendants(binaries, source));
+            if (binaries.containsKey(source)) {
+                movedBinaries.put(source, binaries.get(source));
+            }
+
+            removeTree(source);
+            for (final String path : movedObjects) {
+                addObject(destination + path.substring(source.length()));
+            }
+            for (final Map.Entry<String, Long> binary : movedBinaries.entrySet()) {
+                putBinary(destination + binary.getKey().substring(source.length()), binary.getValue());
+            }
+        }
+
+        // the paths beneath a path sort between its own path followed by
+        // '/' and followed by '0', the character after '/'
+        private static NavigableSet<String> descendants(final NavigableSet<String> paths, final String path) {
+            return paths.subSet(path + "/", true, path + "0", false);
+        }
+
+        private static NavigableMap<String, Long> descendants(final NavigableMap<String, Long> paths,
+                final String path) {
+            return paths.subMap(path + "/", true, path + "0", false);
+        }
+    }
+}
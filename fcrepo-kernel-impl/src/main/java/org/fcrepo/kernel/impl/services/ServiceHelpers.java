@@ -180,25 +180,27 @@ public abstract class ServiceHelpers {
     public static long getRepositorySize(final Repository repository)
         throws RepositoryException {
         final Session session = repository.login();
-        long sum = 0;
-        final QueryManager queryManager =
-            session.getWorkspace().getQueryManager();
-
-        final String querystring =
-                "SELECT [" + CONTENT_SIZE + "] FROM [" +
-                        FEDORA_BINARY + "]";
+        try {
+            long sum = 0;
+            final QueryManager queryManager =
+                session.getWorkspace().getQueryManager();
 
-        final QueryResult queryResults =
-            queryManager.createQuery(querystring, JCR_SQL2).execute();
+            final String querystring =
+                    "SELECT [" + CONTENT_SIZE + "] FROM [" +
+                            FEDORA_BINARY + "]";
 
-        for (final RowIterator rows = queryResults.getRows(); rows.hasNext();) {
-            final Value value =
-                    rows.nextRow().getValue(CONTENT_SIZE);
-            sum += value.getLong();
-        }
+            final QueryResult queryResults =
+                queryManager.createQuery(querystring, JCR_SQL2).execute();
 
-        session.logout();
+            for (final RowIterator rows = queryResults.getRows(); rows.hasNext();) {
+                final Value value =
+                        rows.nextRow().getValue(CONTENT_SIZE);
+                sum += value.getLong();
+            }
 
-        return sum;
+            return sum;
+        } finally {
+            session.logout();
+        }
     }
 }
@@ -20,12 +20,17 @@
 package org.fcrepo.kernel.impl.services;
 
 import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.slf4j.LoggerFactory.getLogger;
 
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Date;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
@@ -41,6 +46,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * This is part of the strawman implementation for Fedora transactions This
  * service implements a simple {@link Transaction} service which is able to
@@ -67,7 +74,23 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
      * be either persisted or written to a distributed map or sth, not just this
      * plain hashmap that follows
      */
-    private static Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+    private static ConcurrentMap<String, Transaction> transactions = new ConcurrentHashMap<>();
+
+    /**
+     * Deadlines of the open transactions, soonest first. A transaction's
+     * deadline is not moved each time its expiry is extended; instead, a
+     * deadline that turns out to have been extended is queued again when it
+     * falls due, so the reaper only ever touches transactions whose deadline
+     * has passed.
+     */
+    private static DelayQueue<Deadline> deadlines = new DelayQueue<>();
+
+    /**
+     * Expired transactions are rolled back here, so that one slow rollback
+     * does not hold up the reaper
+     */
+    private static ExecutorService rollbacks = newFixedThreadPool(2,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-tx-rollback-%d").build());
 
     public static final long REAP_INTERVAL = 1000;
 
@@ -83,24 +106,54 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
     @Override
     @Scheduled(fixedRate = REAP_INTERVAL)
     public void removeAndRollbackExpired() {
-        synchronized (transactions) {
-            final Iterator<Entry<String, Transaction>> txs =
-                    transactions.entrySet().iterator();
-            while (txs.hasNext()) {
-                final Transaction tx = txs.next().getValue();
-                if (tx.getExpires().getTime() <= currentTimeMillis()) {
-                    try {
-                        tx.rollback();
-                    } catch (final RepositoryException e) {
-                        LOGGER.error(
-                                "Got exception rolling back expired" +
-                                        " transaction {}: {}",
-                                        tx, e);
-                    }
-                    txs.remove();
-                }
+        for (Deadline deadline = deadlines.poll(); deadline != null; deadline = deadlines.poll()) {
+            final Transaction tx = transactions.get(deadline.txId);
+
+            if (tx == null) {
+                // already committed or rolled back
+                continue;
             }
+
+            final long expires = tx.getExpires().getTime();
+
+            if (expires > currentTimeMillis()) {
+                deadlines.add(new Deadline(deadline.txId, expires));
+            } else {
+                reap(tx);
+            }
+        }
+    }
+
+    /**
+     * Add a transaction to the registry and queue its deadline
+     * @param tx
+     */
+    static void register(final Transaction tx) {
+        transactions.put(tx.getId(), tx);
+        deadlines.add(new Deadline(tx.getId(), tx.getExpires().getTime()));
+    }
+
+    private static void reap(final Transaction tx) {
+        if (!transactions.remove(tx.getId(), tx)) {
+            return;
         }
+
+        rollbacks.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    tx.rollback();
+                } catch (final RepositoryException | RuntimeException e) {
+                    LOGGER.error("Got exception rolling back expired transaction {}: {}", tx, e);
+                }
+            }
+        });
+    }
+
+    private static boolean isExpired(final Transaction tx) {
+        final Date expires = tx.getExpires();
+        return expires != null && expires.getTime() <= currentTimeMillis();
     }
 
     /**
@@ -114,7 +167,7 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
         throws RepositoryException {
         final Transaction tx = new TransactionImpl(sess, userName);
         final String txId = tx.getId();
-        transactions.put(txId, tx);
+        register(tx);
         sess.setNamespacePrefix(FCREPO4_TX_ID, txId);
         return tx;
     }
@@ -130,6 +183,12 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
                     "Transaction is not available");
         }
 
+        if (isExpired(tx)) {
+            reap(tx);
+            throw new TransactionMissingException(
+                    "Transaction has expired");
+        }
+
         if (!tx.isAssociatedWithUser(userName)) {
             throw new TransactionMissingException("Transaction with id " +
                         txId + " is not available for user " + userName);
@@ -161,6 +220,12 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
                     "Transaction is not available");
         }
 
+        if (isExpired(tx)) {
+            reap(tx);
+            throw new TransactionMissingException(
+                    "Transaction has expired");
+        }
+
         return tx;
     }
 
@@ -236,4 +301,28 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
         this.versionService = versionService;
     }
 
+    /**
+     * The time at which a transaction was last known to expire
+     */
+    private static class Deadline implements Delayed {
+
+        private final String txId;
+
+        private final long expires;
+
+        Deadline(final String txId, final long expires) {
+            this.txId = txId;
+            this.expires = expires;
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(expires - currentTimeMillis(), MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            return Long.compare(getDelay(MILLISECONDS), other.getDelay(MILLISECONDS));
+        }
+    }
 }
@@ -23,6 +23,8 @@ import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.jcr.Node;
 import javax.jcr.PathNotFoundException;
 import javax.jcr.Property;
@@ -32,14 +34,30 @@ import javax.jcr.Workspace;
 import javax.jcr.version.Version;
 import javax.jcr.version.VersionException;
 import javax.jcr.version.VersionHistory;
-import javax.jcr.version.VersionIterator;
 import javax.jcr.version.VersionManager;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import static com.codahale.metrics.MetricRegistry.name;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.getProperty;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.fcrepo.kernel.impl.services.TransactionServiceImpl.getCurrentTransactionId;
+import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.getVersion;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.propertyContains;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -47,6 +65,15 @@ import static org.slf4j.LoggerFactory.getLogger;
  * the JCR VersionManager methods, this provides a level of indirection that
  * allows for special handling of features built on top of JCR such as user
  * transactions.
+ *
+ * Automatic versions may be coalesced: when fcrepo.autoversion.quietMillis
+ * is positive, the checkpoint for an updated node is taken in the
+ * background once the node has gone that long without another update, so
+ * a burst of writes yields one version rather than one per write. A node
+ * that never goes quiet is still versioned once its first coalesced update
+ * is fcrepo.autoversion.maxDelayMillis old. A failed checkpoint is retried
+ * up to fcrepo.autoversion.retries times. Within a
+ * transaction, paths are already collected and versioned once on commit.
  * @author Mike Durbin
  */
 
@@ -61,9 +88,72 @@ public class VersionServiceImpl extends AbstractService implements VersionServic
 
     protected static final String AUTO_VERSION = "auto-version";
 
+    static final String PENDING_GAUGE = name(VersionService.class, "auto-version-pending");
+
+    static final String WINDOW_GAUGE = name(VersionService.class, "auto-version-window");
+
+    static final Histogram lagHistogram = getMetrics().histogram(name(VersionService.class, "auto-version-lag"));
+
+    static final Counter coalescedCounter = getMetrics().counter(name(VersionService.class, "auto-version-coalesced"));
+
+    static final Counter failedCounter = getMetrics().counter(name(VersionService.class, "auto-version-failed"));
+
     @Autowired
     private TransactionService txService;
 
+    private long quietMillis = parseLong(getProperty("fcrepo.autoversion.quietMillis", "0"));
+
+    private long maxDelayMillis = parseLong(getProperty("fcrepo.autoversion.maxDelayMillis", "60000"));
+
+    private int retries = parseInt(getProperty("fcrepo.autoversion.retries", "3"));
+
+    private final ConcurrentMap<String, PendingCheckpoint> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService checkpointer;
+
+    /**
+     * Report the coalescing window and the checkpoints waiting on it
+     */
+    @PostConstruct
+    public void registerGauges() {
+        getMetrics().remove(PENDING_GAUGE);
+        getMetrics().register(PENDING_GAUGE, new Gauge<Integer>() {
+
+            @Override
+            public Integer getValue() {
+                return pending.size();
+            }
+        });
+        getMetrics().remove(WINDOW_GAUGE);
+        getMetrics().register(WINDOW_GAUGE, new Gauge<Long>() {
+
+            @Override
+            public Long getValue() {
+                return quietMillis;
+            }
+        });
+    }
+
+    /**
+     * Take the checkpoints still waiting for their window to close, so that
+     * none is lost when the repository stops
+     */
+    @PreDestroy
+    public void flush() {
+        synchronized (this) {
+            if (checkpointer != null) {
+                checkpointer.shutdownNow();
+                checkpointer = null;
+            }
+        }
+
+        for (final PendingCheckpoint checkpoint : pending.values()) {
+            if (claim(checkpoint)) {
+                takeCheckpoint(checkpoint);
+            }
+        }
+    }
+
     /**
      * Notifies the version manager that the node at a given path was updated
      * so that if automatic versioning is set for that node, a version
@@ -159,28 +249,9 @@ public class VersionServiceImpl extends AbstractService implements VersionServic
     }
 
 
-    private Version getVersionForLabel(final Workspace workspace, final String absPath,
+    private static Version getVersionForLabel(final Workspace workspace, final String absPath,
                                        final String label) throws RepositoryException {
-        // first see if there's a version label
-        final VersionHistory history = workspace.getVersionManager().getVersionHistory(absPath);
-
-        if (history.hasVersionLabel(label)) {
-            return history.getVersionByLabel(label);
-        } else {
-            // there was no version with the given JCR Version Label, check to see if
-            // there's a version whose UUID is equal to the label
-            final VersionIterator versionIt = history.getAllVersions();
-            if (versionIt == null) {
-                return null;
-            }
-            while (versionIt.hasNext()) {
-                final Version v = versionIt.nextVersion();
-                if (v.getFrozenNode().getIdentifier().equals(label)) {
-                    return v;
-                }
-            }
-        }
-        return null;
+        return getVersion(workspace.getVersionManager().getVersionHistory(absPath), label);
     }
 
     private static boolean isVersioningEnabled(final Node n) throws RepositoryException {
@@ -203,10 +274,127 @@ public class VersionServiceImpl extends AbstractService implements VersionServic
     private void queueOrCommitCheckpoint(final Session session, final String absPath) throws RepositoryException {
         final String txId = getCurrentTransactionId(session);
 
-        if (txId == null) {
-            checkpoint(session.getWorkspace(), absPath);
-        } else {
+        if (txId != null) {
             queueCheckpoint(session, absPath);
+        } else if (quietMillis > 0) {
+            deferCheckpoint(session.getWorkspace().getName(), absPath);
+        } else {
+            checkpoint(session.getWorkspace(), absPath);
+        }
+    }
+
+    private void deferCheckpoint(final String workspace, final String absPath) {
+        final long now = currentTimeMillis();
+        final PendingCheckpoint checkpoint = new PendingCheckpoint(workspace, absPath, now);
+
+        while (true) {
+            final PendingCheckpoint existing = pending.putIfAbsent(checkpoint.key, checkpoint);
+
+            if (existing == null) {
+                LOGGER.trace("Deferring implicit version checkpoint for {}", absPath);
+                schedule(checkpoint, quietMillis);
+                return;
+            }
+
+            synchronized (existing) {
+                // a claimed checkpoint may already have read the node, so
+                // this update needs a checkpoint of its own
+                if (!existing.claimed) {
+                    LOGGER.trace("Coalescing implicit version checkpoint for {}", absPath);
+                    existing.lastUpdate = now;
+                    coalescedCounter.inc();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Take a pending checkpoint out of the map, so that no later update is
+     * coalesced into it
+     *
+     * @return whether the checkpoint was still pending
+     */
+    private boolean claim(final PendingCheckpoint checkpoint) {
+        synchronized (checkpoint) {
+            if (checkpoint.claimed || !pending.remove(checkpoint.key, checkpoint)) {
+                return false;
+            }
+            checkpoint.claimed = true;
+            return true;
+        }
+    }
+
+    private synchronized void schedule(final PendingCheckpoint checkpoint, final long delay) {
+        if (checkpointer == null) {
+            checkpointer = newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-autoversion-%d").build());
+        }
+
+        checkpointer.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                runCheckpoint(checkpoint);
+            }
+        }, delay, MILLISECONDS);
+    }
+
+    private void runCheckpoint(final PendingCheckpoint checkpoint) {
+        synchronized (checkpoint) {
+            final long now = currentTimeMillis();
+            final long quiet = now - checkpoint.lastUpdate;
+            final long age = now - checkpoint.firstUpdate;
+
+            if (!checkpoint.claimed && quiet < quietMillis && age < maxDelayMillis) {
+                schedule(checkpoint, Math.min(quietMillis - quiet, maxDelayMillis - age));
+                return;
+            }
+        }
+
+        if (!claim(checkpoint) || takeCheckpoint(checkpoint)) {
+            return;
+        }
+
+        if (checkpoint.attempts > retries) {
+            failedCounter.inc();
+            LOGGER.error("Giving up on implicit version checkpoint for {} after {} attempts",
+                    checkpoint.path, checkpoint.attempts);
+            return;
+        }
+
+        synchronized (checkpoint) {
+            checkpoint.claimed = false;
+
+            if (pending.putIfAbsent(checkpoint.key, checkpoint) != null) {
+                // a later update is pending, and its checkpoint covers this one
+                checkpoint.claimed = true;
+                LOGGER.debug("Implicit version checkpoint for {} superseded by a later update", checkpoint.path);
+                return;
+            }
+        }
+        schedule(checkpoint, quietMillis * checkpoint.attempts);
+    }
+
+    private boolean takeCheckpoint(final PendingCheckpoint checkpoint) {
+        checkpoint.attempts++;
+
+        try {
+            final Session session = repo.login(checkpoint.workspace);
+
+            try {
+                checkpoint(session.getWorkspace(), checkpoint.path);
+            } finally {
+                session.logout();
+            }
+            lagHistogram.update(currentTimeMillis() - checkpoint.firstUpdate);
+            return true;
+        } catch (final PathNotFoundException e) {
+            LOGGER.debug("Node {} was removed before its implicit version checkpoint", checkpoint.path);
+            return true;
+        } catch (final RepositoryException | RuntimeException e) {
+            LOGGER.warn("Implicit version checkpoint for {} failed", checkpoint.path, e);
+            return false;
         }
     }
 
@@ -260,4 +448,33 @@ public class VersionServiceImpl extends AbstractService implements VersionServic
     public void setTxService(final TransactionService txService) {
         this.txService = txService;
     }
+
+    /**
+     * A checkpoint waiting for updates to a node to quiet down
+     */
+    private static class PendingCheckpoint {
+
+        private final String key;
+
+        private final String workspace;
+
+        private final String path;
+
+        private final long firstUpdate;
+
+        private volatile long lastUpdate;
+
+        // guarded by the checkpoint itself
+        private boolean claimed;
+
+        private int attempts;
+
+        private PendingCheckpoint(final String workspace, final String path, final long firstUpdate) {
+            this.key = workspace + ":" + path;
+            this.workspace = workspace;
+            this.path = path;
+            this.firstUpdate = firstUpdate;
+            this.lastUpdate = firstUpdate;
+        }
+    }
 }
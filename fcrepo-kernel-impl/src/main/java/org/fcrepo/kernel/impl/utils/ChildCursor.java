@@ -0,0 +1,229 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.utils;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.io.BaseEncoding.base64Url;
+import static javax.jcr.PropertyType.NAME;
+import static javax.jcr.query.Query.JCR_SQL2;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.query.Query;
+
+import org.fcrepo.kernel.utils.iterators.NodeIterator;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Timer;
+
+/**
+ * Continuation-token paging over the children of a container. Children are
+ * retrieved in name order by a JCR-SQL2 query, starting just after the child
+ * named by an opaque token. The repository configurations declare the
+ * ordered "nodesByName" index on node names, from which the query engine
+ * can answer the constraint that names follow the token in name order,
+ * instead of scanning and sorting all of the container's children for each
+ * page. A page takes one row more than it holds from the results, to find
+ * the next token; the "child-page" timer records what a page costs.
+ *
+ * @author agent
+ */
+public final class ChildCursor {
+
+    private static final Logger LOGGER = getLogger(ChildCursor.class);
+
+    private static final String AFTER_VARIABLE = "after";
+
+    static final Timer pageTimer = getMetrics().timer(name(ChildCursor.class, "child-page"));
+
+    private ChildCursor() {
+    }
+
+    /**
+     * Encode a child node name as an opaque continuation token
+     * @param childName
+     * @return continuation token
+     */
+    public static String encodeToken(final String childName) {
+        return base64Url().omitPadding().encode(childName.getBytes(UTF_8));
+    }
+
+    /**
+     * Decode a continuation token back into the child node name it marks
+     * @param token
+     * @return child node name, or null if the token marks the first page
+     */
+    public static String decodeToken(final String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new String(base64Url().omitPadding().decode(token), UTF_8);
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+
+    /**
+     * Get the children of a node following the child marked by the
+     * continuation token, in name order
+     * @param parent
+     * @param token continuation token; null or empty for the first page
+     * @param limit maximum number of children, or a negative value for all
+     * @return children following the token
+     * @throws RepositoryException
+     */
+    public static Iterator<Node> childrenAfter(final Node parent,
+                                               final String token,
+                                               final int limit) throws RepositoryException {
+        return new NodeIterator(childQuery(parent, token, limit).execute().getNodes());
+    }
+
+    /**
+     * Get one page of the children of a node following the child marked by
+     * the continuation token, together with the token for the next page.
+     * Both come from a single query for one child more than the page holds.
+     * @param parent
+     * @param token continuation token; null or empty for the first page
+     * @param limit size of the page
+     * @return the page of children
+     * @throws RepositoryException
+     */
+    public static Page page(final Node parent,
+                            final String token,
+                            final int limit) throws RepositoryException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("A page of children needs a limit");
+        }
+
+        final Timer.Context context = pageTimer.time();
+
+        try {
+            final javax.jcr.NodeIterator results =
+                childQuery(parent, token, limit + 1).execute().getNodes();
+
+            final List<Node> children = new ArrayList<>(limit);
+
+            while (results.hasNext() && children.size() < limit) {
+                children.add(results.nextNode());
+            }
+
+            final String next;
+
+            if (results.hasNext() && !children.isEmpty()) {
+                next = encodeToken(children.get(children.size() - 1).getName());
+            } else {
+                next = null;
+            }
+
+            return new Page(children, next);
+        } finally {
+            context.stop();
+        }
+    }
+
+    /**
+     * Get the continuation token for the page following the page of
+     * children that starts after the given token.
+     * @param parent
+     * @param token continuation token of the current page
+     * @param limit size of the current page
+     * @return continuation token for the next page, or null if this is the
+     *         last page
+     * @throws RepositoryException
+     */
+    public static String nextToken(final Node parent,
+                                   final String token,
+                                   final int limit) throws RepositoryException {
+        if (limit < 0) {
+            return null;
+        }
+
+        return page(parent, token, limit).getNextToken();
+    }
+
+    private static Query childQuery(final Node parent,
+                                    final String token,
+                                    final int limit) throws RepositoryException {
+        final String after = decodeToken(token);
+
+        final StringBuilder statement = new StringBuilder("SELECT child.[jcr:name] FROM [nt:base] AS child")
+                .append(" WHERE ISCHILDNODE(child, [").append(parent.getPath()).append("])")
+                .append(" AND NAME(child) <> '").append(JCR_CONTENT).append("'");
+
+        if (after != null) {
+            statement.append(" AND NAME(child) > $").append(AFTER_VARIABLE);
+        }
+
+        statement.append(" ORDER BY NAME(child)");
+
+        LOGGER.trace("Paging children of {} with query: {}", parent, statement);
+
+        final Query query = parent.getSession().getWorkspace().getQueryManager()
+                .createQuery(statement.toString(), JCR_SQL2);
+
+        if (after != null) {
+            query.bindValue(AFTER_VARIABLE, parent.getSession().getValueFactory().createValue(after, NAME));
+        }
+
+        if (limit >= 0) {
+            query.setLimit(limit);
+        }
+
+        return query;
+    }
+
+    /**
+     * A page of children and the continuation token that follows it
+     */
+    public static final class Page {
+
+        private final List<Node> children;
+
+        private final String nextToken;
+
+        private Page(final List<Node> children, final String nextToken) {
+            this.children = Collections.unmodifiableList(children);
+            this.nextToken = nextToken;
+        }
+
+        /**
+         * Get the children on this page, in name order
+         * @return children
+         */
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        /**
+         * Get the continuation token for the following page
+         * @return continuation token, or null if this is the last page
+         */
+        public String getNextToken() {
+            return nextToken;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
 import org.slf4j.Logger;
 
+import javax.jcr.ItemNotFoundException;
 import javax.jcr.Node;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
@@ -34,6 +35,7 @@ import javax.jcr.Value;
 import javax.jcr.nodetype.NodeType;
 import javax.jcr.nodetype.NodeTypeManager;
 import javax.jcr.nodetype.PropertyDefinition;
+import javax.jcr.version.Version;
 import javax.jcr.version.VersionHistory;
 import java.util.Collection;
 import java.util.Iterator;
@@ -375,6 +377,44 @@ public abstract class FedoraTypesUtils implements FedoraJcrTypes {
                 path);
     }
 
+    /**
+     * Get the version in a history identified either by a JCR version label
+     * or by the identifier of its frozen node, as versions created without a
+     * label are addressed. Both are resolved through the repository's own
+     * indexes, so neither lookup walks the history.
+     *
+     * @param history
+     * @param label a version label or frozen node identifier
+     * @return the version, or null if the history has no such version
+     * @throws RepositoryException
+     */
+    public static Version getVersion(final VersionHistory history,
+            final String label) throws RepositoryException {
+        if (history.hasVersionLabel(label)) {
+            return history.getVersionByLabel(label);
+        }
+
+        final Node frozenNode;
+        try {
+            frozenNode = history.getSession().getNodeByIdentifier(label);
+        } catch (final ItemNotFoundException e) {
+            LOGGER.trace("No version labelled {} and no node with that identifier", label);
+            return null;
+        }
+
+        if (!frozenNode.isNodeType(FROZEN_NODE)) {
+            return null;
+        }
+
+        // a frozen node is the child of its version, which is a child of
+        // its history
+        final Node version = frozenNode.getParent();
+        if (!version.getParent().isSame(history)) {
+            return null;
+        }
+        return history.getVersion(version.getName());
+    }
+
     /**
      * Check if the property contains the given string value
      * 
@@ -15,20 +15,26 @@
  */
 package org.fcrepo.kernel.impl.utils;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
 import java.io.InputStream;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.util.List;
 
 import org.apache.commons.io.input.CountingInputStream;
 
 /**
- * An InputStream wrapper that calculates the size and digest
+ * An InputStream wrapper that calculates the size and digests
  * while reading from the stream.
  * @author Chris Beer
  * @since Mar 12, 2013
  */
 public class FixityInputStream extends CountingInputStream {
 
+    private final List<MessageDigest> digests;
+
     /**
      * Creates a <code>FilterInputStream</code> by assigning the
      * argument <code>in</code> to the field <code>this.in</code>
@@ -38,7 +44,18 @@ public class FixityInputStream extends CountingInputStream {
      *           this instance is to be created without an underlying stream.
      */
     public FixityInputStream(final InputStream in, final MessageDigest digest) {
-        super(new DigestInputStream(in, digest));
+        this(in, new MessageDigest[] { digest });
+    }
+
+    /**
+     * Calculate several digests in the one pass over the stream
+     *
+     * @param in the underlying input stream
+     * @param digests at least one digest
+     */
+    public FixityInputStream(final InputStream in, final MessageDigest... digests) {
+        super(digesting(in, digests));
+        this.digests = unmodifiableList(asList(digests));
     }
 
     /**
@@ -46,7 +63,27 @@ public class FixityInputStream extends CountingInputStream {
      * @return digest for this input stream
      */
     public MessageDigest getMessageDigest() {
-        return ((DigestInputStream) in).getMessageDigest();
+        return digests.get(0);
     }
 
+    /**
+     * Retrieve all the calculated digests for the input stream
+     * @return digests for this input stream, in the order given
+     */
+    public List<MessageDigest> getMessageDigests() {
+        return digests;
+    }
+
+    private static InputStream digesting(final InputStream in, final MessageDigest... digests) {
+        if (digests.length == 0) {
+            throw new IllegalArgumentException("At least one digest is required");
+        }
+
+        InputStream digesting = in;
+
+        for (final MessageDigest digest : digests) {
+            digesting = new DigestInputStream(digesting, digest);
+        }
+        return digesting;
+    }
 }
@@ -16,9 +16,13 @@
 package org.fcrepo.kernel.impl.utils;
 
 import org.modeshape.connector.filesystem.FileSystemConnector;
+import org.modeshape.jcr.value.binary.BinaryFileUtils;
+import org.modeshape.jcr.value.binary.UrlBinaryValue;
 
+import javax.jcr.Binary;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
+import java.io.File;
 
 /**
  * Cache entry for a projected binary
@@ -40,4 +44,18 @@ public class ProjectedCacheEntry extends BinaryCacheEntry {
         return "/" + FileSystemConnector.class.getName() + ":projections:" + property().getPath();
     }
 
+    /**
+     * Get the projected file behind this entry
+     * @return the file, or null if the binary is not projected from a local file
+     * @throws RepositoryException
+     */
+    public File getFile() throws RepositoryException {
+        final Binary binary = property().getBinary();
+
+        if (binary instanceof UrlBinaryValue) {
+            return BinaryFileUtils.fileFor((UrlBinaryValue) binary);
+        }
+        return null;
+    }
+
 }
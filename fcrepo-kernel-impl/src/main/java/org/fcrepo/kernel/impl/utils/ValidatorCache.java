@@ -0,0 +1,274 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.utils;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static javax.jcr.observation.Event.NODE_ADDED;
+import static javax.jcr.observation.Event.NODE_MOVED;
+import static javax.jcr.observation.Event.NODE_REMOVED;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.observation.Event;
+
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A cache of the HTTP validators (ETag and last-modified date) of resources,
+ * keyed by node path, so that conditional requests can be answered without
+ * loading the node. Entries are invalidated by the JCR events the
+ * {@link org.fcrepo.kernel.impl.observer.SimpleObserver} receives.
+ *
+ * Because events arrive some time after the session that caused them was
+ * saved, the HTTP write handlers also invalidate the paths they change as
+ * soon as they have saved, and every invalidation advances a generation
+ * counter; validators computed before an invalidation are refused rather
+ * than cached.
+ *
+ * @author agent
+ */
+@Component
+public class ValidatorCache {
+
+    private static final Logger LOGGER = getLogger(ValidatorCache.class);
+
+    static final Counter HIT_COUNTER = getMetrics().counter(name(ValidatorCache.class, "hits"));
+
+    static final Counter MISS_COUNTER = getMetrics().counter(name(ValidatorCache.class, "misses"));
+
+    private static final String SOURCE_PATH = "srcAbsPath";
+
+    private static final int DEFAULT_SIZE = parseInt(getProperty("fcrepo.validator.cache.size", "10000"));
+
+    private final Cache<String, Validators> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Default constructor
+     */
+    public ValidatorCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Create a cache holding validators for at most the given number of paths
+     * @param maximumSize
+     */
+    public ValidatorCache(final long maximumSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * The current generation, to be read before computing validators that
+     * will be offered to {@link #put}
+     * @return generation
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Get the cached validators for a path
+     * @param path
+     * @return validators, or null if none are cached
+     */
+    public Validators get(final String path) {
+        final Validators validators = cache.getIfPresent(path);
+
+        if (validators == null) {
+            MISS_COUNTER.inc();
+        } else {
+            HIT_COUNTER.inc();
+        }
+        return validators;
+    }
+
+    /**
+     * Are validators cached for a path?
+     * @param path
+     * @return boolean
+     */
+    public boolean contains(final String path) {
+        return cache.getIfPresent(path) != null;
+    }
+
+    /**
+     * Cache the validators for a path, unless an invalidation has happened
+     * since they were computed
+     * @param path
+     * @param since the generation read before the validators were computed
+     * @param etag
+     * @param lastModified
+     */
+    public void put(final String path, final long since, final String etag, final Date lastModified) {
+        if (etag == null || etag.isEmpty() || lastModified == null) {
+            return;
+        }
+
+        synchronized (generation) {
+            if (generation.get() == since) {
+                cache.put(path, new Validators(etag, lastModified));
+            }
+        }
+    }
+
+    /**
+     * Invalidate the validators for the nodes touched by some JCR events
+     * @param events
+     */
+    public void invalidate(final Iterator<Event> events) {
+        synchronized (generation) {
+            generation.incrementAndGet();
+
+            while (events.hasNext()) {
+                final Event event = events.next();
+
+                try {
+                    invalidate(event);
+                } catch (final RepositoryException e) {
+                    LOGGER.warn("Unable to read the path of {}, dropping all cached validators", event, e);
+                    cache.invalidateAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidate the validators for a node that has just been saved, for
+     * its parent and for everything beneath it, without waiting for the
+     * JCR events to arrive
+     * @param path
+     */
+    public void invalidate(final String path) {
+        synchronized (generation) {
+            generation.incrementAndGet();
+            invalidateTree(path);
+            cache.invalidate(parentOf(path));
+        }
+    }
+
+    /**
+     * Invalidate every cached validator, as when a transaction whose
+     * changes are not known path by path has been committed
+     */
+    public void invalidateAll() {
+        synchronized (generation) {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+
+    private void invalidate(final Event event) throws RepositoryException {
+        final String path = event.getPath();
+
+        if (path == null) {
+            return;
+        }
+
+        final String parent = parentOf(path);
+
+        switch (event.getType()) {
+            case NODE_ADDED:
+                cache.invalidate(path);
+                cache.invalidate(parent);
+                break;
+            case NODE_MOVED:
+                final Object source = event.getInfo().get(SOURCE_PATH);
+                if (source != null) {
+                    invalidateTree(source.toString());
+                    cache.invalidate(parentOf(source.toString()));
+                }
+                invalidateTree(path);
+                cache.invalidate(parent);
+                break;
+            case NODE_REMOVED:
+                invalidateTree(path);
+                cache.invalidate(parent);
+                break;
+            default:
+                // property events are reported against the property path, and
+                // a change to a content node is a change to its datastream
+                cache.invalidate(parent);
+                if (parent.endsWith("/" + JCR_CONTENT)) {
+                    cache.invalidate(parentOf(parent));
+                }
+        }
+    }
+
+    private void invalidateTree(final String path) {
+        final String prefix = path + "/";
+
+        cache.invalidate(path);
+
+        for (final Iterator<String> keys = cache.asMap().keySet().iterator(); keys.hasNext();) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    private static String parentOf(final String path) {
+        final int i = path.lastIndexOf('/');
+        return i > 0 ? path.substring(0, i) : "/";
+    }
+
+    /**
+     * The ETag and last-modified date of a resource
+     */
+    public static class Validators {
+
+        private final String etag;
+
+        private final long lastModified;
+
+        /**
+         * @param etag
+         * @param lastModified
+         */
+        public Validators(final String etag, final Date lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified.getTime();
+        }
+
+        /**
+         * @return the ETag value
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return the last-modified date
+         */
+        public Date getLastModified() {
+            return new Date(lastModified);
+        }
+    }
+}
@@ -37,6 +37,7 @@ import java.util.Collection;
 import java.util.Set;
 
 import static org.apache.commons.io.output.NullOutputStream.NULL_OUTPUT_STREAM;
+import static org.fcrepo.kernel.impl.utils.infinispan.CacheLoaderChunkInputStream.DEFAULT_READ_AHEAD;
 
 /**
  * Infinispan DistributedCallable for checking the fixity of a binary key in every cache loader
@@ -69,7 +70,7 @@ public class DistributedFixityCheck implements DistributedCallable<String, byte[
             final String digest = ContentDigest.getAlgorithm(new URI("urn:sha1"));
 
             final InputStream cacheLoaderChunkInputStream = new CacheLoaderChunkInputStream(
-                    store, dataKey, chunkSize, length);
+                    store, dataKey, chunkSize, length, DEFAULT_READ_AHEAD);
 
             final FixityInputStream fixityInputStream = new FixityInputStream(
                     cacheLoaderChunkInputStream, MessageDigest.getInstance(digest));
@@ -15,10 +15,12 @@
  */
 package org.fcrepo.kernel.impl.utils.impl;
 
+import org.modeshape.jcr.value.binary.BinaryFileUtils;
 import org.modeshape.jcr.value.binary.FileSystemBinaryStore;
 
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
+import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -49,4 +51,13 @@ public class FileSystemBinaryStoreEntry extends LocalBinaryStoreEntry {
         }
     }
 
+    /**
+     * Get the file in which the store keeps this entry
+     * @return the file, or null if it cannot be found
+     * @throws RepositoryException
+     */
+    public File getFile() throws RepositoryException {
+        return BinaryFileUtils.fileFor((FileSystemBinaryStore)store(), binaryKey());
+    }
+
 }
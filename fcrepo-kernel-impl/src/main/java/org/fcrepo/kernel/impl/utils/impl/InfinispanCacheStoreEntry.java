@@ -16,7 +16,6 @@
 package org.fcrepo.kernel.impl.utils.impl;
 
 import static com.google.common.base.Throwables.propagate;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.fcrepo.kernel.utils.FixityResult.FixityState.BAD_CHECKSUM;
 import static org.fcrepo.kernel.utils.FixityResult.FixityState.BAD_SIZE;
 import static org.fcrepo.kernel.utils.FixityResult.FixityState.MISSING_STORED_FIXITY;
@@ -37,11 +36,9 @@ import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 import java.net.URI;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeoutException;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -76,23 +73,19 @@ public class InfinispanCacheStoreEntry extends LocalBinaryStoreEntry {
             final List<Future<Collection<FixityResult>>> futures
                 = clusterExecutor().submitEverywhere(task, dataKey + "-0");
 
-            while (!futures.isEmpty()) {
-                final Iterator<Future<Collection<FixityResult>>> iterator = futures.iterator();
-                while (iterator.hasNext()) {
-                    final Future<Collection<FixityResult>> future = iterator.next();
-                    try {
-                        final Collection<FixityResult> result = future.get(100, MILLISECONDS);
-                        iterator.remove();
-                        for (final FixityResult fixityResult : result) {
-                            setFixityStatus(fixityResult, size, checksum);
-                        }
-
-                        fixityResults.addAll(result);
-                    } catch (final TimeoutException e) {
-                        LOGGER.trace("Going to retry cluster transform after timeout", e);
-                    } catch (InterruptedException | ExecutionException e) {
-                        throw propagate(e);
+            // the checks run concurrently on every node, so waiting on each
+            // in turn takes as long as the slowest of them
+            for (final Future<Collection<FixityResult>> future : futures) {
+                try {
+                    final Collection<FixityResult> result = future.get();
+                    LOGGER.trace("Received fixity results for {}: {}", dataKey, result);
+                    for (final FixityResult fixityResult : result) {
+                        setFixityStatus(fixityResult, size, checksum);
                     }
+
+                    fixityResults.addAll(result);
+                } catch (final InterruptedException | ExecutionException e) {
+                    throw propagate(e);
                 }
             }
         }
@@ -15,28 +15,65 @@
  */
 package org.fcrepo.kernel.impl.utils.infinispan;
 
+import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.persistence.spi.CacheLoader;
 import org.modeshape.common.logging.Logger;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.google.common.base.Throwables.propagate;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
+ * Reads a binary directly out of the chunks an Infinispan cache loader
+ * holds for it.
+ *
+ * With a read-ahead depth greater than zero, the loads of the chunks after
+ * the one being read are started on an executor, so that reading is bound
+ * by the store's bandwidth rather than by the latency of each load. At most
+ * that many chunks are held in memory besides the current one.
+ *
  * @author cabeer
  */
 public class CacheLoaderChunkInputStream extends InputStream {
 
     private static final Logger LOGGER = Logger.getLogger(CacheLoaderChunkInputStream.class);
 
+    /**
+     * The number of chunks loaded ahead of the reader by default
+     */
+    public static final int DEFAULT_READ_AHEAD = parseInt(getProperty("fcrepo.chunk.readahead", "4"));
+
+    private static final int PREFETCH_THREADS = parseInt(getProperty("fcrepo.chunk.prefetch.threads", "8"));
+
+    private static ExecutorService prefetchExecutor;
+
     private final CacheLoader<String, byte[]> blobCache;
     private final String key;
     private final int chunkSize;
     private final long totalSize;
     private final int chunksCount;
+    private final int readAhead;
+    private final ExecutorService executor;
+    private final Deque<Future<byte[]>> prefetched;
 
     protected int indexInBuffer;
     protected byte[] buffer;
     private int chunkNumber;
+    private int nextChunkToPrefetch;
 
     /**
      * Appease checkstyles..
@@ -49,6 +86,40 @@ public class CacheLoaderChunkInputStream extends InputStream {
                              final String key,
                              final int chunkSize,
                              final long totalSize ) {
+        this(blobCache, key, chunkSize, totalSize, 0, null);
+    }
+
+    /**
+     * Read ahead using an executor shared by all streams
+     * @param blobCache
+     * @param key
+     * @param chunkSize
+     * @param totalSize
+     * @param readAhead the number of chunks to load ahead of the reader
+     */
+    public CacheLoaderChunkInputStream( final CacheLoader<String, byte[]> blobCache,
+                                        final String key,
+                                        final int chunkSize,
+                                        final long totalSize,
+                                        final int readAhead ) {
+        this(blobCache, key, chunkSize, totalSize, readAhead, readAhead > 0 ? prefetchExecutor() : null);
+    }
+
+    /**
+     * Read ahead using the given executor
+     * @param blobCache
+     * @param key
+     * @param chunkSize
+     * @param totalSize
+     * @param readAhead the number of chunks to load ahead of the reader
+     * @param executor
+     */
+    public CacheLoaderChunkInputStream( final CacheLoader<String, byte[]> blobCache,
+                                        final String key,
+                                        final int chunkSize,
+                                        final long totalSize,
+                                        final int readAhead,
+                                        final ExecutorService executor ) {
         this.blobCache = blobCache;
         this.key = key;
         this.chunkSize = chunkSize;
@@ -56,8 +127,11 @@ public class CacheLoaderChunkInputStream extends InputStream {
         this.chunkNumber = 0;
         this.indexInBuffer = 0;
         final int remainderSize = (int) (totalSize % chunkSize);
-        final int numberOfChunks = (int) totalSize / chunkSize;
+        final int numberOfChunks = (int) (totalSize / chunkSize);
         this.chunksCount = remainderSize > 0 ? numberOfChunks + 1 : numberOfChunks;
+        this.readAhead = executor == null ? 0 : readAhead;
+        this.executor = executor;
+        this.prefetched = new ArrayDeque<>(Math.max(this.readAhead, 1));
     }
 
     @Override
@@ -138,9 +212,9 @@ public class CacheLoaderChunkInputStream extends InputStream {
         }
 
         //we need to skip past the current chunk, so find the chunk which needs to be loaded
-        final long lastChunkSize = totalSize - (chunksCount - 1) * chunkSize;
+        final long lastChunkSize = totalSize - (chunksCount - 1) * (long) chunkSize;
         final int chunksAvailableToSkip = chunksCount - chunkNumber - 1;
-        final long bytesAvailableToSkip = (chunksAvailableToSkip - 1) * chunkSize + lastChunkSize;
+        final long bytesAvailableToSkip = (chunksAvailableToSkip - 1) * (long) chunkSize + lastChunkSize;
 
         final long stillRequiredToSkip = n - availableInBuffer;
         final int chunksToSkipOver = (int) (stillRequiredToSkip / chunkSize);
@@ -186,15 +260,69 @@ public class CacheLoaderChunkInputStream extends InputStream {
         buffer = new byte[0];
         indexInBuffer = -1;
         chunkNumber = -1;
+        cancelPrefetch();
     }
 
     private byte[] readChunk( final int chunkNumber ) {
+        if (readAhead == 0 || chunkNumber >= chunksCount) {
+            return loadChunk(chunkNumber);
+        }
+
+        if (prefetched.isEmpty() || nextChunkToPrefetch - prefetched.size() != chunkNumber) {
+            // a skip, or the first read: start the pipeline at the chunk wanted
+            cancelPrefetch();
+            nextChunkToPrefetch = chunkNumber;
+        }
+
+        while (prefetched.size() <= readAhead && nextChunkToPrefetch < chunksCount) {
+            final int n = nextChunkToPrefetch++;
+            prefetched.add(executor.submit(new Callable<byte[]>() {
+
+                @Override
+                public byte[] call() {
+                    return loadChunk(n);
+                }
+            }));
+        }
+
+        try {
+            return prefetched.remove().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelPrefetch();
+            throw propagate(e);
+        } catch (final ExecutionException e) {
+            cancelPrefetch();
+            throw propagate(e.getCause());
+        }
+    }
+
+    private byte[] loadChunk( final int chunkNumber ) {
         final String chunkKey = key + "-" + chunkNumber;
         LOGGER.debug("Read chunk {0}", chunkKey);
-        if (blobCache.contains(chunkKey)) {
-            return blobCache.load(chunkKey).getValue();
-        } else {
-            return null;
+        final MarshalledEntry<String, byte[]> entry = blobCache.load(chunkKey);
+        return entry == null ? null : entry.getValue();
+    }
+
+    private void cancelPrefetch() {
+        while (!prefetched.isEmpty()) {
+            prefetched.remove().cancel(false);
+        }
+    }
+
+    /**
+     * A bounded pool shared by all read-ahead streams; when it is saturated
+     * the reading thread loads the chunk itself.
+     */
+    private static synchronized ExecutorService prefetchExecutor() {
+        if (prefetchExecutor == null) {
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(PREFETCH_THREADS, PREFETCH_THREADS, 60, SECONDS,
+                    new ArrayBlockingQueue<Runnable>(PREFETCH_THREADS * 16),
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-chunk-prefetch-%d").build(),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            prefetchExecutor = pool;
         }
+        return prefetchExecutor;
     }
 }
@@ -115,22 +115,41 @@ public abstract class PersistingRdfStreamConsumer implements RdfStreamConsumer {
     @Override
     public void consume() throws RepositoryException {
         while (stream.hasNext()) {
-            Statement t = m.asStatement(stream.next());
-            LOGGER.debug("Operating triple {}.", t);
+            persist(stream.next());
+        }
 
-            if (t.getObject().isAnon()) {
-                t = t.changeObject(getSkolemizedResource(t.getObject()));
-            }
+    }
 
-            if (t.getSubject().isAnon()) {
-                t = m.createStatement(getSkolemizedResource(t.getSubject()), t.getPredicate(), t.getObject());
-            }
+    /**
+     * Persist a single triple pushed from outside the stream, e.g. from a
+     * parser, in the context (namespaces and blank node identities) of this
+     * consumer. Managed and non-Fedora triples are ignored, as they are when
+     * consuming the stream.
+     *
+     * @param triple
+     * @throws RepositoryException
+     */
+    public void consume(final Triple triple) throws RepositoryException {
+        if (!isManagedTriple.apply(triple) && isFedoraSubjectTriple.apply(triple)) {
+            persist(triple);
+        }
+    }
 
-            LOGGER.trace("Operating on skolemized triple {}.", t);
+    private void persist(final Triple triple) throws RepositoryException {
+        Statement t = m.asStatement(triple);
+        LOGGER.debug("Operating triple {}.", t);
 
-            operateOnTriple(t);
+        if (t.getObject().isAnon()) {
+            t = t.changeObject(getSkolemizedResource(t.getObject()));
         }
 
+        if (t.getSubject().isAnon()) {
+            t = m.createStatement(getSkolemizedResource(t.getSubject()), t.getPredicate(), t.getObject());
+        }
+
+        LOGGER.trace("Operating on skolemized triple {}.", t);
+
+        operateOnTriple(t);
     }
 
     private Resource getSkolemizedResource(final RDFNode resource) throws RepositoryException {
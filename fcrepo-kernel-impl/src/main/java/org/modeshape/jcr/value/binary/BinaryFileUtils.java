@@ -0,0 +1,66 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.modeshape.jcr.value.binary;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+
+import org.modeshape.jcr.value.BinaryKey;
+
+/**
+ * Utilities for gaining access to the files behind file-based binaries
+ * @author agent
+ */
+public class BinaryFileUtils {
+
+    private BinaryFileUtils() {
+    }
+
+    /**
+     * Get the file in which a FileSystemBinaryStore keeps the given binary
+     * @param binaryStore
+     * @param key
+     * @return the file, or null if the store has no such file
+     * @throws BinaryStoreException
+     */
+    public static File fileFor(final FileSystemBinaryStore binaryStore, final BinaryKey key)
+        throws BinaryStoreException {
+        final File file = binaryStore.findFile(binaryStore.getDirectory(), key, false);
+        return file != null && file.isFile() ? file : null;
+    }
+
+    /**
+     * Get the file behind a binary value projected from a file: URL, as the
+     * filesystem connector does
+     * @param binaryValue
+     * @return the file, or null if the binary is not a local file
+     */
+    public static File fileFor(final UrlBinaryValue binaryValue) {
+        final URL url = binaryValue.toUrl();
+
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+
+        try {
+            final File file = new File(url.toURI());
+            return file.isFile() ? file : null;
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.fcrepo.integration.kernel.impl;
 
+import static org.fcrepo.jcr.FedoraJcrTypes.CONTENT_DIGESTS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -25,6 +26,7 @@ import javax.inject.Inject;
 import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.Value;
 
 import org.apache.commons.io.IOUtils;
 import org.fcrepo.kernel.Datastream;
@@ -171,6 +173,39 @@ public class DatastreamImplIT extends AbstractIT {
         assertEquals("asdf", contentString);
     }
 
+    @Test
+    public void testDatastreamContentWithSHA256Checksum() throws RepositoryException, InvalidChecksumException {
+        final Session session = repo.login();
+        objectService.createObject(session, "/testDatastreamObject");
+        datastreamService.createDatastream(session,
+                "/testDatastreamObject/testDatastreamNode6",
+                "application/octet-stream", null, new ByteArrayInputStream("asdf".getBytes()),
+                ContentDigest.asURI("SHA-256", "f0e4c2f76c58916ec258f246851bea091d14d4247a2fc3e18694461b1816e13b"));
+
+        session.save();
+
+        final Datastream ds =
+            datastreamService.getDatastream(session, "/testDatastreamObject/testDatastreamNode6");
+        assertEquals("urn:sha1:3da541559918a808c2402bba5012f6c60b27661c", ds.getContentDigest().toString());
+
+        final Value[] digests = ds.getContentNode().getProperty(CONTENT_DIGESTS).getValues();
+        assertEquals(3, digests.length);
+        assertEquals("urn:sha1:3da541559918a808c2402bba5012f6c60b27661c", digests[0].getString());
+        assertEquals("urn:sha256:f0e4c2f76c58916ec258f246851bea091d14d4247a2fc3e18694461b1816e13b",
+                digests[1].getString());
+        assertEquals("urn:md5:912ec803b2ce49e4a541068d495ab570", digests[2].getString());
+    }
+
+    @Test(expected = InvalidChecksumException.class)
+    public void testDatastreamContentWithBadMD5Checksum() throws RepositoryException, InvalidChecksumException {
+        final Session session = repo.login();
+        objectService.createObject(session, "/testDatastreamObject");
+        datastreamService.createDatastream(session,
+                "/testDatastreamObject/testDatastreamNode7",
+                "application/octet-stream", null, new ByteArrayInputStream("asdf".getBytes()),
+                ContentDigest.asURI("MD5", "00000000000000000000000000000000"));
+    }
+
     @Test
     public void testDatastreamFileName() throws RepositoryException, InvalidChecksumException {
         final Session session = repo.login();
@@ -25,6 +25,7 @@ import static com.hp.hpl.jena.rdf.model.ResourceFactory.createTypedLiteral;
 import static java.util.Arrays.asList;
 import static javax.jcr.PropertyType.BINARY;
 import static javax.jcr.PropertyType.LONG;
+import static org.apache.jena.riot.Lang.TURTLE;
 import static org.fcrepo.kernel.RdfLexicon.DC_TITLE;
 import static org.fcrepo.kernel.RdfLexicon.HAS_CHILD;
 import static org.fcrepo.kernel.RdfLexicon.HAS_PRIMARY_IDENTIFIER;
@@ -37,6 +38,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.util.List;
@@ -57,6 +59,7 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.UnmodifiableIterator;
 import com.hp.hpl.jena.rdf.model.ResourceFactory;
 import com.hp.hpl.jena.rdf.model.StmtIterator;
+import org.apache.jena.riot.RiotException;
 import org.fcrepo.kernel.FedoraObject;
 import org.fcrepo.kernel.FedoraResource;
 import org.fcrepo.kernel.exception.InvalidChecksumException;
@@ -71,6 +74,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.springframework.test.context.ContextConfiguration;
 
+import com.hp.hpl.jena.graph.Graph;
 import com.hp.hpl.jena.graph.Node;
 import com.hp.hpl.jena.query.Dataset;
 import com.hp.hpl.jena.rdf.model.Literal;
@@ -606,4 +610,57 @@ public class FedoraResourceImplIT extends AbstractIT {
 
     }
 
+    @Test
+    public void testReplacePropertiesFromStream() throws RepositoryException {
+        final String pid = UUID.randomUUID().toString();
+        final FedoraObject object = objectService.createObject(session, pid);
+        object.updatePropertiesDataset(subjects, "INSERT DATA { <> <http://purl.org/dc/elements/1.1/title> \"a\" ; "
+                + "<http://purl.org/dc/elements/1.1/subject> \"b\" }");
+
+        final String content = "@prefix dc: <http://purl.org/dc/elements/1.1/> . "
+                + "<> dc:title \"a\" ; dc:creator \"c\" .";
+        object.replaceProperties(subjects, new ByteArrayInputStream(content.getBytes()), TURTLE);
+
+        final Node s = subjects.getSubject(object.getPath()).asNode();
+        final Graph graph = object.getTriples(subjects).asModel().getGraph();
+        assertTrue(graph.contains(s, createURI("http://purl.org/dc/elements/1.1/title"), createLiteral("a")));
+        assertTrue(graph.contains(s, createURI("http://purl.org/dc/elements/1.1/creator"), createLiteral("c")));
+        assertFalse(graph.contains(s, createURI("http://purl.org/dc/elements/1.1/subject"), ANY));
+    }
+
+    @Test
+    public void testReplacePropertiesFromStreamWithSyntaxError() throws RepositoryException {
+        final String pid = UUID.randomUUID().toString();
+        final FedoraObject object = objectService.createObject(session, pid);
+        object.updatePropertiesDataset(subjects, "INSERT DATA { <> <http://purl.org/dc/elements/1.1/title> \"a\" }");
+
+        final String content = "@prefix dc: <http://purl.org/dc/elements/1.1/> . "
+                + "<> dc:creator \"c\" . <> dc:subject ";
+
+        try {
+            object.replaceProperties(subjects, new ByteArrayInputStream(content.getBytes()), TURTLE);
+            fail("Expected the malformed document to be rejected");
+        } catch (final RiotException e) {
+            // expected
+        }
+
+        final Node s = subjects.getSubject(object.getPath()).asNode();
+        final Graph graph = object.getTriples(subjects).asModel().getGraph();
+        assertTrue(graph.contains(s, createURI("http://purl.org/dc/elements/1.1/title"), createLiteral("a")));
+        assertFalse(graph.contains(s, createURI("http://purl.org/dc/elements/1.1/creator"), ANY));
+    }
+
+    @Test
+    public void testReplacePropertiesFromStreamWithLatePrefix() throws RepositoryException {
+        final String pid = UUID.randomUUID().toString();
+        final FedoraObject object = objectService.createObject(session, pid);
+
+        final String content = "<> <http://purl.org/dc/elements/1.1/title> \"a\" . "
+                + "@prefix latens: <http://example.org/late#> . <> latens:p \"b\" .";
+        object.replaceProperties(subjects, new ByteArrayInputStream(content.getBytes()), TURTLE);
+
+        assertEquals("http://example.org/late#",
+                session.getWorkspace().getNamespaceRegistry().getURI("latens"));
+    }
+
 }
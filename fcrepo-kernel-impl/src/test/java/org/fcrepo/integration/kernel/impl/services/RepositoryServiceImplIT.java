@@ -77,7 +77,12 @@ public class RepositoryServiceImplIT extends AbstractIT {
 
         session = repository.login();
 
-        final double afterSize = repositoryService.getRepositorySize();
+        // the repository size follows asynchronous JCR events
+        double afterSize = repositoryService.getRepositorySize();
+        for (int tries = 0; afterSize == originalSize && tries < 50; tries++) {
+            Thread.sleep(100);
+            afterSize = repositoryService.getRepositorySize();
+        }
 
         assertEquals(4.0, afterSize - originalSize);
 
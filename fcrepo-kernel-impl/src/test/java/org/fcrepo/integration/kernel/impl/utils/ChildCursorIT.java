@@ -0,0 +1,85 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.integration.kernel.impl.utils;
+
+import static org.fcrepo.kernel.impl.utils.ChildCursor.page;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.jcr.Node;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.integration.kernel.impl.AbstractIT;
+import org.fcrepo.kernel.impl.utils.ChildCursor;
+import org.fcrepo.kernel.services.ObjectService;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+/**
+ * <p>ChildCursorIT class.</p>
+ *
+ * @author agent
+ */
+@ContextConfiguration({"/spring-test/repo.xml"})
+public class ChildCursorIT extends AbstractIT {
+
+    @Inject
+    Repository repo;
+
+    @Inject
+    ObjectService objectService;
+
+    @Test
+    public void testPagesFollowNameOrder() throws RepositoryException {
+        final Session session = repo.login();
+        try {
+            final String parent = "/" + getRandomPid();
+            final Node container = objectService.createObject(session, parent).getNode();
+
+            // created in reverse, so that name order is not creation order
+            for (int i = 24; i >= 0; i--) {
+                objectService.createObject(session, parent + "/child" + (i < 10 ? "0" : "") + i);
+            }
+            session.save();
+
+            final List<String> names = new ArrayList<>();
+            String token = "";
+            int pages = 0;
+
+            do {
+                final ChildCursor.Page page = page(container, token, 10);
+                for (final Node child : page.getChildren()) {
+                    names.add(child.getName());
+                }
+                token = page.getNextToken();
+                pages++;
+            } while (token != null);
+
+            assertEquals(3, pages);
+            assertEquals(25, names.size());
+            for (int i = 0; i < 25; i++) {
+                assertEquals("child" + (i < 10 ? "0" : "") + i, names.get(i));
+            }
+        } finally {
+            session.logout();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.fcrepo.kernel.Datastream;
 import org.fcrepo.kernel.FedoraObject;
 import org.fcrepo.kernel.exception.InvalidChecksumException;
 import org.fcrepo.kernel.exception.ResourceTypeException;
+import org.fcrepo.kernel.utils.StoredContent;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -42,6 +43,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.Callable;
 
 import static org.fcrepo.kernel.impl.DatastreamImpl.hasMixin;
 import static org.fcrepo.kernel.impl.utils.TestHelpers.checksumString;
@@ -52,6 +54,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -199,6 +202,34 @@ public class DatastreamImplTest implements FedoraJcrTypes {
         verify(mockContent).setProperty(PREMIS_FILE_NAME, "xyz");
     }
 
+    @Test
+    public void testPrepareContent() throws Exception {
+        final org.modeshape.jcr.api.Binary mockBin =
+            mock(org.modeshape.jcr.api.Binary.class);
+        final InputStream mockStream = mock(InputStream.class);
+        final Node mockContent = getContentNodeMock(8);
+        when(mockDsNode.getNode(JCR_CONTENT)).thenReturn(mockContent);
+        when(mockDsNode.getSession()).thenReturn(mockSession);
+        when(mockSession.getValueFactory()).thenReturn(mockVF);
+        when(mockVF.createBinary(any(InputStream.class), any(String.class)))
+            .thenReturn(mockBin);
+        final Property mockData = mock(Property.class);
+        when(mockContent.canAddMixin(FEDORA_BINARY)).thenReturn(true);
+        when(mockContent.setProperty(JCR_DATA, mockBin)).thenReturn(mockData);
+
+        final Callable<StoredContent> store = testObj.prepareContent(mockStream, "text/plain", "xyz", null);
+        verify(mockContent).setProperty(PREMIS_FILE_NAME, "xyz");
+        verify(mockVF, never()).createBinary(any(InputStream.class), any(String.class));
+        verify(mockContent, never()).setProperty(JCR_DATA, mockBin);
+
+        final StoredContent stored = store.call();
+        assertEquals(mockBin, stored.getBinary());
+        assertEquals(3, stored.getDigests().size());
+
+        testObj.setContent(stored, null);
+        verify(mockContent).setProperty(JCR_DATA, mockBin);
+    }
+
     @Test(expected = InvalidChecksumException.class)
     public void testSetContentWithChecksumMismatch()
         throws RepositoryException, InvalidChecksumException,
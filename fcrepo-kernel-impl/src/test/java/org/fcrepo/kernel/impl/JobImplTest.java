@@ -0,0 +1,89 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl;
+
+import static org.fcrepo.kernel.Job.State.COMPLETED;
+import static org.fcrepo.kernel.Job.State.FAILED;
+import static org.fcrepo.kernel.Job.State.RUNNING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+/**
+ * <p>JobImplTest class.</p>
+ *
+ * @author agent
+ */
+public class JobImplTest {
+
+    @Test
+    public void testProgress() {
+        final JobImpl job = new JobImpl("delete", "/a", null, "default", "someUser", null);
+
+        assertEquals(RUNNING, job.getState());
+        assertNull(job.getFinished());
+
+        job.processed(10);
+        job.processed(5);
+        job.complete();
+
+        assertEquals(15, job.getProcessed());
+        assertEquals(COMPLETED, job.getState());
+        assertNotNull(job.getFinished());
+        assertNull(job.getMessage());
+    }
+
+    @Test
+    public void testRestore() {
+        final JobImpl job = new JobImpl("some-job", "copy", "/a", "/b", "default", "someUser", null, new Date(0), 42);
+
+        assertEquals("some-job", job.getId());
+        assertEquals("/b", job.getDestination());
+        assertEquals(new Date(0), job.getStarted());
+        assertEquals(42, job.getProcessed());
+        assertEquals("someUser", job.getOwner());
+        assertEquals(RUNNING, job.getState());
+    }
+
+    @Test
+    public void testFail() {
+        final JobImpl job = new JobImpl("delete", "/a", null, "default", "someUser", null);
+
+        job.fail("Interrupted");
+
+        assertEquals(FAILED, job.getState());
+        assertEquals("Interrupted", job.getMessage());
+        assertNotNull(job.getFinished());
+    }
+
+    @Test
+    public void testRestart() {
+        final JobImpl job = new JobImpl("delete", "/a", null, "default", "someUser", null);
+        job.processed(3);
+        job.fail("Interrupted");
+
+        job.restart();
+
+        assertEquals(RUNNING, job.getState());
+        assertEquals(3, job.getProcessed());
+        assertNull(job.getMessage());
+        assertNull(job.getFinished());
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.identifiers;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static java.lang.System.currentTimeMillis;
+import static org.fcrepo.kernel.impl.identifiers.PooledPidMinter.POOL_DEPTH_GAUGE;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <p>PooledPidMinterTest class.</p>
+ *
+ * @author agent
+ */
+public class PooledPidMinterTest {
+
+    /**
+     * Mints "pid-1", "pid-2", ... and counts the identifiers it mints
+     */
+    private static class CountingMinter extends BasePidMinter {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public String mintPid() {
+            return "pid-" + count.incrementAndGet();
+        }
+    }
+
+    private static void awaitDepth(final PooledPidMinter minter, final int depth) throws InterruptedException {
+        final long deadline = currentTimeMillis() + 10000;
+        while (minter.depth() < depth && currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Pool was not refilled!", minter.depth() >= depth);
+    }
+
+    @Test
+    public void testMintFromPool() throws Exception {
+        final CountingMinter backing = new CountingMinter();
+        final PooledPidMinter testObj = new PooledPidMinter(backing, 10, 2, null);
+
+        awaitDepth(testObj, 10);
+        assertEquals(10, backing.count.get());
+        assertEquals(10, getMetrics().getGauges().get(POOL_DEPTH_GAUGE).getValue());
+
+        final Set<String> pids = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            assertTrue("Minted a duplicate identifier!", pids.add(testObj.mintPid()));
+        }
+        testObj.close();
+    }
+
+    @Test
+    public void testReservationsSurviveRestart() throws Exception {
+        final File reservations = File.createTempFile("pids", ".txt");
+        assertTrue(reservations.delete());
+
+        final PooledPidMinter first = new PooledPidMinter(new CountingMinter(), 5, 1, reservations);
+        awaitDepth(first, 5);
+        assertEquals("pid-1", first.mintPid());
+        awaitDepth(first, 4);
+        first.close();
+        assertTrue(reservations.isFile());
+
+        final CountingMinter backing = new CountingMinter();
+        final PooledPidMinter second = new PooledPidMinter(backing, 5, 0, reservations);
+        assertFalse("Reservations should not be handed out twice!", reservations.exists());
+        assertEquals("pid-2", second.mintPid());
+        assertEquals(0, backing.count.get());
+        second.close();
+        reservations.delete();
+    }
+
+    @Test
+    public void testMintFromHttpMinter() throws Exception {
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/minter", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final byte[] body = ("/foo/bar/id" + requests.incrementAndGet()).getBytes(UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (final OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+
+        try {
+            final HttpPidMinter backing = new HttpPidMinter(
+                "http://localhost:" + server.getAddress().getPort() + "/minter", "POST", "", "", ".*/", "");
+            final PooledPidMinter testObj = new PooledPidMinter(backing, 20, 5, null);
+            awaitDepth(testObj, 20);
+
+            final Set<String> pids = new HashSet<>();
+            for (int i = 0; i < 20; i++) {
+                pids.add(testObj.mintPid());
+            }
+            assertEquals(20, pids.size());
+            assertTrue(pids.contains("id1"));
+            testObj.close();
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -20,11 +20,15 @@ import static com.google.common.base.Predicates.alwaysTrue;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isFedoraDatastream;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isFedoraObject;
 import static java.util.UUID.randomUUID;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_OBJECT;
 import static javax.jcr.observation.Event.NODE_ADDED;
 import static javax.jcr.observation.Event.PROPERTY_ADDED;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -33,6 +37,7 @@ import javax.jcr.PathNotFoundException;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.nodetype.NodeType;
 import javax.jcr.observation.Event;
 
 import org.junit.Before;
@@ -65,6 +70,12 @@ public class DefaultFilterTest {
     @Mock
     private Property mockProperty;
 
+    @Mock
+    private NodeType mockNodeType;
+
+    @Mock
+    private NodeType mockMixinType;
+
     private final static String testId = randomUUID().toString();
 
     private final static String testPath = "/foo/bar";
@@ -123,6 +134,36 @@ public class DefaultFilterTest {
         testObj.getFilter(mockSession).apply(mockEvent);
     }
 
+    @Test
+    public void shouldLookUpEachNodeOncePerBatch() throws Exception {
+        final Predicate<Node> holdO = isFedoraObject;
+        try {
+            isFedoraObject = alwaysTrue();
+            final Predicate<Event> filter = testObj.getFilter(mockSession);
+            assertTrue(filter.apply(mockEvent));
+            assertTrue(filter.apply(mockEvent));
+            verify(mockSession).getNodeByIdentifier(testId);
+        } finally {
+            isFedoraObject = holdO;
+        }
+    }
+
+    @Test
+    public void shouldUseNodeTypesFromEvent() throws Exception {
+        final org.modeshape.jcr.api.observation.Event mockTypedEvent =
+                mock(org.modeshape.jcr.api.observation.Event.class);
+        when(mockTypedEvent.getType()).thenReturn(NODE_ADDED);
+        when(mockTypedEvent.getIdentifier()).thenReturn(testId);
+        when(mockTypedEvent.getPrimaryNodeType()).thenReturn(mockNodeType);
+        when(mockTypedEvent.getMixinNodeTypes()).thenReturn(new NodeType[] { mockMixinType });
+        when(mockMixinType.getName()).thenReturn(FEDORA_OBJECT);
+        assertTrue(testObj.getFilter(mockSession).apply(mockTypedEvent));
+
+        when(mockMixinType.getName()).thenReturn("mix:versionable");
+        assertFalse(testObj.getFilter(mockSession).apply(mockTypedEvent));
+        verify(mockSession, never()).getNodeByIdentifier(testId);
+    }
+
     @Test
     public void testProperty() throws RepositoryException {
         when(mockProperty.isNode()).thenReturn(false);
@@ -17,12 +17,15 @@ package org.fcrepo.kernel.impl.observer;
 
 import static org.fcrepo.kernel.impl.observer.SimpleObserver.EVENT_TYPES;
 import static org.fcrepo.kernel.impl.utils.TestHelpers.setField;
+import static org.fcrepo.kernel.services.JobService.BULK_OPERATION;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.util.Iterator;
+
 import javax.jcr.Session;
 import javax.jcr.Workspace;
 import javax.jcr.observation.Event;
@@ -30,6 +33,7 @@ import javax.jcr.observation.EventIterator;
 import javax.jcr.observation.ObservationManager;
 
 import org.fcrepo.kernel.impl.observer.eventmappings.OneToOne;
+import org.fcrepo.kernel.impl.utils.ValidatorCache;
 import org.fcrepo.kernel.observer.EventFilter;
 import org.fcrepo.kernel.observer.FedoraEvent;
 import org.junit.Before;
@@ -70,6 +74,9 @@ public class SimpleObserverTest {
     @Mock
     private EventIterator mockEvents;
 
+    @Mock
+    private ValidatorCache mockValidatorCache;
+
     @Before
     public void setUp() throws Exception {
         initMocks(this);
@@ -98,6 +105,31 @@ public class SimpleObserverTest {
         verify(mockBus).post(any(FedoraEvent.class));
     }
 
+    @Test
+    public void testOnEventInvalidatesValidators() throws Exception {
+        setField(testObserver, "validatorCache", mockValidatorCache);
+        testObserver.onEvent(mockEvents);
+        verify(mockValidatorCache).invalidate(any(Iterator.class));
+        verify(mockBus).post(any(FedoraEvent.class));
+    }
+
+    @Test
+    public void testLookupSessionIsReused() throws Exception {
+        testObserver.onEvent(mockEvents);
+        testObserver.onEvent(mockEvents);
+        verify(mockRepository).login();
+        verify(mockSession).refresh(false);
+    }
+
+    @Test
+    public void testOnEventFromBulkOperation() throws Exception {
+        setField(testObserver, "validatorCache", mockValidatorCache);
+        when(mockEvent.getUserData()).thenReturn(BULK_OPERATION);
+        testObserver.onEvent(mockEvents);
+        verify(mockValidatorCache).invalidate(any(Iterator.class));
+        verify(mockBus, never()).post(any(FedoraEvent.class));
+    }
+
     @Test
     public void testOnEventAllFiltered() throws Exception {
         setField(testObserver, "eventFilter", new NoPassFilter());
@@ -31,12 +31,14 @@ import static javax.jcr.PropertyType.UNDEFINED;
 import static javax.jcr.PropertyType.WEAKREFERENCE;
 import static javax.jcr.query.Query.JCR_SQL2;
 import static org.fcrepo.jcr.FedoraJcrTypes.ROOT;
+import static org.fcrepo.kernel.RdfLexicon.CREATED_DATE;
 import static org.fcrepo.kernel.RdfLexicon.HAS_CHILD;
 import static org.fcrepo.kernel.RdfLexicon.HAS_FIXITY_RESULT;
 import static org.fcrepo.kernel.RdfLexicon.HAS_MEMBER_OF_RESULT;
 import static org.fcrepo.kernel.RdfLexicon.HAS_MESSAGE_DIGEST;
 import static org.fcrepo.kernel.RdfLexicon.HAS_NAMESPACE_PREFIX;
 import static org.fcrepo.kernel.RdfLexicon.HAS_NAMESPACE_URI;
+import static org.fcrepo.kernel.RdfLexicon.HAS_PREDECESSOR_VERSION;
 import static org.fcrepo.kernel.RdfLexicon.HAS_SIZE;
 import static org.fcrepo.kernel.RdfLexicon.HAS_VERSION;
 import static org.fcrepo.kernel.RdfLexicon.HAS_VERSION_LABEL;
@@ -62,6 +64,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -108,6 +111,7 @@ import org.fcrepo.kernel.impl.rdf.impl.DefaultIdentifierTranslator;
 import org.fcrepo.kernel.impl.testutilities.TestPropertyIterator;
 import org.fcrepo.kernel.rdf.HierarchyRdfContextOptions;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.rdf.VersionsRdfContextOptions;
 import org.fcrepo.kernel.utils.CacheEntry;
 import org.fcrepo.kernel.utils.FixityResult;
 import org.fcrepo.kernel.impl.utils.FixityResultImpl;
@@ -571,6 +575,47 @@ public class JcrRdfToolsTest implements FedoraJcrTypes {
                                    actual.createLiteral("abc")));
     }
 
+    @Test
+    public final void testGetJcrVersionsSummary() throws Exception {
+
+        when(mockNode.getPath()).thenReturn("/test/jcr");
+        when(mockVersionManager.getVersionHistory(mockNode.getPath()))
+                .thenReturn(mockVersionHistory);
+        when(mockWorkspace.getVersionManager()).thenReturn(mockVersionManager);
+        when(mockVersionHistory.getAllVersions()).thenReturn(
+                mockVersionIterator);
+        when(mockVersionIterator.hasNext()).thenReturn(true);
+        when(mockVersionIterator.next()).thenReturn(mockVersion);
+
+        when(mockFrozenNode.getPath()).thenReturn(
+                "/jcr:system/versions/test/jcr");
+        when(mockVersion.getFrozenNode()).thenReturn(mockFrozenNode);
+        when(mockVersion.getCreated()).thenReturn(Calendar.getInstance());
+        when(mockVersionHistory.getVersionLabels(mockVersion)).thenReturn(
+                new String[] {"abc"});
+
+        final Version mockPredecessor = mock(Version.class);
+        final Node mockPredecessorFrozenNode = mock(Node.class);
+        when(mockPredecessorFrozenNode.getPath()).thenReturn(
+                "/jcr:system/versions/test/jcr-1");
+        when(mockPredecessor.getFrozenNode()).thenReturn(mockPredecessorFrozenNode);
+        when(mockVersion.getPredecessors()).thenReturn(new Version[] {mockPredecessor});
+
+        final Model actual =
+            testObj.getVersionTriples(mockNode, new VersionsRdfContextOptions(1, 5, true)).asModel();
+
+        verify(mockVersionIterator).skip(5);
+        verify(mockVersionIterator, times(1)).next();
+        verify(mockFrozenNode, never()).getProperties();
+
+        final Resource versionSubject = testSubjects.getSubject(mockFrozenNode.getPath());
+        assertTrue(actual.contains(testSubjects.getSubject(mockNode.getPath()), HAS_VERSION, versionSubject));
+        assertTrue(actual.contains(versionSubject, HAS_VERSION_LABEL, actual.createLiteral("abc")));
+        assertTrue(actual.contains(versionSubject, CREATED_DATE));
+        assertTrue(actual.contains(versionSubject, HAS_PREDECESSOR_VERSION,
+                testSubjects.getSubject(mockPredecessorFrozenNode.getPath())));
+    }
+
     @Test
     public final void testIsInternalProperty() throws Exception {
         assertTrue(testObj.isInternalProperty(mockNode, createProperty(
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.rdf;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.update.UpdateFactory.create;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * <p>UpdateScopeTest class.</p>
+ *
+ * @author agent
+ */
+public class UpdateScopeTest {
+
+    private static final String BASE = "http://localhost/rest/a";
+
+    private static final Node subject = createURI(BASE);
+
+    private static final String TITLE = "http://purl.org/dc/elements/1.1/title";
+
+    private static final Node title = createURI(TITLE);
+
+    private static UpdateScope scopeOf(final String update) {
+        return UpdateScope.of(create(update, BASE));
+    }
+
+    @Test
+    public void testInsertDataNeedsNothing() {
+        final UpdateScope scope = scopeOf("INSERT DATA { <> <" + TITLE + "> \"x\" }");
+        assertTrue(scope.isBounded());
+        assertTrue(scope.subjects().isEmpty());
+    }
+
+    @Test
+    public void testDeleteInsertWhere() {
+        final UpdateScope scope = scopeOf("DELETE { <> <" + TITLE + "> ?o } "
+                + "INSERT { <> <" + TITLE + "> \"x\" } WHERE { <> <" + TITLE + "> ?o }");
+        assertTrue(scope.isBounded());
+        assertEquals(ImmutableSet.of(subject), scope.subjects());
+        assertEquals(ImmutableSet.of(title), scope.predicates());
+        assertTrue(scope.inScope().apply(Triple.create(subject, title, createLiteral("y"))));
+        assertFalse(scope.inScope().apply(Triple.create(createURI(BASE + "/b"), title, createLiteral("y"))));
+        assertFalse(scope.inScope().apply(Triple.create(subject, createURI("info:other"), createLiteral("y"))));
+    }
+
+    @Test
+    public void testVariableSubjectIsUnbounded() {
+        assertFalse(scopeOf("DELETE WHERE { ?s <" + TITLE + "> ?o }").isBounded());
+    }
+
+    @Test
+    public void testVariablePredicateIsUnbounded() {
+        assertFalse(scopeOf("DELETE WHERE { <> ?p ?o }").isBounded());
+    }
+
+    @Test
+    public void testContainmentIsUnbounded() {
+        assertFalse(scopeOf("DELETE { ?c <" + TITLE + "> ?o } WHERE { <> <http://www.w3.org/ns/ldp#contains> ?c . "
+                + "?c <" + TITLE + "> ?o }").isBounded());
+    }
+
+    @Test
+    public void testExistsFilterIsUnbounded() {
+        assertFalse(scopeOf("DELETE { <> <" + TITLE + "> ?o } WHERE { <> <" + TITLE + "> ?o "
+                + "FILTER EXISTS { ?s ?p ?o } }").isBounded());
+    }
+
+    @Test
+    public void testGraphManagementIsUnbounded() {
+        assertFalse(scopeOf("CLEAR DEFAULT").isBounded());
+    }
+}
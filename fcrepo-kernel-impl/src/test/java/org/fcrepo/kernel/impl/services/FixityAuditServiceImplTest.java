@@ -0,0 +1,279 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.services;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.util.Collections.singleton;
+import static org.fcrepo.kernel.impl.testutilities.TestNodeIterator.nodeIterator;
+import static org.fcrepo.kernel.impl.utils.TestHelpers.setField;
+import static org.fcrepo.kernel.utils.FixityResult.FixityState.BAD_CHECKSUM;
+import static org.fcrepo.kernel.utils.FixityResult.FixityState.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+
+import javax.jcr.Node;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.jcr.FedoraJcrTypes;
+import org.fcrepo.kernel.Datastream;
+import org.fcrepo.kernel.services.DatastreamService;
+import org.fcrepo.kernel.utils.FixityAuditRecord;
+import org.fcrepo.kernel.utils.FixityResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+
+/**
+ * <p>FixityAuditServiceImplTest class.</p>
+ *
+ * @author agent
+ */
+public class FixityAuditServiceImplTest implements FedoraJcrTypes {
+
+    private static final String CONTENT_PATH = "/a/ds/jcr:content";
+
+    private static final String OTHER_CONTENT_PATH = "/b/ds/jcr:content";
+
+    @Rule
+    public TemporaryFolder stateDirectory = new TemporaryFolder();
+
+    private FixityAuditServiceImpl testObj;
+
+    @Mock
+    private Repository mockRepository;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Node mockRoot;
+
+    @Mock
+    private Node mockContent;
+
+    @Mock
+    private Node mockDsNode;
+
+    @Mock
+    private Node mockOtherContent;
+
+    @Mock
+    private Node mockOtherDsNode;
+
+    @Mock
+    private Datastream mockDatastream;
+
+    @Mock
+    private DatastreamService mockDatastreamService;
+
+    @Mock
+    private FixityResult mockResult;
+
+    @Before
+    public void setUp() throws RepositoryException {
+        initMocks(this);
+        testObj = new FixityAuditServiceImpl();
+        testObj.setRepository(mockRepository);
+        testObj.setDatastreamService(mockDatastreamService);
+        testObj.setBytesPerSecond(0);
+        testObj.setStateDirectory(stateDirectory.getRoot());
+
+        when(mockRepository.login()).thenReturn(mockSession);
+        when(mockSession.getNode(CONTENT_PATH)).thenReturn(mockContent);
+        when(mockContent.getParent()).thenReturn(mockDsNode);
+        when(mockContent.getIdentifier()).thenReturn("a/content");
+        when(mockDatastreamService.asDatastream(mockDsNode)).thenReturn(mockDatastream);
+        when(mockDatastream.getContentSize()).thenReturn(10L);
+        when(mockDatastreamService.runFixityAndFixProblems(mockDatastream)).thenReturn(singleton(mockResult));
+        when(mockResult.isSuccess()).thenReturn(true);
+        when(mockResult.getStatus()).thenReturn(EnumSet.of(SUCCESS));
+    }
+
+    @After
+    public void tearDown() {
+        testObj.stop();
+    }
+
+    private void mockTree() throws RepositoryException {
+        when(mockSession.getRootNode()).thenReturn(mockRoot);
+        when(mockRoot.getNodes()).thenReturn(nodeIterator(mockDsNode, mockOtherDsNode));
+        when(mockDsNode.getPath()).thenReturn("/a/ds");
+        when(mockDsNode.getNodes()).thenReturn(nodeIterator(mockContent));
+        when(mockContent.getPath()).thenReturn(CONTENT_PATH);
+        when(mockContent.isNodeType(FEDORA_BINARY)).thenReturn(true);
+        when(mockContent.getNodes()).thenReturn(nodeIterator());
+        when(mockOtherDsNode.getPath()).thenReturn("/b/ds");
+        when(mockOtherDsNode.getNodes()).thenReturn(nodeIterator(mockOtherContent));
+        when(mockOtherContent.getPath()).thenReturn(OTHER_CONTENT_PATH);
+        when(mockOtherContent.isNodeType(FEDORA_BINARY)).thenReturn(true);
+        when(mockOtherContent.getNodes()).thenReturn(nodeIterator());
+        when(mockSession.getNode(OTHER_CONTENT_PATH)).thenReturn(mockOtherContent);
+        when(mockOtherContent.getParent()).thenReturn(mockOtherDsNode);
+        when(mockDatastreamService.asDatastream(mockOtherDsNode)).thenReturn(mockDatastream);
+
+        setField(testObj, "workers", sameThreadExecutor());
+        setField(testObj, "queued", new Semaphore(4));
+        testObj.setThreads(2);
+    }
+
+    private Properties readState() throws IOException {
+        final Properties state = new Properties();
+
+        try (final Reader reader = new FileReader(new File(stateDirectory.getRoot(), "audit.properties"))) {
+            state.load(reader);
+        }
+        return state;
+    }
+
+    @Test
+    public void testCheckDoesNotWriteToTheResource() throws RepositoryException {
+        final long checks = testObj.getCheckCount();
+        final long errors = testObj.getErrorCount();
+
+        testObj.check(CONTENT_PATH);
+
+        verify(mockSession, never()).save();
+        verify(mockSession).logout();
+        assertEquals(checks + 1, testObj.getCheckCount());
+        assertEquals(errors, testObj.getErrorCount());
+    }
+
+    @Test
+    public void testCheckCountsFailure() throws RepositoryException {
+        when(mockResult.isSuccess()).thenReturn(false);
+        when(mockResult.getStatus()).thenReturn(EnumSet.of(BAD_CHECKSUM));
+        final long errors = testObj.getErrorCount();
+
+        testObj.check(CONTENT_PATH);
+
+        assertEquals(errors + 1, testObj.getErrorCount());
+    }
+
+    @Test
+    public void testCheckRecordsOutcomeOutsideTheResource() throws RepositoryException {
+        testObj.check(CONTENT_PATH);
+
+        final FixityAuditRecord record = testObj.getLastCheck(mockContent);
+        assertEquals(CONTENT_PATH, record.getPath());
+        assertEquals(singleton("SUCCESS"), record.getStates());
+        assertTrue(record.isGood());
+        assertTrue(testObj.getFailures().isEmpty());
+        verify(mockSession, never()).save();
+    }
+
+    @Test
+    public void testCheckListsFailuresUntilAGoodCheck() throws RepositoryException {
+        when(mockResult.isSuccess()).thenReturn(false);
+        when(mockResult.getStatus()).thenReturn(EnumSet.of(BAD_CHECKSUM));
+
+        testObj.check(CONTENT_PATH);
+
+        assertEquals(1, testObj.getFailures().size());
+        assertEquals(singleton("BAD_CHECKSUM"), testObj.getFailures().iterator().next().getStates());
+
+        // the list of failures outlives the service
+        testObj.setStateDirectory(stateDirectory.getRoot());
+        assertEquals(1, testObj.getFailures().size());
+
+        when(mockResult.isSuccess()).thenReturn(true);
+        when(mockResult.getStatus()).thenReturn(EnumSet.of(SUCCESS));
+
+        testObj.check(CONTENT_PATH);
+
+        assertTrue(testObj.getFailures().isEmpty());
+    }
+
+    @Test
+    public void testUncheckedBinaryHasNoRecord() throws RepositoryException {
+        assertNull(testObj.getLastCheck(mockContent));
+    }
+
+    @Test
+    public void testCheckOfMissingNode() throws RepositoryException {
+        when(mockSession.getNode(CONTENT_PATH)).thenThrow(new RepositoryException());
+
+        testObj.check(CONTENT_PATH);
+
+        verify(mockSession).logout();
+    }
+
+    @Test
+    public void testAuditWalksTheTree() throws RepositoryException, IOException {
+        mockTree();
+        final long checks = testObj.getCheckCount();
+
+        testObj.audit();
+
+        assertEquals(checks + 2, testObj.getCheckCount());
+        verify(mockDatastreamService, times(2)).runFixityAndFixProblems(mockDatastream);
+        assertNull(readState().getProperty("position"));
+        assertTrue(Long.parseLong(readState().getProperty("passStarted")) > 0);
+
+        // the next pass is not yet due: one login for the pass, one per check
+        testObj.audit();
+        verify(mockRepository, times(3)).login();
+    }
+
+    @Test
+    public void testAuditResumesAfterLastCheck() throws RepositoryException, IOException {
+        mockTree();
+        final Properties state = new Properties();
+        state.setProperty("passStarted", "1");
+        state.setProperty("position", CONTENT_PATH);
+
+        try (final Writer writer = new FileWriter(new File(stateDirectory.getRoot(), "audit.properties"))) {
+            state.store(writer, null);
+        }
+
+        testObj.audit();
+
+        verify(mockSession, never()).getNode(CONTENT_PATH);
+        verify(mockSession).getNode(OTHER_CONTENT_PATH);
+        assertEquals("1", readState().getProperty("passStarted"));
+        assertNull(readState().getProperty("position"));
+    }
+
+    @Test
+    public void testStartAndStop() {
+        assertFalse(testObj.isRunning());
+        testObj.start();
+        assertTrue(testObj.isRunning());
+        testObj.stop();
+        assertFalse(testObj.isRunning());
+    }
+}
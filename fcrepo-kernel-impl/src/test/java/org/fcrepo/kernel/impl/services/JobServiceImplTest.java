@@ -0,0 +1,716 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.services;
+
+import static java.util.Arrays.asList;
+import static javax.jcr.PropertyType.REFERENCE;
+import static javax.jcr.Session.ACTION_ADD_NODE;
+import static javax.jcr.Session.ACTION_READ;
+import static javax.jcr.Session.ACTION_REMOVE;
+import static org.fcrepo.kernel.Job.State.COMPLETED;
+import static org.fcrepo.kernel.Job.State.FAILED;
+import static org.fcrepo.kernel.Job.State.RUNNING;
+import static org.fcrepo.kernel.impl.testutilities.TestNodeIterator.nodeIterator;
+import static org.fcrepo.kernel.impl.utils.TestHelpers.setField;
+import static org.fcrepo.kernel.services.JobService.BULK_OPERATION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import javax.jcr.AccessDeniedException;
+import javax.jcr.Credentials;
+import javax.jcr.LoginException;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.PathNotFoundException;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.ValueFactory;
+import javax.jcr.Workspace;
+import javax.jcr.nodetype.NodeType;
+import javax.jcr.nodetype.PropertyDefinition;
+import javax.jcr.observation.ObservationManager;
+
+import org.fcrepo.kernel.DetachedCredentials;
+import org.fcrepo.kernel.Job;
+import org.fcrepo.kernel.impl.JobImpl;
+import org.fcrepo.kernel.services.VersionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * <p>JobServiceImplTest class.</p>
+ *
+ * @author agent
+ */
+public class JobServiceImplTest {
+
+    private static final String WORKSPACE = "default";
+
+    private static final String USER = "someUser";
+
+    private static final String USER_DATA = "{\"baseURL\":\"http://localhost/rest/\"}";
+
+    @Rule
+    public TemporaryFolder checkpoints = new TemporaryFolder();
+
+    private JobServiceImpl testObj;
+
+    @Mock
+    private Repository mockRepository;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private VersionService mockVersionService;
+
+    @Mock
+    private Workspace mockWorkspace;
+
+    @Mock
+    private ObservationManager mockObservationManager;
+
+    @Mock
+    private Node mockRoot;
+
+    @Mock
+    private Node mockLeaf;
+
+    @Mock
+    private Node mockParent;
+
+    @Mock
+    private Node mockGrandchild;
+
+    @Mock
+    private Node mockContent;
+
+    @Mock
+    private Node mockDestinationParent;
+
+    @Mock
+    private Property mockReference;
+
+    @Mock
+    private Property mockBinary;
+
+    @Mock
+    private Property mockUuid;
+
+    @Mock
+    private Value mockBinaryValue;
+
+    private final Map<String, Node> copies = new HashMap<>();
+
+    private final List<String> copied = new ArrayList<>();
+
+    private final Set<Node> removed = new HashSet<>();
+
+    @Before
+    public void setUp() throws RepositoryException {
+        initMocks(this);
+        testObj = new JobServiceImpl();
+        testObj.setRepository(mockRepository);
+        testObj.setBatchSize(2);
+        testObj.setCheckpointDirectory(checkpoints.getRoot());
+        setField(testObj, "versionService", mockVersionService);
+
+        when(mockSession.getUserID()).thenReturn(USER);
+        when(mockSession.getAttributeNames()).thenReturn(new String[0]);
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockRepository.login(any(Credentials.class), eq(WORKSPACE))).thenReturn(mockSession);
+        when(mockWorkspace.getName()).thenReturn(WORKSPACE);
+        when(mockWorkspace.getObservationManager()).thenReturn(mockObservationManager);
+
+        // /a holds a leaf b and a parent c, which holds d and its own jcr:content
+        when(mockSession.nodeExists("/a")).thenReturn(true);
+        node(mockRoot, "/a", mockLeaf, mockParent);
+        node(mockLeaf, "/a/b");
+        node(mockParent, "/a/c", mockGrandchild, mockContent);
+        node(mockGrandchild, "/a/c/d");
+        node(mockContent, "/a/c/jcr:content");
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws RepositoryException {
+                removed.add(mockSession.getNode((String) invocation.getArguments()[0]));
+                return null;
+            }
+        }).when(mockSession).move(anyString(), anyString());
+
+        final PropertyIterator references = mock(PropertyIterator.class);
+        when(references.hasNext()).thenReturn(true, false);
+        when(references.nextProperty()).thenReturn(mockReference);
+        when(mockRoot.getReferences()).thenReturn(references);
+        when(mockRoot.getIdentifier()).thenReturn("root-id");
+        final Node referrer = mock(Node.class);
+        when(referrer.getPath()).thenReturn("/elsewhere");
+        when(mockReference.getParent()).thenReturn(referrer);
+        when(mockReference.getName()).thenReturn("rel");
+
+        // c has a binary property, and a protected one
+        final PropertyDefinition unprotected = mock(PropertyDefinition.class);
+        final PropertyDefinition isProtected = mock(PropertyDefinition.class);
+        when(isProtected.isProtected()).thenReturn(true);
+        when(mockBinary.getName()).thenReturn("jcr:data");
+        when(mockBinary.getDefinition()).thenReturn(unprotected);
+        when(mockBinary.getValue()).thenReturn(mockBinaryValue);
+        when(mockUuid.getName()).thenReturn("jcr:uuid");
+        when(mockUuid.getDefinition()).thenReturn(isProtected);
+        final PropertyIterator properties = mock(PropertyIterator.class);
+        when(properties.hasNext()).thenReturn(true, true, false);
+        when(properties.nextProperty()).thenReturn(mockBinary, mockUuid);
+        when(mockParent.getProperties()).thenReturn(properties);
+
+        // copies are made beneath /
+        when(mockSession.getNode("/")).thenReturn(mockDestinationParent);
+        when(mockSession.nodeExists("/")).thenReturn(true);
+        when(mockDestinationParent.getPath()).thenReturn("/");
+        copyTarget(mockDestinationParent);
+    }
+
+    @After
+    public void tearDown() {
+        testObj.stop();
+    }
+
+    @Test
+    public void testDeleteBottomUpInBatches() throws RepositoryException {
+        final JobImpl job = new JobImpl("delete", "/a", null, WORKSPACE, USER, USER_DATA);
+
+        testObj.run(job, mockSession);
+
+        final InOrder inOrder = inOrder(mockObservationManager, mockLeaf, mockGrandchild, mockParent,
+                mockReference, mockRoot, mockSession);
+        inOrder.verify(mockObservationManager).setUserData(BULK_OPERATION);
+        inOrder.verify(mockLeaf).remove();
+        inOrder.verify(mockGrandchild).remove();
+        inOrder.verify(mockSession).save();
+        inOrder.verify(mockParent).remove();
+        inOrder.verify(mockSession).save();
+        inOrder.verify(mockObservationManager).setUserData(USER_DATA);
+        inOrder.verify(mockReference).remove();
+        inOrder.verify(mockRoot).remove();
+        inOrder.verify(mockSession).save();
+        inOrder.verify(mockSession).logout();
+
+        verify(mockContent, never()).remove();
+        assertEquals(COMPLETED, job.getState());
+        assertEquals(4, job.getProcessed());
+        assertEquals(0, checkpoints.getRoot().list().length);
+    }
+
+    @Test
+    public void testDeleteFailureKeepsCheckpoint() throws RepositoryException {
+        final JobImpl job = new JobImpl("delete", "/a", null, WORKSPACE, USER, USER_DATA);
+        testObj.checkpoint(job);
+        doThrow(new RepositoryException("Expected")).when(mockSession).save();
+
+        testObj.run(job, mockSession);
+
+        verify(mockRoot, never()).remove();
+        verify(mockSession).logout();
+        assertEquals(FAILED, job.getState());
+        assertEquals("Expected", job.getMessage());
+        assertEquals(0, job.getProcessed());
+        assertEquals(1, checkpoints.getRoot().list().length);
+    }
+
+    @Test
+    public void testDeleteObject() throws RepositoryException {
+        final CountDownLatch started = blockJobs();
+
+        final Job job = testObj.deleteObject(mockSession, "/a", USER_DATA);
+
+        verify(mockSession).checkPermission("/a", ACTION_REMOVE);
+        assertEquals("delete", job.getType());
+        assertEquals("/a", job.getPath());
+        assertEquals(USER, job.getOwner());
+        assertEquals(RUNNING, job.getState());
+        assertSame(job, testObj.getJob(mockSession, job.getId()));
+
+        final Session again = userSession(USER);
+        assertSame(job, testObj.deleteObject(again, "/a", USER_DATA));
+        verify(again, never()).logout();
+
+        started.countDown();
+        verify(mockRoot, timeout(1000)).remove();
+        verify(mockSession, timeout(1000)).logout();
+    }
+
+    @Test
+    public void testJobLogsInAsTheRequester() throws RepositoryException {
+        final Principal principal = mock(Principal.class);
+        final Session requester = userSession(USER);
+        when(requester.getAttributeNames()).thenReturn(new String[] {"principal", "request"});
+        when(requester.getAttribute("principal")).thenReturn(principal);
+        when(requester.getAttribute("request")).thenReturn(new Object());
+        when(requester.nodeExists("/a")).thenReturn(true);
+
+        testObj.deleteObject(requester, "/a", USER_DATA);
+
+        final ArgumentCaptor<Credentials> credentials = ArgumentCaptor.forClass(Credentials.class);
+        verify(mockRepository, timeout(1000)).login(credentials.capture(), eq(WORKSPACE));
+        final DetachedCredentials detached = (DetachedCredentials) credentials.getValue();
+        assertEquals(USER, detached.getUserID());
+        assertSame(principal, detached.getAttribute("principal"));
+        assertNull(detached.getAttribute("request"));
+
+        // the requester's session is only ever used in the request
+        verify(mockRoot, timeout(1000)).remove();
+        verify(requester, never()).getNode(anyString());
+        verify(requester, never()).logout();
+    }
+
+    @Test
+    public void testJobFailsIfTheRequesterCannotLogIn() throws RepositoryException {
+        final JobImpl job = new JobImpl("delete", "/a", null, WORKSPACE, USER, USER_DATA);
+        final Credentials credentials = new DetachedCredentials(mockSession);
+        when(mockRepository.login(credentials, WORKSPACE)).thenThrow(new LoginException("Expected"));
+
+        testObj.run(job, credentials);
+
+        assertEquals(FAILED, job.getState());
+        assertEquals("Expected", job.getMessage());
+        verify(mockRoot, never()).remove();
+    }
+
+    @Test
+    public void testGetJobOfAnotherUser() throws RepositoryException {
+        final CountDownLatch started = blockJobs();
+
+        final Job job = testObj.deleteObject(mockSession, "/a", USER_DATA);
+
+        assertNull(testObj.getJob(userSession("someoneElse"), job.getId()));
+        started.countDown();
+    }
+
+    @Test(expected = PathNotFoundException.class)
+    public void testDeleteMissingObject() throws RepositoryException {
+        testObj.deleteObject(mockSession, "/missing", USER_DATA);
+    }
+
+    @Test
+    public void testCopyParentsFirstInBatches() throws RepositoryException {
+        final JobImpl job = new JobImpl("copy", "/a", "/x", WORKSPACE, USER, USER_DATA);
+
+        testObj.run(job, mockSession);
+
+        // only the nodes with more than a batch beneath them are added one by one
+        assertEquals(asList("x", "c"), copied);
+        final InOrder inOrder = inOrder(mockSession, mockWorkspace);
+        inOrder.verify(mockSession).save();
+        inOrder.verify(mockWorkspace).copy("/a/b", "/x/b");
+        // the end of a batch, then the copy of c saved before d is copied beneath it
+        inOrder.verify(mockSession, times(2)).save();
+        inOrder.verify(mockWorkspace).copy("/a/c/d", "/x/c/d");
+        inOrder.verify(mockSession).save();
+        inOrder.verify(mockWorkspace).copy("/a/c/jcr:content", "/x/c/jcr:content");
+        inOrder.verify(mockSession).save();
+        inOrder.verify(mockSession).logout();
+
+        verify(mockObservationManager).setUserData(USER_DATA);
+        verify(copies.get("c")).setProperty("jcr:data", mockBinaryValue);
+        verify(copies.get("c"), never()).setProperty(eq("jcr:uuid"), any(Value.class));
+        verify(mockRoot, never()).remove();
+        verify(mockVersionService).nodeUpdated(mockSession, "/x");
+        assertEquals(COMPLETED, job.getState());
+        assertEquals(5, job.getProcessed());
+    }
+
+    @Test
+    public void testCopySmallSubtreeWhole() throws RepositoryException {
+        testObj.setBatchSize(10);
+        final JobImpl job = new JobImpl("copy", "/a", "/x", WORKSPACE, USER, USER_DATA);
+
+        testObj.run(job, mockSession);
+
+        verify(mockWorkspace).copy("/a", "/x");
+        assertTrue(copied.isEmpty());
+        assertEquals(COMPLETED, job.getState());
+        assertEquals(5, job.getProcessed());
+    }
+
+    @Test
+    public void testCopySameNameSiblings() throws RepositoryException {
+        final Node first = mock(Node.class);
+        final Node second = mock(Node.class);
+        node(first, "/a/n");
+        node(second, "/a/n[2]");
+        when(second.getName()).thenReturn("n");
+        when(second.getIndex()).thenReturn(2);
+        node(mockRoot, "/a", first, second);
+
+        final Node existing = mock(Node.class);
+        when(existing.getPath()).thenReturn("/x");
+        copyTarget(existing);
+        when(existing.hasNode("n")).thenReturn(true);
+        when(mockSession.nodeExists("/x")).thenReturn(true);
+        when(mockSession.getNode("/x")).thenReturn(existing);
+
+        final JobImpl job = new JobImpl("copy", "/a", "/x", WORKSPACE, USER, USER_DATA);
+        testObj.run(job, mockSession);
+
+        verify(mockWorkspace).copy("/a/n[2]", "/x/n");
+        verify(mockWorkspace, never()).copy(eq("/a/n"), anyString());
+        assertEquals(COMPLETED, job.getState());
+    }
+
+    @Test
+    public void testCopyResumesPastExistingNodes() throws RepositoryException {
+        final Node existing = mock(Node.class);
+        when(existing.getPath()).thenReturn("/x");
+        copyTarget(existing);
+        when(existing.hasNode("b")).thenReturn(true);
+        when(mockSession.nodeExists("/x")).thenReturn(true);
+        when(mockSession.getNode("/x")).thenReturn(existing);
+
+        final JobImpl job = new JobImpl("copy", "/a", "/x", WORKSPACE, USER, USER_DATA);
+        testObj.run(job, mockSession);
+
+        assertEquals(asList("c"), copied);
+        verify(mockWorkspace, never()).copy(eq("/a/b"), anyString());
+        verify(mockWorkspace).copy("/a/c/d", "/x/c/d");
+        verify(mockWorkspace).copy("/a/c/jcr:content", "/x/c/jcr:content");
+        assertEquals(COMPLETED, job.getState());
+    }
+
+    @Test
+    public void testCopyPointsInternalReferencesAtTheCopy() throws RepositoryException {
+        // b refers to a; the workspace copies b, the job adds the copy of a
+        when(mockReference.getParent()).thenReturn(mockLeaf);
+        final Node copiedLeaf = mock(Node.class);
+        final Property copiedReference = mock(Property.class);
+        when(mockSession.nodeExists("/x/b")).thenReturn(true);
+        when(mockSession.getNode("/x/b")).thenReturn(copiedLeaf);
+        when(copiedLeaf.hasProperty("rel")).thenReturn(true);
+        when(copiedLeaf.getProperty("rel")).thenReturn(copiedReference);
+        when(copiedReference.getType()).thenReturn(REFERENCE);
+        when(copiedReference.getString()).thenReturn("root-id");
+        when(mockSession.getNode("/x")).thenAnswer(new Answer<Node>() {
+
+            @Override
+            public Node answer(final InvocationOnMock invocation) {
+                return copies.get("x");
+            }
+        });
+        final ValueFactory valueFactory = mock(ValueFactory.class);
+        final Value copyReference = mock(Value.class);
+        when(mockSession.getValueFactory()).thenReturn(valueFactory);
+        when(valueFactory.createValue(any(Node.class), eq(false))).thenReturn(copyReference);
+
+        final JobImpl job = new JobImpl("copy", "/a", "/x", WORKSPACE, USER, USER_DATA);
+        testObj.run(job, mockSession);
+
+        verify(valueFactory).createValue(copies.get("x"), false);
+        verify(copiedReference).setValue(copyReference);
+        verify(mockReference, never()).setValue(any(Value.class));
+        assertEquals(COMPLETED, job.getState());
+    }
+
+    @Test
+    public void testCopyLeavesReferencesAlreadyPointedAtTheCopy() throws RepositoryException {
+        when(mockReference.getParent()).thenReturn(mockLeaf);
+        final Node copiedLeaf = mock(Node.class);
+        final Property copiedReference = mock(Property.class);
+        when(mockSession.nodeExists("/x/b")).thenReturn(true);
+        when(mockSession.getNode("/x/b")).thenReturn(copiedLeaf);
+        when(copiedLeaf.hasProperty("rel")).thenReturn(true);
+        when(copiedLeaf.getProperty("rel")).thenReturn(copiedReference);
+        when(copiedReference.getString()).thenReturn("copy-id");
+        when(mockSession.getNode("/x")).thenReturn(mock(Node.class));
+        when(mockSession.getValueFactory()).thenReturn(mock(ValueFactory.class));
+
+        final JobImpl job = new JobImpl("copy", "/a", "/x", WORKSPACE, USER, USER_DATA);
+        testObj.run(job, mockSession);
+
+        verify(copiedReference, never()).setValue(any(Value.class));
+        assertEquals(COMPLETED, job.getState());
+    }
+
+    @Test
+    public void testMoveWholeSubtree() throws RepositoryException {
+        final JobImpl job = new JobImpl("move", "/a", "/x", WORKSPACE, USER, USER_DATA);
+
+        testObj.run(job, mockSession);
+
+        final InOrder inOrder = inOrder(mockSession);
+        inOrder.verify(mockSession).move("/a", "/x");
+        inOrder.verify(mockSession).save();
+        inOrder.verify(mockSession).logout();
+
+        // nothing is rebuilt, so identifiers, creation and versions are kept
+        assertTrue(copied.isEmpty());
+        verify(mockRoot, never()).remove();
+        verify(mockReference, never()).setValue(any(Node.class));
+        verify(mockVersionService).nodeUpdated(mockSession, "/x");
+        assertEquals(COMPLETED, job.getState());
+        assertEquals(1, job.getProcessed());
+    }
+
+    @Test
+    public void testResumedMoveFindsItFinished() throws RepositoryException {
+        when(mockSession.nodeExists("/a")).thenReturn(false);
+        when(mockSession.nodeExists("/x")).thenReturn(true);
+        final JobImpl job = new JobImpl("move", "/a", "/x", WORKSPACE, USER, USER_DATA);
+
+        testObj.run(job, mockSession);
+
+        verify(mockSession, never()).move(anyString(), anyString());
+        assertEquals(COMPLETED, job.getState());
+    }
+
+    @Test
+    public void testMoveObject() throws RepositoryException {
+        final CountDownLatch started = blockJobs();
+
+        final Job job = testObj.moveObject(mockSession, "/a", "/x", USER_DATA);
+
+        verify(mockSession).checkPermission("/a", ACTION_READ);
+        verify(mockSession).checkPermission("/x", ACTION_ADD_NODE);
+        verify(mockSession).checkPermission("/a", ACTION_REMOVE);
+        assertEquals("move", job.getType());
+        assertEquals("/x", job.getDestination());
+        assertSame(job, testObj.moveObject(userSession(USER), "/a", "/x", USER_DATA));
+
+        started.countDown();
+        verify(mockSession, timeout(1000)).move("/a", "/x");
+    }
+
+    @Test(expected = PathNotFoundException.class)
+    public void testCopyWithoutDestinationParent() throws RepositoryException {
+        testObj.copyObject(mockSession, "/a", "/missing/x", USER_DATA);
+    }
+
+    @Test(expected = AccessDeniedException.class)
+    public void testCopyToUnwritableDestination() throws RepositoryException {
+        doThrow(new AccessDeniedException("Expected")).when(mockSession).checkPermission("/x", ACTION_ADD_NODE);
+
+        try {
+            testObj.copyObject(mockSession, "/a", "/x", USER_DATA);
+        } finally {
+            verify(mockSession, never()).logout();
+        }
+    }
+
+    @Test
+    public void testRestoreFromCheckpoint() throws RepositoryException, IOException {
+        final JobImpl job = new JobImpl("copy", "/a", "/x", WORKSPACE, USER, USER_DATA);
+        job.processed(3);
+        testObj.checkpoint(job);
+
+        final JobServiceImpl restarted = new JobServiceImpl();
+        restarted.setRepository(mockRepository);
+        restarted.setCheckpointDirectory(checkpoints.getRoot());
+        restarted.setBatchSize(2);
+
+        try {
+            restarted.restore();
+
+            final Job restored = restarted.getJob(mockSession, job.getId());
+            assertEquals("copy", restored.getType());
+            assertEquals("/x", restored.getDestination());
+            assertEquals(USER, restored.getOwner());
+            assertEquals(FAILED, restored.getState());
+            assertEquals(3, restored.getProcessed());
+            assertEquals(job.getStarted(), restored.getStarted());
+            verify(mockDestinationParent, never()).addNode(anyString(), anyString());
+
+            // requested again by its owner, it resumes
+            final Job resumed = restarted.copyObject(mockSession, "/a", "/x", USER_DATA);
+            assertSame(restored, resumed);
+            verify(mockDestinationParent, timeout(1000)).addNode("x", "nt:folder");
+            verify(mockSession, timeout(1000)).logout();
+            assertEquals(0, checkpoints.getRoot().list().length);
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    public void testRestoredJobIsNotResumedByAnotherUser() throws RepositoryException {
+        final JobImpl job = new JobImpl("copy", "/a", "/x", WORKSPACE, USER, USER_DATA);
+        testObj.checkpoint(job);
+
+        final JobServiceImpl restarted = new JobServiceImpl();
+        restarted.setRepository(mockRepository);
+        restarted.setCheckpointDirectory(checkpoints.getRoot());
+        restarted.setBatchSize(2);
+
+        try {
+            restarted.restore();
+            blockJobs();
+
+            final Session other = userSession("someoneElse");
+            final Job started = restarted.copyObject(other, "/a", "/x", USER_DATA);
+            assertFalse(job.getId().equals(started.getId()));
+            assertEquals(FAILED, restarted.getJob(mockSession, job.getId()).getState());
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    public void testExceedsThreshold() throws RepositoryException {
+        testObj.setThreshold(3);
+        assertTrue(testObj.exceedsThreshold(mockSession, "/a"));
+
+        testObj.setThreshold(4);
+        assertFalse(testObj.exceedsThreshold(mockSession, "/a"));
+    }
+
+    @Test
+    public void testGetMissingJob() {
+        assertNull(testObj.getJob(mockSession, "no-such-job"));
+    }
+
+    /**
+     * Hold the jobs started in the test's session until the latch is released
+     */
+    private CountDownLatch blockJobs() throws RepositoryException {
+        final CountDownLatch started = new CountDownLatch(1);
+        when(mockWorkspace.getObservationManager()).thenAnswer(new Answer<ObservationManager>() {
+
+            @Override
+            public ObservationManager answer(final InvocationOnMock invocation) throws InterruptedException {
+                started.await();
+                return mockObservationManager;
+            }
+        });
+        return started;
+    }
+
+    private Session userSession(final String user) throws RepositoryException {
+        final Session session = mock(Session.class);
+        when(session.getUserID()).thenReturn(user);
+        when(session.getAttributeNames()).thenReturn(new String[0]);
+        when(session.getWorkspace()).thenReturn(mockWorkspace);
+        when(session.nodeExists(anyString())).thenAnswer(new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) throws RepositoryException {
+                return mockSession.nodeExists((String) invocation.getArguments()[0]);
+            }
+        });
+        return session;
+    }
+
+    /**
+     * Make a node of the destination tree, which records the copies added
+     * beneath it
+     */
+    private void copyTarget(final Node node) throws RepositoryException {
+        when(node.addNode(anyString(), anyString())).thenAnswer(new Answer<Node>() {
+
+            @Override
+            public Node answer(final InvocationOnMock invocation) throws RepositoryException {
+                final String name = (String) invocation.getArguments()[0];
+                final String parentPath = node.getPath();
+                final Node copy = mock(Node.class);
+                when(copy.getPath()).thenReturn(("/".equals(parentPath) ? "" : parentPath) + "/" + name);
+                copyTarget(copy);
+                copies.put(name, copy);
+                copied.add(name);
+                return copy;
+            }
+        });
+    }
+
+    /**
+     * Make a node of the source tree, whose children are those not yet
+     * removed
+     */
+    private void node(final Node node, final String path, final Node... children)
+        throws RepositoryException {
+        final NodeType type = mock(NodeType.class);
+        when(type.getName()).thenReturn("nt:folder");
+
+        when(node.getPath()).thenReturn(path);
+        when(node.getName()).thenReturn(path.substring(path.lastIndexOf('/') + 1));
+        when(node.getPrimaryNodeType()).thenReturn(type);
+        when(node.getMixinNodeTypes()).thenReturn(new NodeType[0]);
+        when(node.getProperties()).thenReturn(mock(PropertyIterator.class));
+        when(node.hasNodes()).thenAnswer(new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                return remaining(children).length > 0;
+            }
+        });
+        when(node.getNodes()).thenAnswer(new Answer<NodeIterator>() {
+
+            @Override
+            public NodeIterator answer(final InvocationOnMock invocation) {
+                return nodeIterator(remaining(children));
+            }
+        });
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                removed.add(node);
+                return null;
+            }
+        }).when(node).remove();
+        when(node.getReferences()).thenReturn(mock(PropertyIterator.class));
+        when(node.getWeakReferences()).thenReturn(mock(PropertyIterator.class));
+        when(mockSession.getNode(path)).thenReturn(node);
+    }
+
+    private Node[] remaining(final Node... nodes) {
+        final List<Node> remaining = new ArrayList<>(asList(nodes));
+        remaining.removeAll(removed);
+        return remaining.toArray(new Node[remaining.size()]);
+    }
+}
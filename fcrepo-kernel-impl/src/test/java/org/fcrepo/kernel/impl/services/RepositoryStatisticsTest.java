@@ -0,0 +1,379 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.services;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.jcr.observation.Event.NODE_ADDED;
+import static javax.jcr.observation.Event.NODE_MOVED;
+import static javax.jcr.observation.Event.NODE_REMOVED;
+import static javax.jcr.observation.Event.PROPERTY_ADDED;
+import static javax.jcr.observation.Event.PROPERTY_CHANGED;
+import static javax.jcr.observation.Event.PROPERTY_REMOVED;
+import static javax.jcr.query.Query.JCR_SQL2;
+import static org.fcrepo.jcr.FedoraJcrTypes.CONTENT_SIZE;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_BINARY;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_OBJECT;
+import static org.fcrepo.kernel.impl.services.RepositoryStatistics.BINARY_SIZE_GAUGE;
+import static org.fcrepo.kernel.impl.services.RepositoryStatistics.EVENT_TYPES;
+import static org.fcrepo.kernel.impl.services.RepositoryStatistics.OBJECT_COUNT_GAUGE;
+import static org.fcrepo.metrics.RegistryService.getMetrics;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.modeshape.jcr.api.JcrConstants.JCR_PATH;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+
+import javax.jcr.Node;
+import javax.jcr.PathNotFoundException;
+import javax.jcr.Property;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.Workspace;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.ObservationManager;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * <p>RepositoryStatisticsTest class.</p>
+ *
+ * @author agent
+ */
+public class RepositoryStatisticsTest {
+
+    private static final String BINARY_PATH = "/x/ds/jcr:content";
+
+    private static final String SIZE_PATH = BINARY_PATH + "/" + CONTENT_SIZE;
+
+    private RepositoryStatistics testObj;
+
+    @Mock
+    private Repository mockRepo;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Workspace mockWorkspace;
+
+    @Mock
+    private ObservationManager mockObservationManager;
+
+    @Mock
+    private QueryManager mockQueryManager;
+
+    @Mock
+    private Query mockCountQuery;
+
+    @Mock
+    private Query mockSizeQuery;
+
+    @Mock
+    private QueryResult mockCountResult;
+
+    @Mock
+    private QueryResult mockSizeResult;
+
+    @Mock
+    private Node mockNode;
+
+    @Mock
+    private Property mockProperty;
+
+    @Before
+    public void setUp() throws RepositoryException {
+        initMocks(this);
+        when(mockRepo.login()).thenReturn(mockSession);
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockWorkspace.getObservationManager()).thenReturn(mockObservationManager);
+        when(mockWorkspace.getQueryManager()).thenReturn(mockQueryManager);
+        when(mockQueryManager.createQuery("SELECT [" + JCR_PATH + "] FROM [" + FEDORA_OBJECT + "]", JCR_SQL2))
+                .thenReturn(mockCountQuery);
+        when(mockQueryManager.createQuery("SELECT [" + CONTENT_SIZE + "] FROM [" + FEDORA_BINARY + "]", JCR_SQL2))
+                .thenReturn(mockSizeQuery);
+        when(mockCountQuery.execute()).thenReturn(mockCountResult);
+        when(mockSizeQuery.execute()).thenReturn(mockSizeResult);
+        index(new String[] {"/x", "/y", "/z"}, new String[] {BINARY_PATH, "/y/ds/jcr:content"}, 5L, 10L);
+
+        testObj = new RepositoryStatistics();
+        testObj.setRepository(mockRepo);
+        testObj.setReconcileSeconds(3600);
+        testObj.init();
+        testObj.getObjectCount();
+    }
+
+    @After
+    public void tearDown() throws RepositoryException {
+        testObj.destroy();
+    }
+
+    private void index(final String[] objects, final String[] binaries, final Long... sizes)
+            throws RepositoryException {
+        when(mockCountResult.getRows()).thenReturn(rows(objects, new Long[objects.length]));
+        when(mockSizeResult.getRows()).thenReturn(rows(binaries, sizes));
+    }
+
+    private static RowIterator rows(final String[] paths, final Long[] sizes) throws RepositoryException {
+        final RowIterator rows = mock(RowIterator.class);
+        final Row[] found = new Row[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            found[i] = mock(Row.class);
+            when(found[i].getPath()).thenReturn(paths[i]);
+            if (sizes[i] != null) {
+                final Value size = mock(Value.class);
+                when(size.getLong()).thenReturn(sizes[i]);
+                when(found[i].getValue(CONTENT_SIZE)).thenReturn(size);
+            }
+        }
+        final Iterator<Row> iterator = Arrays.asList(found).iterator();
+        when(rows.hasNext()).thenAnswer(new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                return iterator.hasNext();
+            }
+        });
+        when(rows.nextRow()).thenAnswer(new Answer<Row>() {
+
+            @Override
+            public Row answer(final InvocationOnMock invocation) {
+                return iterator.next();
+            }
+        });
+        return rows;
+    }
+
+    private static Event event(final int type, final String path) throws RepositoryException {
+        return event(type, path, currentTimeMillis() + 1000);
+    }
+
+    private static Event event(final int type, final String path, final long date) throws RepositoryException {
+        final Event event = mock(Event.class);
+        when(event.getType()).thenReturn(type);
+        when(event.getPath()).thenReturn(path);
+        when(event.getDate()).thenReturn(date);
+        return event;
+    }
+
+    private static EventIterator events(final Event... events) {
+        final EventIterator iterator = mock(EventIterator.class);
+        final Iterator<Event> remaining = Arrays.asList(events).iterator();
+        when(iterator.hasNext()).thenAnswer(new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                return remaining.hasNext();
+            }
+        });
+        when(iterator.nextEvent()).thenAnswer(new Answer<Event>() {
+
+            @Override
+            public Event answer(final InvocationOnMock invocation) {
+                return remaining.next();
+            }
+        });
+        return iterator;
+    }
+
+    private void fire(final Event... events) {
+        testObj.onEvent(events(events));
+    }
+
+    private void givenObject(final String path) throws RepositoryException {
+        final Node node = mock(Node.class);
+        when(node.isNodeType(FEDORA_OBJECT)).thenReturn(true);
+        when(mockSession.getNode(path)).thenReturn(node);
+    }
+
+    private void givenSize(final long size) throws RepositoryException {
+        when(mockSession.getProperty(SIZE_PATH)).thenReturn(mockProperty);
+        when(mockProperty.getParent()).thenReturn(mockNode);
+        when(mockProperty.getLong()).thenReturn(size);
+        when(mockNode.isNodeType(FEDORA_BINARY)).thenReturn(true);
+    }
+
+    @Test
+    public void testInit() throws RepositoryException {
+        verify(mockObservationManager).addEventListener(testObj, EVENT_TYPES, "/", true, null, null, false);
+        assertEquals(3L, testObj.getObjectCount());
+        assertEquals(15L, testObj.getBinarySize());
+        assertFalse(testObj.isDirty());
+    }
+
+    @Test
+    public void testGauges() {
+        assertEquals(3L, getMetrics().getGauges().get(OBJECT_COUNT_GAUGE).getValue());
+        assertEquals(15L, getMetrics().getGauges().get(BINARY_SIZE_GAUGE).getValue());
+    }
+
+    @Test
+    public void testObjectAdded() throws RepositoryException {
+        givenObject("/a");
+        fire(event(NODE_ADDED, "/a"));
+        assertEquals(4L, testObj.getObjectCount());
+        assertFalse(testObj.isDirty());
+    }
+
+    @Test
+    public void testObjectAddedBeforeRecount() throws RepositoryException {
+        givenObject("/a");
+        fire(event(NODE_ADDED, "/a", 0));
+        assertEquals(3L, testObj.getObjectCount());
+        assertFalse(testObj.isDirty());
+    }
+
+    @Test
+    public void testOtherNodeAdded() throws RepositoryException {
+        when(mockSession.getNode("/a")).thenReturn(mockNode);
+        fire(event(NODE_ADDED, "/a"));
+        assertEquals(3L, testObj.getObjectCount());
+    }
+
+    @Test
+    public void testBinaryAdded() throws RepositoryException {
+        givenSize(4L);
+        fire(event(PROPERTY_REMOVED, SIZE_PATH));
+        fire(event(PROPERTY_ADDED, SIZE_PATH));
+        assertEquals(14L, testObj.getBinarySize());
+        assertFalse(testObj.isDirty());
+    }
+
+    @Test
+    public void testBinaryChanged() throws RepositoryException {
+        givenSize(8L);
+        fire(event(PROPERTY_CHANGED, SIZE_PATH));
+        assertEquals(18L, testObj.getBinarySize());
+        assertFalse(testObj.isDirty());
+    }
+
+    @Test
+    public void testBinaryRemoved() throws RepositoryException {
+        fire(event(PROPERTY_REMOVED, SIZE_PATH));
+        assertEquals(10L, testObj.getBinarySize());
+        assertFalse(testObj.isDirty());
+    }
+
+    @Test
+    public void testNodeRemoved() throws RepositoryException {
+        fire(event(NODE_REMOVED, "/x"));
+        assertEquals(2L, testObj.getObjectCount());
+        assertEquals(10L, testObj.getBinarySize());
+        assertFalse(testObj.isDirty());
+    }
+
+    @Test
+    public void testSiblingWithCommonPrefixIsNotRemoved() throws RepositoryException {
+        givenObject("/x2");
+        fire(event(NODE_ADDED, "/x2"));
+        fire(event(NODE_REMOVED, "/x"));
+        assertEquals(3L, testObj.getObjectCount());
+    }
+
+    @Test
+    public void testNodeMoved() throws RepositoryException {
+        final Event move = event(NODE_MOVED, "/w");
+        when(move.getInfo()).thenReturn(singletonMap("srcAbsPath", "/x"));
+        givenObject("/w");
+        fire(event(NODE_REMOVED, "/x"), event(NODE_ADDED, "/w"), move);
+        assertEquals(3L, testObj.getObjectCount());
+        assertEquals(15L, testObj.getBinarySize());
+
+        fire(event(NODE_REMOVED, "/w"));
+        assertEquals(2L, testObj.getObjectCount());
+        assertEquals(10L, testObj.getBinarySize());
+        assertFalse(testObj.isDirty());
+    }
+
+    @Test
+    public void testNodeAlreadyGone() throws RepositoryException {
+        when(mockSession.getNode("/a")).thenThrow(new PathNotFoundException());
+        fire(event(NODE_ADDED, "/a"));
+        assertTrue(testObj.isDirty());
+    }
+
+    @Test
+    public void testSystemEventsAreIgnored() throws RepositoryException {
+        fire(event(NODE_REMOVED, "/jcr:system/jcr:versionStorage/x"));
+        assertEquals(3L, testObj.getObjectCount());
+    }
+
+    @Test
+    public void testReconcile() throws RepositoryException {
+        when(mockSession.getNode("/a")).thenThrow(new PathNotFoundException());
+        fire(event(NODE_ADDED, "/a"));
+        index(new String[] {"/x", "/y"}, new String[] {BINARY_PATH}, 7L);
+        testObj.reconcile();
+        assertEquals(2L, testObj.getObjectCount());
+        assertEquals(7L, testObj.getBinarySize());
+        assertFalse(testObj.isDirty());
+    }
+
+    @Test
+    public void testEventsDuringRecountAreAppliedOnce() throws RepositoryException {
+        givenObject("/a");
+        final ExecutorService otherThread = newSingleThreadExecutor();
+        when(mockCountQuery.execute()).thenAnswer(new Answer<QueryResult>() {
+
+            @Override
+            public QueryResult answer(final InvocationOnMock invocation) throws Exception {
+                // the index has already seen /a, but not the removal of /y
+                final Event added = event(NODE_ADDED, "/a");
+                final Event removed = event(NODE_REMOVED, "/y");
+                otherThread.submit(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        fire(added, removed);
+                    }
+                }).get(5, SECONDS);
+                return mockCountResult;
+            }
+        });
+        index(new String[] {"/x", "/y", "/z", "/a"}, new String[] {BINARY_PATH, "/y/ds/jcr:content"}, 5L, 10L);
+
+        try {
+            testObj.reconcile();
+        } finally {
+            otherThread.shutdownNow();
+        }
+        assertEquals(3L, testObj.getObjectCount());
+        assertEquals(5L, testObj.getBinarySize());
+        assertFalse(testObj.isDirty());
+    }
+}
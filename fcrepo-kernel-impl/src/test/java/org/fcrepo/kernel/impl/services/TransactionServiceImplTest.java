@@ -23,6 +23,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -83,8 +85,27 @@ public class TransactionServiceImplTest {
     public void testExpiration() throws Exception {
         final Date fiveSecondsAgo = new Date(currentTimeMillis() - 5000);
         when(mockTx.getExpires()).thenReturn(fiveSecondsAgo);
+        TransactionServiceImpl.register(mockTx);
         service.removeAndRollbackExpired();
-        verify(mockTx).rollback();
+        verify(mockTx, timeout(1000)).rollback();
+    }
+
+    @Test
+    public void testExtendedTransactionIsNotExpired() throws Exception {
+        final Date fiveSecondsAgo = new Date(currentTimeMillis() - 5000);
+        final Date inAMinute = new Date(currentTimeMillis() + 60000);
+        when(mockTx.getExpires()).thenReturn(fiveSecondsAgo, inAMinute);
+        TransactionServiceImpl.register(mockTx);
+        service.removeAndRollbackExpired();
+        assertEquals(mockTx, service.getTransaction(IS_A_TX, null));
+        verify(mockTx, never()).rollback();
+    }
+
+    @Test(expected = TransactionMissingException.class)
+    public void testGetExpiredTransaction() throws Exception {
+        final Date fiveSecondsAgo = new Date(currentTimeMillis() - 5000);
+        when(mockTx.getExpires()).thenReturn(fiveSecondsAgo);
+        service.getTransaction(IS_A_TX, null);
     }
 
     @Test
@@ -92,7 +113,9 @@ public class TransactionServiceImplTest {
         final Date fiveSecondsAgo = new Date(currentTimeMillis() - 5000);
         doThrow(new RepositoryException("")).when(mockTx).rollback();
         when(mockTx.getExpires()).thenReturn(fiveSecondsAgo);
+        TransactionServiceImpl.register(mockTx);
         service.removeAndRollbackExpired();
+        verify(mockTx, timeout(1000)).rollback();
     }
 
     @Test
@@ -21,10 +21,14 @@ import org.fcrepo.kernel.services.VersionService;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import javax.jcr.ItemNotFoundException;
 import javax.jcr.Node;
 import javax.jcr.PathNotFoundException;
 import javax.jcr.Property;
+import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Value;
@@ -32,15 +36,20 @@ import javax.jcr.Workspace;
 import javax.jcr.version.Version;
 import javax.jcr.version.VersionException;
 import javax.jcr.version.VersionHistory;
-import javax.jcr.version.VersionIterator;
 import javax.jcr.version.VersionManager;
 
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
 
+import static org.fcrepo.jcr.FedoraJcrTypes.FROZEN_NODE;
+import static org.fcrepo.kernel.impl.utils.TestHelpers.setField;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -149,6 +158,95 @@ public class VersionServiceImplTest {
         verify(mockVM, only()).checkpoint(EXAMPLE_AUTO_VERSIONED_PATH);
     }
 
+    @Test
+    public void testCoalescedAutoVersioning() throws Exception {
+        final Repository mockRepo = mock(Repository.class);
+        when(mockRepo.login("default")).thenReturn(s);
+        testObj.setRepository(mockRepo);
+        setField(testObj, "quietMillis", 200L);
+
+        testObj.nodeUpdated(s, EXAMPLE_AUTO_VERSIONED_PATH);
+        testObj.nodeUpdated(s, EXAMPLE_AUTO_VERSIONED_PATH);
+        testObj.nodeUpdated(s, EXAMPLE_AUTO_VERSIONED_PATH);
+        verify(mockVM, never()).checkpoint(EXAMPLE_AUTO_VERSIONED_PATH);
+
+        verify(mockVM, timeout(5000)).checkpoint(EXAMPLE_AUTO_VERSIONED_PATH);
+        verify(s, timeout(5000)).logout();
+        Thread.sleep(400);
+        verify(mockVM, times(1)).checkpoint(EXAMPLE_AUTO_VERSIONED_PATH);
+    }
+
+    @Test
+    public void testCoalescedAutoVersioningRetries() throws Exception {
+        final Repository mockRepo = mock(Repository.class);
+        when(mockRepo.login("default")).thenReturn(s);
+        testObj.setRepository(mockRepo);
+        setField(testObj, "quietMillis", 50L);
+        when(mockVM.checkpoint(EXAMPLE_AUTO_VERSIONED_PATH)).thenThrow(new RepositoryException("Expected."))
+                .thenReturn(null);
+
+        testObj.nodeUpdated(s, EXAMPLE_AUTO_VERSIONED_PATH);
+
+        verify(mockVM, timeout(5000).times(2)).checkpoint(EXAMPLE_AUTO_VERSIONED_PATH);
+    }
+
+    @Test
+    public void testCoalescedAutoVersioningIsCapped() throws Exception {
+        final Repository mockRepo = mock(Repository.class);
+        when(mockRepo.login("default")).thenReturn(s);
+        testObj.setRepository(mockRepo);
+        setField(testObj, "quietMillis", 200L);
+        setField(testObj, "maxDelayMillis", 300L);
+
+        final long stop = System.currentTimeMillis() + 1000;
+        while (System.currentTimeMillis() < stop) {
+            testObj.nodeUpdated(s, EXAMPLE_AUTO_VERSIONED_PATH);
+            Thread.sleep(20);
+        }
+        verify(mockVM, atLeast(2)).checkpoint(EXAMPLE_AUTO_VERSIONED_PATH);
+    }
+
+    @Test
+    public void testUpdateDuringCheckpointIsVersioned() throws Exception {
+        final Repository mockRepo = mock(Repository.class);
+        when(mockRepo.login("default")).thenReturn(s);
+        testObj.setRepository(mockRepo);
+        setField(testObj, "quietMillis", 50L);
+
+        final CountDownLatch checkpointing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(mockVM.checkpoint(EXAMPLE_AUTO_VERSIONED_PATH)).thenAnswer(new Answer<Version>() {
+
+            @Override
+            public Version answer(final InvocationOnMock invocation) throws InterruptedException {
+                checkpointing.countDown();
+                release.await();
+                return null;
+            }
+        });
+
+        testObj.nodeUpdated(s, EXAMPLE_AUTO_VERSIONED_PATH);
+        checkpointing.await();
+        testObj.nodeUpdated(s, EXAMPLE_AUTO_VERSIONED_PATH);
+        release.countDown();
+
+        verify(mockVM, timeout(5000).times(2)).checkpoint(EXAMPLE_AUTO_VERSIONED_PATH);
+    }
+
+    @Test
+    public void testFlushTakesPendingCheckpoints() throws Exception {
+        final Repository mockRepo = mock(Repository.class);
+        when(mockRepo.login("default")).thenReturn(s);
+        testObj.setRepository(mockRepo);
+        setField(testObj, "quietMillis", 60000L);
+
+        testObj.nodeUpdated(s, EXAMPLE_AUTO_VERSIONED_PATH);
+        verify(mockVM, never()).checkpoint(EXAMPLE_AUTO_VERSIONED_PATH);
+
+        ((VersionServiceImpl) testObj).flush();
+        verify(mockVM).checkpoint(EXAMPLE_AUTO_VERSIONED_PATH);
+    }
+
     @Test
     public void testDeferredCheckpointVersioned() throws Exception {
         // start a transaction
@@ -248,18 +346,13 @@ public class VersionServiceImplTest {
         final VersionHistory mockHistory = mock(VersionHistory.class);
         final Version mockVersion1 = mock(Version.class);
         when(mockHistory.getVersionByLabel(versionUUID)).thenThrow(VersionException.class);
-        final VersionIterator mockVersionIterator = mock(VersionIterator.class);
-        when(mockHistory.getAllVersions()).thenReturn(mockVersionIterator);
-        when(mockVersionIterator.hasNext()).thenReturn(true);
-        when(mockVersionIterator.nextVersion()).thenReturn(mockVersion1);
-        final Node mockFrozenNode = mock(Node.class);
-        when(mockVersion1.getFrozenNode()).thenReturn(mockFrozenNode);
-        when(mockFrozenNode.getIdentifier()).thenReturn(versionUUID);
+        mockFrozenNodeLookup(mockHistory, mockVersion1, versionUUID);
         when(mockWorkspace.getVersionManager()).thenReturn(mockVersionManager);
         when(mockVersionManager.getVersionHistory(EXAMPLE_VERSIONED_PATH)).thenReturn(mockHistory);
 
         testObj.revertToVersion(mockWorkspace, EXAMPLE_VERSIONED_PATH, versionUUID);
         verify(mockVersionManager).restore(mockVersion1, true);
+        verify(mockHistory, never()).getAllVersions();
     }
 
     @Test(expected = PathNotFoundException.class)
@@ -269,9 +362,8 @@ public class VersionServiceImplTest {
         final VersionHistory mockHistory = mock(VersionHistory.class);
 
         when(mockHistory.getVersionByLabel(versionUUID)).thenThrow(VersionException.class);
-        final VersionIterator mockVersionIterator = mock(VersionIterator.class);
-        when(mockHistory.getAllVersions()).thenReturn(mockVersionIterator);
-        when(mockVersionIterator.hasNext()).thenReturn(false);
+        when(mockHistory.getSession()).thenReturn(s);
+        when(s.getNodeByIdentifier(versionUUID)).thenThrow(new ItemNotFoundException());
         when(mockWorkspace.getVersionManager()).thenReturn(mockVersionManager);
         when(mockVersionManager.getVersionHistory(EXAMPLE_VERSIONED_PATH)).thenReturn(mockHistory);
 
@@ -334,16 +426,11 @@ public class VersionServiceImplTest {
         final Version mockVersion2 = mock(Version.class);
         when(mockVersion1.getContainingHistory()).thenReturn(mockHistory);
         when(mockHistory.getVersionByLabel(versionUUID)).thenThrow(VersionException.class);
-        final VersionIterator mockVersionIterator = mock(VersionIterator.class);
-        when(mockHistory.getAllVersions()).thenReturn(mockVersionIterator);
         when(mockHistory.getVersionLabels(mockVersion1)).thenReturn(versionLabels);
-        when(mockVersionIterator.hasNext()).thenReturn(true);
-        when(mockVersionIterator.nextVersion()).thenReturn(mockVersion1);
-        final Node mockFrozenNode = mock(Node.class);
-        when(mockVersion1.getFrozenNode()).thenReturn(mockFrozenNode);
-        when(mockFrozenNode.getIdentifier()).thenReturn(versionUUID);
+        mockFrozenNodeLookup(mockHistory, mockVersion1, versionUUID);
         when(mockVersion1.getIdentifier()).thenReturn(versionUUID);
         when(mockVersion1.getName()).thenReturn(versionName);
+        when(mockHistory.getVersion(versionName)).thenReturn(mockVersion1);
         when(mockWorkspace.getVersionManager()).thenReturn(mockVersionManager);
         when(mockVersionManager.getVersionHistory("/example")).thenReturn(mockHistory);
         when(mockVersionManager.getBaseVersion("/example")).thenReturn(mockVersion2);
@@ -359,9 +446,8 @@ public class VersionServiceImplTest {
         final VersionHistory mockHistory = mock(VersionHistory.class);
 
         when(mockHistory.getVersionByLabel(versionUUID)).thenThrow(VersionException.class);
-        final VersionIterator mockVersionIterator = mock(VersionIterator.class);
-        when(mockHistory.getAllVersions()).thenReturn(mockVersionIterator);
-        when(mockVersionIterator.hasNext()).thenReturn(false);
+        when(mockHistory.getSession()).thenReturn(s);
+        when(s.getNodeByIdentifier(versionUUID)).thenThrow(new ItemNotFoundException());
         when(mockWorkspace.getVersionManager()).thenReturn(mockVersionManager);
         when(mockVersionManager.getVersionHistory("/example")).thenReturn(mockHistory);
 
@@ -392,4 +478,19 @@ public class VersionServiceImplTest {
         verify(unversionedNode).addMixin(VersionServiceImpl.VERSIONABLE);
     }
 
+    private void mockFrozenNodeLookup(final VersionHistory mockHistory, final Version mockVersion,
+                                      final String frozenNodeIdentifier) throws RepositoryException {
+        final Node mockFrozenNode = mock(Node.class);
+        when(mockHistory.getSession()).thenReturn(s);
+        when(s.getNodeByIdentifier(frozenNodeIdentifier)).thenReturn(mockFrozenNode);
+        when(mockFrozenNode.isNodeType(FROZEN_NODE)).thenReturn(true);
+        when(mockFrozenNode.getParent()).thenReturn(mockVersion);
+        when(mockVersion.getParent()).thenReturn(mockHistory);
+        when(mockHistory.isSame(mockHistory)).thenReturn(true);
+        when(mockVersion.getName()).thenReturn("version");
+        when(mockHistory.getVersion("version")).thenReturn(mockVersion);
+        when(mockVersion.getFrozenNode()).thenReturn(mockFrozenNode);
+        when(mockFrozenNode.getIdentifier()).thenReturn(frozenNodeIdentifier);
+    }
+
 }
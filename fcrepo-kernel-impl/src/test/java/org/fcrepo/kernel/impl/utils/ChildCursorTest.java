@@ -0,0 +1,197 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.utils;
+
+import static java.util.Arrays.asList;
+import static javax.jcr.PropertyType.NAME;
+import static javax.jcr.query.Query.JCR_SQL2;
+import static org.fcrepo.kernel.impl.testutilities.TestNodeIterator.nodeIterator;
+import static org.fcrepo.kernel.impl.utils.ChildCursor.childrenAfter;
+import static org.fcrepo.kernel.impl.utils.ChildCursor.decodeToken;
+import static org.fcrepo.kernel.impl.utils.ChildCursor.encodeToken;
+import static org.fcrepo.kernel.impl.utils.ChildCursor.nextToken;
+import static org.fcrepo.kernel.impl.utils.ChildCursor.page;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Iterator;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.ValueFactory;
+import javax.jcr.Workspace;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.QueryResult;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>ChildCursorTest class.</p>
+ *
+ * @author agent
+ */
+public class ChildCursorTest {
+
+    @Mock
+    private Node mockParent;
+
+    @Mock
+    private Node mockChild1;
+
+    @Mock
+    private Node mockChild2;
+
+    @Mock
+    private Node mockChild3;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Workspace mockWorkspace;
+
+    @Mock
+    private QueryManager mockQueryManager;
+
+    @Mock
+    private Query mockQuery;
+
+    @Mock
+    private QueryResult mockResult;
+
+    @Mock
+    private ValueFactory mockValueFactory;
+
+    @Mock
+    private Value mockValue;
+
+    @Before
+    public void setUp() throws RepositoryException {
+        initMocks(this);
+        when(mockParent.getPath()).thenReturn("/parent");
+        when(mockParent.getSession()).thenReturn(mockSession);
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockSession.getValueFactory()).thenReturn(mockValueFactory);
+        when(mockWorkspace.getQueryManager()).thenReturn(mockQueryManager);
+        when(mockQueryManager.createQuery(anyString(), eq(JCR_SQL2))).thenReturn(mockQuery);
+        when(mockQuery.execute()).thenReturn(mockResult);
+        when(mockChild1.getName()).thenReturn("a");
+        when(mockChild2.getName()).thenReturn("b");
+        when(mockChild3.getName()).thenReturn("c");
+    }
+
+    @Test
+    public void testTokenRoundTrip() {
+        final String token = encodeToken("some/odd name");
+        assertFalse(token.contains("/"));
+        assertEquals("some/odd name", decodeToken(token));
+    }
+
+    @Test
+    public void testEmptyTokenIsFirstPage() {
+        assertNull(decodeToken(""));
+        assertNull(decodeToken(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidToken() {
+        decodeToken("not a token!");
+    }
+
+    @Test
+    public void testChildrenFromFirstPage() throws RepositoryException {
+        when(mockResult.getNodes()).thenReturn(nodeIterator(mockChild1, mockChild2));
+        final Iterator<Node> children = childrenAfter(mockParent, "", 2);
+        assertEquals(mockChild1, children.next());
+        assertEquals(mockChild2, children.next());
+        assertFalse(children.hasNext());
+        verify(mockQueryManager).createQuery(contains("ISCHILDNODE(child, [/parent])"), eq(JCR_SQL2));
+        verify(mockQuery).setLimit(2);
+        verify(mockQuery, never()).bindValue(anyString(), any(Value.class));
+    }
+
+    @Test
+    public void testChildrenAfterToken() throws RepositoryException {
+        when(mockValueFactory.createValue("a", NAME)).thenReturn(mockValue);
+        when(mockResult.getNodes()).thenReturn(nodeIterator(mockChild2, mockChild3));
+        final Iterator<Node> children = childrenAfter(mockParent, encodeToken("a"), -1);
+        assertEquals(mockChild2, children.next());
+        verify(mockQueryManager).createQuery(contains("NAME(child) > $after"), eq(JCR_SQL2));
+        verify(mockQuery).bindValue("after", mockValue);
+        verify(mockQuery, never()).setLimit(anyLong());
+    }
+
+    @Test
+    public void testNextToken() throws RepositoryException {
+        when(mockResult.getNodes()).thenReturn(nodeIterator(mockChild1, mockChild2, mockChild3));
+        final String token = nextToken(mockParent, "", 2);
+        assertEquals("b", decodeToken(token));
+        verify(mockQuery).setLimit(3);
+    }
+
+    @Test
+    public void testPage() throws RepositoryException {
+        when(mockValueFactory.createValue("a", NAME)).thenReturn(mockValue);
+        when(mockResult.getNodes()).thenReturn(nodeIterator(mockChild2, mockChild3));
+        final ChildCursor.Page page = page(mockParent, encodeToken("a"), 1);
+        assertEquals(asList(mockChild2), page.getChildren());
+        assertEquals("b", decodeToken(page.getNextToken()));
+        verify(mockQuery).setLimit(2);
+        verify(mockQuery).execute();
+    }
+
+    @Test
+    public void testNextTokenOnLastPage() throws RepositoryException {
+        when(mockResult.getNodes()).thenReturn(nodeIterator(mockChild1, mockChild2));
+        assertNull(nextToken(mockParent, "", 2));
+    }
+
+    @Test
+    public void testNextTokenWithoutLimit() throws RepositoryException {
+        assertNull(nextToken(mockParent, "", -1));
+        verify(mockQuery, never()).execute();
+    }
+
+    @Test
+    public void testPageReadsOnlyTheRowsItHolds() throws RepositoryException {
+        final javax.jcr.NodeIterator mockNodes = mock(javax.jcr.NodeIterator.class);
+        when(mockNodes.hasNext()).thenReturn(true);
+        when(mockNodes.nextNode()).thenReturn(mockChild1, mockChild2, mockChild3);
+        when(mockResult.getNodes()).thenReturn(mockNodes);
+        final ChildCursor.Page page = page(mockParent, "", 2);
+        assertEquals(asList(mockChild1, mockChild2), page.getChildren());
+        assertEquals("b", decodeToken(page.getNextToken()));
+        verify(mockQuery).setLimit(3);
+        verify(mockNodes, times(2)).nextNode();
+    }
+}
@@ -16,9 +16,11 @@
 package org.fcrepo.kernel.impl.utils;
 
 import static java.util.Calendar.MILLISECOND;
+import static org.fcrepo.jcr.FedoraJcrTypes.FROZEN_NODE;
 import static org.fcrepo.kernel.impl.rdf.JcrRdfTools.getPredicateForProperty;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.convertDateToXSDString;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.getDefinitionForPropertyName;
+import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.getVersion;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.getVersionHistory;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isBinaryContentProperty;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isReferenceProperty;
@@ -39,6 +41,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -47,6 +51,7 @@ import java.util.Calendar;
 import java.util.Iterator;
 import java.util.TimeZone;
 
+import javax.jcr.ItemNotFoundException;
 import javax.jcr.Node;
 import javax.jcr.Property;
 import javax.jcr.PropertyType;
@@ -281,6 +286,52 @@ public class FedoraTypesUtilsTest {
         assertEquals(mockVersionHistory, versionHistory);
     }
 
+    @Test
+    public void testGetVersionByLabel() throws RepositoryException {
+        when(mockVersionHistory.hasVersionLabel("v1")).thenReturn(true);
+        when(mockVersionHistory.getVersionByLabel("v1")).thenReturn(mockVersion);
+        assertEquals(mockVersion, getVersion(mockVersionHistory, "v1"));
+    }
+
+    @Test
+    public void testGetVersionByFrozenNodeIdentifier() throws RepositoryException {
+        final Node mockFrozenNode = mock(Node.class);
+        when(mockVersionHistory.getSession()).thenReturn(mockSession);
+        when(mockSession.getNodeByIdentifier("some-uuid")).thenReturn(mockFrozenNode);
+        when(mockFrozenNode.isNodeType(FROZEN_NODE)).thenReturn(true);
+        when(mockFrozenNode.getParent()).thenReturn(mockVersion);
+        when(mockVersion.getParent()).thenReturn(mockVersionHistory);
+        when(mockVersionHistory.isSame(mockVersionHistory)).thenReturn(true);
+        when(mockVersion.getName()).thenReturn("1.0");
+        when(mockVersionHistory.getVersion("1.0")).thenReturn(mockVersion);
+
+        assertEquals(mockVersion, getVersion(mockVersionHistory, "some-uuid"));
+        verify(mockVersionHistory, never()).getAllVersions();
+    }
+
+    @Test
+    public void testGetVersionByFrozenNodeOfAnotherHistory() throws RepositoryException {
+        final Node mockFrozenNode = mock(Node.class);
+        final Node mockOtherHistory = mock(Node.class);
+        when(mockVersionHistory.getSession()).thenReturn(mockSession);
+        when(mockSession.getNodeByIdentifier("some-uuid")).thenReturn(mockFrozenNode);
+        when(mockFrozenNode.isNodeType(FROZEN_NODE)).thenReturn(true);
+        when(mockFrozenNode.getParent()).thenReturn(mockVersion);
+        when(mockVersion.getParent()).thenReturn(mockOtherHistory);
+
+        assertNull(getVersion(mockVersionHistory, "some-uuid"));
+    }
+
+    @Test
+    public void testGetVersionByUnknownLabel() throws RepositoryException {
+        when(mockVersionHistory.getSession()).thenReturn(mockSession);
+        when(mockSession.getNodeByIdentifier("unknown")).thenThrow(new ItemNotFoundException());
+        assertNull(getVersion(mockVersionHistory, "unknown"));
+
+        when(mockSession.getNodeByIdentifier("not-a-version")).thenReturn(mockNode);
+        assertNull(getVersion(mockVersionHistory, "not-a-version"));
+    }
+
     @Test
     public void testIsInternalNode() throws RepositoryException {
         when(mockNode.getPrimaryNodeType()).thenReturn(mockNodeType);
@@ -50,4 +50,26 @@ public class FixityInputStreamTest {
         assertEquals("87acec17cd9dcd20a716cc2cf67417b71c8a7016",
                 encodeHexString(is.getMessageDigest().digest()));
     }
+
+    @Test
+    public void MultipleDigestFixityInputStreamTest() throws NoSuchAlgorithmException, IOException {
+        final FixityInputStream is =
+                new FixityInputStream(new ByteArrayInputStream("0123456789"
+                        .getBytes()), MessageDigest.getInstance("SHA-1"),
+                        MessageDigest.getInstance("SHA-256"), MessageDigest.getInstance("MD5"));
+
+        final byte[] buffer = new byte[4];
+        while (is.read(buffer) != -1) {
+            ;
+        }
+
+        assertEquals(10, is.getByteCount());
+        assertEquals(3, is.getMessageDigests().size());
+        assertEquals("87acec17cd9dcd20a716cc2cf67417b71c8a7016",
+                encodeHexString(is.getMessageDigest().digest()));
+        assertEquals("84d89877f0d4041efb6bf91a16f0248f2fd573e6af05c19f96bedb9f882f7882",
+                encodeHexString(is.getMessageDigests().get(1).digest()));
+        assertEquals("781e5e245d69b566979b86e28d23f2c7",
+                encodeHexString(is.getMessageDigests().get(2).digest()));
+    }
 }
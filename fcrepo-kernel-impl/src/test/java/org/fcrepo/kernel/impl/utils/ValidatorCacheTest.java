@@ -0,0 +1,164 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.utils;
+
+import static com.google.common.collect.Iterators.singletonIterator;
+import static java.util.Collections.singletonMap;
+import static javax.jcr.observation.Event.NODE_ADDED;
+import static javax.jcr.observation.Event.NODE_MOVED;
+import static javax.jcr.observation.Event.NODE_REMOVED;
+import static javax.jcr.observation.Event.PROPERTY_CHANGED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Date;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.observation.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>ValidatorCacheTest class.</p>
+ *
+ * @author agent
+ */
+public class ValidatorCacheTest {
+
+    private ValidatorCache testObj;
+
+    private final Date date = new Date();
+
+    @Mock
+    private Event mockEvent;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = new ValidatorCache(100);
+    }
+
+    private void cache(final String path) {
+        testObj.put(path, testObj.generation(), "etag", date);
+    }
+
+    private void fire(final int type, final String path) throws RepositoryException {
+        when(mockEvent.getType()).thenReturn(type);
+        when(mockEvent.getPath()).thenReturn(path);
+        testObj.invalidate(singletonIterator(mockEvent));
+    }
+
+    @Test
+    public void testPutAndGet() {
+        cache("/a");
+        assertEquals("etag", testObj.get("/a").getEtag());
+        assertEquals(date, testObj.get("/a").getLastModified());
+        assertNull(testObj.get("/b"));
+    }
+
+    @Test
+    public void testIncompleteValidatorsAreNotCached() {
+        testObj.put("/a", testObj.generation(), "", date);
+        testObj.put("/b", testObj.generation(), "etag", null);
+        assertFalse(testObj.contains("/a"));
+        assertFalse(testObj.contains("/b"));
+    }
+
+    @Test
+    public void testStaleValidatorsAreNotCached() throws RepositoryException {
+        final long generation = testObj.generation();
+        fire(PROPERTY_CHANGED, "/a/dc:title");
+        testObj.put("/a", generation, "etag", date);
+        assertFalse(testObj.contains("/a"));
+    }
+
+    @Test
+    public void testPropertyChangeInvalidatesNode() throws RepositoryException {
+        cache("/a");
+        cache("/a/b");
+        fire(PROPERTY_CHANGED, "/a/dc:title");
+        assertFalse(testObj.contains("/a"));
+        assertTrue(testObj.contains("/a/b"));
+    }
+
+    @Test
+    public void testContentChangeInvalidatesDatastream() throws RepositoryException {
+        cache("/a/ds");
+        fire(PROPERTY_CHANGED, "/a/ds/jcr:content/jcr:data");
+        assertFalse(testObj.contains("/a/ds"));
+    }
+
+    @Test
+    public void testNodeAddedInvalidatesParent() throws RepositoryException {
+        cache("/a");
+        fire(NODE_ADDED, "/a/b");
+        assertFalse(testObj.contains("/a"));
+    }
+
+    @Test
+    public void testNodeRemovedInvalidatesSubtree() throws RepositoryException {
+        cache("/a");
+        cache("/a/b");
+        cache("/a/b/c");
+        cache("/a/bc");
+        fire(NODE_REMOVED, "/a/b");
+        assertFalse(testObj.contains("/a"));
+        assertFalse(testObj.contains("/a/b"));
+        assertFalse(testObj.contains("/a/b/c"));
+        assertTrue(testObj.contains("/a/bc"));
+    }
+
+    @Test
+    public void testNodeMovedInvalidatesSource() throws RepositoryException {
+        cache("/a/b");
+        cache("/c");
+        when(mockEvent.getInfo()).thenReturn(singletonMap("srcAbsPath", "/a/b"));
+        fire(NODE_MOVED, "/c/b");
+        assertFalse(testObj.contains("/a/b"));
+        assertFalse(testObj.contains("/c"));
+    }
+
+    @Test
+    public void testInvalidatePathInvalidatesParentAndSubtree() {
+        final long generation = testObj.generation();
+        cache("/a");
+        cache("/a/b");
+        cache("/a/b/c");
+        cache("/a/bc");
+        testObj.invalidate("/a/b");
+        assertFalse(testObj.contains("/a"));
+        assertFalse(testObj.contains("/a/b"));
+        assertFalse(testObj.contains("/a/b/c"));
+        assertTrue(testObj.contains("/a/bc"));
+        testObj.put("/a", generation, "etag", date);
+        assertFalse(testObj.contains("/a"));
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        cache("/a");
+        cache("/b");
+        testObj.invalidateAll();
+        assertFalse(testObj.contains("/a"));
+        assertFalse(testObj.contains("/b"));
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.utils.infinispan;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.io.IOUtils;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.CacheLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>CacheLoaderChunkInputStreamTest class.</p>
+ *
+ * @author agent
+ */
+public class CacheLoaderChunkInputStreamTest {
+
+    private static final String KEY = "abc";
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    private static final int CHUNK_SIZE = 3;
+
+    @Mock
+    private CacheLoader<String, byte[]> mockLoader;
+
+    private ExecutorService executor;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        initMocks(this);
+        executor = newFixedThreadPool(2);
+
+        for (int i = 0; i * CHUNK_SIZE < CONTENT.length(); i++) {
+            final String chunk = CONTENT.substring(i * CHUNK_SIZE, Math.min(CONTENT.length(), (i + 1) * CHUNK_SIZE));
+            final MarshalledEntry<String, byte[]> entry = mock(MarshalledEntry.class);
+            when(entry.getValue()).thenReturn(chunk.getBytes());
+            when(mockLoader.load(KEY + "-" + i)).thenReturn(entry);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private InputStream stream(final int readAhead) {
+        return new CacheLoaderChunkInputStream(mockLoader, KEY, CHUNK_SIZE, CONTENT.length(), readAhead, executor);
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        assertEquals(CONTENT, IOUtils.toString(stream(0)));
+        verify(mockLoader, never()).contains(anyObject());
+    }
+
+    @Test
+    public void testReadAhead() throws IOException {
+        assertEquals(CONTENT, IOUtils.toString(stream(2)));
+        verify(mockLoader, never()).contains(anyObject());
+    }
+
+    @Test
+    public void testSkipWithReadAhead() throws IOException {
+        final InputStream in = stream(2);
+        assertEquals('0', in.read());
+        assertEquals(10, in.skip(10));
+        assertEquals('b', in.read());
+        assertEquals(5, in.skip(5));
+        assertEquals("hij", IOUtils.toString(in));
+    }
+
+    @Test
+    public void testMissingChunkEndsStream() throws IOException {
+        when(mockLoader.load(KEY + "-" + 2)).thenReturn(null);
+        assertEquals("012345", IOUtils.toString(stream(2)));
+    }
+}
@@ -43,6 +43,8 @@ public interface FedoraJcrTypes {
 
     String CONTENT_DIGEST = "fedora:digest";
 
+    String CONTENT_DIGESTS = "premis:hasMessageDigest";
+
     String FCR_CONTENT = "fcr:content";
 
     String FCR_VERSIONS = "fcr:versions";
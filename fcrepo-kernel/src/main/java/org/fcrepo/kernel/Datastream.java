@@ -15,8 +15,10 @@
  */
 package org.fcrepo.kernel;
 
+import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.concurrent.Callable;
 
 import javax.jcr.Binary;
 import javax.jcr.Node;
@@ -24,6 +26,7 @@ import javax.jcr.RepositoryException;
 
 import org.fcrepo.kernel.exception.InvalidChecksumException;
 import org.fcrepo.kernel.services.policy.StoragePolicyDecisionPoint;
+import org.fcrepo.kernel.utils.StoredContent;
 
 /**
  * @author bbpennel
@@ -43,6 +46,14 @@ public interface Datastream extends FedoraResource {
      */
     Binary getBinaryContent() throws RepositoryException;
 
+    /**
+     * @return The local file holding the content of this datastream, if the
+     *         binary store (or a filesystem projection) keeps it as a plain
+     *         file; null otherwise.
+     * @throws RepositoryException
+     */
+    File getContentFile() throws RepositoryException;
+
     /**
      * @return The Node of content associated with this datastream.
      * @throws RepositoryException
@@ -73,6 +84,37 @@ public interface Datastream extends FedoraResource {
             StoragePolicyDecisionPoint storagePolicyDecisionPoint)
         throws RepositoryException, InvalidChecksumException;
 
+    /**
+     * Prepare to set the content of this Datastream. The content type and
+     * file name are applied at once; the returned task writes the content to
+     * the binary store without touching the session, so it may be run on
+     * another thread. Its result is attached with
+     * {@link #setContent(StoredContent, URI)}.
+     *
+     * @param content InputStream of binary content to be stored
+     * @param contentType MIME type of content (optional)
+     * @param originalFileName Original file name of the content (optional)
+     * @param storagePolicyDecisionPoint Policy decision point for storing the content (optional)
+     * @return a task storing the content
+     * @throws RepositoryException
+     */
+    Callable<StoredContent> prepareContent(InputStream content, String contentType,
+            String originalFileName,
+            StoragePolicyDecisionPoint storagePolicyDecisionPoint)
+        throws RepositoryException;
+
+    /**
+     * Attach content stored by a task from {@link #prepareContent} to this
+     * Datastream.
+     *
+     * @param content the stored content
+     * @param checksum Checksum URI of the content (optional)
+     * @throws RepositoryException
+     * @throws InvalidChecksumException
+     */
+    void setContent(StoredContent content, URI checksum)
+        throws RepositoryException, InvalidChecksumException;
+
     /**
      * Set the content of this datastream
      * @param content Binary content to be stored
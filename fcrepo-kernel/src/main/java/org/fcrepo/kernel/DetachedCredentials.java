@@ -0,0 +1,101 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.jcr.Credentials;
+import javax.jcr.Session;
+
+/**
+ * The identity of a session's user, detached from the session and from the
+ * request that authenticated it, to log in with once both are gone: the
+ * user ID and the session attributes that hold the user's principals.
+ * Attributes of any other kind, such as the servlet request, are left
+ * behind. An authentication provider that recognizes these credentials
+ * re-establishes the identity without authenticating the user again.
+ *
+ * @author agent
+ */
+public class DetachedCredentials implements Credentials {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String userID;
+
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    /**
+     * @param session the session whose user to capture
+     */
+    public DetachedCredentials(final Session session) {
+        this.userID = session.getUserID();
+
+        for (final String name : session.getAttributeNames()) {
+            final Object value = session.getAttribute(name);
+
+            if (value instanceof Principal || isPrincipals(value)) {
+                attributes.put(name, value);
+            }
+        }
+    }
+
+    private static boolean isPrincipals(final Object value) {
+        if (!(value instanceof Collection)) {
+            return false;
+        }
+
+        for (final Object element : (Collection<?>) value) {
+            if (!(element instanceof Principal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the ID of the session's user
+     */
+    public String getUserID() {
+        return userID;
+    }
+
+    /**
+     * @param name
+     * @return the value of the session attribute, if it held principals, or
+     *         null
+     */
+    public Object getAttribute(final String name) {
+        return attributes.get(name);
+    }
+
+    /**
+     * @return the session attributes that held principals
+     */
+    public Map<String, Object> getAttributes() {
+        return unmodifiableMap(attributes);
+    }
+
+    @Override
+    public String toString() {
+        return "DetachedCredentials(" + userID + ")";
+    }
+}
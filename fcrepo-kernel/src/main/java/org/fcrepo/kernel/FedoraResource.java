@@ -15,6 +15,7 @@
  */
 package org.fcrepo.kernel;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Date;
 
@@ -23,8 +24,10 @@ import javax.jcr.RepositoryException;
 import javax.jcr.version.Version;
 import javax.jcr.version.VersionHistory;
 
+import org.apache.jena.riot.Lang;
 import org.fcrepo.kernel.rdf.HierarchyRdfContextOptions;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.rdf.VersionsRdfContextOptions;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 
 import com.hp.hpl.jena.query.Dataset;
@@ -146,6 +149,18 @@ public interface FedoraResource {
     RdfStream getVersionTriples(final IdentifierTranslator graphSubjects)
         throws RepositoryException;
 
+    /**
+     * Serialize a page of the JCR versions information, either in full or
+     * summarized
+     * @param graphSubjects
+     * @param serializationOptions
+     * @return triples
+     * @throws RepositoryException
+     */
+    RdfStream getVersionTriples(final IdentifierTranslator graphSubjects,
+                                final VersionsRdfContextOptions serializationOptions)
+        throws RepositoryException;
+
     /**
      * Serialize inbound References to this object as an {@link RdfStream}
      * @param graphSubjects
@@ -197,6 +212,19 @@ public interface FedoraResource {
     RdfStream replaceProperties(final IdentifierTranslator graphSubjects,
         final Model inputModel) throws RepositoryException;
 
+    /**
+     * Replace the properties of this object with the triples of the given
+     * RDF content, persisting them as they are parsed rather than reading the
+     * content into a model first
+     *
+     * @param graphSubjects
+     * @param content
+     * @param lang
+     * @throws RepositoryException
+     */
+    void replaceProperties(final IdentifierTranslator graphSubjects,
+        final InputStream content, final Lang lang) throws RepositoryException;
+
     /**
      * Construct an ETag value from the last modified date and path. JCR has a
      * mix:etag type, but it only takes into account binary properties. We
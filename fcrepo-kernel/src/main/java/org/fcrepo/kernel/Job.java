@@ -0,0 +1,87 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel;
+
+import java.util.Date;
+
+/**
+ * A long-running operation on a subtree of the repository, carried out in
+ * the background in batches of changes.
+ *
+ * @author agent
+ */
+public interface Job {
+
+    public static enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Get the job identifier
+     * @return job id
+     */
+    String getId();
+
+    /**
+     * Get the kind of operation the job carries out: "delete", "copy" or
+     * "move"
+     * @return the kind of job
+     */
+    String getType();
+
+    /**
+     * Get the path of the subtree the job operates on
+     * @return the subtree's path
+     */
+    String getPath();
+
+    /**
+     * Get the path the job copies or moves the subtree to
+     * @return the destination path, or null if the job has none
+     */
+    String getDestination();
+
+    /**
+     * Get the state of this job
+     * @return job state
+     */
+    State getState();
+
+    /**
+     * Get the number of nodes the job has saved changes to so far; for a
+     * move, the number of children moved
+     * @return the number of nodes processed
+     */
+    long getProcessed();
+
+    /**
+     * Get the date this job was started
+     * @return start date
+     */
+    Date getStarted();
+
+    /**
+     * Get the date this job completed or failed
+     * @return finish date, or null if the job is running
+     */
+    Date getFinished();
+
+    /**
+     * Get the reason the job failed
+     * @return the failure message, or null if the job has not failed
+     */
+    String getMessage();
+}
@@ -151,9 +151,27 @@ public final class RdfLexicon {
     public static final Property HAS_FIXITY_REPAIRED_COUNT =
             createProperty(REPOSITORY_NAMESPACE + "numFixityRepaired");
 
+    public static final Property HAS_LAST_FIXITY_CHECK =
+            createProperty(RESTAPI_NAMESPACE + "lastFixityCheck");
+    public static final Property HAS_LAST_FIXITY_STATE =
+            createProperty(RESTAPI_NAMESPACE + "lastFixityState");
+
+    public static final Property FIXITY_AUDIT_RUNNING =
+            createProperty(REPOSITORY_NAMESPACE + "fixityAuditRunning");
+    public static final Property HAS_FIXITY_AUDIT_BYTES =
+            createProperty(REPOSITORY_NAMESPACE + "fixityAuditBytes");
+    public static final Property HAS_FIXITY_AUDIT_RATE =
+            createProperty(REPOSITORY_NAMESPACE + "fixityAuditBytesPerSecond");
+    public static final Property HAS_FIXITY_AUDIT_POSITION =
+            createProperty(REPOSITORY_NAMESPACE + "fixityAuditPosition");
+    public static final Property HAS_FIXITY_AUDIT_FAILURE =
+            createProperty(REPOSITORY_NAMESPACE + "fixityAuditFailure");
+
     public static final Set<Property> fixityProperties = of(
             HAS_FIXITY_RESULT, HAS_MESSAGE_DIGEST, HAS_SIZE, HAS_FIXITY_STATE,
-            HAS_FIXITY_CHECK_COUNT, HAS_FIXITY_ERROR_COUNT, HAS_FIXITY_REPAIRED_COUNT);
+            HAS_FIXITY_CHECK_COUNT, HAS_FIXITY_ERROR_COUNT, HAS_FIXITY_REPAIRED_COUNT,
+            HAS_LAST_FIXITY_CHECK, HAS_LAST_FIXITY_STATE, FIXITY_AUDIT_RUNNING, HAS_FIXITY_AUDIT_BYTES,
+            HAS_FIXITY_AUDIT_RATE, HAS_FIXITY_AUDIT_POSITION, HAS_FIXITY_AUDIT_FAILURE);
 
     // SEARCH
     public static final Property SEARCH_PAGE = createProperty("http://sindice.com/vocab/search#Page");
@@ -293,11 +311,35 @@ public final class RdfLexicon {
             createProperty(REPOSITORY_NAMESPACE + "hasVersion");
     public static final Property HAS_VERSION_LABEL =
             createProperty(REPOSITORY_NAMESPACE + "hasVersionLabel");
+    public static final Property HAS_PREDECESSOR_VERSION =
+            createProperty(REPOSITORY_NAMESPACE + "hasPredecessorVersion");
     public static final Property VERSIONING_POLICY =
             createProperty(FEDORA_CONFIG_NAMESPACE + "versioningPolicy");
 
     public static final Set<Property> versioningProperties = of(HAS_VERSION,
-            HAS_VERSION_LABEL);
+            HAS_VERSION_LABEL, HAS_PREDECESSOR_VERSION);
+
+    // JOBS
+    public static final Property HAS_JOB_TYPE =
+            createProperty(REPOSITORY_NAMESPACE + "jobType");
+    public static final Property HAS_JOB_TARGET =
+            createProperty(REPOSITORY_NAMESPACE + "jobTarget");
+    public static final Property HAS_JOB_DESTINATION =
+            createProperty(REPOSITORY_NAMESPACE + "jobDestination");
+    public static final Property HAS_JOB_STATE =
+            createProperty(REPOSITORY_NAMESPACE + "jobState");
+    public static final Property HAS_JOB_PROCESSED_COUNT =
+            createProperty(REPOSITORY_NAMESPACE + "numJobNodesProcessed");
+    public static final Property HAS_JOB_STARTED =
+            createProperty(REPOSITORY_NAMESPACE + "jobStarted");
+    public static final Property HAS_JOB_FINISHED =
+            createProperty(REPOSITORY_NAMESPACE + "jobFinished");
+    public static final Property HAS_JOB_MESSAGE =
+            createProperty(REPOSITORY_NAMESPACE + "jobMessage");
+
+    public static final Set<Property> jobProperties = of(HAS_JOB_TYPE,
+            HAS_JOB_TARGET, HAS_JOB_DESTINATION, HAS_JOB_STATE, HAS_JOB_PROCESSED_COUNT,
+            HAS_JOB_STARTED, HAS_JOB_FINISHED, HAS_JOB_MESSAGE);
 
     // RDF EXTRACTION
     public static final Property COULD_NOT_STORE_PROPERTY =
@@ -344,7 +386,8 @@ public final class RdfLexicon {
                 searchProperties).addAll(ldpProperties).addAll(
                 repositoryProperties).addAll(namespaceProperties).addAll(
                 otherServiceProperties).addAll(contentProperties).addAll(
-                versioningProperties).addAll(jcrProperties);
+                versioningProperties).addAll(jobProperties).addAll(
+                jcrProperties);
         managedProperties = b.build();
     }
 
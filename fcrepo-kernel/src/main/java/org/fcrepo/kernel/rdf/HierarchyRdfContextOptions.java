@@ -15,6 +15,8 @@
  */
 package org.fcrepo.kernel.rdf;
 
+import javax.jcr.Node;
+
 /**
  * Options for the HierarchyRdfContext serialization
  * @author cabeer
@@ -25,9 +27,12 @@ public class HierarchyRdfContextOptions {
     public static final int DEFAULT_OFFSET = -1;
     public static final boolean DEFAULT_MEMBERSHIP = true;
     public static final boolean DEFAULT_CONTAINMENT = true;
+    public static final String DEFAULT_CONTINUATION_TOKEN = null;
 
     final private int limit;
     final private int offset;
+    final private String continuationToken;
+    final private Iterable<Node> childPage;
     final private boolean membership;
     final private boolean containment;
 
@@ -58,8 +63,51 @@ public class HierarchyRdfContextOptions {
                                       final int offset,
                                       final boolean membership,
                                       final boolean containment) {
+        this(limit, offset, DEFAULT_CONTINUATION_TOKEN, null, membership, containment);
+    }
+
+    /**
+     * Page through the hierarchy with a continuation token instead of an offset
+     * @param limit number of hierarchy nodes to display
+     * @param continuationToken opaque token marking the end of the previous page;
+     *        the empty string starts from the first page
+     * @param membership include membership triples
+     * @param containment include containment triples
+     */
+    public HierarchyRdfContextOptions(final int limit,
+                                      final String continuationToken,
+                                      final boolean membership,
+                                      final boolean containment) {
+        this(limit, DEFAULT_OFFSET, continuationToken, null, membership, containment);
+    }
+
+    /**
+     * Page through the hierarchy with a continuation token, serializing a
+     * page of children that has already been retrieved for it
+     * @param limit number of hierarchy nodes to display
+     * @param continuationToken opaque token marking the end of the previous page
+     * @param childPage the children following the token
+     * @param membership include membership triples
+     * @param containment include containment triples
+     */
+    public HierarchyRdfContextOptions(final int limit,
+                                      final String continuationToken,
+                                      final Iterable<Node> childPage,
+                                      final boolean membership,
+                                      final boolean containment) {
+        this(limit, DEFAULT_OFFSET, continuationToken, childPage, membership, containment);
+    }
+
+    private HierarchyRdfContextOptions(final int limit,
+                                       final int offset,
+                                       final String continuationToken,
+                                       final Iterable<Node> childPage,
+                                       final boolean membership,
+                                       final boolean containment) {
         this.limit = limit;
         this.offset = offset;
+        this.continuationToken = continuationToken;
+        this.childPage = childPage;
         this.membership = membership;
         this.containment = containment;
     }
@@ -89,6 +137,22 @@ public class HierarchyRdfContextOptions {
         return getOffset() >= 0;
     }
 
+    /**
+     * Is the hierarchy paged with a continuation token rather than an offset?
+     * @return boolean
+     */
+    public boolean hasContinuationToken() {
+        return getContinuationToken() != null;
+    }
+
+    /**
+     * Has the page of children for the continuation token already been retrieved?
+     * @return boolean
+     */
+    public boolean hasChildPage() {
+        return getChildPage() != null;
+    }
+
     /**
      * Is there a pagination limit that needs to be applied?
      * @return boolean
@@ -113,6 +177,22 @@ public class HierarchyRdfContextOptions {
         return offset;
     }
 
+    /**
+     * Get the pagination continuation token
+     * @return continuation token
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    /**
+     * Get the page of children already retrieved for the continuation token
+     * @return children following the token, or null
+     */
+    public Iterable<Node> getChildPage() {
+        return childPage;
+    }
+
     private static HierarchyRdfContextOptions defaultOptions() {
         return new HierarchyRdfContextOptions();
     }
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.rdf;
+
+/**
+ * Options for the VersionsRdfContext serialization
+ * @author agent
+ */
+public class VersionsRdfContextOptions {
+    public static final VersionsRdfContextOptions DEFAULT = new VersionsRdfContextOptions();
+    public static final int DEFAULT_LIMIT = -1;
+    public static final int DEFAULT_OFFSET = -1;
+    public static final boolean DEFAULT_SUMMARY = false;
+
+    final private int limit;
+    final private int offset;
+    final private boolean summary;
+
+    /**
+     * Options with the default values: every version, with its frozen
+     * properties
+     */
+    public VersionsRdfContextOptions() {
+        this(DEFAULT_LIMIT, DEFAULT_OFFSET, DEFAULT_SUMMARY);
+    }
+
+    /**
+     * Set the full range of versions options
+     * @param limit number of versions to display
+     * @param offset pagination offset, counted from the oldest version
+     * @param summary describe each version only by its labels, creation date
+     *        and predecessors, rather than by its frozen properties
+     */
+    public VersionsRdfContextOptions(final int limit,
+                                     final int offset,
+                                     final boolean summary) {
+        this.limit = limit;
+        this.offset = offset;
+        this.summary = summary;
+    }
+
+    /**
+     * Should each version be summarized instead of described in full
+     * @return boolean
+     */
+    public boolean summaryEnabled() {
+        return summary;
+    }
+
+    /**
+     * Is there a pagination offset that needs to be applied?
+     * @return boolean
+     */
+    public boolean hasOffset() {
+        return getOffset() > 0;
+    }
+
+    /**
+     * Is there a pagination limit that needs to be applied?
+     * @return boolean
+     */
+    public boolean hasLimit() {
+        return getLimit() >= 0;
+    }
+
+    /**
+     * Get the pagination limit value
+     * @return pagination limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Get the pagination offset value
+     * @return pagination offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+}
@@ -18,6 +18,7 @@ package org.fcrepo.kernel.services;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.Collection;
+import java.util.concurrent.Callable;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
@@ -28,6 +29,7 @@ import org.fcrepo.kernel.exception.InvalidChecksumException;
 import org.fcrepo.kernel.exception.ResourceTypeException;
 import org.fcrepo.kernel.rdf.IdentifierTranslator;
 import org.fcrepo.kernel.utils.FixityResult;
+import org.fcrepo.kernel.utils.StoredContent;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 
 /**
@@ -75,6 +77,21 @@ public interface DatastreamService extends Service {
     Datastream createDatastream(Session session, String dsPath, String contentType, String originalFileName,
             InputStream requestBodyStream, URI checksum) throws RepositoryException, InvalidChecksumException;
 
+    /**
+     * Prepare to set the content of a Datastream, as
+     * {@link Datastream#prepareContent} does, with this service's storage
+     * policies
+     *
+     * @param datastream
+     * @param contentType the mime-type for the content
+     * @param originalFileName the original file name for the content
+     * @param content binary payload for the datastream
+     * @return a task storing the content, which may be run on another thread
+     * @throws RepositoryException
+     */
+    Callable<StoredContent> prepareContent(Datastream datastream, String contentType, String originalFileName,
+            InputStream content) throws RepositoryException;
+
     /**
      * Retrieve the JCR node for a Datastream by pid and dsid
      *
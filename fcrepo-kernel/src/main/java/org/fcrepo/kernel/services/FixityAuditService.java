@@ -0,0 +1,89 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.services;
+
+import java.util.Collection;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
+import org.fcrepo.kernel.utils.FixityAuditRecord;
+
+/**
+ * A background audit that re-verifies the fixity of every binary in the
+ * repository, recording the time and outcome of the last check of each
+ * binary outside the repository.
+ *
+ * @author agent
+ */
+public interface FixityAuditService {
+
+    /**
+     * Start auditing, resuming with the binaries least recently checked
+     */
+    void start();
+
+    /**
+     * Stop auditing; checks in progress are abandoned
+     */
+    void stop();
+
+    /**
+     * @return whether the audit is running
+     */
+    boolean isRunning();
+
+    /**
+     * @return the number of binaries the audit has checked
+     */
+    long getCheckCount();
+
+    /**
+     * @return the number of checks that found no good copy of a binary
+     */
+    long getErrorCount();
+
+    /**
+     * @return the number of bytes the audit has read
+     */
+    long getBytesChecked();
+
+    /**
+     * @return the upper bound on the rate at which the audit reads binaries,
+     *         or 0 if there is none
+     */
+    long getBytesPerSecond();
+
+    /**
+     * @return the path of the last content node queued for checking, or null
+     *         if the audit is between passes
+     */
+    String getPosition();
+
+    /**
+     * @param contentNode the content node of a binary
+     * @return the outcome of the audit's last check of the binary, or null if
+     *         the audit has not checked it
+     * @throws RepositoryException
+     */
+    FixityAuditRecord getLastCheck(Node contentNode) throws RepositoryException;
+
+    /**
+     * @return the outcomes of the last checks that found no good copy of a
+     *         binary
+     */
+    Collection<FixityAuditRecord> getFailures();
+}
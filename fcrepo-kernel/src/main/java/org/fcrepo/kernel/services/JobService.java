@@ -0,0 +1,115 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.services;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.Job;
+
+/**
+ * Runs operations on large subtrees as background jobs, saving their changes
+ * in bounded batches rather than in one session. A job runs as the user who
+ * requested it, in a session of its own, so the user's permissions apply to
+ * every node it changes. A job records its progress as it goes; a
+ * job that fails or is cut short by a restart keeps that record, and when the
+ * same user requests it again it resumes where it stopped.
+ *
+ * @author agent
+ */
+public interface JobService {
+
+    /**
+     * The JCR observation user data attached to the intermediate batches of
+     * a job, whose events are not published
+     */
+    String BULK_OPERATION = "fcrepo:bulk-operation";
+
+    /**
+     * Start deleting the object at the given path and everything beneath it.
+     * The subtree is removed bottom-up, and only the removal of the object
+     * itself is published as an event.
+     *
+     * @param session the session requesting the delete, which must be
+     *        allowed to remove the object; the job runs as its user, and the
+     *        session remains the caller's to log out
+     * @param path
+     * @param userData the observation user data to publish the removal with,
+     *        or null
+     * @return the job, or the user's job already deleting that path
+     * @throws RepositoryException
+     */
+    Job deleteObject(Session session, String path, String userData) throws RepositoryException;
+
+    /**
+     * Start copying the object at the given path and everything beneath it.
+     * The copy is made parents first, and shares the source's binary content
+     * rather than storing it again. References within the copy to nodes of
+     * the source are pointed at their copies. Subtrees of up to a batch of
+     * nodes are copied whole and keep their sources' jcr:created and
+     * jcr:createdBy; the nodes above them are added one at a time, and are
+     * created by the copy.
+     *
+     * @param session the session requesting the copy; the job runs as its
+     *        user, and the session remains the caller's to log out
+     * @param source
+     * @param destination the path of the copy, whose parent must exist
+     * @param userData the observation user data to publish the copy with,
+     *        or null
+     * @return the job, or the user's job already making that copy
+     * @throws RepositoryException
+     */
+    Job copyObject(Session session, String source, String destination, String userData)
+        throws RepositoryException;
+
+    /**
+     * Start moving the object at the given path and everything beneath it.
+     * Every node keeps its identifier, creation and version history, so
+     * references into the subtree still hold.
+     *
+     * @param session the session requesting the move, which must be allowed
+     *        to remove the object; the job runs as its user, and the session
+     *        remains the caller's to log out
+     * @param source
+     * @param destination the path to move to, whose parent must exist
+     * @param userData the observation user data to publish the move with,
+     *        or null
+     * @return the job, or the user's job already making that move
+     * @throws RepositoryException
+     */
+    Job moveObject(Session session, String source, String destination, String userData)
+        throws RepositoryException;
+
+    /**
+     * Whether the subtree at the given path is large enough that copying or
+     * moving it should be left to a job
+     *
+     * @param session
+     * @param path
+     * @return true if the subtree has more nodes than the threshold
+     * @throws RepositoryException
+     */
+    boolean exceedsThreshold(Session session, String path) throws RepositoryException;
+
+    /**
+     * Get a running or recently finished job of the session's user
+     *
+     * @param session
+     * @param id
+     * @return the job, or null if the user has no such job
+     */
+    Job getJob(Session session, String id);
+}
@@ -58,7 +58,7 @@ public interface NodeService extends Service {
      *
      * @param session
      * @param path
-     * @param versionId a version label
+     * @param versionId a version label or the identifier of a frozen node
      * @return FedoraResource with version label
      * @throws RepositoryException
      */
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.utils;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * The outcome of the background audit's last check of a binary
+ *
+ * @author agent
+ */
+public class FixityAuditRecord {
+
+    private final String path;
+
+    private final Date checked;
+
+    private final Set<String> states;
+
+    private final boolean good;
+
+    /**
+     * @param path the path of the binary's content node when it was checked
+     * @param checked when the binary was checked
+     * @param states the fixity states found in its copies
+     * @param good whether a good copy of the binary was found
+     */
+    public FixityAuditRecord(final String path, final Date checked, final Set<String> states,
+            final boolean good) {
+        this.path = path;
+        this.checked = new Date(checked.getTime());
+        this.states = unmodifiableSet(states);
+        this.good = good;
+    }
+
+    /**
+     * @return the path of the binary's content node when it was checked
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return when the binary was checked
+     */
+    public Date getChecked() {
+        return new Date(checked.getTime());
+    }
+
+    /**
+     * @return the fixity states found in the binary's copies
+     */
+    public Set<String> getStates() {
+        return states;
+    }
+
+    /**
+     * @return whether a good copy of the binary was found
+     */
+    public boolean isGood() {
+        return good;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.utils;
+
+import java.net.URI;
+import java.util.Map;
+
+import javax.jcr.Binary;
+
+/**
+ * Content that has been written to the binary store but not yet attached to
+ * a datastream, along with the digests computed while it was read.
+ *
+ * @author agent
+ */
+public class StoredContent {
+
+    private final Binary binary;
+
+    private final Map<String, URI> digests;
+
+    /**
+     * @param binary
+     * @param digests digest URIs by algorithm, SHA-1 first
+     */
+    public StoredContent(final Binary binary, final Map<String, URI> digests) {
+        this.binary = binary;
+        this.digests = digests;
+    }
+
+    /**
+     * @return the stored binary
+     */
+    public Binary getBinary() {
+        return binary;
+    }
+
+    /**
+     * @return digest URIs by algorithm, SHA-1 first
+     */
+    public Map<String, URI> getDigests() {
+        return digests;
+    }
+}
@@ -46,4 +46,12 @@ public class ContentDigestTest {
         assertEquals("Failed to produce a proper digest algorithm!", "SHA-1",
                 getAlgorithm(asURI("SHA-1", "fake")));
     }
+
+    @Test
+    public void testSHA256AndMD5() {
+        assertEquals(create("urn:sha256:fake"), asURI("SHA-256", "fake"));
+        assertEquals(create("urn:md5:fake"), asURI("MD5", "fake"));
+        assertEquals("SHA-256", getAlgorithm(create("urn:sha256:fake")));
+        assertEquals("MD5", getAlgorithm(create("urn:md5:fake")));
+    }
 }
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.serialization;
+
+import javax.jcr.RepositoryException;
+
+import org.fcrepo.kernel.impl.rdf.impl.DefaultIdentifierTranslator;
+
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * An {@link org.fcrepo.kernel.rdf.IdentifierTranslator} for archives, which
+ * identifies resources by their path relative to the node an archive was
+ * exported from or is imported into, so that an archive can be imported
+ * anywhere in a repository. A resource outside the exported subtree keeps
+ * its repository path, beneath {@link #OUTSIDE}, so that on import it is
+ * not mistaken for a resource of the subtree.
+ *
+ * @author agent
+ */
+public class ArchiveIdentifierTranslator extends DefaultIdentifierTranslator {
+
+    /**
+     * The archive path beneath which resources outside the subtree are
+     * identified by their repository path
+     */
+    public static final String OUTSIDE = "/fcr:repository";
+
+    private final String base;
+
+    /**
+     * @param base the path that resources are identified relative to
+     */
+    public ArchiveIdentifierTranslator(final String base) {
+        this.base = base;
+    }
+
+    @Override
+    public Resource getSubject(final String absPath) throws RepositoryException {
+        return super.getSubject(toArchivePath(absPath));
+    }
+
+    @Override
+    public String getPathFromSubject(final Resource subject) throws RepositoryException {
+        final String archivePath = super.getPathFromSubject(subject);
+
+        if (archivePath == null) {
+            return null;
+        }
+
+        try {
+            return fromArchivePath(archivePath);
+        } catch (final IllegalArgumentException e) {
+            throw new RepositoryException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Translate a repository path into a path relative to the base
+     * @param absPath
+     * @return the path, starting with "/", of the node relative to the base,
+     *         or its repository path beneath {@link #OUTSIDE} if the node is
+     *         not beneath the base
+     */
+    public String toArchivePath(final String absPath) {
+        if (base.equals("/")) {
+            return absPath;
+        } else if (absPath.equals(base)) {
+            return "/";
+        } else if (absPath.startsWith(base + "/")) {
+            return absPath.substring(base.length());
+        }
+        return absPath.equals("/") ? OUTSIDE : OUTSIDE + absPath;
+    }
+
+    /**
+     * Translate a path relative to the base into a repository path
+     * @param archivePath
+     * @return the repository path
+     * @throws IllegalArgumentException if the path has "." or ".." segments
+     */
+    public String fromArchivePath(final String archivePath) {
+        for (final String segment : archivePath.substring(1).split("/", -1)) {
+            if (segment.equals(".") || segment.equals("..")) {
+                throw new IllegalArgumentException("Relative segments are not allowed in " + archivePath);
+            }
+        }
+
+        if (isOutside(archivePath)) {
+            return archivePath.equals(OUTSIDE) ? "/" : archivePath.substring(OUTSIDE.length());
+        } else if (base.equals("/")) {
+            return archivePath;
+        } else if (archivePath.equals("/")) {
+            return base;
+        }
+        return base + archivePath;
+    }
+
+    /**
+     * @param archivePath
+     * @return whether the archive path is of a resource outside the subtree
+     */
+    public static boolean isOutside(final String archivePath) {
+        return archivePath.equals(OUTSIDE) || archivePath.startsWith(OUTSIDE + "/");
+    }
+}
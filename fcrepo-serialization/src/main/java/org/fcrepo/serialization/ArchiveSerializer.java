@@ -0,0 +1,524 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.serialization;
+
+import static com.google.common.base.Predicates.not;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.zip.Deflater.BEST_SPEED;
+import static java.util.zip.Deflater.NO_COMPRESSION;
+import static org.apache.jena.riot.Lang.NTRIPLES;
+import static org.apache.jena.riot.RDFDataMgr.writeTriples;
+import static org.fcrepo.jcr.FedoraJcrTypes.CONTENT_DIGESTS;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_BINARY;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_DATASTREAM;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_OBJECT;
+import static org.fcrepo.jcr.FedoraJcrTypes.PREMIS_FILE_NAME;
+import static org.fcrepo.kernel.utils.ContentDigest.getAlgorithm;
+import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
+import static org.modeshape.jcr.api.JcrConstants.JCR_MIME_TYPE;
+import static org.modeshape.jcr.api.JcrConstants.NT_RESOURCE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.Datastream;
+import org.fcrepo.kernel.FedoraObject;
+import org.fcrepo.kernel.FedoraResource;
+import org.fcrepo.kernel.exception.InvalidChecksumException;
+import org.fcrepo.kernel.utils.StoredContent;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Predicate;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Serialize a FedoraObject, and optionally its descendants, as a zip
+ * archive with an N-Triples entry for each resource and the content of
+ * each datastream stored once, uncompressed, under its digest.
+ *
+ * For a resource at path "a/b" relative to the parent of the exported node,
+ * the archive holds:
+ *  - a/b.ds
+ *      for datastreams, a properties file giving the content digest,
+ *      mime type and file name
+ *  - binaries/{algorithm}/{digest}
+ *      the content of the datastream, unless content with the same
+ *      digest is already in the archive
+ *  - a/b.nt
+ *      the triples of the resource, including those about its content
+ *      node, unless binaries are skipped
+ *
+ * On import, content is written to the binary store by a pool of workers
+ * while the properties are applied in order. The session is saved every
+ * few thousand resources; importing an archive again skips datastreams
+ * that already have the content the archive gives them, so an import that
+ * was interrupted can be resumed.
+ *
+ * @author agent
+ */
+@Component
+public class ArchiveSerializer extends BaseFedoraObjectSerializer {
+
+    private static final Logger LOGGER = getLogger(ArchiveSerializer.class);
+
+    public static final String ARCHIVE = "archive";
+
+    static final String BINARIES = "binaries/";
+
+    static final String DATASTREAM_SUFFIX = ".ds";
+
+    static final String RESOURCE_SUFFIX = ".nt";
+
+    static final String DIGEST = "digest";
+
+    static final String MIME_TYPE = "mimeType";
+
+    static final String FILE_NAME = "fileName";
+
+    private static final int CHECKPOINT_INTERVAL = parseInt(getProperty("fcrepo.import.checkpoint", "5000"));
+
+    private static final ExecutorService importWorkers = newFixedThreadPool(
+            parseInt(getProperty("fcrepo.import.workers", "4")),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-import-%d").build());
+
+    @Override
+    public String getKey() {
+        return ARCHIVE;
+    }
+
+    @Override
+    public String getMediaType() {
+        return "application/zip";
+    }
+
+    @Override
+    public void serialize(final FedoraObject obj,
+                          final OutputStream out,
+                          final boolean skipBinary,
+                          final boolean recurse)
+            throws RepositoryException, IOException {
+        final Node node = obj.getNode();
+        final String base = node.getDepth() == 0 ? "/" : node.getParent().getPath();
+        final ArchiveIdentifierTranslator subjects = new ArchiveIdentifierTranslator(base);
+
+        final ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(BEST_SPEED);
+        serialize(obj, zip, subjects, skipBinary, recurse, new HashSet<URI>());
+        zip.finish();
+    }
+
+    private void serialize(final FedoraResource resource,
+                           final ZipOutputStream zip,
+                           final ArchiveIdentifierTranslator subjects,
+                           final boolean skipBinary,
+                           final boolean recurse,
+                           final Set<URI> binaries) throws RepositoryException, IOException {
+        final Node node = resource.getNode();
+        final String name = subjects.toArchivePath(node.getPath()).substring(1);
+
+        if (resource instanceof Datastream) {
+            final Datastream datastream = (Datastream) resource;
+            final URI digest = datastream.getContentDigest();
+
+            final Properties descriptor = new Properties();
+            descriptor.setProperty(DIGEST, digest.toString());
+            descriptor.setProperty(MIME_TYPE, datastream.getMimeType());
+            if (datastream.getFilename() != null) {
+                descriptor.setProperty(FILE_NAME, datastream.getFilename());
+            }
+
+            zip.putNextEntry(new ZipEntry(name + DATASTREAM_SUFFIX));
+            descriptor.store(zip, null);
+            zip.closeEntry();
+
+            if (!skipBinary && binaries.add(digest)) {
+                // binaries are rarely compressible: they are written as they
+                // are, in one pass, as the size of a deflated entry follows it
+                zip.setLevel(NO_COMPRESSION);
+                zip.putNextEntry(new ZipEntry(binaryEntryName(digest)));
+                try (final InputStream content = datastream.getContent()) {
+                    ByteStreams.copy(content, zip);
+                }
+                zip.closeEntry();
+                zip.setLevel(BEST_SPEED);
+            }
+        }
+
+        zip.putNextEntry(new ZipEntry(name + RESOURCE_SUFFIX));
+        if (skipBinary && resource instanceof Datastream) {
+            // the content node is not exported, so neither is its description
+            final com.hp.hpl.jena.graph.Node contentSubject =
+                    subjects.getSubject(node.getPath() + "/" + JCR_CONTENT).asNode();
+            writeTriples(zip, resource.getTriples(subjects).filter(not(aboutSubject(contentSubject))));
+        } else {
+            writeTriples(zip, resource.getTriples(subjects));
+        }
+        zip.closeEntry();
+
+        if (!recurse || resource instanceof Datastream) {
+            return;
+        }
+
+        for (final NodeIterator children = node.getNodes(); children.hasNext();) {
+            final Node child = children.nextNode();
+
+            if (child.isNodeType(FEDORA_DATASTREAM)) {
+                serialize(dsService.asDatastream(child), zip, subjects, skipBinary, recurse, binaries);
+            } else if (child.isNodeType(FEDORA_OBJECT)) {
+                serialize(objService.getObject(child.getSession(), child.getPath()), zip, subjects, skipBinary,
+                        recurse, binaries);
+            }
+        }
+    }
+
+    @Override
+    public void deserialize(final Session session, final String path,
+            final InputStream stream) throws IOException, RepositoryException,
+        InvalidChecksumException {
+        new ArchiveImport(session, path).run(new ZipInputStream(stream));
+    }
+
+    /**
+     * The state of one import: the datastreams waiting for content, the
+     * content being stored, and where content already imported can be found
+     */
+    private class ArchiveImport {
+
+        private final Session session;
+
+        private final ArchiveIdentifierTranslator subjects;
+
+        private final Map<URI, List<PendingDatastream>> awaitingContent = new HashMap<>();
+
+        private final Map<URI, Future<StoredContent>> storedContent = new HashMap<>();
+
+        // a datastream holding each digest once it is attached, so that later
+        // datastreams with the same content share its binary
+        private final Map<URI, String> importedContent = new HashMap<>();
+
+        private final List<PendingDatastream> storing = new ArrayList<>();
+
+        private final List<File> spooled = new ArrayList<>();
+
+        private long resources = 0;
+
+        ArchiveImport(final Session session, final String path) {
+            this.session = session;
+            this.subjects = new ArchiveIdentifierTranslator(path);
+        }
+
+        void run(final ZipInputStream zip) throws IOException, RepositoryException, InvalidChecksumException {
+            try {
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    final String name = entry.getName();
+
+                    if (name.startsWith(BINARIES)) {
+                        readBinary(name, zip);
+                    } else if (name.endsWith(DATASTREAM_SUFFIX)) {
+                        readDatastream(name.substring(0, name.length() - DATASTREAM_SUFFIX.length()), zip);
+                    } else if (name.endsWith(RESOURCE_SUFFIX)) {
+                        readResource(name.substring(0, name.length() - RESOURCE_SUFFIX.length()), zip);
+                    } else {
+                        LOGGER.debug("Ignoring archive entry {}", name);
+                    }
+                }
+
+                attachContent();
+
+                for (final List<PendingDatastream> datastreams : awaitingContent.values()) {
+                    for (final PendingDatastream datastream : datastreams) {
+                        LOGGER.warn("No content for {} in archive", datastream.datastream.getPath());
+                    }
+                }
+            } finally {
+                for (final Future<StoredContent> content : storedContent.values()) {
+                    content.cancel(true);
+                }
+                for (final File file : spooled) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+        }
+
+        /**
+         * The repository path of an archive entry, which must lie beneath the
+         * path the archive is imported into
+         */
+        private String pathOf(final String name) throws IOException {
+            final String archivePath = "/" + name;
+
+            if (ArchiveIdentifierTranslator.isOutside(archivePath)) {
+                throw new IOException("Archive entry outside the import path: " + name);
+            }
+
+            try {
+                return subjects.fromArchivePath(archivePath);
+            } catch (final IllegalArgumentException e) {
+                throw new IOException("Archive entry outside the import path: " + name, e);
+            }
+        }
+
+        private void readDatastream(final String name, final InputStream entry) throws IOException,
+            RepositoryException {
+            final Properties descriptor = new Properties();
+            descriptor.load(entry);
+
+            final URI digest = asURI(descriptor.getProperty(DIGEST));
+            final String path = pathOf(name);
+
+            final Datastream datastream;
+
+            if (dsService.exists(session, path)) {
+                datastream = dsService.asDatastream(session.getNode(path));
+
+                if (datastream.hasContent() && digest.equals(datastream.getContentDigest())) {
+                    LOGGER.debug("Content of {} was already imported", path);
+                    return;
+                }
+            } else {
+                datastream = dsService.createDatastream(session, path);
+            }
+
+            final PendingDatastream pending = new PendingDatastream(datastream, digest,
+                    descriptor.getProperty(MIME_TYPE), descriptor.getProperty(FILE_NAME));
+
+            if (storedContent.containsKey(digest)) {
+                describe(pending);
+                storing.add(pending);
+            } else if (importedContent.containsKey(digest)) {
+                describe(pending);
+                final Datastream source = dsService.asDatastream(session.getNode(importedContent.get(digest)));
+                datastream.setContent(storedContentOf(source), digest);
+            } else {
+                if (!awaitingContent.containsKey(digest)) {
+                    awaitingContent.put(digest, new ArrayList<PendingDatastream>());
+                }
+                awaitingContent.get(digest).add(pending);
+            }
+        }
+
+        private void readBinary(final String name, final InputStream entry) throws IOException,
+            RepositoryException {
+            final URI digest = asURI("urn:" + name.substring(BINARIES.length()).replace('/', ':'));
+            final List<PendingDatastream> datastreams = awaitingContent.remove(digest);
+
+            if (datastreams == null) {
+                LOGGER.debug("No datastream needs the content {}", digest);
+                return;
+            }
+
+            // spool the content, so that the archive can be read on while it is stored
+            final File file = File.createTempFile("fcrepo-import", null);
+            spooled.add(file);
+            Files.copy(entry, file.toPath(), REPLACE_EXISTING);
+
+            final PendingDatastream first = datastreams.get(0);
+            final Callable<StoredContent> store = dsService.prepareContent(first.datastream, first.mimeType,
+                    first.fileName, Files.newInputStream(file.toPath()));
+            for (final PendingDatastream pending : datastreams.subList(1, datastreams.size())) {
+                describe(pending);
+            }
+
+            storedContent.put(digest, importWorkers.submit(new Callable<StoredContent>() {
+
+                @Override
+                public StoredContent call() throws Exception {
+                    try {
+                        return store.call();
+                    } finally {
+                        Files.deleteIfExists(file.toPath());
+                    }
+                }
+            }));
+            storing.addAll(datastreams);
+        }
+
+        private void readResource(final String name, final InputStream entry) throws IOException,
+            RepositoryException, InvalidChecksumException {
+            final String path = pathOf(name);
+
+            final FedoraResource resource;
+
+            if (!objService.exists(session, path)) {
+                resource = objService.createObject(session, path);
+            } else if (session.getNode(path).isNodeType(FEDORA_DATASTREAM)) {
+                resource = dsService.asDatastream(session.getNode(path));
+            } else {
+                resource = objService.getObject(session, path);
+            }
+
+            resource.replaceProperties(subjects, new FilterInputStream(entry) {
+
+                @Override
+                public void close() {
+                    // the archive is read on after this entry
+                }
+            }, NTRIPLES);
+
+            if (++resources % CHECKPOINT_INTERVAL == 0) {
+                attachContent();
+                session.save();
+                LOGGER.info("Imported {} resources", resources);
+            }
+        }
+
+        /**
+         * Wait for the content being stored, and attach it to its datastreams
+         */
+        private void attachContent() throws RepositoryException, InvalidChecksumException {
+            for (final PendingDatastream pending : storing) {
+                final Future<StoredContent> future = storedContent.get(pending.digest);
+                final StoredContent content;
+
+                try {
+                    content = future.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RepositoryException(e);
+                } catch (final ExecutionException e) {
+                    if (e.getCause() instanceof RepositoryException) {
+                        throw (RepositoryException) e.getCause();
+                    }
+                    throw new RepositoryException(e.getCause());
+                }
+
+                pending.datastream.setContent(content, pending.digest);
+                importedContent.put(pending.digest, pending.datastream.getPath());
+            }
+            // every content being stored belongs to a datastream in storing
+            storedContent.clear();
+            storing.clear();
+        }
+
+        /**
+         * Give a datastream's content node the mime type and file name from
+         * the archive, ahead of its content, so that the triples about the
+         * content node can be applied
+         */
+        private void describe(final PendingDatastream pending) throws RepositoryException {
+            final Node node = pending.datastream.getNode();
+            final Node contentNode =
+                    node.hasNode(JCR_CONTENT) ? node.getNode(JCR_CONTENT) : node.addNode(JCR_CONTENT, NT_RESOURCE);
+
+            if (contentNode.canAddMixin(FEDORA_BINARY)) {
+                contentNode.addMixin(FEDORA_BINARY);
+            }
+            if (pending.mimeType != null) {
+                contentNode.setProperty(JCR_MIME_TYPE, pending.mimeType);
+            }
+            if (pending.fileName != null) {
+                contentNode.setProperty(PREMIS_FILE_NAME, pending.fileName);
+            }
+        }
+    }
+
+    /**
+     * The content of a datastream, with the digests recorded for it, to be
+     * attached to another datastream
+     */
+    private static StoredContent storedContentOf(final Datastream datastream) throws RepositoryException {
+        final Map<String, URI> digests = new LinkedHashMap<>();
+        final Node contentNode = datastream.getContentNode();
+
+        if (contentNode.hasProperty(CONTENT_DIGESTS)) {
+            for (final Value value : contentNode.getProperty(CONTENT_DIGESTS).getValues()) {
+                final URI digest = URI.create(value.getString());
+                digests.put(getAlgorithm(digest), digest);
+            }
+        } else {
+            digests.put("SHA-1", datastream.getContentDigest());
+        }
+        return new StoredContent(datastream.getBinaryContent(), digests);
+    }
+
+    /**
+     * A datastream waiting for the content the archive gives it
+     */
+    private static class PendingDatastream {
+
+        private final Datastream datastream;
+
+        private final URI digest;
+
+        private final String mimeType;
+
+        private final String fileName;
+
+        PendingDatastream(final Datastream datastream, final URI digest, final String mimeType,
+                          final String fileName) {
+            this.datastream = datastream;
+            this.digest = digest;
+            this.mimeType = mimeType;
+            this.fileName = fileName;
+        }
+    }
+
+    static String binaryEntryName(final URI digest) {
+        return BINARIES + digest.getSchemeSpecificPart().replace(':', '/');
+    }
+
+    private static URI asURI(final String digest) throws IOException {
+        try {
+            return new URI(digest);
+        } catch (final URISyntaxException | NullPointerException e) {
+            throw new IOException("Invalid digest in archive: " + digest, e);
+        }
+    }
+
+    private static Predicate<Triple> aboutSubject(final com.hp.hpl.jena.graph.Node subject) {
+        return new Predicate<Triple>() {
+
+            @Override
+            public boolean apply(final Triple t) {
+                return t.getSubject().equals(subject);
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.serialization;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * <p>ArchiveIdentifierTranslatorTest class.</p>
+ *
+ * @author agent
+ */
+public class ArchiveIdentifierTranslatorTest {
+
+    private final ArchiveIdentifierTranslator testObj = new ArchiveIdentifierTranslator("/a/b");
+
+    @Test
+    public void testPathsInsideTheBase() {
+        assertEquals("/", testObj.toArchivePath("/a/b"));
+        assertEquals("/c/d", testObj.toArchivePath("/a/b/c/d"));
+        assertEquals("/a/b", testObj.fromArchivePath("/"));
+        assertEquals("/a/b/c/d", testObj.fromArchivePath("/c/d"));
+    }
+
+    @Test
+    public void testPathsOutsideTheBaseStayAbsolute() {
+        assertEquals("/fcr:repository/a/bc", testObj.toArchivePath("/a/bc"));
+        assertEquals("/fcr:repository/x", testObj.toArchivePath("/x"));
+        assertEquals("/fcr:repository", testObj.toArchivePath("/"));
+        assertEquals("/a/bc", testObj.fromArchivePath("/fcr:repository/a/bc"));
+        assertEquals("/x", new ArchiveIdentifierTranslator("/y").fromArchivePath("/fcr:repository/x"));
+        assertEquals("/", testObj.fromArchivePath("/fcr:repository"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParentSegmentsAreRejected() {
+        testObj.fromArchivePath("/c/../../x");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCurrentSegmentsAreRejected() {
+        testObj.fromArchivePath("/./c");
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright 2014 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.serialization;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static org.apache.jena.riot.Lang.NTRIPLES;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_BINARY;
+import static org.fcrepo.jcr.FedoraJcrTypes.FEDORA_DATASTREAM;
+import static org.fcrepo.serialization.ArchiveSerializer.DIGEST;
+import static org.fcrepo.serialization.ArchiveSerializer.MIME_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
+import static org.modeshape.jcr.api.JcrConstants.JCR_MIME_TYPE;
+import static org.modeshape.jcr.api.JcrConstants.NT_RESOURCE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import javax.jcr.Binary;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.Datastream;
+import org.fcrepo.kernel.FedoraObject;
+import org.fcrepo.kernel.rdf.IdentifierTranslator;
+import org.fcrepo.kernel.services.DatastreamService;
+import org.fcrepo.kernel.services.ObjectService;
+import org.fcrepo.kernel.utils.StoredContent;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * <p>ArchiveSerializerTest class.</p>
+ *
+ * @author agent
+ */
+public class ArchiveSerializerTest {
+
+    private static final URI digest = URI.create("urn:sha1:abc");
+
+    private ArchiveSerializer testObj;
+
+    @Mock
+    private ObjectService mockObjects;
+
+    @Mock
+    private DatastreamService mockDatastreams;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Node mockNode;
+
+    @Mock
+    private Node mockParent;
+
+    @Mock
+    private Node mockDsNode;
+
+    @Mock
+    private NodeIterator mockChildren;
+
+    @Mock
+    private FedoraObject mockObject;
+
+    @Mock
+    private Datastream mockDatastream;
+
+    @Mock
+    private Datastream mockOtherDatastream;
+
+    @Mock
+    private Binary mockBinary;
+
+    @Mock
+    private Node mockOtherDsNode;
+
+    @Mock
+    private Node mockContentNode;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        testObj = new ArchiveSerializer();
+        testObj.objService = mockObjects;
+        testObj.dsService = mockDatastreams;
+
+        when(mockObject.getNode()).thenReturn(mockNode);
+        when(mockNode.getDepth()).thenReturn(2);
+        when(mockNode.getParent()).thenReturn(mockParent);
+        when(mockParent.getPath()).thenReturn("/a");
+        when(mockNode.getPath()).thenReturn("/a/b");
+        when(mockDsNode.getPath()).thenReturn("/a/b/ds");
+        when(mockDsNode.isNodeType(FEDORA_DATASTREAM)).thenReturn(true);
+        when(mockDatastream.getNode()).thenReturn(mockDsNode);
+    }
+
+    @Test
+    public void testSerialize() throws Exception {
+        when(mockNode.getNodes()).thenReturn(mockChildren);
+        when(mockChildren.hasNext()).thenReturn(true, false);
+        when(mockChildren.nextNode()).thenReturn(mockDsNode);
+        when(mockDatastreams.asDatastream(mockDsNode)).thenReturn(mockDatastream);
+        when(mockObject.getTriples(any(IdentifierTranslator.class))).thenReturn(new RdfStream(
+                create(createURI("info:fedora/b"), createURI("info:title"), createLiteral("b")),
+                create(createURI("info:fedora/b/c"), createURI("info:title"), createLiteral("c"))));
+        when(mockDatastream.getTriples(any(IdentifierTranslator.class))).thenReturn(new RdfStream());
+        when(mockDatastream.getContentDigest()).thenReturn(digest);
+        when(mockDatastream.getMimeType()).thenReturn("text/plain");
+        when(mockDatastream.getContent()).thenReturn(new ByteArrayInputStream("content".getBytes(UTF_8)));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        testObj.serialize(mockObject, out, false, true);
+
+        // the content is read once
+        verify(mockDatastream).getContent();
+
+        final Map<String, String> entries = readArchive(out.toByteArray());
+        assertEquals("[b.nt, b/ds.ds, binaries/sha1/abc, b/ds.nt]", entries.keySet().toString());
+        assertTrue(entries.get("b.nt").contains("<info:fedora/b> <info:title> \"b\""));
+        assertTrue("Dropped triples about another subject!", entries.get("b.nt").contains("info:fedora/b/c"));
+        assertTrue(entries.get("b/ds.ds").contains(DIGEST + "=urn\\:sha1\\:abc"));
+        assertEquals("content", entries.get("binaries/sha1/abc"));
+
+        try (final ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                ByteStreams.toByteArray(zip);
+
+                if (entry.getName().startsWith("binaries/")) {
+                    // written without compression
+                    assertTrue(entry.getCompressedSize() >= entry.getSize());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSerializeDatastreamWithSkipBinary() throws Exception {
+        when(mockNode.getNodes()).thenReturn(mockChildren);
+        when(mockChildren.hasNext()).thenReturn(true, false);
+        when(mockChildren.nextNode()).thenReturn(mockDsNode);
+        when(mockDatastreams.asDatastream(mockDsNode)).thenReturn(mockDatastream);
+        when(mockObject.getTriples(any(IdentifierTranslator.class))).thenReturn(new RdfStream());
+        when(mockDatastream.getContentDigest()).thenReturn(digest);
+        when(mockDatastream.getMimeType()).thenReturn("text/plain");
+        when(mockDatastream.getTriples(any(IdentifierTranslator.class))).thenReturn(new RdfStream(
+                create(createURI("info:fedora/b/ds"), createURI("info:title"), createLiteral("ds")),
+                create(createURI("info:fedora/b/ds/fcr:content"), createURI("info:title"), createLiteral("c"))));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        testObj.serialize(mockObject, out, true, true);
+
+        final Map<String, String> entries = readArchive(out.toByteArray());
+        assertEquals("[b.nt, b/ds.ds, b/ds.nt]", entries.keySet().toString());
+        assertTrue(entries.get("b/ds.nt").contains("<info:fedora/b/ds> <info:title> \"ds\""));
+        assertFalse(entries.get("b/ds.nt").contains("fcr:content"));
+        verify(mockDatastream, never()).getContent();
+    }
+
+    @Test
+    public void testSerializeWithSkipBinary() throws Exception {
+        when(mockObject.getTriples(any(IdentifierTranslator.class))).thenReturn(new RdfStream());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        testObj.serialize(mockObject, out, true, false);
+
+        assertEquals("[b.nt]", readArchive(out.toByteArray()).keySet().toString());
+        verify(mockNode, never()).getNodes();
+    }
+
+    @Test
+    public void testDeserialize() throws Exception {
+        final StoredContent stored = new StoredContent(mockBinary, new HashMap<String, URI>());
+
+        when(mockObjects.exists(mockSession, "/x/b")).thenReturn(false);
+        when(mockObjects.createObject(mockSession, "/x/b")).thenReturn(mockObject);
+        when(mockDatastreams.createDatastream(mockSession, "/x/b/ds")).thenReturn(mockDatastream);
+        when(mockDatastreams.createDatastream(mockSession, "/x/b/ds2")).thenReturn(mockOtherDatastream);
+        when(mockOtherDatastream.getNode()).thenReturn(mockOtherDsNode);
+        when(mockOtherDsNode.addNode(JCR_CONTENT, NT_RESOURCE)).thenReturn(mockContentNode);
+        when(mockContentNode.canAddMixin(FEDORA_BINARY)).thenReturn(true);
+        when(mockDatastreams.prepareContent(eq(mockDatastream), eq("text/plain"), (String) isNull(),
+                any(InputStream.class))).thenReturn(new Callable<StoredContent>() {
+
+                    @Override
+                    public StoredContent call() {
+                        return stored;
+                    }
+                });
+
+        testObj.deserialize(mockSession, "/x", new ByteArrayInputStream(archive(
+                "b.nt", "<info:fedora/b> <info:title> \"b\" .\n",
+                "b/ds.ds", descriptor(),
+                "binaries/sha1/abc", "content",
+                "b/ds2.ds", descriptor())));
+
+        verify(mockObject).replaceProperties(any(IdentifierTranslator.class), any(InputStream.class), eq(NTRIPLES));
+        verify(mockDatastream).setContent(stored, digest);
+        verify(mockDatastreams, never()).prepareContent(eq(mockOtherDatastream), anyString(), anyString(),
+                any(InputStream.class));
+        verify(mockContentNode).addMixin(FEDORA_BINARY);
+        verify(mockContentNode).setProperty(JCR_MIME_TYPE, "text/plain");
+        verify(mockOtherDatastream).setContent(stored, digest);
+    }
+
+    @Test
+    public void testDeserializeSkipsImportedContent() throws Exception {
+        when(mockDatastreams.exists(mockSession, "/x/b/ds")).thenReturn(true);
+        when(mockSession.getNode("/x/b/ds")).thenReturn(mockDsNode);
+        when(mockDatastreams.asDatastream(mockDsNode)).thenReturn(mockDatastream);
+        when(mockDatastream.hasContent()).thenReturn(true);
+        when(mockDatastream.getContentDigest()).thenReturn(digest);
+
+        testObj.deserialize(mockSession, "/x", new ByteArrayInputStream(archive(
+                "b/ds.ds", descriptor(),
+                "binaries/sha1/abc", "content")));
+
+        verify(mockDatastreams, never()).createDatastream(any(Session.class), anyString());
+        verify(mockDatastreams, never()).prepareContent(any(Datastream.class), anyString(), anyString(),
+                any(InputStream.class));
+        verify(mockDatastream, never()).setContent(any(StoredContent.class), any(URI.class));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDeserializeRejectsEntriesOutsideTheImportPath() throws Exception {
+        testObj.deserialize(mockSession, "/x", new ByteArrayInputStream(archive(
+                "b/../../y.nt", "")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDeserializeRejectsEntriesOfResourcesOutsideTheArchive() throws Exception {
+        testObj.deserialize(mockSession, "/x", new ByteArrayInputStream(archive(
+                "fcr:repository/y.ds", descriptor())));
+    }
+
+    @Test
+    public void testGetKey() {
+        assertEquals(ArchiveSerializer.ARCHIVE, testObj.getKey());
+    }
+
+    @Test
+    public void testGetMediaType() {
+        assertEquals("application/zip", testObj.getMediaType());
+    }
+
+    private static String descriptor() throws IOException {
+        final Properties descriptor = new Properties();
+        descriptor.setProperty(DIGEST, digest.toString());
+        descriptor.setProperty(MIME_TYPE, "text/plain");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        descriptor.store(out, null);
+        return out.toString("ISO-8859-1");
+    }
+
+    private static byte[] archive(final String... entries) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entries[i]));
+                zip.write(entries[i + 1].getBytes(UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> readArchive(final byte[] archive) throws IOException {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        try (final ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(ByteStreams.toByteArray(zip), UTF_8));
+            }
+        }
+        return entries;
+    }
+}